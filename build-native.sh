@@ -3,5 +3,18 @@
 # 設置 JAVA_TOOL_OPTIONS 環境變數增加記憶體
 export JAVA_TOOL_OPTIONS="-Xmx12g -XX:MaxMetaspaceSize=1g"
 
-# 清理並構建
-./gradlew clean nativeCompile
\ No newline at end of file
+set -e
+
+if [ "$1" = "--pgo" ]; then
+  # PGO 需要 Oracle GraalVM，GraalVM CE / Liberica NIK 不支援 --pgo-instrument
+  # 1. 以 standin profile 建置 instrumented 執行檔（Spring AOT 在建置時決定 @Profile bean）
+  ./gradlew clean nativeCompile -PpgoInstrument -PaotProfiles=standin
+  # 2. 執行啟動基準測試，結束時寫出 default.iprof
+  rm -f default.iprof
+  ./startup-benchmark.sh native 1
+  # 3. 以收集到的 profile 重新建置最佳化執行檔
+  ./gradlew nativeCompile -Ppgo="$(pwd)/default.iprof"
+else
+  # 清理並構建
+  ./gradlew clean nativeCompile
+fi
@@ -0,0 +1,118 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.dhatim.fastexcel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.cloud.compute.v1.Firewall;
+
+import io.github.samzhu.auditmate.audit.check.ByokCheck;
+import io.github.samzhu.auditmate.audit.check.FirewallCheck;
+import io.github.samzhu.auditmate.audit.check.IamCheck;
+import io.github.samzhu.auditmate.benchmark.SyntheticFixtures;
+
+/**
+ * Report generation through {@link AuditWorkbookWriter}: rows are spooled into the
+ * sheets exactly like the audit stages do, then streamed into a workbook written to a
+ * discarding stream, so only row spooling, population and xlsx encoding are measured.
+ *
+ * <p>
+ * The serial and parallel project workbooks feed the same rows, one sheet after the
+ * other or one thread per sheet, to show what feeding the sheets concurrently gains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuditWorkbookBenchmark {
+
+    @Param({ "10000" })
+    private int rows;
+
+    private final AuditWorkbookWriter auditWorkbookWriter = new AuditWorkbookWriter();
+    private final IamCheck iamCheck = new IamCheck(null, null, null, null, null);
+    private final ByokCheck byokCheck = new ByokCheck(null, null, null, null, null, null);
+    private final FirewallCheck firewallCheck = new FirewallCheck(null, null, null, null);
+
+    private List<IamMember> iamMembers;
+    private List<ByokKey> byokKeys;
+    private List<Firewall> firewalls;
+
+    @Setup
+    public void setUp() {
+        iamMembers = new ArrayList<>(IamCheck.generateIAMMap(SyntheticFixtures.iamPolicy(rows, 3)).values());
+        byokKeys = SyntheticFixtures.byokKeys(rows);
+        firewalls = SyntheticFixtures.firewalls(rows);
+    }
+
+    @Benchmark
+    public void firewallSheet() throws IOException {
+        try (AuditWorkbookWriter.ProjectSheets sheets = auditWorkbookWriter.openProjectSheets(List.of(firewallCheck));
+                Workbook workbook = newWorkbook()) {
+            feed(sheets.sinks().sinkFor(firewallCheck), firewalls);
+            sheets.writeTo(workbook);
+            workbook.finish();
+        }
+    }
+
+    @Benchmark
+    public void projectWorkbookSerial() throws IOException {
+        try (AuditWorkbookWriter.ProjectSheets sheets = auditWorkbookWriter.openProjectSheets(checks());
+                Workbook workbook = newWorkbook()) {
+            ProjectAuditSinks sinks = sheets.sinks();
+            feed(sinks.sinkFor(iamCheck), iamMembers);
+            feed(sinks.sinkFor(byokCheck), byokKeys);
+            feed(sinks.sinkFor(firewallCheck), firewalls);
+            sheets.writeTo(workbook);
+            workbook.finish();
+        }
+    }
+
+    @Benchmark
+    public void projectWorkbookParallel() throws Exception {
+        try (AuditWorkbookWriter.ProjectSheets sheets = auditWorkbookWriter.openProjectSheets(checks());
+                Workbook workbook = newWorkbook();
+                ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ProjectAuditSinks sinks = sheets.sinks();
+            List<Future<Void>> stages = List.of(
+                    executor.submit(() -> feed(sinks.sinkFor(iamCheck), iamMembers)),
+                    executor.submit(() -> feed(sinks.sinkFor(byokCheck), byokKeys)),
+                    executor.submit(() -> feed(sinks.sinkFor(firewallCheck), firewalls)));
+            for (Future<Void> stage : stages) {
+                stage.get();
+            }
+            sheets.writeTo(workbook);
+            workbook.finish();
+        }
+    }
+
+    private List<AuditCheck<?>> checks() {
+        return List.of(iamCheck, byokCheck, firewallCheck);
+    }
+
+    private static Workbook newWorkbook() {
+        return new Workbook(OutputStream.nullOutputStream(), "GcpAuditTool", "1.0");
+    }
+
+    private static <T> Void feed(StageSink<T> sink, List<T> rows) throws IOException {
+        for (T row : rows) {
+            sink.accept(row);
+        }
+        sink.complete(null);
+        return null;
+    }
+}
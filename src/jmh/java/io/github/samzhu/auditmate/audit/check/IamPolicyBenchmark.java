@@ -0,0 +1,62 @@
+package io.github.samzhu.auditmate.audit.check;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.iam.v1.Policy;
+
+import io.github.samzhu.auditmate.audit.IamMember;
+import io.github.samzhu.auditmate.benchmark.SyntheticFixtures;
+
+/**
+ * IAM policy processing: grouping the bindings by member, and building the normalized
+ * rows that differential audits compare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IamPolicyBenchmark {
+
+    @Param({ "10000", "50000" })
+    private int bindings;
+
+    @Param({ "3" })
+    private int membersPerBinding;
+
+    private final IamCheck iamCheck = new IamCheck(null, null, null, null, null);
+    private Policy policy;
+    private List<IamMember> members;
+
+    @Setup
+    public void setUp() {
+        policy = SyntheticFixtures.iamPolicy(bindings, membersPerBinding);
+        members = new ArrayList<>(IamCheck.generateIAMMap(policy).values());
+    }
+
+    @Benchmark
+    public Map<String, IamMember> generateIamMap() {
+        return IamCheck.generateIAMMap(policy);
+    }
+
+    @Benchmark
+    public List<List<String>> normalizedRows() {
+        List<List<String>> rows = new ArrayList<>(members.size());
+        for (IamMember member : members) {
+            if (iamCheck.isReported(member)) {
+                rows.add(iamCheck.normalize(iamCheck.cells(member)));
+            }
+        }
+        return rows;
+    }
+}
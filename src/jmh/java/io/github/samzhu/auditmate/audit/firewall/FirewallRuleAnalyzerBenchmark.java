@@ -0,0 +1,41 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.cloud.compute.v1.Firewall;
+
+import io.github.samzhu.auditmate.benchmark.SyntheticFixtures;
+
+/**
+ * Firewall analysis of large rule sets, should grow about linearly with the number of rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FirewallRuleAnalyzerBenchmark {
+
+    @Param({ "10000", "50000" })
+    private int rules;
+
+    private List<Firewall> firewalls;
+
+    @Setup
+    public void setUp() {
+        firewalls = SyntheticFixtures.firewallRules(rules);
+    }
+
+    @Benchmark
+    public List<FirewallFinding> analyze() {
+        return FirewallRuleAnalyzer.analyze(firewalls);
+    }
+}
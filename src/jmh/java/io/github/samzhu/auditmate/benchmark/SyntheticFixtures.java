@@ -0,0 +1,143 @@
+package io.github.samzhu.auditmate.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.cloud.compute.v1.Allowed;
+import com.google.cloud.compute.v1.Denied;
+import com.google.cloud.compute.v1.Firewall;
+import com.google.iam.v1.Binding;
+import com.google.iam.v1.Policy;
+import com.google.protobuf.ByteString;
+
+import io.github.samzhu.auditmate.audit.ByokKey;
+
+/**
+ * Synthetic audit inputs for the benchmarks, shaped like large real projects.
+ * Generated from a fixed seed so every run measures the same data.
+ */
+public final class SyntheticFixtures {
+
+    private static final long SEED = 20250101L;
+
+    private SyntheticFixtures() {
+    }
+
+    /**
+     * IAM policy with one binding per role, members are drawn from a shared pool so most
+     * members hold several roles, like groups granted many custom roles
+     *
+     * @param bindings          number of bindings
+     * @param membersPerBinding members of each binding
+     */
+    public static Policy iamPolicy(int bindings, int membersPerBinding) {
+        Random random = new Random(SEED);
+        int memberPool = Math.max(1, bindings / 5);
+        Policy.Builder policy = Policy.newBuilder()
+                .setVersion(3)
+                .setEtag(ByteString.copyFromUtf8("BwXhqDZ8a1s="));
+        for (int i = 0; i < bindings; i++) {
+            Binding.Builder binding = Binding.newBuilder().setRole("projects/demo-project/roles/customRole" + i);
+            for (int j = 0; j < membersPerBinding; j++) {
+                binding.addMembers(member(random.nextInt(memberPool)));
+            }
+            policy.addBindings(binding);
+        }
+        return policy.build();
+    }
+
+    private static String member(int index) {
+        return switch (index % 4) {
+            case 0 -> "user:user" + index + "@example.com";
+            case 1 -> "group:team" + index + "@example.com";
+            case 2 -> "serviceAccount:sa" + index + "@demo-project.iam.gserviceaccount.com";
+            default -> "domain:example" + index + ".com";
+        };
+    }
+
+    /**
+     * VPC firewall rules with a few source ranges each
+     */
+    public static List<Firewall> firewalls(int count) {
+        Random random = new Random(SEED);
+        List<Firewall> firewalls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            firewalls.add(Firewall.newBuilder()
+                    .setName("allow-app-" + i)
+                    .setDirection(i % 5 == 0 ? "EGRESS" : "INGRESS")
+                    .addSourceRanges(cidr(random))
+                    .addSourceRanges(cidr(random))
+                    .addDestinationRanges(cidr(random))
+                    .setDescription("Allow application tier " + i + " traffic from the load balancers")
+                    .setFingerprint(Long.toHexString(random.nextLong()))
+                    .setCreationTimestamp("2024-06-01T08:00:00.000-07:00")
+                    .build());
+        }
+        return firewalls;
+    }
+
+    /**
+     * VPC firewall rules as the firewall analysis sees them: priorities, allowed and denied
+     * ports, target tags and a mix of narrow, broad and internet-wide source ranges spread
+     * over a few networks
+     */
+    public static List<Firewall> firewallRules(int count) {
+        Random random = new Random(SEED);
+        List<Firewall> firewalls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Firewall.Builder firewall = Firewall.newBuilder()
+                    .setName("rule-" + i)
+                    .setNetwork("projects/demo-project/global/networks/vpc-" + (i % 8))
+                    .setDirection(i % 10 == 0 ? "EGRESS" : "INGRESS")
+                    .setPriority(100 * (1 + random.nextInt(20)))
+                    .addTargetTags("tier-" + random.nextInt(50));
+            String range = switch (random.nextInt(20)) {
+                case 0 -> "0.0.0.0/0";
+                case 1, 2 -> "10." + random.nextInt(256) + ".0.0/16";
+                default -> cidr(random);
+            };
+            if (firewall.getDirection().equals("EGRESS")) {
+                firewall.addDestinationRanges(range);
+            } else {
+                firewall.addSourceRanges(range);
+            }
+            int port = 1024 + random.nextInt(1000);
+            if (random.nextInt(10) == 0) {
+                firewall.addDenied(Denied.newBuilder().setIPProtocol("tcp").addPorts(port + "-" + (port + 100)));
+            } else {
+                firewall.addAllowed(Allowed.newBuilder().setIPProtocol("tcp").addPorts(String.valueOf(port)));
+            }
+            firewalls.add(firewall.build());
+        }
+        return firewalls;
+    }
+
+    private static String cidr(Random random) {
+        return "10." + random.nextInt(256) + "." + random.nextInt(256) + ".0/24";
+    }
+
+    /**
+     * Imported Cloud KMS keys
+     */
+    public static List<ByokKey> byokKeys(int count) {
+        List<ByokKey> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(new ByokKey(
+                    "projects/demo-project/locations/asia-east1/keyRings/ring" + (i / 100) + "/cryptoKeys/key" + i,
+                    "ENCRYPT_DECRYPT",
+                    "ENABLED",
+                    "Customer"));
+        }
+        return keys;
+    }
+
+    /**
+     * Incompressible report content, an xlsx file is already a zip archive
+     */
+    public static byte[] reportContent(int size) {
+        byte[] content = new byte[size];
+        new Random(SEED).nextBytes(content);
+        return content;
+    }
+}
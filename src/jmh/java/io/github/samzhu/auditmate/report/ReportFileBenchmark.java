@@ -0,0 +1,84 @@
+package io.github.samzhu.auditmate.report;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.github.samzhu.auditmate.benchmark.SyntheticFixtures;
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+
+/**
+ * Publishing a written report: the atomic move into the reports directory, and the two
+ * resource fallbacks, kept in memory when no directory is writable and kept in the temp
+ * file when the move fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportFileBenchmark {
+
+    @Param({ "1048576", "16777216" })
+    private int reportBytes;
+
+    private byte[] content;
+    private Path directory;
+    private ReportResourceStore resources;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = SyntheticFixtures.reportContent(reportBytes);
+        directory = Files.createTempDirectory("auditmate-report-benchmark");
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getReports().setSpillDirectory(directory.resolve("spill").toString());
+        resources = new ReportResourceStore(properties, event -> {
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        resources.destroy();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public PublishedReport publishOnDisk() throws IOException {
+        return publish(ReportFile.onDisk(Files.createTempFile(directory, "report", ".tmp"),
+                directory.resolve("report.xlsx"), resources));
+    }
+
+    @Benchmark
+    public PublishedReport publishInMemory() throws IOException {
+        return publish(ReportFile.inMemory("report.xlsx", resources));
+    }
+
+    @Benchmark
+    public PublishedReport publishFallbackToTempFile() throws IOException {
+        // The target directory does not exist, so the move fails and the temp file becomes the resource
+        return publish(ReportFile.onDisk(Files.createTempFile(directory, "report", ".tmp"),
+                directory.resolve("missing").resolve("report.xlsx"), resources));
+    }
+
+    private PublishedReport publish(ReportFile reportFile) throws IOException {
+        try (reportFile) {
+            reportFile.outputStream().write(content);
+            return reportFile.publish();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.core.Ordered;
+
+/**
+ * An audit check, producing the rows of one report sheet per project.
+ *
+ * <p>
+ * Checks are discovered as Spring beans by {@link ProjectAuditCollector}, which runs
+ * independent checks of a project concurrently. A check declares the checks it depends on,
+ * the APIs it needs and how many projects it may check at the same time; its
+ * {@link #getOrder() order} fixes the position of its sheet in the report.
+ *
+ * @param <T> row type
+ */
+public interface AuditCheck<T> extends Ordered {
+
+    /**
+     * Cell value of empty or unavailable data
+     */
+    String NONE = "None";
+
+    /**
+     * Stable check ID, used in configuration keys and snapshot names
+     */
+    String id();
+
+    /**
+     * Report sheet layout
+     */
+    SheetSchema schema();
+
+    /**
+     * Summary sheet header of the row count, e.g. "IAM Members"
+     */
+    String rowLabel();
+
+    /**
+     * IDs of the checks that must have succeeded before this check starts
+     */
+    default Set<String> dependsOn() {
+        return Set.of();
+    }
+
+    /**
+     * Services the check calls in the audited project, the check is skipped when one is disabled
+     */
+    default Set<String> requiredServices() {
+        return Set.of();
+    }
+
+    /**
+     * Maximum number of projects checked at the same time, 0 for no limit.
+     * Can be overridden by {@code auditmate.checks.max-concurrent-projects.<id>}.
+     */
+    default int maxConcurrentProjects() {
+        return 0;
+    }
+
+    /**
+     * Collect the rows of a project
+     *
+     * @param projectId GCP project ID
+     * @param sink      receives the rows as soon as they are collected
+     */
+    void collect(String projectId, StageSink<T> sink) throws Exception;
+
+    /**
+     * Whether a collected row appears in the report
+     */
+    default boolean isReported(T row) {
+        return true;
+    }
+
+    /**
+     * Cell values of a reported row, in column order
+     */
+    List<String> cells(T row);
+
+    /**
+     * Cells of the placeholder row of a failed or empty check
+     *
+     * @param failure     check failure, null when the check succeeded
+     * @param reportedRows number of rows written to the sheet
+     * @return placeholder cells, empty for no placeholder row
+     */
+    default List<String> placeholder(Exception failure, int reportedRows) {
+        return failure != null || reportedRows == 0 ? schema().noneRow() : List.of();
+    }
+
+    /**
+     * Whether a report row is the placeholder of a failed check, such a sheet cannot be compared
+     */
+    default boolean isFailurePlaceholder(List<String> cells) {
+        return false;
+    }
+
+    /**
+     * Normalize cells before comparing reports, e.g. to ignore the order of roles
+     */
+    default List<String> normalize(List<String> cells) {
+        return cells;
+    }
+
+    /**
+     * Risk of a reported row, the riskiest rows are listed first in summaries
+     *
+     * @return 0 for rows without a known risk, higher for riskier rows
+     */
+    default int riskScore(T row) {
+        return 0;
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.samzhu.auditmate.audit;
+
+/**
+ * Receives the progress of a project audit.
+ * Called on the stage threads, so implementations must be thread-safe.
+ */
+public interface AuditProgressListener {
+
+    /**
+     * Listener that ignores all progress
+     */
+    AuditProgressListener NONE = new AuditProgressListener() {
+    };
+
+    /**
+     * A check started collecting rows
+     */
+    default void checkStarted(String projectId, AuditCheck<?> check) {
+    }
+
+    /**
+     * A check collected another batch of rows, about one page
+     *
+     * @param rowCount rows collected so far
+     */
+    default void rowsCollected(String projectId, AuditCheck<?> check, int rowCount) {
+    }
+
+    /**
+     * A check ended
+     *
+     * @param rowCount rows collected
+     * @param failure  check failure, null when the check succeeded
+     */
+    default void checkFinished(String projectId, AuditCheck<?> check, int rowCount, Exception failure) {
+    }
+}
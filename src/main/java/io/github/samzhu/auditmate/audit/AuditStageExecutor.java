@@ -0,0 +1,32 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.time.Duration;
+
+/**
+ * Audit stage executor.
+ * Opens {@link AuditStageScope} instances that share the configured per-stage timeout.
+ */
+public class AuditStageExecutor {
+
+    private final Duration stageTimeout;
+
+    public AuditStageExecutor(Duration stageTimeout) {
+        if (stageTimeout == null || stageTimeout.isNegative() || stageTimeout.isZero()) {
+            throw new IllegalArgumentException("Audit stage timeout must be positive: " + stageTimeout);
+        }
+        this.stageTimeout = stageTimeout;
+    }
+
+    /**
+     * Open a new scope for the stages of one audit
+     *
+     * @return AuditStageScope instance, must be closed by the caller
+     */
+    public AuditStageScope openScope() {
+        return new AuditStageScope(stageTimeout);
+    }
+
+    public Duration getStageTimeout() {
+        return stageTimeout;
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.grpc.Context;
+
+/**
+ * Runs the stages of one audit concurrently, each on its own virtual thread.
+ *
+ * <p>
+ * Stages are isolated from each other: a failure or timeout is captured in the
+ * {@link StageOutcome} of that stage and never cancels the other stages. The timeout of
+ * a stage runs from when it starts its clock, so a stage waiting for the stages it depends
+ * on is not charged for their time.
+ * Closing the scope interrupts any stage that is still running and waits for it to
+ * end, because stages may still be writing into their report sheet.
+ *
+ * <p>
+ * Every stage runs in its own cancellable gRPC context. Cancelling a stage, or closing
+ * the scope, cancels its in-flight gRPC calls as well, since blocking gRPC calls do not
+ * react to thread interruption.
+ */
+public final class AuditStageScope implements AutoCloseable {
+
+    private static final Duration TERMINATION_GRACE_PERIOD = Duration.ofSeconds(30);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration stageTimeout;
+    private final List<Context.CancellableContext> contexts = new CopyOnWriteArrayList<>();
+
+    AuditStageScope(Duration stageTimeout) {
+        this.stageTimeout = stageTimeout;
+    }
+
+    /**
+     * Work of a stage that starts its own timeout clock, e.g. once the stages it depends on have finished
+     */
+    @FunctionalInterface
+    public interface ClockedTask<T> {
+
+        /**
+         * Collect the stage
+         *
+         * @param startClock starts the stage timeout, the timeout starts when the task ends if it is never run
+         */
+        T call(Runnable startClock) throws Exception;
+    }
+
+    /**
+     * Start a stage in the background, its timeout starts when the task starts the clock
+     *
+     * @param stageName stage name used in error messages
+     * @param task      collects the rows of the stage
+     * @return handle used to wait for the stage outcome
+     */
+    public <T> Stage<T> fork(String stageName, ClockedTask<T> task) {
+        Context.CancellableContext context = Context.current().withCancellation();
+        contexts.add(context);
+        Stage<T> stage = new Stage<>(stageName, context, stageTimeout);
+        stage.future = executor.submit(() -> {
+            try {
+                return context.call(() -> task.call(stage::startClock));
+            } finally {
+                // Waiters blocked on the clock only need the outcome now
+                stage.startClock();
+                context.cancel(null);
+            }
+        });
+        return stage;
+    }
+
+    @Override
+    public void close() {
+        // Stages still running here have timed out or the audit was cancelled, nobody will read their rows
+        contexts.forEach(context -> context.cancel(new CancellationException("Audit stage cancelled")));
+        executor.shutdownNow();
+        // A cancelled audit closes the scope from an interrupted thread, wait for the stages anyway so none
+        // outlives the audit, and restore the interrupt afterwards
+        boolean interrupted = Thread.interrupted();
+        long deadline = System.nanoTime() + TERMINATION_GRACE_PERIOD.toNanos();
+        try {
+            while (true) {
+                try {
+                    if (!executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        throw new IllegalStateException("Audit stages did not stop within " + TERMINATION_GRACE_PERIOD);
+                    }
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Handle of a running stage.
+     * The outcome is decided once: a stage awaited by its dependents and by the audit returns the same
+     * outcome to all of them, also after a timed out wait cancelled it.
+     */
+    public static final class Stage<T> {
+        private final String name;
+        private final Context.CancellableContext context;
+        private final Duration timeout;
+        private final CountDownLatch clockStarted = new CountDownLatch(1);
+        private final AtomicReference<StageOutcome<T>> outcome = new AtomicReference<>();
+        private volatile Future<T> future;
+        private volatile long deadlineNanos;
+
+        private Stage(String name, Context.CancellableContext context, Duration timeout) {
+            this.name = name;
+            this.context = context;
+            this.timeout = timeout;
+        }
+
+        /**
+         * Wait for the stage until its deadline
+         *
+         * @return outcome holding either the collected value or the failure
+         */
+        public StageOutcome<T> await() {
+            StageOutcome<T> decided = outcome.get();
+            if (decided != null) {
+                return decided;
+            }
+            try {
+                // The deadline only exists once the stage started its clock
+                clockStarted.await();
+                long remainingNanos = Math.max(deadlineNanos - System.nanoTime(), 0);
+                return decide(StageOutcome.success(name, future.get(remainingNanos, TimeUnit.NANOSECONDS)));
+            } catch (TimeoutException e) {
+                StageOutcome<T> timedOut = decide(StageOutcome.failure(name, new TimeoutException(
+                        String.format("Audit stage %s did not finish within %s", name, timeout))));
+                cancel();
+                return timedOut;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                return decide(StageOutcome.failure(name, cause instanceof Exception exception ? exception : e));
+            } catch (CancellationException e) {
+                // Cancelled by a waiter that timed out, or by closing the scope
+                return decide(StageOutcome.failure(name, e));
+            } catch (InterruptedException e) {
+                // Only this waiter was interrupted, the stage itself keeps running until the scope closes
+                Thread.currentThread().interrupt();
+                decided = outcome.get();
+                return decided != null ? decided : StageOutcome.failure(name, e);
+            }
+        }
+
+        private void startClock() {
+            if (clockStarted.getCount() > 0) {
+                deadlineNanos = System.nanoTime() + timeout.toNanos();
+                clockStarted.countDown();
+            }
+        }
+
+        /**
+         * Keep the first outcome decided, a later waiter may only see the cancellation of a timed out stage
+         */
+        private StageOutcome<T> decide(StageOutcome<T> candidate) {
+            return outcome.compareAndSet(null, candidate) ? candidate : outcome.get();
+        }
+
+        /**
+         * Interrupt the stage and cancel its in-flight gRPC calls
+         */
+        private void cancel() {
+            context.cancel(new CancellationException("Audit stage " + name + " cancelled"));
+            future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.diff.AuditChange;
+import io.github.samzhu.auditmate.dto.GcpAuditResult;
+
+/**
+ * Writes collected audit data into the report workbook.
+ *
+ * <p>
+ * A single project report has one sheet per {@link AuditCheck}, laid out by its
+ * {@link SheetSchema}. Each check spools its rows to a temporary file of its own sheet
+ * while it runs, and the audit thread streams the spooled sheets into the workbook once
+ * the checks are done. Stages therefore never wait for the zip output of another sheet,
+ * and sheets are flushed to the output every {@value #FLUSH_ROW_INTERVAL} rows so memory
+ * stays flat however many rows a project has. A consolidated report starts with a Summary
+ * sheet and prefixes every check sheet with a Project ID column. Sheets always appear
+ * in check order, whichever check finished first. A differential report has a single
+ * Delta sheet listing changed rows.
+ */
+@Component
+public class AuditWorkbookWriter {
+
+    private static final String SUMMARY_SHEET = "Summary";
+    private static final String DELTA_SHEET = "Delta";
+    private static final int PROJECT_COLUMN_WIDTH = 30;
+    private static final int FLUSH_ROW_INTERVAL = 1000;
+    private static final String SPOOL_FILE_PREFIX = "auditmate-sheet-";
+    private static final String SPOOL_FILE_SUFFIX = ".tmp";
+    private static final int NULL_CELL = -1;
+
+    /**
+     * Open the sheets of a single project report, their sinks spool the rows of each check to a temporary file.
+     * The sinks may be fed concurrently, one thread per sheet.
+     *
+     * @param checks checks in sheet order
+     */
+    public ProjectSheets openProjectSheets(List<AuditCheck<?>> checks) throws IOException {
+        ProjectSheets sheets = new ProjectSheets();
+        try {
+            for (AuditCheck<?> check : checks) {
+                sheets.open(check);
+            }
+        } catch (IOException e) {
+            sheets.close();
+            throw e;
+        }
+        return sheets;
+    }
+
+    /**
+     * Write the sheets of a consolidated multi-project report
+     *
+     * @param workbook workbook to write to
+     * @param checks   checks in sheet order
+     * @param projects collected data per project
+     * @param results  audit status per project, in the same order as projects
+     */
+    public void writeConsolidatedSheets(Workbook workbook, List<AuditCheck<?>> checks,
+            List<ProjectAuditData> projects, List<GcpAuditResult> results) throws IOException {
+        writeSummarySheet(workbook, checks, projects, results);
+
+        // Sheets are written one after the other, failed checks are reported in the Summary sheet only
+        for (AuditCheck<?> check : checks) {
+            writeConsolidatedSheet(workbook, check, projects);
+        }
+    }
+
+    private <T> void writeConsolidatedSheet(Workbook workbook, AuditCheck<T> check, List<ProjectAuditData> projects)
+            throws IOException {
+        Worksheet sheet = workbook.newWorksheet(check.schema().sheetName());
+        setupSheetHeader(sheet, check.schema(), 1);
+
+        int rowNum = 1;
+        for (ProjectAuditData data : projects) {
+            for (T row : data.rowsOf(check)) {
+                rowNum = flushIfNeeded(sheet, rowNum,
+                        populateRow(sheet, rowNum, 1, data.projectId(), check, row));
+            }
+        }
+        sheet.finish();
+    }
+
+    /**
+     * Write the Delta sheet of a differential report
+     *
+     * @param workbook workbook to write to
+     * @param changes  changed rows of all checks
+     */
+    public void writeDeltaSheet(Workbook workbook, List<AuditChange> changes) throws IOException {
+        Worksheet sheet = workbook.newWorksheet(DELTA_SHEET);
+        sheet.value(0, 0, "Sheet");
+        sheet.value(0, 1, "Change");
+        sheet.value(0, 2, "Key");
+        sheet.value(0, 3, "Previous");
+        sheet.value(0, 4, "Current");
+
+        sheet.width(0, 15);
+        sheet.width(1, 10);
+        sheet.width(2, 50);
+        sheet.width(3, 60);
+        sheet.width(4, 60);
+
+        int rowNum = 1;
+        for (AuditChange change : changes) {
+            sheet.value(rowNum, 0, change.stage());
+            sheet.value(rowNum, 1, change.type().name());
+            sheet.value(rowNum, 2, change.key());
+            sheet.value(rowNum, 3, String.join(" | ", change.previous()));
+            sheet.value(rowNum, 4, String.join(" | ", change.current()));
+            sheet.style(rowNum, 3).wrapText(true).set();
+            sheet.style(rowNum, 4).wrapText(true).set();
+            rowNum = flushIfNeeded(sheet, rowNum, rowNum + 1);
+        }
+        if (changes.isEmpty()) {
+            sheet.value(rowNum, 0, AuditCheck.NONE);
+        }
+        sheet.finish();
+    }
+
+    /**
+     * Flush the written rows to the output every {@value #FLUSH_ROW_INTERVAL} rows
+     *
+     * @param rowNum     row number before the last write
+     * @param nextRowNum row number after the last write, equal to rowNum when the row was skipped
+     * @return nextRowNum
+     */
+    private int flushIfNeeded(Worksheet sheet, int rowNum, int nextRowNum) throws IOException {
+        if (nextRowNum > rowNum && (nextRowNum - 1) % FLUSH_ROW_INTERVAL == 0) {
+            sheet.flush();
+        }
+        return nextRowNum;
+    }
+
+    /**
+     * Write the per-project status summary
+     */
+    private void writeSummarySheet(Workbook workbook, List<AuditCheck<?>> checks, List<ProjectAuditData> projects,
+            List<GcpAuditResult> results) {
+        Worksheet sheet = workbook.newWorksheet(SUMMARY_SHEET);
+        sheet.value(0, 0, "Project ID");
+        sheet.value(0, 1, "Status");
+        sheet.width(0, PROJECT_COLUMN_WIDTH);
+        sheet.width(1, 15);
+        for (int c = 0; c < checks.size(); c++) {
+            sheet.value(0, 2 + c, checks.get(c).rowLabel());
+            sheet.width(2 + c, 15);
+        }
+        int errorColumn = 2 + checks.size();
+        sheet.value(0, errorColumn, "Error Message");
+        sheet.width(errorColumn, 60);
+
+        for (int i = 0; i < results.size(); i++) {
+            int rowNum = i + 1;
+            GcpAuditResult result = results.get(i);
+            ProjectAuditOutcome outcome = i < projects.size() ? projects.get(i).outcome() : null;
+
+            sheet.value(rowNum, 0, result.getProjectId());
+            sheet.value(rowNum, 1, result.getStatus());
+            if (outcome != null) {
+                for (int c = 0; c < outcome.checks().size(); c++) {
+                    sheet.value(rowNum, 2 + c, countOf(outcome.checks().get(c)));
+                }
+            }
+            if (result.getErrorMessage() != null) {
+                sheet.value(rowNum, errorColumn, result.getErrorMessage());
+            }
+        }
+    }
+
+    private String countOf(StageOutcome<Integer> outcome) {
+        return outcome.isSuccess() ? String.valueOf(outcome.value()) : "Failed";
+    }
+
+    /**
+     * Set the sheet header, consolidated sheets start with a Project ID column
+     */
+    private void setupSheetHeader(Worksheet sheet, SheetSchema schema, int offset) {
+        if (offset > 0) {
+            sheet.value(0, 0, "Project ID");
+            sheet.width(0, PROJECT_COLUMN_WIDTH);
+        }
+        List<SheetSchema.Column> columns = schema.columns();
+        for (int i = 0; i < columns.size(); i++) {
+            sheet.value(0, offset + i, columns.get(i).header());
+            sheet.width(offset + i, columns.get(i).width());
+        }
+    }
+
+    /**
+     * Populate the row of a check, rows the check does not report are skipped
+     *
+     * @return next free row number
+     */
+    private <T> int populateRow(Worksheet sheet, int rowNum, int offset, String projectId, AuditCheck<T> check, T row) {
+        if (!check.isReported(row)) {
+            return rowNum;
+        }
+        if (offset > 0) {
+            sheet.value(rowNum, 0, projectId);
+        }
+        populateCells(sheet, rowNum, offset, check.schema(), check.cells(row));
+        return rowNum + 1;
+    }
+
+    private void populateCells(Worksheet sheet, int rowNum, int offset, SheetSchema schema, List<String> cells) {
+        List<SheetSchema.Column> columns = schema.columns();
+        for (int i = 0; i < cells.size(); i++) {
+            sheet.value(rowNum, offset + i, cells.get(i));
+            if (i < columns.size() && columns.get(i).wrapText()) {
+                sheet.style(rowNum, offset + i).wrapText(true).set();
+            }
+        }
+    }
+
+    /**
+     * Spooled sheets of a single project report, closing them deletes their temporary files
+     */
+    public final class ProjectSheets implements Closeable {
+        private final List<SheetSpool<?>> spools = new ArrayList<>();
+        private final ProjectAuditSinks sinks = new ProjectAuditSinks();
+
+        private ProjectSheets() {
+        }
+
+        private <T> void open(AuditCheck<T> check) throws IOException {
+            SheetSpool<T> spool = new SheetSpool<>(check);
+            spools.add(spool);
+            sinks.put(check, spool);
+        }
+
+        /**
+         * Sinks of the checks, each spooling the rows of its sheet
+         */
+        public ProjectAuditSinks sinks() {
+            return sinks;
+        }
+
+        /**
+         * Stream the spooled sheets into the workbook in check order, once all stages have ended
+         */
+        public void writeTo(Workbook workbook) throws IOException {
+            for (SheetSpool<?> spool : spools) {
+                spool.writeTo(workbook);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (SheetSpool<?> spool : spools) {
+                try {
+                    spool.delete();
+                } catch (IOException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Sink that spools the reported rows of one check to a temporary file, as cell counts and length-prefixed UTF-8 cells
+     */
+    private final class SheetSpool<T> implements StageSink<T> {
+        private final AuditCheck<T> check;
+        private final Path file;
+        private final DataOutputStream output;
+        private int rowCount;
+        private List<String> placeholder;
+
+        SheetSpool(AuditCheck<T> check) throws IOException {
+            this.check = check;
+            this.file = Files.createTempFile(SPOOL_FILE_PREFIX, SPOOL_FILE_SUFFIX);
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        }
+
+        @Override
+        public void accept(T row) throws IOException {
+            if (!check.isReported(row)) {
+                return;
+            }
+            List<String> cells = check.cells(row);
+            output.writeInt(cells.size());
+            for (String cell : cells) {
+                if (cell == null) {
+                    output.writeInt(NULL_CELL);
+                    continue;
+                }
+                byte[] bytes = cell.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+            rowCount++;
+        }
+
+        @Override
+        public void complete(Exception failure) throws IOException {
+            placeholder = check.placeholder(failure, rowCount);
+            output.close();
+        }
+
+        void writeTo(Workbook workbook) throws IOException {
+            if (placeholder == null) {
+                // The stage was cancelled before it ran
+                complete(new CancellationException("Audit stage " + check.id() + " did not run"));
+            }
+            Worksheet sheet = workbook.newWorksheet(check.schema().sheetName());
+            setupSheetHeader(sheet, check.schema(), 0);
+
+            int rowNum = 1;
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (int row = 0; row < rowCount; row++) {
+                    populateCells(sheet, rowNum, 0, check.schema(), readCells(input));
+                    rowNum = flushIfNeeded(sheet, rowNum, rowNum + 1);
+                }
+            }
+            // Placeholder cells are plain text, never wrapped
+            for (int i = 0; i < placeholder.size(); i++) {
+                sheet.value(rowNum, i, placeholder.get(i));
+            }
+            sheet.finish();
+        }
+
+        private List<String> readCells(DataInputStream input) throws IOException {
+            int count = input.readInt();
+            List<String> cells = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = input.readInt();
+                cells.add(length == NULL_CELL ? null : new String(input.readNBytes(length), StandardCharsets.UTF_8));
+            }
+            return cells;
+        }
+
+        void delete() throws IOException {
+            output.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.samzhu.auditmate.audit;
+
+/**
+ * BYOK key row
+ *
+ * @param name      crypto key resource name
+ * @param type      key purpose, e.g. ENCRYPT_DECRYPT
+ * @param lifecycle state of the primary version
+ * @param manager   value of the "manager" label
+ */
+public record ByokKey(String name, String type, String lifecycle, String manager) {
+}
@@ -0,0 +1,29 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IAM member, used to store the member name and its role list
+ */
+public class IamMember {
+    private final String name;
+    private final List<String> roles;
+
+    public IamMember(String name) {
+        this.name = name;
+        this.roles = new ArrayList<>();
+    }
+
+    public void addRole(String role) {
+        roles.add(role);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.CryptoKeyVersion;
+import com.google.cloud.kms.v1.CryptoKeyVersion.CryptoKeyVersionState;
+import com.google.cloud.kms.v1.KeyManagementServiceClient;
+
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.grpc.Context;
+
+/**
+ * Resolves the lifecycle state of the primary version of crypto keys.
+ *
+ * <p>
+ * {@code listCryptoKeys} already returns the primary version, including its state,
+ * for most keys, so that state is used as is. Only the versions whose state is
+ * missing are fetched, once per version name and in parallel, instead of one
+ * blocking {@code getCryptoKeyVersion} call per key. The fetches hold permits of the
+ * concurrency limit of the {@link KmsKeyCrawler} crawl of the same project, so the KMS
+ * requests of one project audit stay within {@code auditmate.kms.max-concurrent-requests}.
+ */
+public class KeyLifecycleResolver {
+
+    /**
+     * Lifecycle reported for keys that have no primary version, e.g. asymmetric keys
+     */
+    public static final String NO_PRIMARY_VERSION = "None";
+
+    private final GcpCallGuard callGuard;
+
+    public KeyLifecycleResolver(GcpCallGuard callGuard) {
+        this.callGuard = callGuard;
+    }
+
+    /**
+     * Fetches one crypto key version
+     */
+    @FunctionalInterface
+    interface VersionFetcher {
+        CryptoKeyVersion fetch(String versionName);
+    }
+
+    /**
+     * Resolve the lifecycle of every given key
+     *
+     * @param client    KMS client
+     * @param projectId GCP project ID, whose KMS quota the fetches count against
+     * @param keys      crypto keys as returned by listCryptoKeys
+     * @param permits   KMS concurrency limit of the project audit, see {@link KmsKeyCrawler#newRequestLimit()}
+     * @return lifecycle state per crypto key name
+     */
+    public Map<String, String> resolve(KeyManagementServiceClient client, String projectId, List<CryptoKey> keys,
+            Semaphore permits) throws InterruptedException {
+        return resolve(projectId, keys, permits, client::getCryptoKeyVersion);
+    }
+
+    /**
+     * Resolve the lifecycle of every given key, fetching missing states with the given fetcher
+     */
+    Map<String, String> resolve(String projectId, List<CryptoKey> keys, Semaphore permits, VersionFetcher fetcher)
+            throws InterruptedException {
+        // Memo of this audit, keyed by version name, seeded with the states returned by the listing
+        Map<String, String> stateByVersion = new HashMap<>();
+        Set<String> missingVersions = new LinkedHashSet<>();
+
+        for (CryptoKey cryptoKey : keys) {
+            CryptoKeyVersion primary = cryptoKey.getPrimary();
+            if (primary.getName().isEmpty()) {
+                continue;
+            }
+            if (primary.getState() != CryptoKeyVersionState.CRYPTO_KEY_VERSION_STATE_UNSPECIFIED) {
+                stateByVersion.put(primary.getName(), primary.getState().toString());
+            } else {
+                missingVersions.add(primary.getName());
+            }
+        }
+        missingVersions.removeAll(stateByVersion.keySet());
+        stateByVersion.putAll(fetchStates(fetcher, projectId, missingVersions, permits));
+
+        Map<String, String> lifecycleByKey = new HashMap<>();
+        for (CryptoKey cryptoKey : keys) {
+            String primaryVersionName = cryptoKey.getPrimary().getName();
+            lifecycleByKey.put(cryptoKey.getName(),
+                    stateByVersion.getOrDefault(primaryVersionName, NO_PRIMARY_VERSION));
+        }
+        return lifecycleByKey;
+    }
+
+    /**
+     * Fetch the state of the given versions in parallel, bounded by the KMS concurrency limit
+     */
+    private Map<String, String> fetchStates(VersionFetcher fetcher, String projectId, Set<String> versionNames,
+            Semaphore permits) throws InterruptedException {
+        Map<String, String> states = new HashMap<>();
+        if (versionNames.isEmpty()) {
+            return states;
+        }
+
+        Map<String, Future<CryptoKeyVersion>> fetches = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        // Fetches run in the gRPC context of the caller, so cancelling the audit cancels their in-flight calls
+        Context context = Context.current();
+        try {
+            for (String versionName : versionNames) {
+                Callable<CryptoKeyVersion> fetch = () -> {
+                    permits.acquire();
+                    try {
+                        return callGuard.call(GcpCallGuard.KMS_API, "getCryptoKeyVersion", projectId,
+                                () -> fetcher.fetch(versionName));
+                    } finally {
+                        permits.release();
+                    }
+                };
+                fetches.put(versionName, executor.submit(context.wrap(fetch)));
+            }
+
+            for (Map.Entry<String, Future<CryptoKeyVersion>> fetch : fetches.entrySet()) {
+                states.put(fetch.getKey(), join(fetch.getValue()).getState().toString());
+            }
+        } finally {
+            // Stop the remaining fetches as soon as one of them failed
+            executor.shutdownNow();
+        }
+        return states;
+    }
+
+    private static CryptoKeyVersion join(Future<CryptoKeyVersion> fetch) throws InterruptedException {
+        try {
+            return fetch.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.KeyManagementServiceClient;
+import com.google.cloud.kms.v1.KeyRing;
+import com.google.cloud.kms.v1.ListCryptoKeysRequest;
+import com.google.cloud.kms.v1.ListKeyRingsRequest;
+import com.google.cloud.location.ListLocationsRequest;
+import com.google.cloud.location.Location;
+
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.grpc.Context;
+
+/**
+ * Cloud KMS inventory crawler.
+ *
+ * <p>
+ * Fans out over locations, key rings and crypto keys on virtual threads. Every
+ * KMS request of one crawl, including the paging of list calls, shares a single
+ * concurrency limit so that a project with dozens of regions does not flood the API.
+ * Keys are merged in listing order (location, key ring, key), so the output is
+ * deterministic no matter which request finishes first. Every page request also goes
+ * through the shared {@link GcpCallGuard}, which keeps the project under its KMS quota.
+ */
+public class KmsKeyCrawler {
+
+    private final int maxConcurrentRequests;
+    private final GcpCallGuard callGuard;
+
+    public KmsKeyCrawler(int maxConcurrentRequests, GcpCallGuard callGuard) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("KMS max concurrent requests must be at least 1: " + maxConcurrentRequests);
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.callGuard = callGuard;
+    }
+
+    /**
+     * Crawl all crypto keys of a project within a concurrency limit shared with other KMS requests
+     *
+     * @param client    KMS client
+     * @param projectId GCP project ID
+     * @param filter    selects the keys to keep
+     * @param permits   KMS concurrency limit of the project audit
+     * @return selected keys in listing order
+     */
+    public List<CryptoKey> crawl(KeyManagementServiceClient client, String projectId,
+            Predicate<CryptoKey> filter, Semaphore permits) throws InterruptedException {
+        try (Crawl crawl = new Crawl(client, projectId, filter, callGuard, permits)) {
+            return crawl.run(projectId);
+        }
+    }
+
+    /**
+     * New concurrency limit for the KMS requests of one project audit
+     */
+    public Semaphore newRequestLimit() {
+        return new Semaphore(maxConcurrentRequests);
+    }
+
+    /**
+     * State of a single crawl
+     */
+    private static final class Crawl implements AutoCloseable {
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        // Tasks run in the gRPC context of the caller, so cancelling the audit cancels their in-flight calls
+        private final Context context = Context.current();
+        private final KeyManagementServiceClient client;
+        private final String projectId;
+        private final Predicate<CryptoKey> filter;
+        private final GcpCallGuard callGuard;
+        private final Semaphore permits;
+
+        private Crawl(KeyManagementServiceClient client, String projectId, Predicate<CryptoKey> filter,
+                GcpCallGuard callGuard, Semaphore permits) {
+            this.client = client;
+            this.projectId = projectId;
+            this.filter = filter;
+            this.callGuard = callGuard;
+            this.permits = permits;
+        }
+
+        private List<CryptoKey> run(String projectId) throws InterruptedException {
+            ListLocationsRequest listLocationsRequest = ListLocationsRequest.newBuilder()
+                    .setName(String.format("projects/%s", projectId))
+                    .build();
+
+            List<Location> locations = limited(() -> callGuard.listAll(
+                    GcpCallGuard.KMS_API, "listLocations", projectId,
+                    () -> client.listLocations(listLocationsRequest).getPage()));
+
+            List<Future<List<CryptoKey>>> locationTasks = new ArrayList<>();
+            for (Location location : locations) {
+                locationTasks.add(fork(() -> crawlLocation(projectId, location.getLocationId())));
+            }
+            return joinAll(locationTasks);
+        }
+
+        private <T> Future<T> fork(Callable<T> task) {
+            return executor.submit(context.wrap(task));
+        }
+
+        private List<CryptoKey> crawlLocation(String projectId, String locationId) throws InterruptedException {
+            ListKeyRingsRequest listKeyRingsRequest = ListKeyRingsRequest.newBuilder()
+                    .setParent(String.format("projects/%s/locations/%s", projectId, locationId))
+                    .build();
+
+            List<KeyRing> keyRings = limited(() -> callGuard.listAll(
+                    GcpCallGuard.KMS_API, "listKeyRings", projectId,
+                    () -> client.listKeyRings(listKeyRingsRequest).getPage()));
+
+            List<Future<List<CryptoKey>>> keyRingTasks = new ArrayList<>();
+            for (KeyRing keyRing : keyRings) {
+                keyRingTasks.add(fork(() -> crawlKeyRing(keyRing)));
+            }
+            return joinAll(keyRingTasks);
+        }
+
+        private List<CryptoKey> crawlKeyRing(KeyRing keyRing) throws InterruptedException {
+            ListCryptoKeysRequest listCryptoKeysRequest = ListCryptoKeysRequest.newBuilder()
+                    .setParent(keyRing.getName())
+                    .build();
+
+            List<CryptoKey> cryptoKeys = limited(() -> callGuard.listAll(
+                    GcpCallGuard.KMS_API, "listCryptoKeys", projectId,
+                    () -> client.listCryptoKeys(listCryptoKeysRequest).getPage()));
+            List<CryptoKey> selected = new ArrayList<>();
+            for (CryptoKey cryptoKey : cryptoKeys) {
+                if (filter.test(cryptoKey)) {
+                    selected.add(cryptoKey);
+                }
+            }
+            return selected;
+        }
+
+        /**
+         * Run a KMS listing while holding a permit of the shared concurrency limit,
+         * its pages are rate limited and retried one by one by the call guard
+         */
+        private <R> R limited(Callable<R> request) throws InterruptedException {
+            permits.acquire();
+            try {
+                return request.call();
+            } catch (RuntimeException | InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                permits.release();
+            }
+        }
+
+        private List<CryptoKey> joinAll(List<Future<List<CryptoKey>>> tasks) throws InterruptedException {
+            List<CryptoKey> keys = new ArrayList<>();
+            for (Future<List<CryptoKey>> task : tasks) {
+                keys.addAll(join(task));
+            }
+            return keys;
+        }
+
+        /**
+         * Wait for a task and rethrow its failure unchanged, so callers can still
+         * catch specific API exceptions such as PermissionDeniedException
+         */
+        private static <R> R join(Future<R> task) throws InterruptedException {
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (cause instanceof InterruptedException interruptedException) {
+                    throw interruptedException;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        @Override
+        public void close() {
+            // Stop the remaining requests as soon as one branch of the crawl failed
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.github.samzhu.auditmate.quota.RetryBudget;
+import io.grpc.Context;
+
+/**
+ * Collects the audit data of one GCP project by scheduling the {@link AuditCheck} beans.
+ *
+ * <p>
+ * Every check runs on its own stage of an {@link AuditStageScope}, so independent checks
+ * run concurrently and the audit takes as long as the slowest chain of dependent checks.
+ * A check starts once the checks it depends on have succeeded, and waits for a permit
+ * when it is limited to a number of concurrently checked projects. Rows are handed to a
+ * {@link StageSink} as soon as each page arrives. Every audit ends with an
+ * {@link AuditMetrics.AuditSummary} of its stage times.
+ */
+@Component
+public class ProjectAuditCollector {
+
+    /**
+     * Progress is reported every this many rows, the page size of the largest listings
+     */
+    private static final int PROGRESS_ROW_INTERVAL = 500;
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final AuditStageExecutor auditStageExecutor;
+    private final ServiceEnablementProbe serviceEnablementProbe;
+    private final AuditMetrics auditMetrics;
+    private final List<AuditCheck<?>> checks;
+    private final List<AuditCheck<?>> startOrder;
+    private final Map<String, Semaphore> quotas = new HashMap<>();
+    private final int retryBudget;
+
+    public ProjectAuditCollector(List<AuditCheck<?>> checks, AuditStageExecutor auditStageExecutor,
+            ServiceEnablementProbe serviceEnablementProbe, AuditMetrics auditMetrics, AuditmateProperties properties) {
+        this.auditStageExecutor = auditStageExecutor;
+        this.serviceEnablementProbe = serviceEnablementProbe;
+        this.auditMetrics = auditMetrics;
+        this.checks = checks.stream()
+                .sorted(Comparator.comparingInt((AuditCheck<?> check) -> check.getOrder()).thenComparing(check -> check.id()))
+                .toList();
+        this.startOrder = dependencyOrder(this.checks);
+        this.retryBudget = properties.getRateLimit().getRetryBudget();
+
+        Map<String, Integer> configuredQuotas = properties.getChecks().getMaxConcurrentProjects();
+        for (AuditCheck<?> check : this.checks) {
+            int permits = configuredQuotas.getOrDefault(check.id(), check.maxConcurrentProjects());
+            if (permits > 0) {
+                quotas.put(check.id(), new Semaphore(permits, true));
+            }
+        }
+    }
+
+    /**
+     * Checks in sheet order
+     */
+    public List<AuditCheck<?>> checks() {
+        return checks;
+    }
+
+    /**
+     * Collect all checks of a project into the given sinks
+     *
+     * @param projectId GCP project ID
+     * @param sinks     receive the rows of each check
+     * @return row count per check, failed checks are captured in their outcome
+     */
+    public ProjectAuditOutcome collect(String projectId, ProjectAuditSinks sinks) {
+        return collect(projectId, sinks, AuditProgressListener.NONE);
+    }
+
+    /**
+     * Collect all checks of a project into the given sinks and report progress
+     *
+     * @param projectId GCP project ID
+     * @param sinks     receive the rows of each check
+     * @param listener  receives the progress of each check
+     * @return row count per check, failed checks are captured in their outcome
+     */
+    public ProjectAuditOutcome collect(String projectId, ProjectAuditSinks sinks, AuditProgressListener listener) {
+        // All stages of this audit inherit the context, so they spend one shared retry budget
+        Context previous = new RetryBudget(retryBudget).attachTo(Context.current()).attach();
+        long startedAt = System.nanoTime();
+        Map<String, Double> stageSeconds = new ConcurrentHashMap<>();
+        ProjectAuditOutcome outcome = null;
+        try (AuditStageScope scope = auditStageExecutor.openScope()) {
+            // Dependencies are forked first, so every check can wait on the stages it depends on
+            Map<String, AuditStageScope.Stage<Integer>> stages = new HashMap<>();
+            for (AuditCheck<?> check : startOrder) {
+                List<AuditStageScope.Stage<Integer>> dependencies = check.dependsOn().stream()
+                        .map(stages::get)
+                        .toList();
+                stages.put(check.id(), scope.fork(check.schema().sheetName(),
+                        startClock -> runCheck(projectId, check, sinks, dependencies, listener, startClock,
+                                stageSeconds)));
+            }
+
+            List<StageOutcome<Integer>> outcomes = new ArrayList<>(checks.size());
+            for (AuditCheck<?> check : checks) {
+                outcomes.add(stages.get(check.id()).await());
+            }
+            outcome = new ProjectAuditOutcome(projectId, outcomes);
+            return outcome;
+        } finally {
+            Context.current().detach(previous);
+            recordSummary(projectId, startedAt, stageSeconds, outcome);
+        }
+    }
+
+    private void recordSummary(String projectId, long startedAt, Map<String, Double> stageSeconds,
+            ProjectAuditOutcome outcome) {
+        List<String> failedStages = new ArrayList<>();
+        Map<String, Double> orderedSeconds = new LinkedHashMap<>();
+        for (int i = 0; i < checks.size(); i++) {
+            String checkId = checks.get(i).id();
+            if (stageSeconds.containsKey(checkId)) {
+                orderedSeconds.put(checkId, stageSeconds.get(checkId));
+            }
+            if (outcome == null || !outcome.checks().get(i).isSuccess()) {
+                failedStages.add(checkId);
+            }
+        }
+        auditMetrics.auditFinished(new AuditMetrics.AuditSummary(projectId, Instant.now(),
+                (System.nanoTime() - startedAt) / NANOS_PER_SECOND, orderedSeconds, failedStages));
+    }
+
+    /**
+     * Collect all checks of a project into memory
+     *
+     * @param projectId GCP project ID
+     * @return collected data, failed checks are captured in their outcome
+     */
+    public ProjectAuditData collect(String projectId) {
+        ProjectAuditSinks sinks = new ProjectAuditSinks();
+        Map<String, ProjectAuditSinks.ListSink<?>> buffers = new LinkedHashMap<>();
+        for (AuditCheck<?> check : checks) {
+            buffers.put(check.id(), buffer(sinks, check));
+        }
+
+        ProjectAuditOutcome outcome = collect(projectId, sinks);
+        Map<String, List<?>> rows = new LinkedHashMap<>();
+        for (int i = 0; i < checks.size(); i++) {
+            String checkId = checks.get(i).id();
+            rows.put(checkId, outcome.checks().get(i).isSuccess() ? buffers.get(checkId).rows() : List.of());
+        }
+        return new ProjectAuditData(outcome, rows);
+    }
+
+    /**
+     * Data of a project whose audit failed as a whole
+     */
+    public ProjectAuditData failure(String projectId, Exception error) {
+        return new ProjectAuditData(ProjectAuditOutcome.failure(projectId, checks, error), Map.of());
+    }
+
+    private <T> ProjectAuditSinks.ListSink<T> buffer(ProjectAuditSinks sinks, AuditCheck<T> check) {
+        ProjectAuditSinks.ListSink<T> buffer = new ProjectAuditSinks.ListSink<>();
+        sinks.put(check, buffer);
+        return buffer;
+    }
+
+    /**
+     * Run a check and complete its sink on the stage thread, whatever the result.
+     * The wait for dependencies and quota and the check itself are timed separately, and only
+     * the check itself counts against the stage timeout.
+     *
+     * @return number of rows handed to the sink
+     */
+    private <T> Integer runCheck(String projectId, AuditCheck<T> check, ProjectAuditSinks sinks,
+            List<AuditStageScope.Stage<Integer>> dependencies, AuditProgressListener listener, Runnable startClock,
+            Map<String, Double> stageSeconds) throws Exception {
+        StageSink<T> sink = sinks.sinkFor(check);
+        int[] rowCount = {0};
+        StageSink<T> countingSink = row -> {
+            sink.accept(row);
+            if (++rowCount[0] % PROGRESS_ROW_INTERVAL == 0) {
+                listener.rowsCollected(projectId, check, rowCount[0]);
+            }
+        };
+
+        Semaphore quota = quotas.get(check.id());
+        long waitStartedAt = System.nanoTime();
+        long startedAt = 0;
+        boolean started = false;
+        String outcome = AuditMetrics.SUCCESS;
+        try {
+            awaitDependencies(check, dependencies);
+            if (quota != null) {
+                quota.acquire();
+            }
+            try {
+                startClock.run();
+                startedAt = System.nanoTime();
+                started = true;
+                auditMetrics.stageWait(check.id()).record(startedAt - waitStartedAt, TimeUnit.NANOSECONDS);
+                listener.checkStarted(projectId, check);
+                if (isSkipped(projectId, check)) {
+                    outcome = AuditMetrics.SKIPPED;
+                } else {
+                    check.collect(projectId, countingSink);
+                }
+            } finally {
+                if (quota != null) {
+                    quota.release();
+                }
+            }
+        } catch (Exception e) {
+            outcome = AuditMetrics.FAILURE;
+            sink.complete(e);
+            listener.checkFinished(projectId, check, rowCount[0], e);
+            throw e;
+        } finally {
+            if (started) {
+                long elapsed = System.nanoTime() - startedAt;
+                auditMetrics.stage(check.id(), outcome).record(elapsed, TimeUnit.NANOSECONDS);
+                stageSeconds.put(check.id(), elapsed / NANOS_PER_SECOND);
+            }
+        }
+        sink.complete(null);
+        listener.checkFinished(projectId, check, rowCount[0], null);
+        return rowCount[0];
+    }
+
+    private void awaitDependencies(AuditCheck<?> check, List<AuditStageScope.Stage<Integer>> dependencies) {
+        for (AuditStageScope.Stage<Integer> dependency : dependencies) {
+            StageOutcome<Integer> outcome = dependency.await();
+            if (!outcome.isSuccess()) {
+                throw new IllegalStateException(String.format("%s was not checked because %s failed: %s",
+                        check.schema().sheetName(), outcome.stageName(), outcome.error().getMessage()),
+                        outcome.error());
+            }
+        }
+    }
+
+    /**
+     * A check is skipped when one of its required services is known to be disabled
+     */
+    private boolean isSkipped(String projectId, AuditCheck<?> check) {
+        return check.requiredServices().stream()
+                .anyMatch(service -> serviceEnablementProbe.stateOf(projectId, service)
+                        == ServiceEnablementProbe.ServiceState.DISABLED);
+    }
+
+    /**
+     * Order the checks so every check comes after the checks it depends on
+     */
+    private static List<AuditCheck<?>> dependencyOrder(List<AuditCheck<?>> checks) {
+        Map<String, AuditCheck<?>> byId = new LinkedHashMap<>();
+        for (AuditCheck<?> check : checks) {
+            if (byId.put(check.id(), check) != null) {
+                throw new IllegalStateException("Duplicate audit check ID: " + check.id());
+            }
+        }
+
+        List<AuditCheck<?>> ordered = new ArrayList<>(checks.size());
+        Set<String> visited = new HashSet<>();
+        for (AuditCheck<?> check : checks) {
+            visit(check, byId, visited, new HashSet<>(), ordered);
+        }
+        return ordered;
+    }
+
+    private static void visit(AuditCheck<?> check, Map<String, AuditCheck<?>> byId, Set<String> visited,
+            Set<String> path, List<AuditCheck<?>> ordered) {
+        if (visited.contains(check.id())) {
+            return;
+        }
+        if (!path.add(check.id())) {
+            throw new IllegalStateException("Audit check dependency cycle through: " + check.id());
+        }
+        for (String dependencyId : check.dependsOn()) {
+            AuditCheck<?> dependency = byId.get(dependencyId);
+            if (dependency == null) {
+                throw new IllegalStateException(
+                        "Audit check " + check.id() + " depends on unknown check " + dependencyId);
+            }
+            visit(dependency, byId, visited, path, ordered);
+        }
+        path.remove(check.id());
+        visited.add(check.id());
+        ordered.add(check);
+    }
+}
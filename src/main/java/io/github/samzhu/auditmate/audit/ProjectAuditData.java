@@ -0,0 +1,25 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collected audit data of one project, buffered in memory for consolidated reports
+ *
+ * @param outcome outcome of each check
+ * @param rows    collected rows by check ID, empty when the check failed
+ */
+public record ProjectAuditData(ProjectAuditOutcome outcome, Map<String, List<?>> rows) {
+
+    public String projectId() {
+        return outcome.projectId();
+    }
+
+    /**
+     * Collected rows of a check
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> rowsOf(AuditCheck<T> check) {
+        return (List<T>) rows.getOrDefault(check.id(), List.of());
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.List;
+
+/**
+ * Outcome of one project audit, holding the number of rows collected per check
+ *
+ * @param projectId GCP project ID
+ * @param checks    outcome of each check, in sheet order
+ */
+public record ProjectAuditOutcome(String projectId, List<StageOutcome<Integer>> checks) {
+
+    public ProjectAuditOutcome {
+        checks = List.copyOf(checks);
+    }
+
+    /**
+     * Outcome of a project whose audit failed as a whole
+     */
+    public static ProjectAuditOutcome failure(String projectId, List<AuditCheck<?>> checks, Exception error) {
+        return new ProjectAuditOutcome(projectId, checks.stream()
+                .map(check -> StageOutcome.<Integer>failure(check.schema().sheetName(), error))
+                .toList());
+    }
+
+    /**
+     * Rethrow the failure of the first failed check in sheet order
+     */
+    public void throwFirstFailure() throws Exception {
+        StageOutcome.throwFirstFailure(checks.toArray(StageOutcome<?>[]::new));
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row sinks of the checks of one project audit, by check ID
+ */
+public final class ProjectAuditSinks {
+
+    private final Map<String, StageSink<?>> sinks = new HashMap<>();
+
+    /**
+     * Register the sink of a check
+     */
+    public <T> ProjectAuditSinks put(AuditCheck<T> check, StageSink<T> sink) {
+        sinks.put(check.id(), sink);
+        return this;
+    }
+
+    /**
+     * Sink of a check, rows of checks without a sink are dropped
+     */
+    @SuppressWarnings("unchecked")
+    public <T> StageSink<T> sinkFor(AuditCheck<T> check) {
+        return (StageSink<T>) sinks.getOrDefault(check.id(), row -> {
+        });
+    }
+
+    /**
+     * Sink that buffers all rows in memory
+     */
+    public static final class ListSink<T> implements StageSink<T> {
+        private final List<T> rows = new ArrayList<>();
+
+        @Override
+        public void accept(T row) {
+            rows.add(row);
+        }
+
+        public List<T> rows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.resourcemanager.v3.Folder;
+import com.google.cloud.resourcemanager.v3.FoldersClient;
+import com.google.cloud.resourcemanager.v3.Project;
+import com.google.cloud.resourcemanager.v3.ProjectsClient;
+
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Resolves the projects of a batch audit.
+ * Projects are taken from an explicit list, or discovered under a folder or organization,
+ * including all sub-folders.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProjectResolver {
+
+    private static final String FOLDER_PREFIX = "folders/";
+    private static final String ORGANIZATION_PREFIX = "organizations/";
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final GcpCallGuard callGuard;
+
+    /**
+     * Resolve the project IDs to audit
+     *
+     * @param projectIds     explicit project IDs, takes precedence when not empty
+     * @param folderId       folder ID, with or without the "folders/" prefix
+     * @param organizationId organization ID, with or without the "organizations/" prefix
+     * @return distinct project IDs in discovery order
+     */
+    public List<String> resolve(List<String> projectIds, String folderId, String organizationId) throws IOException {
+        Set<String> resolved = new LinkedHashSet<>();
+        if (projectIds != null && !projectIds.isEmpty()) {
+            for (String projectId : projectIds) {
+                if (projectId != null && !projectId.isBlank()) {
+                    resolved.add(projectId.trim());
+                }
+            }
+            return new ArrayList<>(resolved);
+        }
+
+        try {
+            if (folderId != null && !folderId.isBlank()) {
+                collectActiveProjects(withPrefix(folderId.trim(), FOLDER_PREFIX), resolved);
+            } else if (organizationId != null && !organizationId.isBlank()) {
+                collectActiveProjects(withPrefix(organizationId.trim(), ORGANIZATION_PREFIX), resolved);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Project discovery was interrupted", e);
+        }
+        return new ArrayList<>(resolved);
+    }
+
+    /**
+     * Walk the resource hierarchy below the parent and collect all active projects.
+     * Every listing counts against the rate limit of the root parent.
+     */
+    private void collectActiveProjects(String rootParent, Set<String> resolved)
+            throws IOException, InterruptedException {
+        ProjectsClient projectsClient = gcpClientRegistry.projectsClient();
+        FoldersClient foldersClient = gcpClientRegistry.foldersClient();
+
+        Deque<String> parents = new ArrayDeque<>();
+        parents.add(rootParent);
+        while (!parents.isEmpty()) {
+            String parent = parents.poll();
+            List<Project> projects = callGuard.listAll(GcpCallGuard.RESOURCE_MANAGER_API, "listProjects", rootParent,
+                    () -> projectsClient.listProjects(parent).getPage());
+            for (Project project : projects) {
+                if (project.getState() == Project.State.ACTIVE) {
+                    resolved.add(project.getProjectId());
+                }
+            }
+            List<Folder> folders = callGuard.listAll(GcpCallGuard.RESOURCE_MANAGER_API, "listFolders", rootParent,
+                    () -> foldersClient.listFolders(parent).getPage());
+            for (Folder folder : folders) {
+                if (folder.getState() == Folder.State.ACTIVE) {
+                    parents.add(folder.getName());
+                }
+            }
+        }
+    }
+
+    private String withPrefix(String id, String prefix) {
+        return id.startsWith(prefix) ? id : prefix + id;
+    }
+}
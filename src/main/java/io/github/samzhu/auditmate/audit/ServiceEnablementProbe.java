@@ -0,0 +1,173 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.stereotype.Component;
+
+import com.google.api.services.serviceusage.v1.ServiceUsage;
+import com.google.api.services.serviceusage.v1.model.BatchGetServicesResponse;
+import com.google.api.services.serviceusage.v1.model.GoogleApiServiceusageV1Service;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks which APIs the audit stages depend on are enabled in a project.
+ *
+ * <p>
+ * All probed services are fetched by name with a single {@code services.batchGet} call,
+ * so the answer never depends on how many services a project has enabled. The result is
+ * cached per project, and the stages of one audit share a single in-flight call. Expired
+ * probes are dropped whenever a project is probed again, so the cache only holds the
+ * projects audited within the TTL.
+ */
+@Slf4j
+@Component
+public class ServiceEnablementProbe {
+
+    public static final String KMS_SERVICE = "cloudkms.googleapis.com";
+    public static final String COMPUTE_SERVICE = "compute.googleapis.com";
+
+    /**
+     * Services probed together, the APIs that are checked against the audited project itself
+     */
+    private static final List<String> PROBED_SERVICES = List.of(KMS_SERVICE, COMPUTE_SERVICE);
+    private static final String ENABLED_STATE = "ENABLED";
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final GcpCallGuard callGuard;
+    private final Duration cacheTtl;
+    private final Map<String, CachedProbe> probes = new ConcurrentHashMap<>();
+
+    public ServiceEnablementProbe(GcpClientRegistry gcpClientRegistry, GcpCallGuard callGuard,
+            AuditmateProperties properties) {
+        this.gcpClientRegistry = gcpClientRegistry;
+        this.callGuard = callGuard;
+        this.cacheTtl = properties.getServiceUsage().getCacheTtl();
+    }
+
+    /**
+     * State of a service in a project
+     */
+    public enum ServiceState {
+        ENABLED,
+        DISABLED,
+        /**
+         * The probe failed, e.g. the caller may not read the project's service usage
+         */
+        UNKNOWN
+    }
+
+    /**
+     * Get the state of a probed service
+     *
+     * @param projectId   GCP project ID
+     * @param serviceName service name, one of the probed services
+     */
+    public ServiceState stateOf(String projectId, String serviceName) {
+        try {
+            return probe(projectId).getOrDefault(serviceName, ServiceState.UNKNOWN);
+        } catch (IOException e) {
+            log.debug("Unable to probe services of project {}: {}", projectId, e.getMessage());
+            return ServiceState.UNKNOWN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ServiceState.UNKNOWN;
+        }
+    }
+
+    /**
+     * Get the state of all probed services, from the cache when possible
+     */
+    private Map<String, ServiceState> probe(String projectId) throws IOException, InterruptedException {
+        while (true) {
+            CachedProbe cached = probes.get(projectId);
+            if (cached != null && !cached.isExpired(cacheTtl)) {
+                return await(projectId, cached);
+            }
+
+            evictExpired();
+            CachedProbe fresh = new CachedProbe(new CompletableFuture<>(), Instant.now());
+            boolean owner = cached == null
+                    ? probes.putIfAbsent(projectId, fresh) == null
+                    : probes.replace(projectId, cached, fresh);
+            if (owner) {
+                // This thread fetches, concurrent stages of the same project wait for its result
+                fetch(projectId, fresh.result());
+                return await(projectId, fresh);
+            }
+        }
+    }
+
+    /**
+     * Drop the finished probes past their TTL, in-flight probes are kept
+     */
+    private void evictExpired() {
+        probes.values().removeIf(cached -> cached.isExpired(cacheTtl));
+    }
+
+    /**
+     * Number of projects with a cached or in-flight probe
+     */
+    int cachedProjects() {
+        return probes.size();
+    }
+
+    private Map<String, ServiceState> await(String projectId, CachedProbe cached)
+            throws IOException, InterruptedException {
+        try {
+            return cached.result().get();
+        } catch (ExecutionException e) {
+            // Failures are not cached, the next audit probes again
+            probes.remove(projectId, cached);
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    private void fetch(String projectId, CompletableFuture<Map<String, ServiceState>> result) {
+        try {
+            ServiceUsage serviceUsage = gcpClientRegistry.serviceUsage();
+            ServiceUsage.Services.BatchGet request = serviceUsage.services()
+                    .batchGet("projects/" + projectId)
+                    .setNames(PROBED_SERVICES.stream()
+                            .map(service -> "projects/" + projectId + "/services/" + service)
+                            .toList());
+            BatchGetServicesResponse response = callGuard.call(GcpCallGuard.SERVICE_USAGE_API, "services.batchGet", projectId,
+                    request::execute);
+
+            Map<String, ServiceState> states = new HashMap<>();
+            if (response.getServices() != null) {
+                for (GoogleApiServiceusageV1Service service : response.getServices()) {
+                    // Service names are returned with the project number, match on the service part only
+                    String name = service.getName().substring(service.getName().lastIndexOf('/') + 1);
+                    states.put(name, ENABLED_STATE.equals(service.getState())
+                            ? ServiceState.ENABLED
+                            : ServiceState.DISABLED);
+                }
+            }
+            result.complete(states);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            result.completeExceptionally(e);
+        }
+    }
+
+    private record CachedProbe(CompletableFuture<Map<String, ServiceState>> result, Instant probedAt) {
+
+        boolean isExpired(Duration ttl) {
+            return result.isDone() && probedAt.plus(ttl).isBefore(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report sheet layout of an audit check
+ *
+ * @param sheetName sheet name, also used as stage name in messages
+ * @param columns   columns in report order
+ * @param keyColumn index of the column identifying a row, used to compare reports
+ */
+public record SheetSchema(String sheetName, List<Column> columns, int keyColumn) {
+
+    public SheetSchema {
+        columns = List.copyOf(columns);
+        if (keyColumn < 0 || keyColumn >= columns.size()) {
+            throw new IllegalArgumentException("Key column " + keyColumn + " is not a column of sheet " + sheetName);
+        }
+    }
+
+    /**
+     * Row of "None" cells, the placeholder of an empty or failed check
+     */
+    public List<String> noneRow() {
+        return Collections.nCopies(columns.size(), AuditCheck.NONE);
+    }
+
+    /**
+     * Report column
+     *
+     * @param header   header cell
+     * @param width    column width
+     * @param wrapText whether cells wrap, e.g. one role per line
+     */
+    public record Column(String header, int width, boolean wrapText) {
+
+        public static Column of(String header, int width) {
+            return new Column(header, width, false);
+        }
+
+        public static Column wrapped(String header, int width) {
+            return new Column(header, width, true);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.samzhu.auditmate.audit;
+
+/**
+ * Outcome of one audit stage.
+ * Holds either the collected value or the exception that stopped the stage.
+ *
+ * @param stageName stage name
+ * @param value     collected value, null when the stage failed
+ * @param error     failure, null when the stage succeeded
+ */
+public record StageOutcome<T>(String stageName, T value, Exception error) {
+
+    public static <T> StageOutcome<T> success(String stageName, T value) {
+        return new StageOutcome<>(stageName, value, null);
+    }
+
+    public static <T> StageOutcome<T> failure(String stageName, Exception error) {
+        return new StageOutcome<>(stageName, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Rethrow the failure of the first failed outcome, in the given order
+     *
+     * @param outcomes stage outcomes in sheet order
+     * @throws Exception the failure of the first failed stage
+     */
+    public static void throwFirstFailure(StageOutcome<?>... outcomes) throws Exception {
+        for (StageOutcome<?> outcome : outcomes) {
+            if (!outcome.isSuccess()) {
+                throw outcome.error();
+            }
+        }
+    }
+}
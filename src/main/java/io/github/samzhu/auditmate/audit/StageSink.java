@@ -0,0 +1,23 @@
+package io.github.samzhu.auditmate.audit;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of an audit stage as soon as they are collected.
+ * Both methods are always called on the thread that runs the stage.
+ */
+public interface StageSink<T> {
+
+    /**
+     * Accept one collected row
+     */
+    void accept(T row) throws IOException;
+
+    /**
+     * Called exactly once when the stage ends
+     *
+     * @param failure stage failure, null when the stage succeeded
+     */
+    default void complete(Exception failure) throws IOException {
+    }
+}
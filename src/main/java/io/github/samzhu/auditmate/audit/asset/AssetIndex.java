@@ -0,0 +1,181 @@
+package io.github.samzhu.auditmate.audit.asset;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.CryptoKeyVersion.CryptoKeyVersionState;
+import com.google.iam.v1.Policy;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+
+import io.github.samzhu.auditmate.audit.KeyLifecycleResolver;
+
+/**
+ * Groups Cloud Asset records by project.
+ *
+ * <p>
+ * Accepts the asset JSON of {@code assets.list} pages (camelCase) and of exported NDJSON
+ * files (snake_case) alike. Resource data is parsed into the same protobuf types the API
+ * checks use, so the sheets cannot tell the two backends apart. Project policies are keyed
+ * by project number in the inventory and mapped to project IDs once every asset is read,
+ * because an export lists assets in no particular order.
+ */
+final class AssetIndex {
+
+    static final String PROJECT_TYPE = "cloudresourcemanager.googleapis.com/Project";
+    static final String CRYPTO_KEY_TYPE = "cloudkms.googleapis.com/CryptoKey";
+    static final String CRYPTO_KEY_VERSION_TYPE = "cloudkms.googleapis.com/CryptoKeyVersion";
+    static final String FIREWALL_TYPE = "compute.googleapis.com/Firewall";
+
+    /**
+     * Project segment of a full asset name, e.g. //cloudkms.googleapis.com/projects/my-project/...
+     */
+    private static final Pattern ASSET_PROJECT = Pattern.compile("^//[^/]+/projects/([^/]+)");
+    private static final String SERVICE_PREFIX = "//";
+    private static final JsonFormat.Parser PARSER = JsonFormat.parser().ignoringUnknownFields();
+
+    private final Map<String, String> projectIdByNumber = new HashMap<>();
+    private final Set<String> projectIds = new LinkedHashSet<>();
+    private final Map<String, Policy> policies = new HashMap<>();
+    private final Map<String, List<CryptoKey>> cryptoKeys = new HashMap<>();
+    private final Map<String, CryptoKeyVersionState> versionStates = new HashMap<>();
+    private final Map<String, List<Firewall>> firewalls = new HashMap<>();
+
+    /**
+     * Add an asset, assets of other types are ignored
+     */
+    void add(JsonNode asset) throws IOException {
+        String name = asset.path("name").asText();
+        String type = text(asset, "assetType", "asset_type");
+        JsonNode data = asset.path("resource").path("data");
+        Matcher project = ASSET_PROJECT.matcher(name);
+        if (!project.find()) {
+            return;
+        }
+        String projectKey = project.group(1);
+
+        switch (type) {
+            case PROJECT_TYPE -> {
+                // The project asset is named by project number, its data carries the project ID
+                String projectId = data.path("projectId").asText(null);
+                if (projectId != null) {
+                    projectIdByNumber.put(projectKey, projectId);
+                    projectIds.add(projectId);
+                }
+                JsonNode policy = field(asset, "iamPolicy", "iam_policy");
+                if (!policy.isMissingNode() && !policy.isNull()) {
+                    policies.put(projectKey, parsePolicy(policy));
+                }
+            }
+            case CRYPTO_KEY_TYPE -> {
+                CryptoKey.Builder cryptoKey = parse(data, CryptoKey.newBuilder());
+                cryptoKey.setName(resourceName(name));
+                cryptoKeys.computeIfAbsent(projectKey, key -> new ArrayList<>()).add(cryptoKey.build());
+                projectIds.add(projectKey);
+            }
+            case CRYPTO_KEY_VERSION_TYPE -> {
+                String state = data.path("state").asText("");
+                try {
+                    versionStates.put(resourceName(name), CryptoKeyVersionState.valueOf(state));
+                } catch (IllegalArgumentException e) {
+                    versionStates.put(resourceName(name), CryptoKeyVersionState.CRYPTO_KEY_VERSION_STATE_UNSPECIFIED);
+                }
+            }
+            case FIREWALL_TYPE -> {
+                firewalls.computeIfAbsent(projectKey, key -> new ArrayList<>())
+                        .add(parse(data, Firewall.newBuilder()).build());
+                projectIds.add(projectKey);
+            }
+            default -> {
+                // Other asset types are not audited
+            }
+        }
+    }
+
+    /**
+     * Assets of every project seen, by project ID
+     */
+    Map<String, ProjectAssets> build() {
+        Map<String, Policy> policiesById = new HashMap<>();
+        policies.forEach((key, policy) -> policiesById.put(projectIdByNumber.getOrDefault(key, key), policy));
+
+        Map<String, ProjectAssets> projects = new LinkedHashMap<>();
+        for (String projectId : projectIds) {
+            List<CryptoKey> keys = cryptoKeys.getOrDefault(projectId, List.of());
+            Map<String, String> lifecycles = new HashMap<>();
+            for (CryptoKey key : keys) {
+                lifecycles.put(key.getName(), lifecycleOf(key));
+            }
+            projects.put(projectId, new ProjectAssets(projectId, policiesById.get(projectId), List.copyOf(keys),
+                    lifecycles, List.copyOf(firewalls.getOrDefault(projectId, List.of()))));
+        }
+        return projects;
+    }
+
+    /**
+     * State of the primary version, from the key itself or else from its version asset
+     */
+    private String lifecycleOf(CryptoKey key) {
+        String primary = key.getPrimary().getName();
+        if (primary.isEmpty()) {
+            return KeyLifecycleResolver.NO_PRIMARY_VERSION;
+        }
+        CryptoKeyVersionState state = key.getPrimary().getState();
+        if (state == CryptoKeyVersionState.CRYPTO_KEY_VERSION_STATE_UNSPECIFIED) {
+            state = versionStates.getOrDefault(primary, state);
+        }
+        return state.toString();
+    }
+
+    /**
+     * The etag is left out: exports do not always carry it Base64 encoded, and no snapshot is
+     * revalidated by it on this path
+     */
+    private static Policy parsePolicy(JsonNode policy) throws IOException {
+        ObjectNode withoutEtag = policy.deepCopy();
+        withoutEtag.remove("etag");
+        return parse(withoutEtag, Policy.newBuilder()).build();
+    }
+
+    private static <B extends Message.Builder> B parse(JsonNode data, B builder) throws IOException {
+        try {
+            PARSER.merge(data.toString(), builder);
+            return builder;
+        } catch (InvalidProtocolBufferException e) {
+            throw new IOException("Unable to parse asset data: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Relative resource name of a full asset name, e.g. projects/p/locations/l/keyRings/r/cryptoKeys/k
+     */
+    private static String resourceName(String assetName) {
+        if (!assetName.startsWith(SERVICE_PREFIX)) {
+            return assetName;
+        }
+        int slash = assetName.indexOf('/', SERVICE_PREFIX.length());
+        return slash < 0 ? assetName : assetName.substring(slash + 1);
+    }
+
+    private static JsonNode field(JsonNode node, String camelCase, String snakeCase) {
+        JsonNode value = node.path(camelCase);
+        return value.isMissingNode() ? node.path(snakeCase) : value;
+    }
+
+    private static String text(JsonNode node, String camelCase, String snakeCase) {
+        return field(node, camelCase, snakeCase).asText("");
+    }
+}
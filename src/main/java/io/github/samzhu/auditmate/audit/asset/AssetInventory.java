@@ -0,0 +1,241 @@
+package io.github.samzhu.auditmate.audit.asset;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponse;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.grpc.Context;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cloud Asset inventory backend of the IAM, BYOK and firewall checks.
+ *
+ * <p>
+ * With {@code auditmate.inventory.backend=asset-inventory} the project, crypto key, key
+ * version and firewall assets of a scope are listed in a few paged {@code assets.list}
+ * calls, plus one listing of the project IAM policies, instead of one call chain per KMS
+ * location and key ring. With {@code asset-snapshot} they are read from an exported NDJSON
+ * file. Either way a scope is indexed once and kept for {@code auditmate.inventory.cache-ttl},
+ * so with a folder or organization scope every project of a batch audit is served from one
+ * listing. Without {@code auditmate.inventory.scope} a batch audit of a folder or organization
+ * lists that parent, see {@link #withBatchScope}, and any other audit lists each project on
+ * its own. A snapshot file is read again when it changes. Expired scopes are dropped
+ * whenever a scope is listed, so auditing each project as its own scope does not keep
+ * every project ever audited in memory.
+ */
+@Slf4j
+@Component
+public class AssetInventory {
+
+    public static final String API_BACKEND = "api";
+    public static final String ASSET_INVENTORY_BACKEND = "asset-inventory";
+    public static final String ASSET_SNAPSHOT_BACKEND = "asset-snapshot";
+
+    private static final String ASSETS_LIST_METHOD = "assets.list";
+    private static final String PROJECTS_PREFIX = "projects/";
+    private static final Context.Key<String> BATCH_SCOPE = Context.key("auditmate-inventory-scope");
+    private static final List<String> RESOURCE_TYPES = List.of(AssetIndex.PROJECT_TYPE, AssetIndex.CRYPTO_KEY_TYPE,
+            AssetIndex.CRYPTO_KEY_VERSION_TYPE, AssetIndex.FIREWALL_TYPE);
+    private static final List<String> POLICY_TYPES = List.of(AssetIndex.PROJECT_TYPE);
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final GcpCallGuard callGuard;
+    private final ObjectMapper objectMapper;
+    private final AuditmateProperties.Inventory settings;
+    private final Map<String, IndexedScope> scopes = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> loadLocks = new ConcurrentHashMap<>();
+
+    public AssetInventory(GcpClientRegistry gcpClientRegistry, GcpCallGuard callGuard, ObjectMapper objectMapper,
+            AuditmateProperties properties) {
+        this.gcpClientRegistry = gcpClientRegistry;
+        this.callGuard = callGuard;
+        this.objectMapper = objectMapper;
+        this.settings = properties.getInventory();
+        if (!List.of(API_BACKEND, ASSET_INVENTORY_BACKEND, ASSET_SNAPSHOT_BACKEND).contains(settings.getBackend())) {
+            throw new IllegalArgumentException("Unknown inventory backend: " + settings.getBackend());
+        }
+    }
+
+    /**
+     * Assets of a scope with the time they were read, and the modification time of a snapshot file
+     */
+    private record IndexedScope(Map<String, ProjectAssets> projects, Instant indexedAt, FileTime fileModified) {
+    }
+
+    /**
+     * Whether the checks read the Cloud Asset inventory instead of calling each API
+     */
+    public boolean enabled() {
+        return !API_BACKEND.equals(settings.getBackend());
+    }
+
+    /**
+     * Context listing the projects of a batch audit from the folder or organization they were
+     * resolved from, unless a scope is configured. Audit stages inherit the context of their audit.
+     *
+     * @param scope parent of the batch, e.g. folders/123 or organizations/456
+     */
+    public static Context withBatchScope(Context context, String scope) {
+        return context.withValue(BATCH_SCOPE, scope);
+    }
+
+    /**
+     * Assets of a project
+     *
+     * @param projectId GCP project ID
+     * @throws IOException when the inventory cannot be read or does not contain the project
+     */
+    public ProjectAssets assetsOf(String projectId) throws IOException, InterruptedException {
+        String scope = scopeOf(projectId);
+        ProjectAssets assets = indexed(scope, projectId).projects().get(projectId);
+        if (assets == null) {
+            throw new IOException("Project " + projectId + " is not in the Cloud Asset inventory of " + scope);
+        }
+        return assets;
+    }
+
+    private String scopeOf(String projectId) {
+        if (ASSET_SNAPSHOT_BACKEND.equals(settings.getBackend())) {
+            return settings.getSnapshotFile();
+        }
+        String scope = settings.getScope();
+        if (scope != null && !scope.isBlank()) {
+            return scope;
+        }
+        String batchScope = BATCH_SCOPE.get();
+        return batchScope != null ? batchScope : PROJECTS_PREFIX + projectId;
+    }
+
+    private IndexedScope indexed(String scope, String projectId) throws IOException, InterruptedException {
+        IndexedScope cached = scopes.get(scope);
+        if (isFresh(cached)) {
+            return cached;
+        }
+        evictExpired();
+        ReentrantLock loadLock = loadLocks.computeIfAbsent(scope, key -> new ReentrantLock());
+        loadLock.lockInterruptibly();
+        try {
+            cached = scopes.get(scope);
+            if (isFresh(cached)) {
+                return cached;
+            }
+            IndexedScope indexed = ASSET_SNAPSHOT_BACKEND.equals(settings.getBackend())
+                    ? readSnapshot(scope)
+                    : listScope(scope, projectId);
+            scopes.put(scope, indexed);
+            return indexed;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Drop listed scopes past their TTL and the idle load locks of scopes no longer cached.
+     * A lock dropped just before its caller takes it at worst lets two callers list the same scope.
+     */
+    private void evictExpired() {
+        Instant expiredBefore = Instant.now().minus(settings.getCacheTtl());
+        scopes.values().removeIf(
+                cached -> cached.fileModified() == null && cached.indexedAt().isBefore(expiredBefore));
+        loadLocks.entrySet().removeIf(entry -> !scopes.containsKey(entry.getKey())
+                && !entry.getValue().isLocked() && !entry.getValue().hasQueuedThreads());
+    }
+
+    private boolean isFresh(IndexedScope cached) {
+        if (cached == null) {
+            return false;
+        }
+        if (cached.fileModified() != null) {
+            try {
+                return cached.fileModified().equals(Files.getLastModifiedTime(Path.of(settings.getSnapshotFile())));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return cached.indexedAt().plus(settings.getCacheTtl()).isAfter(Instant.now());
+    }
+
+    /**
+     * Read an exported NDJSON file, one asset per line
+     */
+    private IndexedScope readSnapshot(String file) throws IOException {
+        if (file == null || file.isBlank()) {
+            throw new IOException("No Cloud Asset snapshot file configured, set auditmate.inventory.snapshot-file");
+        }
+        Path path = Path.of(file);
+        FileTime modified = Files.getLastModifiedTime(path);
+        AssetIndex index = new AssetIndex();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    index.add(objectMapper.readTree(line));
+                }
+            }
+        }
+        Map<String, ProjectAssets> projects = index.build();
+        log.info("Read {} projects from Cloud Asset snapshot {}", projects.size(), file);
+        return new IndexedScope(projects, Instant.now(), modified);
+    }
+
+    /**
+     * List the resources and the project policies of a scope, page by page
+     */
+    private IndexedScope listScope(String scope, String projectId) throws IOException, InterruptedException {
+        AssetIndex index = new AssetIndex();
+        listAssets(scope, projectId, "RESOURCE", RESOURCE_TYPES, index);
+        listAssets(scope, projectId, "IAM_POLICY", POLICY_TYPES, index);
+        Map<String, ProjectAssets> projects = index.build();
+        log.info("Listed {} projects from the Cloud Asset inventory of {}", projects.size(), scope);
+        return new IndexedScope(projects, Instant.now(), null);
+    }
+
+    private void listAssets(String scope, String projectId, String contentType, List<String> assetTypes,
+            AssetIndex index) throws IOException, InterruptedException {
+        String pageToken = null;
+        do {
+            GenericUrl url = new GenericUrl(gcpClientRegistry.cloudAssetRootUrl() + "v1/" + scope + "/assets");
+            url.set("contentType", contentType);
+            url.set("assetTypes", assetTypes);
+            url.set("pageSize", settings.getPageSize());
+            if (pageToken != null) {
+                url.set("pageToken", pageToken);
+            }
+            // Each page is a separate rate limited call, counted against the audited project
+            JsonNode page = callGuard.call(GcpCallGuard.CLOUD_ASSET_API, ASSETS_LIST_METHOD, projectId,
+                    () -> fetchPage(url));
+            for (JsonNode asset : page.path("assets")) {
+                index.add(asset);
+            }
+            pageToken = page.path("nextPageToken").asText("");
+        } while (!pageToken.isEmpty());
+    }
+
+    private JsonNode fetchPage(GenericUrl url) throws IOException {
+        HttpResponse response = gcpClientRegistry.restRequestFactory().buildGetRequest(url).execute();
+        try (InputStream content = response.getContent()) {
+            return objectMapper.readTree(content);
+        } finally {
+            response.disconnect();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.samzhu.auditmate.audit.asset;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.iam.v1.Policy;
+
+/**
+ * Assets of one project, as read from the Cloud Asset inventory.
+ *
+ * @param projectId  GCP project ID
+ * @param policy     project IAM policy, null when the inventory has none
+ * @param cryptoKeys Cloud KMS crypto keys
+ * @param lifecycles state of the primary version per crypto key name
+ * @param firewalls  VPC firewall rules
+ */
+public record ProjectAssets(
+        String projectId,
+        Policy policy,
+        List<CryptoKey> cryptoKeys,
+        Map<String, String> lifecycles,
+        List<Firewall> firewalls) {
+}
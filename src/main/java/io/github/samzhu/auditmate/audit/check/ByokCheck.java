@@ -0,0 +1,171 @@
+package io.github.samzhu.auditmate.audit.check;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.stereotype.Component;
+
+import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.KeyManagementServiceClient;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.ByokKey;
+import io.github.samzhu.auditmate.audit.KeyLifecycleResolver;
+import io.github.samzhu.auditmate.audit.KmsKeyCrawler;
+import io.github.samzhu.auditmate.audit.ServiceEnablementProbe;
+import io.github.samzhu.auditmate.audit.SheetSchema;
+import io.github.samzhu.auditmate.audit.StageSink;
+import io.github.samzhu.auditmate.audit.asset.AssetInventory;
+import io.github.samzhu.auditmate.audit.asset.ProjectAssets;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.snapshot.Snapshot;
+import io.github.samzhu.auditmate.snapshot.SnapshotCache;
+import io.github.samzhu.auditmate.snapshot.SnapshotCodec;
+import io.github.samzhu.auditmate.snapshot.SnapshotWriter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * BYOK check, reports the imported Cloud KMS keys of the project.
+ * With an inventory backend the keys and their primary version states come from the Cloud Asset inventory.
+ */
+@Component
+@RequiredArgsConstructor
+public class ByokCheck implements AuditCheck<ByokKey> {
+
+    public static final String ID = "byok";
+
+    /**
+     * First cell of the placeholder row of a check without Cloud KMS access
+     */
+    public static final String KMS_ACCESS_DENIED = "Insufficient permissions to access Cloud KMS service";
+
+    private static final int ORDER = 200;
+    private static final SheetSchema SCHEMA = new SheetSchema("BYOK", List.of(
+            SheetSchema.Column.of("Key Name", 50),
+            SheetSchema.Column.of("Type (ex. RSA-2048)", 20),
+            SheetSchema.Column.of("Lifecycle", 15),
+            SheetSchema.Column.of("Manager", 15)), 0);
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final SnapshotCache snapshotCache;
+    private final KmsKeyCrawler kmsKeyCrawler;
+    private final KeyLifecycleResolver keyLifecycleResolver;
+    private final ServiceEnablementProbe serviceEnablementProbe;
+    private final AssetInventory assetInventory;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public SheetSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public String rowLabel() {
+        return "BYOK Keys";
+    }
+
+    @Override
+    public Set<String> requiredServices() {
+        // The inventory simply has no keys of a project without Cloud KMS
+        return assetInventory.enabled() ? Set.of() : Set.of(ServiceEnablementProbe.KMS_SERVICE);
+    }
+
+    /**
+     * Query self-carry keys (BYOK)
+     */
+    @Override
+    public void collect(String projectId, StageSink<ByokKey> sink) throws IOException, InterruptedException {
+        if (assetInventory.enabled()) {
+            ProjectAssets assets = assetInventory.assetsOf(projectId);
+            for (CryptoKey cryptoKey : assets.cryptoKeys()) {
+                if (cryptoKey.getImportOnly()) {
+                    sink.accept(new ByokKey(
+                            cryptoKey.getName(),
+                            cryptoKey.getPurpose().toString(),
+                            assets.lifecycles().get(cryptoKey.getName()),
+                            getKeyManager(cryptoKey)));
+                }
+            }
+            return;
+        }
+
+        // KMS has no cheap validator for a whole inventory, the snapshot is only reused within its time to live
+        Optional<Snapshot> snapshot = snapshotCache.find(projectId, ID);
+        if (snapshot.isPresent() && snapshot.get().fresh()) {
+            snapshot.get().replay(SnapshotCodec.BYOK_KEY, sink);
+            return;
+        }
+
+        try (SnapshotWriter<ByokKey> writer = snapshotCache.writer(projectId, ID, SnapshotCodec.BYOK_KEY)) {
+            // Like before, keys are only listed when KMS is known to be enabled, not when the probe failed.
+            // Nothing is stored otherwise: an empty snapshot would hide the keys for a whole time to live
+            // after a transient probe failure
+            if (serviceEnablementProbe.stateOf(projectId, ServiceEnablementProbe.KMS_SERVICE)
+                    == ServiceEnablementProbe.ServiceState.ENABLED) {
+                KeyManagementServiceClient client = gcpClientRegistry.kmsClient();
+                // Listing and lifecycle lookups share one KMS concurrency limit
+                Semaphore kmsRequests = kmsKeyCrawler.newRequestLimit();
+                List<CryptoKey> importedKeys = kmsKeyCrawler.crawl(client, projectId, CryptoKey::getImportOnly,
+                        kmsRequests);
+                Map<String, String> lifecycles = keyLifecycleResolver.resolve(client, projectId, importedKeys,
+                        kmsRequests);
+
+                for (CryptoKey cryptoKey : importedKeys) {
+                    ByokKey byokKey = new ByokKey(
+                            cryptoKey.getName(),
+                            cryptoKey.getPurpose().toString(),
+                            lifecycles.get(cryptoKey.getName()),
+                            getKeyManager(cryptoKey));
+                    sink.accept(byokKey);
+                    writer.append(byokKey);
+                }
+                writer.commit("");
+            }
+        } catch (PermissionDeniedException e) {
+            throw new IOException("Unable to access Cloud KMS service: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cloud KMS inventory was interrupted", e);
+        }
+    }
+
+    @Override
+    public List<String> cells(ByokKey key) {
+        return Arrays.asList(key.name(), key.type(), key.lifecycle(), key.manager());
+    }
+
+    @Override
+    public List<String> placeholder(Exception failure, int reportedRows) {
+        if (failure != null && failure.getCause() instanceof PermissionDeniedException) {
+            return List.of(KMS_ACCESS_DENIED, NONE, NONE, NONE);
+        }
+        return AuditCheck.super.placeholder(failure, reportedRows);
+    }
+
+    @Override
+    public boolean isFailurePlaceholder(List<String> cells) {
+        return KMS_ACCESS_DENIED.equals(cells.get(0));
+    }
+
+    /**
+     * Get key manager
+     */
+    private String getKeyManager(CryptoKey cryptoKey) {
+        return cryptoKey.getLabelsMap().getOrDefault("manager", "Unknown");
+    }
+}
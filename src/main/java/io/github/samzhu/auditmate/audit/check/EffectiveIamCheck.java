@@ -0,0 +1,119 @@
+package io.github.samzhu.auditmate.audit.check;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.SheetSchema;
+import io.github.samzhu.auditmate.audit.StageSink;
+import io.github.samzhu.auditmate.audit.iam.EffectivePermissionCalculator;
+import io.github.samzhu.auditmate.audit.iam.EffectivePermissions;
+import io.github.samzhu.auditmate.audit.iam.InheritedPolicyResolver;
+import io.github.samzhu.auditmate.audit.iam.RoleDefinitionCache;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Effective IAM permissions check, reports every principal with access to the project,
+ * including service accounts, domains, conditional bindings and roles inherited from
+ * folders and the organization, with the permissions their roles add up to.
+ *
+ * <p>
+ * Only registered when {@code auditmate.iam.effective-permissions} is set, since it needs
+ * to read custom roles and the policies of the project's ancestors.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "auditmate.iam", name = "effective-permissions", havingValue = "true")
+public class EffectiveIamCheck implements AuditCheck<EffectivePermissions> {
+
+    public static final String ID = "iam-effective";
+
+    private static final int ORDER = 110;
+    private static final int MAX_LISTED_PERMISSIONS = 50;
+    private static final SheetSchema SCHEMA = new SheetSchema("IAM Effective Permissions", List.of(
+            SheetSchema.Column.of("Principal", 40),
+            SheetSchema.Column.of("Type", 15),
+            SheetSchema.Column.wrapped("Roles", 50),
+            SheetSchema.Column.wrapped("Conditional Roles", 40),
+            SheetSchema.Column.of("Permissions", 12),
+            SheetSchema.Column.wrapped("Sensitive Permissions", 45),
+            SheetSchema.Column.wrapped("Unresolved", 30)), 0);
+
+    private final InheritedPolicyResolver inheritedPolicyResolver;
+    private final RoleDefinitionCache roleDefinitionCache;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public SheetSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public String rowLabel() {
+        return "IAM Principals";
+    }
+
+    @Override
+    public void collect(String projectId, StageSink<EffectivePermissions> sink) throws Exception {
+        List<EffectivePermissions> rows = EffectivePermissionCalculator.calculate(
+                inheritedPolicyResolver.policiesOf(projectId), roleDefinitionCache, projectId);
+        for (EffectivePermissions row : rows) {
+            sink.accept(row);
+        }
+    }
+
+    @Override
+    public List<String> cells(EffectivePermissions row) {
+        return Arrays.asList(
+                row.principal(),
+                row.type(),
+                String.join("\n", row.roles()),
+                String.join("\n", row.conditionalRoles()),
+                String.valueOf(row.permissionCount()),
+                listed(row.sensitivePermissions()),
+                String.join("\n", row.unresolved()));
+    }
+
+    /**
+     * Owners hold hundreds of sensitive permissions, only the first are listed to stay within the cell size limit
+     */
+    private static String listed(List<String> permissions) {
+        if (permissions.size() <= MAX_LISTED_PERMISSIONS) {
+            return String.join("\n", permissions);
+        }
+        return String.join("\n", permissions.subList(0, MAX_LISTED_PERMISSIONS))
+                + "\n… " + (permissions.size() - MAX_LISTED_PERMISSIONS) + " more";
+    }
+
+    /**
+     * Roles are sorted so a reordered policy binding is not reported as a change
+     */
+    @Override
+    public List<String> normalize(List<String> cells) {
+        List<String> normalized = new ArrayList<>(cells);
+        for (int column : new int[] {2, 3}) {
+            String[] roles = normalized.get(column).split("\n");
+            Arrays.sort(roles);
+            normalized.set(column, String.join("\n", roles));
+        }
+        return normalized;
+    }
+
+    @Override
+    public int riskScore(EffectivePermissions row) {
+        return row.riskScore();
+    }
+}
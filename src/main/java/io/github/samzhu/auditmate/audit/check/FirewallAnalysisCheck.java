@@ -0,0 +1,99 @@
+package io.github.samzhu.auditmate.audit.check;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.compute.v1.Firewall;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.ServiceEnablementProbe;
+import io.github.samzhu.auditmate.audit.SheetSchema;
+import io.github.samzhu.auditmate.audit.StageSink;
+import io.github.samzhu.auditmate.audit.firewall.FirewallFinding;
+import io.github.samzhu.auditmate.audit.firewall.FirewallRuleAnalyzer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Firewall analysis check, reports the firewall rules that are open to the internet,
+ * shadowed by a rule with the opposite action or redundant.
+ *
+ * <p>
+ * Runs after the firewall rules check and reads the rules again through it, which serves
+ * them from the snapshot the firewall stage has just stored; only with the snapshot cache
+ * disabled are they listed a second time.
+ */
+@Component
+@RequiredArgsConstructor
+public class FirewallAnalysisCheck implements AuditCheck<FirewallFinding> {
+
+    public static final String ID = "firewall-analysis";
+
+    private static final int ORDER = 310;
+    private static final SheetSchema SCHEMA = new SheetSchema("Firewall Findings", List.of(
+            SheetSchema.Column.of("Name", 30),
+            SheetSchema.Column.of("Network", 20),
+            SheetSchema.Column.wrapped("Findings", 20),
+            SheetSchema.Column.of("Covered By", 30),
+            SheetSchema.Column.wrapped("Details", 60)), 0);
+
+    private final FirewallCheck firewallCheck;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public SheetSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public String rowLabel() {
+        return "Firewall Findings";
+    }
+
+    @Override
+    public Set<String> dependsOn() {
+        return Set.of(FirewallCheck.ID);
+    }
+
+    @Override
+    public Set<String> requiredServices() {
+        return Set.of(ServiceEnablementProbe.COMPUTE_SERVICE);
+    }
+
+    @Override
+    public void collect(String projectId, StageSink<FirewallFinding> sink) throws Exception {
+        List<Firewall> firewalls = new ArrayList<>();
+        firewallCheck.collect(projectId, firewalls::add);
+
+        for (FirewallFinding finding : FirewallRuleAnalyzer.analyze(firewalls)) {
+            sink.accept(finding);
+        }
+    }
+
+    @Override
+    public List<String> cells(FirewallFinding finding) {
+        return Arrays.asList(
+                finding.ruleName(),
+                finding.network(),
+                String.join("\n", finding.issues()),
+                finding.coveredBy() != null ? finding.coveredBy() : NONE,
+                String.join("\n", finding.details()));
+    }
+
+    @Override
+    public int riskScore(FirewallFinding finding) {
+        return finding.riskScore();
+    }
+}
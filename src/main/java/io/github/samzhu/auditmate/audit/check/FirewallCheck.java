@@ -0,0 +1,178 @@
+package io.github.samzhu.auditmate.audit.check;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.compute.v1.FirewallsClient;
+import com.google.cloud.compute.v1.ListFirewallsRequest;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.ServiceEnablementProbe;
+import io.github.samzhu.auditmate.audit.SheetSchema;
+import io.github.samzhu.auditmate.audit.StageSink;
+import io.github.samzhu.auditmate.audit.asset.AssetInventory;
+import io.github.samzhu.auditmate.audit.firewall.FirewallRuleAnalyzer;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.github.samzhu.auditmate.snapshot.Snapshot;
+import io.github.samzhu.auditmate.snapshot.SnapshotCache;
+import io.github.samzhu.auditmate.snapshot.SnapshotCodec;
+import io.github.samzhu.auditmate.snapshot.SnapshotWriter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Firewall rules check, reports the VPC firewall rules of the project.
+ * A project without the Compute Engine API has no firewall rules, the check is skipped.
+ * With an inventory backend the rules come from the Cloud Asset inventory.
+ */
+@Component
+@RequiredArgsConstructor
+public class FirewallCheck implements AuditCheck<Firewall> {
+
+    public static final String ID = "firewall";
+
+    private static final int ORDER = 300;
+    private static final int FIREWALL_PAGE_SIZE = 500;
+    private static final String FIREWALLS_LIST_METHOD = "firewalls.list";
+    private static final SheetSchema SCHEMA = new SheetSchema("Network Rules", List.of(
+            SheetSchema.Column.of("Direction", 15),
+            SheetSchema.Column.of("Source Ranges", 30),
+            SheetSchema.Column.of("Destination Ranges", 30),
+            SheetSchema.Column.of("Name", 30),
+            SheetSchema.Column.of("Purpose", 40)), 3);
+    private static final SnapshotCodec<Firewall> FIREWALL_CODEC = SnapshotCodec.protobuf(Firewall.parser());
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final GcpCallGuard callGuard;
+    private final SnapshotCache snapshotCache;
+    private final AssetInventory assetInventory;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public SheetSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public String rowLabel() {
+        return "Firewall Rules";
+    }
+
+    @Override
+    public Set<String> requiredServices() {
+        // The inventory simply has no rules of a project without Compute Engine
+        return assetInventory.enabled() ? Set.of() : Set.of(ServiceEnablementProbe.COMPUTE_SERVICE);
+    }
+
+    /**
+     * Query firewall rules, page by page.
+     * Each page is a separate rate limited request, so a throttled page is retried on its own.
+     */
+    @Override
+    public void collect(String projectId, StageSink<Firewall> sink) throws Exception {
+        if (assetInventory.enabled()) {
+            for (Firewall firewall : assetInventory.assetsOf(projectId).firewalls()) {
+                sink.accept(firewall);
+            }
+            return;
+        }
+
+        Optional<Snapshot> snapshot = snapshotCache.find(projectId, ID);
+        if (snapshot.isPresent() && snapshot.get().fresh()) {
+            snapshot.get().replay(FIREWALL_CODEC, sink);
+            return;
+        }
+
+        try (SnapshotWriter<Firewall> writer = snapshotCache.writer(projectId, ID, FIREWALL_CODEC)) {
+            MessageDigest digest = newFirewallDigest();
+            try {
+                FirewallsClient firewallsClient = gcpClientRegistry.firewallsClient();
+                ListFirewallsRequest listFirewallsRequest = ListFirewallsRequest.newBuilder()
+                        .setProject(projectId)
+                        .setMaxResults(FIREWALL_PAGE_SIZE)
+                        .build();
+
+                FirewallsClient.ListPage page = callGuard.call(GcpCallGuard.COMPUTE_API, FIREWALLS_LIST_METHOD,
+                        projectId, () -> firewallsClient.list(listFirewallsRequest).getPage());
+                while (page != null) {
+                    for (Firewall firewall : page.getValues()) {
+                        sink.accept(firewall);
+                        writer.append(firewall);
+                        updateFirewallDigest(digest, firewall);
+                    }
+                    FirewallsClient.ListPage current = page;
+                    page = current.hasNextPage()
+                            ? callGuard.call(GcpCallGuard.COMPUTE_API, FIREWALLS_LIST_METHOD,
+                                    projectId, current::getNextPage)
+                            : null;
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new Exception("Unable to retrieve firewall rule information: " + e.getMessage(), e);
+            }
+
+            // Rules are unchanged when every name, fingerprint and creation time matches the snapshot
+            String validator = HexFormat.of().formatHex(digest.digest());
+            if (snapshot.isPresent() && validator.equals(snapshot.get().validator())) {
+                snapshotCache.touch(snapshot.get());
+            } else {
+                writer.commit(validator);
+            }
+        }
+    }
+
+    @Override
+    public List<String> cells(Firewall firewall) {
+        return Arrays.asList(
+                firewall.getDirection().toString(),
+                String.join(", ", firewall.getSourceRangesList()),
+                String.join(", ", firewall.getDestinationRangesList()),
+                firewall.getName(),
+                firewall.getDescription());
+    }
+
+    /**
+     * Enabled ingress rules open to the internet are risky, more so when they allow every
+     * port or remote administration
+     */
+    @Override
+    public int riskScore(Firewall firewall) {
+        return FirewallRuleAnalyzer.exposureScore(firewall);
+    }
+
+    private static MessageDigest newFirewallDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void updateFirewallDigest(MessageDigest digest, Firewall firewall) {
+        digest.update(firewall.getName().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(firewall.getFingerprint().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(firewall.getCreationTimestamp().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+}
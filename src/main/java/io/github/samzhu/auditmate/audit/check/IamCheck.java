@@ -0,0 +1,211 @@
+package io.github.samzhu.auditmate.audit.check;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.resourcemanager.v3.ProjectName;
+import com.google.cloud.resourcemanager.v3.ProjectsClient;
+import com.google.iam.v1.Policy;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.IamMember;
+import io.github.samzhu.auditmate.audit.SheetSchema;
+import io.github.samzhu.auditmate.audit.StageSink;
+import io.github.samzhu.auditmate.audit.asset.AssetInventory;
+import io.github.samzhu.auditmate.audit.iam.PrincipalAccessIndex;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.github.samzhu.auditmate.snapshot.Snapshot;
+import io.github.samzhu.auditmate.snapshot.SnapshotCache;
+import io.github.samzhu.auditmate.snapshot.SnapshotCodec;
+import io.github.samzhu.auditmate.snapshot.SnapshotWriter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * IAM check, reports the roles of the users and groups in the project IAM policy.
+ *
+ * <p>
+ * The policy is read through the caller's quota project, so the check does not depend
+ * on any API being enabled in the audited project. With an inventory backend the policy
+ * comes from the Cloud Asset inventory instead. Every audited policy also updates the
+ * cross-project {@link PrincipalAccessIndex}.
+ */
+@Component
+@RequiredArgsConstructor
+public class IamCheck implements AuditCheck<IamMember> {
+
+    public static final String ID = "iam";
+
+    /**
+     * First cell of the placeholder row of a failed check
+     */
+    public static final String IAM_UNAVAILABLE = "Unable to retrieve IAM permission information";
+
+    private static final int ORDER = 100;
+    private static final String OWNER_ROLE = "roles/owner";
+    private static final String EDITOR_ROLE = "roles/editor";
+    private static final SheetSchema SCHEMA = new SheetSchema("IAM", List.of(
+            SheetSchema.Column.of("User/Group", 20),
+            SheetSchema.Column.wrapped("Permissions", 50)), 0);
+    private static final SnapshotCodec<Policy> POLICY_CODEC = SnapshotCodec.protobuf(Policy.parser());
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final GcpCallGuard callGuard;
+    private final SnapshotCache snapshotCache;
+    private final AssetInventory assetInventory;
+    private final PrincipalAccessIndex principalAccessIndex;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public SheetSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public String rowLabel() {
+        return "IAM Members";
+    }
+
+    /**
+     * Query IAM permissions
+     */
+    @Override
+    public void collect(String projectId, StageSink<IamMember> sink) throws IOException, InterruptedException {
+        Policy policy;
+        if (assetInventory.enabled()) {
+            policy = assetInventory.assetsOf(projectId).policy();
+            if (policy == null) {
+                throw new IOException("Unable to retrieve IAM permission information: the Cloud Asset inventory has no IAM policy of " + projectId);
+            }
+        } else {
+            Optional<Snapshot> snapshot = snapshotCache.find(projectId, ID);
+            policy = snapshot.isPresent() && snapshot.get().fresh()
+                    ? snapshot.get().readFirst(POLICY_CODEC)
+                    : fetchIamPolicy(projectId, snapshot);
+        }
+
+        Map<String, IamMember> iamMap = generateIAMMap(policy);
+        for (IamMember iamMember : iamMap.values()) {
+            sink.accept(iamMember);
+        }
+        // Every member is indexed, not only the reported users and groups
+        principalAccessIndex.update(projectId, iamMap.values());
+    }
+
+    /**
+     * Only users and groups are reported
+     */
+    @Override
+    public boolean isReported(IamMember iamMember) {
+        return iamMember.getName().startsWith("user") || iamMember.getName().startsWith("group");
+    }
+
+    @Override
+    public List<String> cells(IamMember iamMember) {
+        return Arrays.asList(iamMember.getName(), String.join("\n", iamMember.getRoles()));
+    }
+
+    /**
+     * An empty IAM policy is reported as an empty sheet
+     */
+    @Override
+    public List<String> placeholder(Exception failure, int reportedRows) {
+        return failure != null ? List.of(IAM_UNAVAILABLE, NONE) : List.of();
+    }
+
+    @Override
+    public boolean isFailurePlaceholder(List<String> cells) {
+        return IAM_UNAVAILABLE.equals(cells.get(0));
+    }
+
+    /**
+     * Basic roles grant access to almost every resource of the project, admin roles to a whole service
+     */
+    @Override
+    public int riskScore(IamMember iamMember) {
+        int score = 0;
+        for (String role : iamMember.getRoles()) {
+            score = Math.max(score, switch (role) {
+                case OWNER_ROLE -> 100;
+                case EDITOR_ROLE -> 80;
+                default -> role.endsWith("admin") || role.endsWith("Admin") ? 50 : 0;
+            });
+        }
+        return score;
+    }
+
+    /**
+     * Roles are sorted so a reordered policy binding is not reported as a change
+     */
+    @Override
+    public List<String> normalize(List<String> cells) {
+        List<String> normalized = new ArrayList<>(cells);
+        String[] roles = normalized.get(1).split("\n");
+        Arrays.sort(roles);
+        normalized.set(1, String.join("\n", roles));
+        return normalized;
+    }
+
+    /**
+     * Fetch the IAM policy and revalidate or replace its snapshot by etag
+     */
+    private Policy fetchIamPolicy(String projectId, Optional<Snapshot> snapshot) throws IOException {
+        Policy policy;
+        try {
+            ProjectsClient projectsClient = gcpClientRegistry.projectsClient();
+            ProjectName projectName = ProjectName.of(projectId);
+            policy = callGuard.call(GcpCallGuard.RESOURCE_MANAGER_API, "getIamPolicy", projectId,
+                    () -> projectsClient.getIamPolicy(projectName));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("IAM policy retrieval was interrupted", e);
+        } catch (Exception e) {
+            throw new IOException("Unable to retrieve IAM permission information: " + e.getMessage(), e);
+        }
+
+        String etag = Base64.getEncoder().encodeToString(policy.getEtag().toByteArray());
+        if (snapshot.isPresent() && etag.equals(snapshot.get().validator())) {
+            snapshotCache.touch(snapshot.get());
+            return policy;
+        }
+        try (SnapshotWriter<Policy> writer = snapshotCache.writer(projectId, ID, POLICY_CODEC)) {
+            writer.append(policy);
+            writer.commit(etag);
+        }
+        return policy;
+    }
+
+    /**
+     * Generate IAM mapping, package-private for the benchmarks
+     */
+    static Map<String, IamMember> generateIAMMap(Policy policy) {
+        Map<String, IamMember> iamMap = new HashMap<>();
+
+        policy.getBindingsList().forEach(binding -> {
+            String role = binding.getRole();
+            binding.getMembersList().forEach(member -> {
+                IamMember iam = iamMap.computeIfAbsent(member, IamMember::new);
+                iam.addRole(role);
+            });
+        });
+
+        return iamMap;
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.regex.Pattern;
+
+/**
+ * IPv4 or IPv6 address block in CIDR notation, e.g. 10.0.0.0/8 or 2600:1900::/28.
+ * The host bits of the address are cleared, so equal blocks have equal addresses.
+ */
+public final class CidrBlock {
+
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private final byte[] address;
+    private final int prefixLength;
+
+    private CidrBlock(byte[] address, int prefixLength) {
+        this.address = address;
+        this.prefixLength = prefixLength;
+        for (int bit = prefixLength; bit < address.length * 8; bit++) {
+            address[bit >> 3] &= (byte) ~(0x80 >>> (bit & 7));
+        }
+    }
+
+    /**
+     * Parse a block, a plain address is a block of one address
+     *
+     * @throws IllegalArgumentException when the value is not an IP address or block
+     */
+    public static CidrBlock parse(String value) {
+        String text = value.trim();
+        int slash = text.indexOf('/');
+        String host = slash < 0 ? text : text.substring(0, slash);
+
+        byte[] address;
+        if (IPV4.matcher(host).matches()) {
+            address = new byte[4];
+            String[] octets = host.split("\\.");
+            for (int i = 0; i < octets.length; i++) {
+                int octet = Integer.parseInt(octets[i]);
+                if (octet > 255) {
+                    throw new IllegalArgumentException("Invalid IPv4 address: " + value);
+                }
+                address[i] = (byte) octet;
+            }
+        } else if (IPV6.matcher(host).matches()) {
+            // Only literals reach InetAddress, so this never resolves a host name
+            address = parseIpv6(host, value);
+        } else {
+            throw new IllegalArgumentException("Invalid IP address: " + value);
+        }
+
+        int maxPrefix = address.length * 8;
+        int prefixLength;
+        try {
+            prefixLength = slash < 0 ? maxPrefix : Integer.parseInt(text.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid prefix length: " + value, e);
+        }
+        if (prefixLength < 0 || prefixLength > maxPrefix) {
+            throw new IllegalArgumentException("Invalid prefix length: " + value);
+        }
+        return new CidrBlock(address, prefixLength);
+    }
+
+    private static byte[] parseIpv6(String host, String value) {
+        try {
+            InetAddress address = InetAddress.getByName(host);
+            if (!(address instanceof Inet6Address)) {
+                throw new IllegalArgumentException("IPv4-mapped IPv6 blocks are not supported: " + value);
+            }
+            return address.getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid IPv6 address: " + value, e);
+        }
+    }
+
+    public boolean isIpv6() {
+        return address.length == 16;
+    }
+
+    public int prefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Whether this is the whole address space of its family, 0.0.0.0/0 or ::/0
+     */
+    public boolean isEverything() {
+        return prefixLength == 0;
+    }
+
+    /**
+     * Bit of the address, 0 is the most significant bit
+     */
+    int bit(int index) {
+        return (address[index >> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * Whether every address of the other block is in this block
+     */
+    public boolean contains(CidrBlock other) {
+        if (isIpv6() != other.isIpv6() || prefixLength > other.prefixLength) {
+            return false;
+        }
+        int fullBytes = prefixLength >> 3;
+        for (int i = 0; i < fullBytes; i++) {
+            if (address[i] != other.address[i]) {
+                return false;
+            }
+        }
+        int remainingBits = prefixLength & 7;
+        if (remainingBits == 0) {
+            return true;
+        }
+        int mask = 0xff << (8 - remainingBits);
+        return ((address[fullBytes] ^ other.address[fullBytes]) & mask) == 0;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return InetAddress.getByAddress(address).getHostAddress() + "/" + prefixLength;
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Invalid address length " + address.length, e);
+        }
+    }
+}
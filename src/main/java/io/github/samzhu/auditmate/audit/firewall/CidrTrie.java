@@ -0,0 +1,73 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Binary prefix trie of CIDR blocks, one level per address bit.
+ *
+ * <p>
+ * CIDR blocks are intervals that never partially overlap: two blocks are either nested or
+ * disjoint. The blocks containing a block are therefore exactly the blocks stored on its
+ * path from the root, so a containment query takes at most one step per prefix bit,
+ * whatever is stored elsewhere. Each block holds a single value, which aggregates whatever
+ * is stored for the block.
+ *
+ * @param <V> value stored with each block
+ */
+final class CidrTrie<V> {
+
+    private final Node<V> ipv4 = new Node<>();
+    private final Node<V> ipv6 = new Node<>();
+
+    private static final class Node<V> {
+        @SuppressWarnings("unchecked")
+        private final Node<V>[] children = new Node[2];
+        private V value;
+    }
+
+    /**
+     * Value of a block, created when the block has none yet
+     */
+    V computeIfAbsent(CidrBlock block, Supplier<V> factory) {
+        Node<V> node = block.isIpv6() ? ipv6 : ipv4;
+        for (int bit = 0; bit < block.prefixLength(); bit++) {
+            int branch = block.bit(bit);
+            if (node.children[branch] == null) {
+                node.children[branch] = new Node<>();
+            }
+            node = node.children[branch];
+        }
+        if (node.value == null) {
+            node.value = factory.get();
+        }
+        return node.value;
+    }
+
+    /**
+     * Value of exactly the given block, null when it has none
+     */
+    V get(CidrBlock block) {
+        Node<V> node = block.isIpv6() ? ipv6 : ipv4;
+        for (int bit = 0; node != null && bit < block.prefixLength(); bit++) {
+            node = node.children[block.bit(bit)];
+        }
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * Visit the values of every stored block that contains the given block, widest blocks first
+     */
+    void forEachContaining(CidrBlock block, Consumer<V> action) {
+        Node<V> node = block.isIpv6() ? ipv6 : ipv4;
+        for (int bit = 0; node != null; bit++) {
+            if (node.value != null) {
+                action.accept(node.value);
+            }
+            if (bit == block.prefixLength()) {
+                return;
+            }
+            node = node.children[block.bit(bit)];
+        }
+    }
+}
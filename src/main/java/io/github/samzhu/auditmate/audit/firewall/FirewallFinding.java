@@ -0,0 +1,17 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import java.util.List;
+
+/**
+ * Findings of one firewall rule
+ *
+ * @param ruleName  firewall rule name
+ * @param network   short name of the VPC network of the rule
+ * @param issues    issues found, e.g. open to the internet and shadowed
+ * @param coveredBy name of the rule that matches all traffic of this rule first, null when none does
+ * @param details   explanation of each issue, in issue order
+ * @param riskScore risk of the rule, the highest risk of its issues
+ */
+public record FirewallFinding(String ruleName, String network, List<String> issues, String coveredBy,
+        List<String> details, int riskScore) {
+}
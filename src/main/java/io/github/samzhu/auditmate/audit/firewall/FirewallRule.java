@@ -0,0 +1,154 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.google.cloud.compute.v1.Allowed;
+import com.google.cloud.compute.v1.Denied;
+import com.google.cloud.compute.v1.Firewall;
+
+/**
+ * Parsed view of a firewall rule, as matched by the analysis.
+ *
+ * <p>
+ * The primary ranges are the ranges a connection's peer must be in: the source ranges of
+ * an ingress rule and the destination ranges of an egress rule. The secondary ranges are
+ * the optional filter on the other side of the connection.
+ */
+final class FirewallRule {
+
+    static final String INGRESS = "INGRESS";
+
+    /**
+     * Priority of a rule without one, as applied by the Compute Engine API
+     */
+    private static final int DEFAULT_PRIORITY = 1000;
+
+    /**
+     * Destination of an egress rule without destination ranges
+     */
+    private static final CidrBlock ALL_IPV4 = CidrBlock.parse("0.0.0.0/0");
+
+    final Firewall firewall;
+    final String network;
+    final boolean ingress;
+    final boolean deny;
+    final int priority;
+    final List<CidrBlock> ranges = new ArrayList<>();
+    final List<CidrBlock> secondaryRanges = new ArrayList<>();
+    final Set<String> sourceTags;
+    final Set<String> sourceAccounts;
+    final Set<String> targetTags;
+    final Set<String> targetAccounts;
+    final PortRanges ports;
+
+    /**
+     * Whether a range or port could not be parsed, such a rule is never reported as covered
+     */
+    boolean unparsed;
+
+    /**
+     * Position in evaluation order, set by the analysis
+     */
+    int order;
+
+    FirewallRule(Firewall firewall) {
+        this.firewall = firewall;
+        this.network = firewall.getNetwork();
+        this.ingress = INGRESS.equals(firewall.getDirection());
+        this.deny = firewall.getDeniedCount() > 0;
+        this.priority = firewall.hasPriority() ? firewall.getPriority() : DEFAULT_PRIORITY;
+        this.sourceTags = Set.copyOf(firewall.getSourceTagsList());
+        this.sourceAccounts = Set.copyOf(firewall.getSourceServiceAccountsList());
+        this.targetTags = Set.copyOf(firewall.getTargetTagsList());
+        this.targetAccounts = Set.copyOf(firewall.getTargetServiceAccountsList());
+
+        List<String> primary = ingress ? firewall.getSourceRangesList() : firewall.getDestinationRangesList();
+        List<String> secondary = ingress ? firewall.getDestinationRangesList() : firewall.getSourceRangesList();
+        parseRanges(primary, ranges);
+        parseRanges(secondary, secondaryRanges);
+        if (!ingress && primary.isEmpty()) {
+            ranges.add(ALL_IPV4);
+        }
+        this.ports = parsePorts(firewall);
+    }
+
+    private void parseRanges(List<String> values, List<CidrBlock> blocks) {
+        for (String value : values) {
+            try {
+                blocks.add(CidrBlock.parse(value));
+            } catch (IllegalArgumentException e) {
+                unparsed = true;
+            }
+        }
+    }
+
+    private PortRanges parsePorts(Firewall firewall) {
+        PortRanges.Builder builder = PortRanges.builder();
+        try {
+            for (Allowed allowed : firewall.getAllowedList()) {
+                builder.add(allowed.getIPProtocol(), allowed.getPortsList());
+            }
+            for (Denied denied : firewall.getDeniedList()) {
+                builder.add(denied.getIPProtocol(), denied.getPortsList());
+            }
+        } catch (IllegalArgumentException e) {
+            unparsed = true;
+        }
+        return builder.build();
+    }
+
+    String name() {
+        return firewall.getName();
+    }
+
+    /**
+     * Whether the rule matches connections from or to every address of a family
+     */
+    boolean matchesEverything() {
+        return ranges.stream().anyMatch(CidrBlock::isEverything);
+    }
+
+    /**
+     * Whether the rule matches connections from or to every IPv4 address, which includes the
+     * internal addresses of tagged and service account sources
+     */
+    boolean matchesAllIpv4() {
+        return ranges.stream().anyMatch(block -> block.isEverything() && !block.isIpv6());
+    }
+
+    /**
+     * Whether every connection the other rule matches is also matched by this rule
+     */
+    boolean covers(FirewallRule other) {
+        if (!containsAll(ranges, other.ranges)) {
+            return false;
+        }
+        if (!targetTags.isEmpty() && (other.targetTags.isEmpty() || !targetTags.containsAll(other.targetTags))) {
+            return false;
+        }
+        if (!targetAccounts.isEmpty()
+                && (other.targetAccounts.isEmpty() || !targetAccounts.containsAll(other.targetAccounts))) {
+            return false;
+        }
+        // Tagged and service account sources have internal IPv4 addresses, covered by a rule for all of them
+        if (!matchesAllIpv4() && !(sourceTags.containsAll(other.sourceTags) && sourceAccounts.containsAll(other.sourceAccounts))) {
+            return false;
+        }
+        if (!secondaryRanges.isEmpty()
+                && (other.secondaryRanges.isEmpty() || !containsAll(secondaryRanges, other.secondaryRanges))) {
+            return false;
+        }
+        return ports.covers(other.ports);
+    }
+
+    private static boolean containsAll(List<CidrBlock> outer, List<CidrBlock> inner) {
+        for (CidrBlock block : inner) {
+            if (outer.stream().noneMatch(candidate -> candidate.contains(block))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,375 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.cloud.compute.v1.Firewall;
+
+/**
+ * Finds risky and ineffective firewall rules of a project in one pass.
+ *
+ * <p>
+ * Enabled rules are visited in evaluation order: by priority, deny before allow at equal
+ * priority. Every visited rule is indexed by network and direction, then by target, then by
+ * the CIDR blocks of its ranges in a {@link CidrTrie} and by its source tags and service
+ * accounts. Rules are not kept one by one: each block, tag and account keeps, per action and
+ * protocol, the merged port ranges of its rules with the first rule merged into each range.
+ * A rule is covered when the rules evaluated before it match all of its traffic; since CIDR
+ * blocks only nest, each of its ranges is looked up in the blocks on its path, so a lookup
+ * costs one merged range search per prefix bit however many rules share a block. A covered
+ * rule never decides a connection: it is shadowed when rules of the opposite action decide
+ * some of its traffic, and redundant otherwise.
+ *
+ * <p>
+ * Coverage is judged conservatively: each range, tag and port range of a rule must be
+ * matched within one merged port range of a single block, tag or account, rules filtering
+ * the other side of the connection cover nothing, and rules with unparseable ranges or
+ * ports are never reported as covered.
+ */
+public final class FirewallRuleAnalyzer {
+
+    public static final String OPEN_TO_INTERNET = "Open to the internet";
+    public static final String SHADOWED = "Shadowed";
+    public static final String REDUNDANT = "Redundant";
+
+    private static final int[] ADMIN_PORTS = {22, 3389};
+    private static final CidrBlock ALL_IPV4 = CidrBlock.parse("0.0.0.0/0");
+    private static final Comparator<FirewallRule> EVALUATION_ORDER = Comparator
+            .comparingInt((FirewallRule rule) -> rule.priority)
+            .thenComparing(rule -> !rule.deny)
+            .thenComparing(FirewallRule::name);
+
+    private FirewallRuleAnalyzer() {
+    }
+
+    /**
+     * Analyze the firewall rules of a project
+     *
+     * @return findings of the rules with at least one issue, in evaluation order
+     */
+    public static List<FirewallFinding> analyze(Collection<Firewall> firewalls) {
+        List<FirewallRule> rules = firewalls.stream()
+                .filter(firewall -> !firewall.getDisabled())
+                .map(FirewallRule::new)
+                .sorted(EVALUATION_ORDER)
+                .toList();
+
+        Map<String, RuleIndex> indexes = new HashMap<>();
+        List<FirewallFinding> findings = new ArrayList<>();
+        for (int order = 0; order < rules.size(); order++) {
+            FirewallRule rule = rules.get(order);
+            rule.order = order;
+            RuleIndex index = indexes.computeIfAbsent(rule.network + (rule.ingress ? "#ingress" : "#egress"),
+                    key -> new RuleIndex());
+            FirewallRule coveredBy = rule.unparsed ? null : index.firstCovering(rule);
+            index.add(rule);
+
+            FirewallFinding finding = toFinding(rule, coveredBy);
+            if (!finding.issues().isEmpty()) {
+                findings.add(finding);
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Risk of an enabled ingress rule that allows connections from every address:
+     * 90 when it allows every port, 80 when it allows remote administration, 50 otherwise
+     *
+     * @return 0 for rules not open to the internet
+     */
+    public static int exposureScore(Firewall firewall) {
+        return exposureScore(new FirewallRule(firewall));
+    }
+
+    private static int exposureScore(FirewallRule rule) {
+        if (!rule.ingress || rule.deny || rule.firewall.getDisabled() || !rule.matchesEverything()) {
+            return 0;
+        }
+        if (rule.ports.matchesAllPorts()) {
+            return 90;
+        }
+        for (int port : ADMIN_PORTS) {
+            if (rule.ports.matches("tcp", port)) {
+                return 80;
+            }
+        }
+        return 50;
+    }
+
+    private static FirewallFinding toFinding(FirewallRule rule, FirewallRule coveredBy) {
+        List<String> issues = new ArrayList<>();
+        List<String> details = new ArrayList<>();
+        int riskScore = exposureScore(rule);
+        if (riskScore > 0) {
+            issues.add(OPEN_TO_INTERNET);
+            details.add(String.format("Allows %s from %s", rule.ports, rule.ranges.stream()
+                    .filter(CidrBlock::isEverything)
+                    .map(CidrBlock::toString)
+                    .collect(Collectors.joining(", "))));
+        }
+        if (coveredBy != null) {
+            boolean shadowed = coveredBy.deny != rule.deny;
+            issues.add(shadowed ? SHADOWED : REDUNDANT);
+            details.add(String.format("Never applied, %s rules from %s at priority %d on match all its traffic first",
+                    coveredBy.deny ? "deny" : "allow", coveredBy.name(), coveredBy.priority));
+            riskScore = Math.max(riskScore, shadowed ? 20 : 10);
+        }
+        String network = rule.network.substring(rule.network.lastIndexOf('/') + 1);
+        return new FirewallFinding(rule.name(), network, issues, coveredBy != null ? coveredBy.name() : null,
+                details, riskScore);
+    }
+
+    /**
+     * Rules of one network and direction, by target. Rules without targets apply to every instance.
+     */
+    private static final class RuleIndex {
+        private final RangeIndex allTargets = new RangeIndex();
+        private final Map<String, RangeIndex> byTargetTag = new HashMap<>();
+        private final Map<String, RangeIndex> byTargetAccount = new HashMap<>();
+
+        void add(FirewallRule rule) {
+            // Rules filtering the other side of the connection match only part of its traffic and cover nothing
+            if (!rule.secondaryRanges.isEmpty()) {
+                return;
+            }
+            if (rule.targetTags.isEmpty() && rule.targetAccounts.isEmpty()) {
+                allTargets.add(rule);
+            } else if (rule.targetAccounts.isEmpty()) {
+                rule.targetTags.forEach(tag -> byTargetTag.computeIfAbsent(tag, key -> new RangeIndex()).add(rule));
+            } else if (rule.targetTags.isEmpty()) {
+                rule.targetAccounts.forEach(
+                        account -> byTargetAccount.computeIfAbsent(account, key -> new RangeIndex()).add(rule));
+            }
+        }
+
+        /**
+         * The rule deciding the traffic of the rule among the indexed rules, one of opposite action
+         * when there is one, null when some of its traffic is not matched by them
+         */
+        FirewallRule firstCovering(FirewallRule rule) {
+            CoverSearch search = new CoverSearch(rule);
+            // Instances of a target are reached by the rules for all instances and by those for that target
+            if (!rule.targetTags.isEmpty()) {
+                rule.targetTags.forEach(tag -> search.target(allTargets, byTargetTag.get(tag)));
+            } else if (!rule.targetAccounts.isEmpty()) {
+                rule.targetAccounts.forEach(account -> search.target(allTargets, byTargetAccount.get(account)));
+            } else {
+                search.target(allTargets, null);
+            }
+            return search.coveredBy();
+        }
+    }
+
+    /**
+     * Rules of one target, their ports by range and by source tag and service account
+     */
+    private static final class RangeIndex {
+        private final CidrTrie<PortCoverage> ranges = new CidrTrie<>();
+        private final Map<String, PortCoverage> bySourceTag = new HashMap<>();
+        private final Map<String, PortCoverage> bySourceAccount = new HashMap<>();
+
+        void add(FirewallRule rule) {
+            rule.ranges.forEach(block -> ranges.computeIfAbsent(block, PortCoverage::new).add(rule));
+            rule.sourceTags.forEach(tag -> bySourceTag.computeIfAbsent(tag, key -> new PortCoverage()).add(rule));
+            rule.sourceAccounts.forEach(
+                    account -> bySourceAccount.computeIfAbsent(account, key -> new PortCoverage()).add(rule));
+        }
+
+        /**
+         * Ports of the rules matching every address of a block, one per containing block
+         */
+        void forEachContaining(CidrBlock block, Consumer<PortCoverage> action) {
+            ranges.forEachContaining(block, action);
+        }
+
+        /**
+         * Ports of the rules matching a source tag or service account: those naming it and those for all IPv4 addresses
+         */
+        void forEachMatchingSource(Map<String, PortCoverage> sources, String source, Consumer<PortCoverage> action) {
+            PortCoverage named = sources.get(source);
+            if (named != null) {
+                action.accept(named);
+            }
+            PortCoverage allIpv4 = ranges.get(ALL_IPV4);
+            if (allIpv4 != null) {
+                action.accept(allIpv4);
+            }
+        }
+    }
+
+    /**
+     * Ports matched by the rules of one range or source, per action: the first rule for every
+     * protocol and, per protocol, merged port ranges each with the first rule merged into it.
+     * Rules are added in evaluation order, so a range keeps the rule it first got.
+     */
+    private static final class PortCoverage {
+        private final FirewallRule[] allProtocols = new FirewallRule[2];
+        private final List<Map<String, TreeMap<Integer, MergedRange>>> byProtocol = List.of(new HashMap<>(),
+                new HashMap<>());
+
+        void add(FirewallRule rule) {
+            int action = rule.deny ? 1 : 0;
+            if (rule.ports.matchesAllProtocols()) {
+                if (allProtocols[action] == null) {
+                    allProtocols[action] = rule;
+                }
+                return;
+            }
+            rule.ports.intervals().forEach((protocol, ranges) -> {
+                TreeMap<Integer, MergedRange> merged = byProtocol.get(action)
+                        .computeIfAbsent(protocol, key -> new TreeMap<>());
+                for (int i = 0; i < ranges.length; i += 2) {
+                    merge(merged, ranges[i], ranges[i + 1], rule);
+                }
+            });
+        }
+
+        /**
+         * Add a port range, merged with the overlapping and adjacent ranges
+         */
+        private static void merge(TreeMap<Integer, MergedRange> merged, int start, int end, FirewallRule rule) {
+            FirewallRule first = rule;
+            Map.Entry<Integer, MergedRange> before = merged.floorEntry(start);
+            if (before != null && before.getValue().end() >= start - 1) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue().end());
+                first = before.getValue().first();
+                merged.remove(start);
+            }
+            for (Map.Entry<Integer, MergedRange> after = merged.ceilingEntry(start);
+                    after != null && after.getKey() <= end + 1; after = merged.ceilingEntry(start)) {
+                end = Math.max(end, after.getValue().end());
+                first = earlier(first, after.getValue().first());
+                merged.remove(after.getKey());
+            }
+            merged.put(start, new MergedRange(end, first));
+        }
+
+        /**
+         * The first rule of the action whose merged range holds the port range of the protocol, null when none does
+         */
+        FirewallRule firstCovering(boolean deny, String protocol, int start, int end) {
+            int action = deny ? 1 : 0;
+            TreeMap<Integer, MergedRange> merged = byProtocol.get(action).get(protocol);
+            Map.Entry<Integer, MergedRange> range = merged != null ? merged.floorEntry(start) : null;
+            FirewallRule ports = range != null && range.getValue().end() >= end ? range.getValue().first() : null;
+            return earlier(allProtocols[action], ports);
+        }
+
+        /**
+         * The first rule of the action for every protocol, null when there is none
+         */
+        FirewallRule firstCoveringAllProtocols(boolean deny) {
+            return allProtocols[deny ? 1 : 0];
+        }
+    }
+
+    private record MergedRange(int end, FirewallRule first) {
+    }
+
+    /**
+     * Whether the indexed rules decide all traffic of one rule. Its traffic is split by target, by
+     * source range, tag or service account and by protocol and port range; each part must be matched
+     * within the merged port ranges of one action for one containing block or source.
+     */
+    private static final class CoverSearch {
+        private final FirewallRule rule;
+        private final List<PortCoverage> coverages = new ArrayList<>();
+        private FirewallRule coveredBy;
+        private boolean uncovered;
+
+        CoverSearch(FirewallRule rule) {
+            this.rule = rule;
+        }
+
+        void target(RangeIndex allTargets, RangeIndex targeted) {
+            boolean hasSource = false;
+            for (CidrBlock block : rule.ranges) {
+                part(index -> index.forEachContaining(block, this::offer), allTargets, targeted);
+                hasSource = true;
+            }
+            for (String tag : rule.sourceTags) {
+                part(index -> index.forEachMatchingSource(index.bySourceTag, tag, this::offer), allTargets, targeted);
+                hasSource = true;
+            }
+            for (String account : rule.sourceAccounts) {
+                part(index -> index.forEachMatchingSource(index.bySourceAccount, account, this::offer),
+                        allTargets, targeted);
+                hasSource = true;
+            }
+            uncovered |= !hasSource;
+        }
+
+        private void offer(PortCoverage coverage) {
+            coverages.add(coverage);
+        }
+
+        /**
+         * Match every port range of the rule within the coverages of one target and source
+         */
+        private void part(Consumer<RangeIndex> collect, RangeIndex allTargets, RangeIndex targeted) {
+            if (uncovered) {
+                return;
+            }
+            coverages.clear();
+            collect.accept(allTargets);
+            if (targeted != null) {
+                collect.accept(targeted);
+            }
+            if (rule.ports.matchesAllProtocols()) {
+                decide(coverage -> earlier(coverage.firstCoveringAllProtocols(!rule.deny),
+                        coverage.firstCoveringAllProtocols(rule.deny)));
+                return;
+            }
+            for (Map.Entry<String, int[]> entry : rule.ports.intervals().entrySet()) {
+                int[] ranges = entry.getValue();
+                for (int i = 0; i < ranges.length && !uncovered; i += 2) {
+                    int start = ranges[i];
+                    int end = ranges[i + 1];
+                    decide(coverage -> earlier(coverage.firstCovering(!rule.deny, entry.getKey(), start, end),
+                            coverage.firstCovering(rule.deny, entry.getKey(), start, end)));
+                }
+            }
+        }
+
+        /**
+         * Keep the first rule matching one part, preferring across parts a rule of opposite action
+         */
+        private void decide(Function<PortCoverage, FirewallRule> firstOf) {
+            FirewallRule first = null;
+            for (PortCoverage coverage : coverages) {
+                first = earlier(first, firstOf.apply(coverage));
+            }
+            if (first == null) {
+                uncovered = true;
+            } else if (coveredBy == null || opposes(first) && !opposes(coveredBy)
+                    || opposes(first) == opposes(coveredBy) && first.order < coveredBy.order) {
+                coveredBy = first;
+            }
+        }
+
+        private boolean opposes(FirewallRule other) {
+            return other.deny != rule.deny;
+        }
+
+        FirewallRule coveredBy() {
+            return uncovered ? null : coveredBy;
+        }
+    }
+
+    private static FirewallRule earlier(FirewallRule first, FirewallRule second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first.order <= second.order ? first : second;
+    }
+}
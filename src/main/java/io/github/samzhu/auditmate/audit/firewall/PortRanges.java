@@ -0,0 +1,233 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Protocols and port ranges matched by the allowed or denied entries of a firewall rule.
+ *
+ * <p>
+ * The ports of each protocol are kept as sorted, merged intervals, so whether a port or a
+ * port range is matched is a binary search, and whether the entries of one rule match
+ * everything another rule matches costs one search per interval of the other rule.
+ */
+public final class PortRanges {
+
+    public static final int MAX_PORT = 65535;
+
+    private static final String ALL_PROTOCOLS = "all";
+    private static final int[] ALL_PORTS = {0, MAX_PORT};
+
+    /**
+     * Protocol numbers that the Compute Engine API also accepts as names
+     */
+    private static final Map<String, String> PROTOCOL_NAMES = Map.of(
+            "1", "icmp",
+            "6", "tcp",
+            "17", "udp",
+            "50", "esp",
+            "51", "ah",
+            "132", "sctp");
+
+    private final boolean allProtocols;
+    private final Map<String, int[]> intervals;
+
+    private PortRanges(boolean allProtocols, Map<String, int[]> intervals) {
+        this.allProtocols = allProtocols;
+        this.intervals = intervals;
+    }
+
+    /**
+     * Collects the entries of one rule
+     */
+    public static final class Builder {
+        private final Map<String, List<int[]>> ports = new TreeMap<>();
+        private boolean allProtocols;
+
+        /**
+         * Add an allowed or denied entry
+         *
+         * @param protocol protocol name or number, "all" for every protocol
+         * @param ports    ports and port ranges like "443" or "8000-8080", every port when empty
+         * @throws IllegalArgumentException when a port is not a number or range
+         */
+        public Builder add(String protocol, List<String> ports) {
+            String name = protocol.trim().toLowerCase(Locale.ROOT);
+            name = PROTOCOL_NAMES.getOrDefault(name, name);
+            if (ALL_PROTOCOLS.equals(name)) {
+                allProtocols = true;
+                return this;
+            }
+            List<int[]> protocolPorts = this.ports.computeIfAbsent(name, key -> new ArrayList<>());
+            if (ports.isEmpty()) {
+                protocolPorts.add(ALL_PORTS);
+            }
+            for (String port : ports) {
+                protocolPorts.add(parsePort(port));
+            }
+            return this;
+        }
+
+        public PortRanges build() {
+            Map<String, int[]> intervals = new TreeMap<>();
+            if (!allProtocols) {
+                ports.forEach((protocol, ranges) -> intervals.put(protocol, merge(ranges)));
+            }
+            return new PortRanges(allProtocols, intervals);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static int[] parsePort(String port) {
+        String text = port.trim();
+        int dash = text.indexOf('-');
+        try {
+            int start = Integer.parseInt(dash < 0 ? text : text.substring(0, dash).trim());
+            int end = dash < 0 ? start : Integer.parseInt(text.substring(dash + 1).trim());
+            if (start < 0 || end > MAX_PORT || start > end) {
+                throw new IllegalArgumentException("Invalid port range: " + port);
+            }
+            return new int[] {start, end};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port range: " + port, e);
+        }
+    }
+
+    /**
+     * Merge overlapping and adjacent ranges into sorted start and end pairs
+     */
+    private static int[] merge(List<int[]> ranges) {
+        List<int[]> sorted = new ArrayList<>(ranges);
+        sorted.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] merged = new int[sorted.size() * 2];
+        int length = 0;
+        for (int[] range : sorted) {
+            if (length > 0 && range[0] <= merged[length - 1] + 1) {
+                merged[length - 1] = Math.max(merged[length - 1], range[1]);
+            } else {
+                merged[length++] = range[0];
+                merged[length++] = range[1];
+            }
+        }
+        return Arrays.copyOf(merged, length);
+    }
+
+    /**
+     * Whether every protocol is matched, like an entry with protocol "all"
+     */
+    public boolean matchesAllProtocols() {
+        return allProtocols;
+    }
+
+    /**
+     * Merged start and end pairs by protocol, empty when every protocol is matched
+     */
+    Map<String, int[]> intervals() {
+        return Collections.unmodifiableMap(intervals);
+    }
+
+    /**
+     * Whether every port of TCP or UDP is matched
+     */
+    public boolean matchesAllPorts() {
+        return allProtocols || matchesRange("tcp", 0, MAX_PORT) || matchesRange("udp", 0, MAX_PORT);
+    }
+
+    /**
+     * Whether a port of a protocol is matched
+     */
+    public boolean matches(String protocol, int port) {
+        return matchesRange(protocol, port, port);
+    }
+
+    private boolean matchesRange(String protocol, int start, int end) {
+        if (allProtocols) {
+            return true;
+        }
+        int[] ranges = intervals.get(protocol);
+        return ranges != null && covers(ranges, start, end);
+    }
+
+    /**
+     * Whether everything the other entries match is matched by these entries
+     */
+    public boolean covers(PortRanges other) {
+        if (allProtocols) {
+            return true;
+        }
+        if (other.allProtocols) {
+            return false;
+        }
+        for (Map.Entry<String, int[]> entry : other.intervals.entrySet()) {
+            int[] ranges = intervals.get(entry.getKey());
+            if (ranges == null) {
+                return false;
+            }
+            int[] otherRanges = entry.getValue();
+            for (int i = 0; i < otherRanges.length; i += 2) {
+                if (!covers(ranges, otherRanges[i], otherRanges[i + 1])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binary search for the last merged range starting at or before the start, which must reach the end
+     */
+    private static boolean covers(int[] ranges, int start, int end) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (ranges[middle * 2] <= start) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found >= 0 && ranges[found * 2 + 1] >= end;
+    }
+
+    /**
+     * Entries like "tcp:22,8000-8080; udp:53", or "all"
+     */
+    @Override
+    public String toString() {
+        if (allProtocols) {
+            return ALL_PROTOCOLS;
+        }
+        return intervals.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + formatRanges(entry.getValue()))
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String formatRanges(int[] ranges) {
+        if (ranges.length == 2 && ranges[0] == 0 && ranges[1] == MAX_PORT) {
+            return "all";
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(ranges[i]);
+            if (ranges[i + 1] != ranges[i]) {
+                text.append('-').append(ranges[i + 1]);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.iam.v1.Binding;
+
+/**
+ * Computes the effective permissions of every principal from the policies of a project
+ * and its ancestors.
+ *
+ * <p>
+ * Each role is expanded once per project into a shared permission bitset, and the
+ * permissions of a principal are the union of the bitsets of its unconditional roles.
+ * Conditional roles are listed with their condition but not counted, since whether they
+ * apply depends on the request.
+ */
+public final class EffectivePermissionCalculator {
+
+    private static final String ALL_USERS = "allUsers";
+    private static final String ALL_AUTHENTICATED_USERS = "allAuthenticatedUsers";
+    private static final String SET_IAM_POLICY_SUFFIX = ".setIamPolicy";
+
+    private EffectivePermissionCalculator() {
+    }
+
+    private static final class Principal {
+        private final BitSet permissions = new BitSet();
+        private final Set<String> roles = new LinkedHashSet<>();
+        private final Set<String> conditionalRoles = new LinkedHashSet<>();
+        private final Set<String> unresolved = new LinkedHashSet<>();
+    }
+
+    /**
+     * Calculate the effective permissions
+     *
+     * @param policies  policies of the project and its ancestors
+     * @param roleCache expands roles into permissions
+     * @param projectId GCP project ID, the scope of the role requests
+     * @return one row per principal sorted by principal, then one row per unreadable policy
+     */
+    public static List<EffectivePermissions> calculate(List<SourcedPolicy> policies, RoleDefinitionCache roleCache,
+            String projectId) throws InterruptedException {
+        Map<String, Principal> principals = new TreeMap<>();
+        Map<String, BitSet> expanded = new HashMap<>();
+        Set<String> unresolvedRoles = new HashSet<>();
+
+        for (SourcedPolicy sourced : policies) {
+            if (sourced.policy() == null) {
+                continue;
+            }
+            for (Binding binding : sourced.policy().getBindingsList()) {
+                String role = binding.getRole();
+                String label = sourced.inherited() ? role + " (" + sourced.resource() + ")" : role;
+                BitSet permissions = null;
+                if (binding.hasCondition()) {
+                    String condition = binding.getCondition().getTitle().isEmpty()
+                            ? binding.getCondition().getExpression()
+                            : binding.getCondition().getTitle();
+                    label = label + " if " + condition;
+                } else if (!unresolvedRoles.contains(role)) {
+                    permissions = expanded.get(role);
+                    if (permissions == null) {
+                        try {
+                            permissions = roleCache.permissionsOf(role, projectId);
+                            expanded.put(role, permissions);
+                        } catch (IOException e) {
+                            unresolvedRoles.add(role);
+                        }
+                    }
+                }
+
+                for (String member : binding.getMembersList()) {
+                    Principal principal = principals.computeIfAbsent(member, key -> new Principal());
+                    if (binding.hasCondition()) {
+                        principal.conditionalRoles.add(label);
+                    } else {
+                        principal.roles.add(label);
+                        if (permissions != null) {
+                            principal.permissions.or(permissions);
+                        } else {
+                            principal.unresolved.add(role);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<EffectivePermissions> rows = new ArrayList<>(principals.size());
+        principals.forEach((member, principal) -> rows.add(toRow(member, principal, roleCache)));
+        for (SourcedPolicy sourced : policies) {
+            if (sourced.policy() == null) {
+                rows.add(new EffectivePermissions(sourced.resource(), EffectivePermissions.UNREADABLE_POLICY,
+                        List.of(), List.of(), 0, List.of(), List.of(sourced.error()), 0));
+            }
+        }
+        return rows;
+    }
+
+    private static EffectivePermissions toRow(String member, Principal principal, RoleDefinitionCache roleCache) {
+        List<String> sensitive = new ArrayList<>(roleCache.namesOf(roleCache.sensitiveOf(principal.permissions)));
+        sensitive.sort(null);
+        String type = typeOf(member);
+        return new EffectivePermissions(member, type, List.copyOf(principal.roles),
+                List.copyOf(principal.conditionalRoles), principal.permissions.cardinality(), sensitive,
+                List.copyOf(principal.unresolved), riskScore(type, principal, sensitive));
+    }
+
+    /**
+     * Public principals are the riskiest, then principals that can change access control
+     */
+    private static int riskScore(String type, Principal principal, List<String> sensitive) {
+        boolean granted = !principal.roles.isEmpty() || !principal.conditionalRoles.isEmpty();
+        if (granted && (ALL_USERS.equals(type) || ALL_AUTHENTICATED_USERS.equals(type))) {
+            return 100;
+        }
+        if (sensitive.stream().anyMatch(permission -> permission.endsWith(SET_IAM_POLICY_SUFFIX))) {
+            return 90;
+        }
+        return sensitive.isEmpty() ? 0 : 70;
+    }
+
+    /**
+     * Principal type, the prefix of the member, e.g. user for user:alice@example.com
+     */
+    static String typeOf(String member) {
+        int colon = member.indexOf(':');
+        return colon < 0 ? member : member.substring(0, colon);
+    }
+}
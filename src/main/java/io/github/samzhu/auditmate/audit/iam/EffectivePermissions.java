@@ -0,0 +1,25 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import java.util.List;
+
+/**
+ * Effective permissions of one principal on a project
+ *
+ * @param principal            IAM principal, e.g. serviceAccount:app@demo-project.iam.gserviceaccount.com,
+ *                             or the resource of an unreadable policy
+ * @param type                 principal type, e.g. user, serviceAccount, domain or allUsers
+ * @param roles                unconditionally granted roles, inherited ones with their resource
+ * @param conditionalRoles     roles granted under a condition, with the condition title or expression
+ * @param permissionCount      number of distinct permissions of the unconditional roles
+ * @param sensitivePermissions sensitive permissions among them, like *.setIamPolicy
+ * @param unresolved           roles whose permissions could not be read, or why a policy could not be read
+ * @param riskScore            risk of the principal
+ */
+public record EffectivePermissions(String principal, String type, List<String> roles, List<String> conditionalRoles,
+        int permissionCount, List<String> sensitivePermissions, List<String> unresolved, int riskScore) {
+
+    /**
+     * Type of the row of a policy that could not be read
+     */
+    public static final String UNREADABLE_POLICY = "unreadable policy";
+}
@@ -0,0 +1,175 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+import com.google.api.gax.rpc.NotFoundException;
+import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.cloud.resourcemanager.v3.FoldersClient;
+import com.google.cloud.resourcemanager.v3.OrganizationsClient;
+import com.google.cloud.resourcemanager.v3.ProjectName;
+import com.google.cloud.resourcemanager.v3.ProjectsClient;
+import com.google.iam.v1.GetIamPolicyRequest;
+import com.google.iam.v1.GetPolicyOptions;
+import com.google.iam.v1.Policy;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the IAM policies that apply to a project: its own and those of its folders and organization.
+ *
+ * <p>
+ * Policies are requested in version 3, so conditional role bindings keep their conditions.
+ * The parent and policy of each folder and organization are kept for a short time to live,
+ * so the projects of a batch audit below the same folders read them once; the lock of a read
+ * is dropped once nobody waits for it. An ancestor whose policy or parent cannot be read is
+ * returned with its error instead of failing the audit.
+ */
+@Slf4j
+@Component
+public class InheritedPolicyResolver {
+
+    private static final int POLICY_VERSION = 3;
+    private static final String FOLDERS_PREFIX = "folders/";
+    private static final String ORGANIZATIONS_PREFIX = "organizations/";
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final GcpCallGuard callGuard;
+    private final Duration ttl;
+    private final Map<String, Ancestor> ancestors = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> loadLocks = new ConcurrentHashMap<>();
+
+    public InheritedPolicyResolver(GcpClientRegistry gcpClientRegistry, GcpCallGuard callGuard,
+            AuditmateProperties properties) {
+        this.gcpClientRegistry = gcpClientRegistry;
+        this.callGuard = callGuard;
+        this.ttl = properties.getIam().getInheritedPolicyTtl();
+    }
+
+    /**
+     * Folder or organization with its parent, empty for an organization
+     */
+    private record Ancestor(String parent, SourcedPolicy policy, Instant fetchedAt) {
+    }
+
+    /**
+     * Policies of a project and its ancestors, the project's own policy first
+     *
+     * @param projectId GCP project ID
+     * @throws Exception when the project's own policy cannot be read
+     */
+    public List<SourcedPolicy> policiesOf(String projectId) throws Exception {
+        ProjectsClient projectsClient = gcpClientRegistry.projectsClient();
+        String projectName = ProjectName.of(projectId).toString();
+        List<SourcedPolicy> policies = new ArrayList<>();
+        policies.add(new SourcedPolicy(projectName, false, callGuard.call(GcpCallGuard.RESOURCE_MANAGER_API,
+                "getIamPolicy", projectId, () -> projectsClient.getIamPolicy(policyRequest(projectName))), null));
+
+        String parent;
+        try {
+            parent = callGuard.call(GcpCallGuard.RESOURCE_MANAGER_API, "getProject", projectId,
+                    () -> projectsClient.getProject(projectName)).getParent();
+        } catch (PermissionDeniedException e) {
+            log.warn("Unable to read the parent of {}: {}", projectName, e.getMessage());
+            policies.add(new SourcedPolicy(projectName, true, null, "Unable to read the parent: " + e.getMessage()));
+            return policies;
+        }
+
+        // Guards against a cycle in a malformed hierarchy, real hierarchies are at most ten folders deep
+        Set<String> visited = new HashSet<>();
+        while (!parent.isEmpty() && visited.add(parent)) {
+            Ancestor ancestor = ancestor(parent, projectId);
+            policies.add(ancestor.policy());
+            parent = ancestor.parent();
+        }
+        return policies;
+    }
+
+    private Ancestor ancestor(String resource, String projectId) throws InterruptedException {
+        Ancestor cached = ancestors.get(resource);
+        if (isFresh(cached)) {
+            return cached;
+        }
+        ReentrantLock loadLock = loadLocks.computeIfAbsent(resource, key -> new ReentrantLock());
+        loadLock.lockInterruptibly();
+        try {
+            cached = ancestors.get(resource);
+            if (isFresh(cached)) {
+                return cached;
+            }
+            Ancestor ancestor = fetchAncestor(resource, projectId);
+            ancestors.put(resource, ancestor);
+            return ancestor;
+        } finally {
+            unlock(resource, loadLock);
+        }
+    }
+
+    /**
+     * Release a load lock and drop it when no other caller waits for it.
+     * A lock dropped just before its caller takes it at worst lets two callers read the same ancestor.
+     */
+    private void unlock(String resource, ReentrantLock loadLock) {
+        loadLock.unlock();
+        if (!loadLock.isLocked() && !loadLock.hasQueuedThreads()) {
+            loadLocks.remove(resource, loadLock);
+        }
+    }
+
+    private boolean isFresh(Ancestor cached) {
+        return cached != null && cached.fetchedAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    private Ancestor fetchAncestor(String resource, String projectId) throws InterruptedException {
+        String parent = "";
+        try {
+            Policy policy;
+            if (resource.startsWith(FOLDERS_PREFIX)) {
+                FoldersClient foldersClient = gcpClientRegistry.foldersClient();
+                parent = callGuard.call(GcpCallGuard.RESOURCE_MANAGER_API, "getFolder", projectId,
+                        () -> foldersClient.getFolder(resource)).getParent();
+                policy = callGuard.call(GcpCallGuard.RESOURCE_MANAGER_API, "getIamPolicy", projectId,
+                        () -> foldersClient.getIamPolicy(policyRequest(resource)));
+            } else if (resource.startsWith(ORGANIZATIONS_PREFIX)) {
+                OrganizationsClient organizationsClient = gcpClientRegistry.organizationsClient();
+                policy = callGuard.call(GcpCallGuard.RESOURCE_MANAGER_API, "getIamPolicy", projectId,
+                        () -> organizationsClient.getIamPolicy(policyRequest(resource)));
+            } else {
+                return unreadable(resource, parent, "Unsupported parent resource type");
+            }
+            return new Ancestor(parent, new SourcedPolicy(resource, true, policy, null), Instant.now());
+        } catch (PermissionDeniedException | NotFoundException e) {
+            // The parent may already be known when only the policy is denied, so the walk goes on
+            return unreadable(resource, parent, e.getMessage());
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (IOException e) {
+            return unreadable(resource, parent, e.getMessage());
+        }
+    }
+
+    private Ancestor unreadable(String resource, String parent, String error) {
+        log.warn("Unable to read the IAM policy of {}: {}", resource, error);
+        return new Ancestor(parent, new SourcedPolicy(resource, true, null, error), Instant.now());
+    }
+
+    private static GetIamPolicyRequest policyRequest(String resource) {
+        return GetIamPolicyRequest.newBuilder()
+                .setResource(resource)
+                .setOptions(GetPolicyOptions.newBuilder().setRequestedPolicyVersion(POLICY_VERSION))
+                .build();
+    }
+}
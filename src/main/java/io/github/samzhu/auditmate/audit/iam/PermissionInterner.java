@@ -0,0 +1,110 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Assigns each permission name a small integer ID, so a permission set is a {@link BitSet}.
+ *
+ * <p>
+ * A GCP organization uses a few thousand distinct permissions, while basic roles alone grant
+ * thousands each; as bitsets the permissions of a role take about a kilobyte and the
+ * effective permissions of a principal are a few word-wise ORs. IDs are never reused, the
+ * interner only grows.
+ */
+final class PermissionInterner {
+
+    /**
+     * Permissions that let a principal take over other principals, resources or their access control
+     */
+    private static final Set<String> SENSITIVE_PERMISSIONS = Set.of(
+            "iam.roles.create",
+            "iam.roles.update",
+            "iam.serviceAccountKeys.create",
+            "iam.serviceAccounts.actAs",
+            "iam.serviceAccounts.getAccessToken",
+            "iam.serviceAccounts.implicitDelegation",
+            "iam.serviceAccounts.signBlob",
+            "iam.serviceAccounts.signJwt",
+            "cloudkms.cryptoKeyVersions.destroy",
+            "compute.firewalls.create",
+            "compute.firewalls.update",
+            "resourcemanager.projects.delete");
+    private static final String SET_IAM_POLICY_SUFFIX = ".setIamPolicy";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final BitSet sensitive = new BitSet();
+
+    /**
+     * Permission set of the given permission names, assigning IDs to new names
+     */
+    BitSet intern(Collection<String> permissions) {
+        BitSet bits = new BitSet();
+        for (String permission : permissions) {
+            bits.set(idOf(permission));
+        }
+        return bits;
+    }
+
+    private int idOf(String permission) {
+        Integer id = ids.get(permission);
+        if (id != null) {
+            return id;
+        }
+        lock.lock();
+        try {
+            id = ids.get(permission);
+            if (id == null) {
+                id = names.size();
+                names.add(permission);
+                if (isSensitive(permission)) {
+                    sensitive.set(id);
+                }
+                ids.put(permission, id);
+            }
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Permission names of a permission set, in ID order
+     */
+    List<String> namesOf(BitSet permissions) {
+        List<String> result = new ArrayList<>(permissions.cardinality());
+        lock.lock();
+        try {
+            for (int id = permissions.nextSetBit(0); id >= 0; id = permissions.nextSetBit(id + 1)) {
+                result.add(names.get(id));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Copy of the set of all sensitive permissions interned so far
+     */
+    BitSet sensitive() {
+        lock.lock();
+        try {
+            return (BitSet) sensitive.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static boolean isSensitive(String permission) {
+        return SENSITIVE_PERMISSIONS.contains(permission) || permission.endsWith(SET_IAM_POLICY_SUFFIX);
+    }
+}
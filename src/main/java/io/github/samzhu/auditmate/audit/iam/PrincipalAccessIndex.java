@@ -0,0 +1,451 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.audit.IamMember;
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inverted index from IAM principal to the projects and roles granted to it, across every
+ * project audited.
+ *
+ * <p>
+ * Principals, roles and projects are dictionary encoded, so a grant is one {@code long}
+ * holding a project ID and a role ID. The grants of a principal are kept sorted, grouped by
+ * project, and a lookup is a dictionary hit and a scan of that one array. Each IAM audit
+ * replaces the grants of its project only, the postings of the principals it no longer
+ * lists are found through the members recorded per project. IDs are never reused, the
+ * dictionaries only grow.
+ *
+ * <p>
+ * The index is written to {@code auditmate.principal-index.file} at most every
+ * {@code auditmate.principal-index.write-interval} when it changed, and on shutdown, replacing
+ * the file atomically. File layout: magic and version, the principal, role and project
+ * dictionaries, the audit time and members of each project, then the grants of each principal.
+ */
+@Slf4j
+@Component
+public class PrincipalAccessIndex implements InitializingBean, DisposableBean {
+
+    private static final int MAGIC = 0x41555049;
+    private static final int FORMAT_VERSION = 1;
+    private static final int[] NO_MEMBERS = new int[0];
+    private static final long[] NO_GRANTS = new long[0];
+    private static final int ALL_ROLES = -2;
+
+    /**
+     * Member types a bare email address is looked up as
+     */
+    private static final List<String> EMAIL_MEMBER_TYPES = List.of("user:", "group:", "serviceAccount:");
+
+    private final Path file;
+    private final Duration writeInterval;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Dictionary principals = new Dictionary();
+    private final Dictionary roles = new Dictionary();
+    private final Dictionary projects = new Dictionary();
+    private final List<long[]> grants = new ArrayList<>();
+    private final List<int[]> membersByProject = new ArrayList<>();
+    private final List<Instant> auditedAt = new ArrayList<>();
+    private final ScheduledExecutorService writeScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("principal-index-write").daemon(true).factory());
+    private boolean dirty;
+
+    public PrincipalAccessIndex(AuditmateProperties properties) {
+        String configuredFile = properties.getPrincipalIndex().getFile();
+        this.file = configuredFile == null || configuredFile.isBlank() ? null : Path.of(configuredFile);
+        this.writeInterval = properties.getPrincipalIndex().getWriteInterval();
+    }
+
+    /**
+     * Grants of a principal in one project
+     *
+     * @param projectId GCP project ID
+     * @param roles     roles granted in the project IAM policy
+     * @param auditedAt when the project was last audited
+     */
+    public record ProjectAccess(String projectId, List<String> roles, Instant auditedAt) {
+    }
+
+    /**
+     * Projects a principal has roles in
+     *
+     * @param principal IAM member, e.g. user:someone@example.com
+     * @param projects  projects with at least one matching role, by project ID
+     */
+    public record PrincipalAccess(String principal, List<ProjectAccess> projects) {
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (file == null) {
+            writeScheduler.shutdown();
+            return;
+        }
+        load();
+        writeScheduler.scheduleWithFixedDelay(this::write, writeInterval.toMillis(), writeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replace the grants of a project with the members of its IAM policy
+     *
+     * @param projectId GCP project ID
+     * @param members   every member of the project IAM policy with its roles
+     */
+    public void update(String projectId, Collection<IamMember> members) {
+        lock.lock();
+        try {
+            int project = projects.idOf(projectId);
+            while (membersByProject.size() <= project) {
+                membersByProject.add(NO_MEMBERS);
+                auditedAt.add(null);
+            }
+            for (int member : membersByProject.get(project)) {
+                grants.set(member, replace(grants.get(member), project, NO_MEMBERS));
+            }
+
+            int[] current = new int[members.size()];
+            int count = 0;
+            for (IamMember member : members) {
+                int principal = principals.idOf(member.getName());
+                while (grants.size() <= principal) {
+                    grants.add(NO_GRANTS);
+                }
+                int[] roleIds = member.getRoles().stream().mapToInt(roles::idOf).sorted().distinct().toArray();
+                grants.set(principal, replace(grants.get(principal), project, roleIds));
+                current[count++] = principal;
+            }
+            membersByProject.set(project, Arrays.copyOf(current, count));
+            auditedAt.set(project, Instant.now());
+            dirty = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Find the projects a principal has roles in
+     *
+     * @param principal IAM member such as user:someone@example.com or domain:example.com; a bare email
+     *                  address matches the user, group and service account of that address
+     * @param role      only report this role, every role when empty
+     * @return one entry per matching member with at least one matching role
+     */
+    public List<PrincipalAccess> find(String principal, String role) {
+        String member = principal.trim();
+        List<String> candidates = member.contains(":") || !member.contains("@")
+                ? List.of(member)
+                : EMAIL_MEMBER_TYPES.stream().map(type -> type + member).toList();
+
+        List<PrincipalAccess> result = new ArrayList<>();
+        lock.lock();
+        try {
+            boolean allRoles = role == null || role.isBlank();
+            int roleFilter = allRoles ? ALL_ROLES : roles.find(role.trim());
+            if (!allRoles && roleFilter == Dictionary.UNKNOWN) {
+                return result;
+            }
+            for (String candidate : candidates) {
+                int id = principals.find(candidate);
+                if (id != Dictionary.UNKNOWN) {
+                    List<ProjectAccess> access = decode(grants.get(id), roleFilter);
+                    if (!access.isEmpty()) {
+                        result.add(new PrincipalAccess(candidate, access));
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of projects in the index
+     */
+    public int projectCount() {
+        lock.lock();
+        try {
+            return (int) auditedAt.stream().filter(time -> time != null).count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Group the sorted grants of a principal by project, called with the lock held
+     */
+    private List<ProjectAccess> decode(long[] principalGrants, int roleFilter) {
+        List<ProjectAccess> result = new ArrayList<>();
+        int i = 0;
+        while (i < principalGrants.length) {
+            int project = projectOf(principalGrants[i]);
+            List<String> projectRoles = new ArrayList<>();
+            for (; i < principalGrants.length && projectOf(principalGrants[i]) == project; i++) {
+                int roleId = (int) principalGrants[i];
+                if (roleFilter == ALL_ROLES || roleId == roleFilter) {
+                    projectRoles.add(roles.nameOf(roleId));
+                }
+            }
+            if (!projectRoles.isEmpty()) {
+                result.add(new ProjectAccess(projects.nameOf(project), projectRoles, auditedAt.get(project)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grants with those of a project replaced by the given sorted roles
+     */
+    static long[] replace(long[] principalGrants, int project, int[] roleIds) {
+        int from = lowerBound(principalGrants, grant(project, 0));
+        int to = lowerBound(principalGrants, grant(project + 1, 0));
+        if (to - from == 0 && roleIds.length == 0) {
+            return principalGrants;
+        }
+        long[] updated = new long[principalGrants.length - (to - from) + roleIds.length];
+        System.arraycopy(principalGrants, 0, updated, 0, from);
+        for (int i = 0; i < roleIds.length; i++) {
+            updated[from + i] = grant(project, roleIds[i]);
+        }
+        System.arraycopy(principalGrants, to, updated, from + roleIds.length, principalGrants.length - to);
+        return updated;
+    }
+
+    private static long grant(int project, int role) {
+        return (long) project << Integer.SIZE | role;
+    }
+
+    private static int projectOf(long grant) {
+        return (int) (grant >>> Integer.SIZE);
+    }
+
+    /**
+     * Index of the first grant not less than the key
+     */
+    private static int lowerBound(long[] sorted, long key) {
+        int index = Arrays.binarySearch(sorted, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == key) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Write the index when it changed, failures are logged and retried at the next interval
+     */
+    void write() {
+        byte[] content;
+        lock.lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            content = encode();
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, content);
+                moveIntoPlace(tempFile);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+            log.warn("Unable to write the principal index to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void moveIntoPlace(Path tempFile) throws IOException {
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Serialize the index, called with the lock held
+     */
+    private byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            principals.writeTo(out);
+            roles.writeTo(out);
+            projects.writeTo(out);
+            out.writeInt(membersByProject.size());
+            for (int project = 0; project < membersByProject.size(); project++) {
+                Instant time = auditedAt.get(project);
+                out.writeLong(time != null ? time.toEpochMilli() : -1);
+                int[] members = membersByProject.get(project);
+                out.writeInt(members.length);
+                for (int member : members) {
+                    out.writeInt(member);
+                }
+            }
+            out.writeInt(grants.size());
+            for (long[] principalGrants : grants) {
+                out.writeInt(principalGrants.length);
+                for (long grant : principalGrants) {
+                    out.writeLong(grant);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode the principal index", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read the persisted index, an unreadable file is logged and the index starts empty
+     */
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("not a principal index of format version " + FORMAT_VERSION);
+            }
+            lock.lock();
+            try {
+                principals.readFrom(in);
+                roles.readFrom(in);
+                projects.readFrom(in);
+                int projectCount = in.readInt();
+                for (int project = 0; project < projectCount; project++) {
+                    long time = in.readLong();
+                    auditedAt.add(time >= 0 ? Instant.ofEpochMilli(time) : null);
+                    int[] members = new int[in.readInt()];
+                    for (int i = 0; i < members.length; i++) {
+                        members[i] = in.readInt();
+                    }
+                    membersByProject.add(members);
+                }
+                int principalCount = in.readInt();
+                for (int principal = 0; principal < principalCount; principal++) {
+                    long[] principalGrants = new long[in.readInt()];
+                    for (int i = 0; i < principalGrants.length; i++) {
+                        principalGrants[i] = in.readLong();
+                    }
+                    grants.add(principalGrants);
+                }
+            } finally {
+                lock.unlock();
+            }
+            log.info("Loaded the principal index of {} projects from {}", projectCount(), file);
+        } catch (NoSuchFileException e) {
+            // First start, the index is written once a project has been audited
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read the principal index {}, starting empty: {}", file, e.getMessage());
+            clear();
+        }
+    }
+
+    private void clear() {
+        lock.lock();
+        try {
+            principals.clear();
+            roles.clear();
+            projects.clear();
+            grants.clear();
+            membersByProject.clear();
+            auditedAt.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        writeScheduler.shutdownNow();
+        if (file != null) {
+            write();
+        }
+    }
+
+    /**
+     * Dense IDs of strings, guarded by the index lock
+     */
+    private static final class Dictionary {
+
+        private static final int UNKNOWN = -1;
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        private int idOf(String name) {
+            return ids.computeIfAbsent(name, key -> {
+                names.add(key);
+                return names.size() - 1;
+            });
+        }
+
+        private int find(String name) {
+            return ids.getOrDefault(name, UNKNOWN);
+        }
+
+        private String nameOf(int id) {
+            return names.get(id);
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+        }
+
+        private void readFrom(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                idOf(in.readUTF());
+            }
+        }
+
+        private void clear() {
+            ids.clear();
+            names.clear();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponse;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Permissions of predefined and custom IAM roles, shared by all audits.
+ *
+ * <p>
+ * A role is fetched once from the IAM API ({@code roles.get}) and then kept in memory as a
+ * permission bitset and on disk as one JSON file per role, so the roles of a whole
+ * organization are fetched once per time to live and survive a restart. Concurrent audits
+ * needing the same role wait for a single fetch, whose lock is dropped once nobody waits
+ * for it. When a role cannot be fetched again after its time to live, the stale definition
+ * is used rather than none.
+ */
+@Slf4j
+@Component
+@RegisterReflectionForBinding(RoleDefinitionCache.RoleDefinition.class)
+public class RoleDefinitionCache {
+
+    private static final Pattern ROLE_NAME = Pattern.compile(
+            "(roles|projects/[a-z][a-z0-9-]{4,28}[a-z0-9]/roles|organizations/[0-9]+/roles)/[A-Za-z0-9_.]+");
+    private static final String ROLE_FILE_SUFFIX = ".json";
+
+    private final GcpClientRegistry gcpClientRegistry;
+    private final GcpCallGuard callGuard;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final Duration ttl;
+    private final PermissionInterner interner = new PermissionInterner();
+    private final Map<String, CachedRole> roles = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> loadLocks = new ConcurrentHashMap<>();
+
+    public RoleDefinitionCache(GcpClientRegistry gcpClientRegistry, GcpCallGuard callGuard, ObjectMapper objectMapper,
+            AuditmateProperties properties) {
+        this.gcpClientRegistry = gcpClientRegistry;
+        this.callGuard = callGuard;
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(properties.getIam().getRoleCacheDirectory());
+        this.ttl = properties.getIam().getRoleCacheTtl();
+    }
+
+    /**
+     * Role definition as stored on disk
+     *
+     * @param name        role name, e.g. roles/viewer
+     * @param etag        role etag
+     * @param permissions included permissions
+     * @param fetchedAt   time the role was fetched
+     */
+    public record RoleDefinition(String name, String etag, List<String> permissions, Instant fetchedAt) {
+    }
+
+    private record CachedRole(BitSet permissions, Instant fetchedAt) {
+    }
+
+    /**
+     * Permissions of a role, the returned set must not be modified
+     *
+     * @param role  role name, e.g. roles/viewer or organizations/123/roles/auditor
+     * @param scope project the role is needed for, the IAM API is rate limited per scope
+     * @throws IOException when the role is unknown or cannot be read, e.g. a custom role without iam.roles.get
+     */
+    public BitSet permissionsOf(String role, String scope) throws IOException, InterruptedException {
+        CachedRole cached = roles.get(role);
+        if (isFresh(cached)) {
+            return cached.permissions();
+        }
+        if (!ROLE_NAME.matcher(role).matches()) {
+            throw new IOException("Unsupported role name: " + role);
+        }
+
+        ReentrantLock loadLock = loadLocks.computeIfAbsent(role, key -> new ReentrantLock());
+        loadLock.lockInterruptibly();
+        try {
+            cached = roles.get(role);
+            if (isFresh(cached)) {
+                return cached.permissions();
+            }
+            RoleDefinition stored = readRoleFile(role);
+            if (stored != null && stored.fetchedAt().plus(ttl).isAfter(Instant.now())) {
+                return remember(stored).permissions();
+            }
+
+            try {
+                RoleDefinition fetched = callGuard.call(GcpCallGuard.IAM_API, "roles.get", scope, () -> fetchRole(role));
+                writeRoleFile(fetched);
+                return remember(fetched).permissions();
+            } catch (IOException e) {
+                if (stored == null) {
+                    throw e;
+                }
+                log.warn("Unable to refresh role {}, using the definition of {}: {}", role, stored.fetchedAt(),
+                        e.getMessage());
+                return remember(stored).permissions();
+            }
+        } finally {
+            unlock(role, loadLock);
+        }
+    }
+
+    /**
+     * Release a load lock and drop it when no other caller waits for it.
+     * A lock dropped just before its caller takes it at worst lets two callers read the same role.
+     */
+    private void unlock(String role, ReentrantLock loadLock) {
+        loadLock.unlock();
+        if (!loadLock.isLocked() && !loadLock.hasQueuedThreads()) {
+            loadLocks.remove(role, loadLock);
+        }
+    }
+
+    /**
+     * Permission names of a permission set
+     */
+    public List<String> namesOf(BitSet permissions) {
+        return interner.namesOf(permissions);
+    }
+
+    /**
+     * Sensitive permissions among the given permissions, like {@code *.setIamPolicy} or
+     * {@code iam.serviceAccounts.actAs}
+     */
+    public BitSet sensitiveOf(BitSet permissions) {
+        BitSet sensitive = interner.sensitive();
+        sensitive.and(permissions);
+        return sensitive;
+    }
+
+    private boolean isFresh(CachedRole cached) {
+        return cached != null && cached.fetchedAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    private CachedRole remember(RoleDefinition definition) {
+        CachedRole cached = new CachedRole(interner.intern(definition.permissions()), definition.fetchedAt());
+        roles.put(definition.name(), cached);
+        return cached;
+    }
+
+    private RoleDefinition fetchRole(String role) throws IOException {
+        GenericUrl url = new GenericUrl(gcpClientRegistry.iamRootUrl() + "v1/" + role);
+        HttpResponse response = gcpClientRegistry.restRequestFactory().buildGetRequest(url).execute();
+        try (InputStream content = response.getContent()) {
+            JsonNode json = objectMapper.readTree(content);
+            List<String> permissions = new ArrayList<>();
+            json.path("includedPermissions").forEach(permission -> permissions.add(permission.asText()));
+            return new RoleDefinition(role, json.path("etag").asText(null), permissions, Instant.now());
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    private RoleDefinition readRoleFile(String role) {
+        Path file = roleFile(role);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), RoleDefinition.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable role file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the role file atomically, a failure only costs a fetch after the next restart
+     */
+    private void writeRoleFile(RoleDefinition definition) {
+        Path file = roleFile(definition.name());
+        try {
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writeValue(tempFile.toFile(), definition);
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to cache role {} in {}: {}", definition.name(), file, e.getMessage());
+        }
+    }
+
+    /**
+     * Role names are validated, so they only contain path separators, which become tildes
+     */
+    private Path roleFile(String role) {
+        return directory.resolve(role.replace('/', '~') + ROLE_FILE_SUFFIX);
+    }
+}
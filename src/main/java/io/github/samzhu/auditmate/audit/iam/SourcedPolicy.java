@@ -0,0 +1,14 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import com.google.iam.v1.Policy;
+
+/**
+ * IAM policy of the audited project or one of its ancestors
+ *
+ * @param resource  resource the policy is set on, e.g. projects/demo-project or folders/123
+ * @param inherited whether the policy is set on an ancestor folder or organization
+ * @param policy    the policy, null when it could not be read
+ * @param error     why the policy could not be read, null when it was read
+ */
+public record SourcedPolicy(String resource, boolean inherited, Policy policy, String error) {
+}
@@ -0,0 +1,53 @@
+package io.github.samzhu.auditmate.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.github.samzhu.auditmate.audit.AuditStageExecutor;
+import io.github.samzhu.auditmate.audit.KeyLifecycleResolver;
+import io.github.samzhu.auditmate.audit.KmsKeyCrawler;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+
+/**
+ * GCP audit engine configuration class.
+ * Binds {@link AuditmateProperties} and registers the components shared by all audits.
+ */
+@Configuration
+@EnableConfigurationProperties(AuditmateProperties.class)
+public class AuditConfig {
+
+    /**
+     * Configure the audit stage executor.
+     *
+     * @param properties audit configuration properties
+     * @return AuditStageExecutor instance
+     */
+    @Bean
+    AuditStageExecutor auditStageExecutor(AuditmateProperties properties) {
+        return new AuditStageExecutor(properties.getStage().getTimeout());
+    }
+
+    /**
+     * Configure the Cloud KMS inventory crawler.
+     *
+     * @param properties audit configuration properties
+     * @param callGuard  GCP call rate limiter
+     * @return KmsKeyCrawler instance
+     */
+    @Bean
+    KmsKeyCrawler kmsKeyCrawler(AuditmateProperties properties, GcpCallGuard callGuard) {
+        return new KmsKeyCrawler(properties.getKms().getMaxConcurrentRequests(), callGuard);
+    }
+
+    /**
+     * Configure the crypto key lifecycle resolver.
+     *
+     * @param callGuard GCP call rate limiter
+     * @return KeyLifecycleResolver instance
+     */
+    @Bean
+    KeyLifecycleResolver keyLifecycleResolver(GcpCallGuard callGuard) {
+        return new KeyLifecycleResolver(callGuard);
+    }
+}
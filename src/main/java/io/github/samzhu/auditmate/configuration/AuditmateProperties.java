@@ -0,0 +1,598 @@
+package io.github.samzhu.auditmate.configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * GCP audit configuration properties.
+ * Bound from the {@code auditmate.*} keys in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "auditmate")
+public class AuditmateProperties {
+
+    /**
+     * Audit stage settings
+     */
+    private Stage stage = new Stage();
+
+    /**
+     * Cloud KMS inventory settings
+     */
+    private Kms kms = new Kms();
+
+    /**
+     * GCP credentials settings
+     */
+    private Credentials credentials = new Credentials();
+
+    /**
+     * Multi-project batch audit settings
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * On-disk snapshot cache of audit inputs
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * Service Usage probe settings
+     */
+    private ServiceUsage serviceUsage = new ServiceUsage();
+
+    /**
+     * Audit check settings
+     */
+    private Checks checks = new Checks();
+
+    /**
+     * Background audit job settings
+     */
+    private Jobs jobs = new Jobs();
+
+    /**
+     * GCP API rate limiting and retry settings
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * GCP API endpoint overrides
+     */
+    private Endpoints endpoints = new Endpoints();
+
+    /**
+     * Offline stand-in backend settings, used with the standin profile
+     */
+    private Standin standin = new Standin();
+
+    /**
+     * Audit metrics export settings
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * Effective IAM permission analysis settings
+     */
+    private Iam iam = new Iam();
+
+    /**
+     * Startup settings
+     */
+    private Startup startup = new Startup();
+
+    /**
+     * HTTP/SSE transport settings
+     */
+    private Http http = new Http();
+
+    /**
+     * Report resource settings
+     */
+    private Reports reports = new Reports();
+
+    /**
+     * Inventory backend settings
+     */
+    private Inventory inventory = new Inventory();
+
+    /**
+     * Cross-project principal index settings
+     */
+    private PrincipalIndex principalIndex = new PrincipalIndex();
+
+    /**
+     * Audit stage settings
+     */
+    @Data
+    public static class Stage {
+
+        /**
+         * Maximum time a single audit stage may run before it is reported as failed
+         */
+        private Duration timeout = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Cloud KMS inventory settings
+     */
+    @Data
+    public static class Kms {
+
+        /**
+         * Maximum number of KMS requests in flight for one project audit
+         */
+        private int maxConcurrentRequests = 16;
+    }
+
+    /**
+     * GCP credentials settings
+     */
+    @Data
+    public static class Credentials {
+
+        /**
+         * How long before expiry the access token is refreshed in the background
+         */
+        private Duration refreshMargin = Duration.ofMinutes(5);
+
+        /**
+         * Delay before retrying a failed background refresh
+         */
+        private Duration retryDelay = Duration.ofSeconds(30);
+
+        /**
+         * Call GCP without any credentials, only for the stand-in backend or emulators
+         */
+        private boolean anonymous = false;
+    }
+
+    /**
+     * Multi-project batch audit settings
+     */
+    @Data
+    public static class Batch {
+
+        /**
+         * Maximum number of projects audited at the same time
+         */
+        private int maxConcurrentProjects = 8;
+
+        /**
+         * Maximum number of projects in one batch
+         */
+        private int maxProjects = 1000;
+    }
+
+    /**
+     * On-disk snapshot cache of audit inputs
+     */
+    @Data
+    public static class Snapshot {
+
+        /**
+         * Whether audit inputs are cached on disk
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory holding one sub-directory of snapshots per project
+         */
+        private String directory = System.getProperty("user.home") + "/.gcp-auditmate/snapshots";
+
+        /**
+         * How long a snapshot is reused without calling any GCP API
+         */
+        private Duration ttl = Duration.ofMinutes(15);
+
+        /**
+         * Size budget of the cache, the oldest snapshots are evicted beyond it
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+    }
+
+    /**
+     * Service Usage probe settings
+     */
+    @Data
+    public static class ServiceUsage {
+
+        /**
+         * How long the enabled services of a project are cached
+         */
+        private Duration cacheTtl = Duration.ofMinutes(15);
+    }
+
+    /**
+     * Audit check settings
+     */
+    @Data
+    public static class Checks {
+
+        /**
+         * Maximum number of projects a check runs for at the same time, by check ID.
+         * Overrides the default of the check, 0 for no limit.
+         */
+        private Map<String, Integer> maxConcurrentProjects = new HashMap<>();
+    }
+
+    /**
+     * Background audit job settings
+     */
+    @Data
+    public static class Jobs {
+
+        /**
+         * Maximum number of audit jobs running at the same time, further jobs are queued
+         */
+        private int maxConcurrent = 4;
+
+        /**
+         * How long a finished job and its result can still be polled
+         */
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    /**
+     * GCP API rate limiting and retry settings
+     */
+    @Data
+    public static class RateLimit {
+
+        /**
+         * Calls per second a new API and project pair starts with
+         */
+        private double initialRate = 10;
+
+        /**
+         * Lowest rate quota errors can push an API and project pair down to
+         */
+        private double minRate = 1;
+
+        /**
+         * Highest rate successful calls can raise an API and project pair up to
+         */
+        private double maxRate = 50;
+
+        /**
+         * Calls per second added after about one second of successful calls
+         */
+        private double additiveIncrease = 1;
+
+        /**
+         * Factor the rate is multiplied by on each quota error
+         */
+        private double decreaseFactor = 0.5;
+
+        /**
+         * Maximum attempts of a single throttled call, including the first one
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Backoff cap of the first retry, doubled for every further retry
+         */
+        private Duration initialBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Upper bound of the backoff between two attempts
+         */
+        private Duration maxBackoff = Duration.ofSeconds(30);
+
+        /**
+         * Retries one audit may spend on throttled calls across all its APIs
+         */
+        private int retryBudget = 50;
+
+        /**
+         * How long an API and project pair may stay unused before its limiter is dropped
+         */
+        private Duration limiterIdleTimeout = Duration.ofMinutes(10);
+    }
+
+    /**
+     * GCP API endpoint overrides, an empty endpoint uses the Google default
+     */
+    @Data
+    public static class Endpoints {
+
+        /**
+         * Resource Manager gRPC endpoint, host:port
+         */
+        private String resourceManager;
+
+        /**
+         * Cloud KMS gRPC endpoint, host:port
+         */
+        private String kms;
+
+        /**
+         * Compute Engine REST endpoint, e.g. http://localhost:19091
+         */
+        private String compute;
+
+        /**
+         * Service Usage REST root URL, e.g. http://localhost:19091/
+         */
+        private String serviceUsage;
+
+        /**
+         * IAM REST root URL, e.g. http://localhost:19091/
+         */
+        private String iam;
+
+        /**
+         * Cloud Asset REST root URL, e.g. http://localhost:19091/
+         */
+        private String cloudAsset;
+
+        /**
+         * Connect to the gRPC endpoints without TLS
+         */
+        private boolean plaintext = false;
+    }
+
+    /**
+     * Offline stand-in backend settings
+     */
+    @Data
+    public static class Standin {
+
+        /**
+         * Port of the gRPC server serving Resource Manager and Cloud KMS
+         */
+        private int grpcPort = 19090;
+
+        /**
+         * Port of the HTTP server serving Compute Engine and Service Usage
+         */
+        private int httpPort = 19091;
+
+        /**
+         * Seed of the synthetic data, the same seed always yields the same organization
+         */
+        private long seed = 42;
+
+        /**
+         * Number of synthetic projects
+         */
+        private int projects = 20;
+
+        /**
+         * Number of folders below the organization, projects are spread over the organization and its folders
+         */
+        private int folders = 4;
+
+        /**
+         * IAM policy bindings per project
+         */
+        private int iamBindings = 100;
+
+        /**
+         * Members per IAM policy binding
+         */
+        private int membersPerBinding = 3;
+
+        /**
+         * Cloud KMS locations per project
+         */
+        private int kmsLocations = 3;
+
+        /**
+         * Key rings per KMS location
+         */
+        private int keyRingsPerLocation = 2;
+
+        /**
+         * Crypto keys per key ring, every other key is an imported (BYOK) key
+         */
+        private int cryptoKeysPerKeyRing = 10;
+
+        /**
+         * Firewall rules per project
+         */
+        private int firewalls = 200;
+
+        /**
+         * Every project whose index is a multiple of this has Cloud KMS disabled, 0 to enable it everywhere
+         */
+        private int kmsDisabledEvery = 5;
+
+        /**
+         * Latency added to every request
+         */
+        private Duration latency = Duration.ZERO;
+    }
+
+    /**
+     * Audit metrics export settings
+     */
+    @Data
+    public static class Metrics {
+
+        /**
+         * JSON file the metrics are written to, empty to disable the file
+         */
+        private String file;
+
+        /**
+         * How often the metrics file is rewritten
+         */
+        private Duration exportInterval = Duration.ofMinutes(1);
+
+        /**
+         * Register the getAuditMetrics tool
+         */
+        private boolean toolEnabled = false;
+
+        /**
+         * Number of finished project audits whose summary is kept, the oldest are dropped first
+         */
+        private int recentAudits = 500;
+    }
+
+    /**
+     * Effective IAM permission analysis settings
+     */
+    @Data
+    public static class Iam {
+
+        /**
+         * Add the effective permissions sheet, expanding roles and inherited folder and organization policies
+         */
+        private boolean effectivePermissions = false;
+
+        /**
+         * Directory of the role definition cache, shared by all audits
+         */
+        private String roleCacheDirectory = System.getProperty("user.home") + "/.gcp-auditmate/roles";
+
+        /**
+         * Reuse a cached role definition for this long
+         */
+        private Duration roleCacheTtl = Duration.ofDays(7);
+
+        /**
+         * Reuse the IAM policy of a folder or organization for this long, shared by the projects below it
+         */
+        private Duration inheritedPolicyTtl = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Startup settings
+     */
+    @Data
+    public static class Startup {
+
+        /**
+         * Initialize the GCP client and report classes in the background once the server is ready
+         */
+        private boolean warmup = true;
+    }
+
+    /**
+     * HTTP/SSE transport settings, only used with the http profile
+     */
+    @Data
+    public static class Http {
+
+        /**
+         * Maximum number of MCP messages, e.g. tool calls, one client has in flight
+         */
+        private int maxConcurrentRequestsPerClient = 4;
+
+        /**
+         * Maximum number of messages of one client waiting for a free slot, further messages are rejected
+         */
+        private int maxQueuedRequestsPerClient = 8;
+
+        /**
+         * Maximum time a message waits for a free slot before it is rejected
+         */
+        private Duration queueTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Bearer tokens accepted on the MCP endpoints, by client name. Required to listen on a non-loopback address.
+         */
+        private Map<String, String> tokens = new HashMap<>();
+
+        /**
+         * Maximum number of MCP messages all clients together have in flight
+         */
+        private int maxConcurrentRequests = 16;
+
+        /**
+         * Maximum number of messages waiting for a free slot of the server, further messages are rejected
+         */
+        private int maxQueuedRequests = 32;
+    }
+
+    /**
+     * Report resource settings
+     */
+    @Data
+    public static class Reports {
+
+        /**
+         * Memory held by reports that could not be stored in a directory, the least recently read are spilled beyond it
+         */
+        private DataSize memoryBudget = DataSize.ofMegabytes(64);
+
+        /**
+         * Directory reports held in memory are spilled to. Reports are only held in memory when neither the home
+         * nor the temp directory is writable, so it defaults to the working directory.
+         */
+        private String spillDirectory = System.getProperty("user.dir") + "/.gcp-auditmate-reports";
+
+        /**
+         * Maximum number of reports readable as resources, the least recently read are forgotten first
+         */
+        private int maxReports = 100;
+
+        /**
+         * Default and maximum size of a chunk returned by readReport
+         */
+        private DataSize chunkSize = DataSize.ofKilobytes(256);
+
+        /**
+         * Largest report a resource read returns as a whole, larger reports must be read in chunks
+         */
+        private DataSize maxInlineSize = DataSize.ofMegabytes(1);
+    }
+
+    /**
+     * Inventory backend settings
+     */
+    @Data
+    public static class Inventory {
+
+        /**
+         * Where the IAM, BYOK and firewall checks get their data: api, asset-inventory or asset-snapshot
+         */
+        private String backend = "api";
+
+        /**
+         * Cloud Asset scope listed once for all projects below it, e.g. organizations/123 or folders/456;
+         * when empty a batch audit of a folder or organization lists that parent, any other audit each project on its own
+         */
+        private String scope;
+
+        /**
+         * Exported Cloud Asset NDJSON file read by the asset-snapshot backend
+         */
+        private String snapshotFile;
+
+        /**
+         * Assets per Cloud Asset page
+         */
+        private int pageSize = 1000;
+
+        /**
+         * Reuse a listed scope for this long
+         */
+        private Duration cacheTtl = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Cross-project principal index settings
+     */
+    @Data
+    public static class PrincipalIndex {
+
+        /**
+         * File the index is persisted to, empty to keep it in memory only
+         */
+        private String file;
+
+        /**
+         * How often a changed index is written to its file
+         */
+        private Duration writeInterval = Duration.ofSeconds(30);
+    }
+}
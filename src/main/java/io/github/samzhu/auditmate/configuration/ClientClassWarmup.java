@@ -0,0 +1,69 @@
+package io.github.samzhu.auditmate.configuration;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.dhatim.fastexcel.Workbook;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.resourcemanager.v3.Project;
+import com.google.iam.v1.Policy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Initializes the classes of the first audit in the background once the server is ready.
+ *
+ * <p>
+ * GCP clients are created lazily so the server starts without credentials, which also
+ * defers initializing their protobuf descriptors (the Compute Engine descriptor alone is
+ * several megabytes), JSON factory and the report writer to the first audit. Warming them
+ * up on a low priority thread after startup keeps the first {@code tools/list} fast and
+ * takes that cost off the first {@code performAudit}, most noticeably in a native image.
+ * No client is created and no credentials are read.
+ */
+@Slf4j
+@Component
+public class ClientClassWarmup implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final boolean enabled;
+
+    public ClientClassWarmup(AuditmateProperties properties) {
+        this.enabled = properties.getStartup().isWarmup();
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofPlatform()
+                .name("client-class-warmup")
+                .daemon(true)
+                .priority(Thread.MIN_PRIORITY)
+                .start(this::warmUp);
+    }
+
+    private void warmUp() {
+        long startedAt = System.nanoTime();
+        try {
+            Policy.getDescriptor();
+            Project.getDescriptor();
+            CryptoKey.getDescriptor();
+            Firewall.getDescriptor();
+            GsonFactory.getDefaultInstance();
+            try (Workbook workbook = new Workbook(OutputStream.nullOutputStream(), "GcpAuditTool", "1.0")) {
+                workbook.newWorksheet("Warmup").value(0, 0, "warmup");
+            }
+            log.debug("Audit classes warmed up in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (Exception e) {
+            // Only a latency optimization, the first audit initializes whatever is left
+            log.debug("Unable to warm up audit classes: {}", e.getMessage());
+        }
+    }
+}
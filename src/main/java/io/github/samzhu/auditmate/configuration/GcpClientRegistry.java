@@ -0,0 +1,332 @@
+package io.github.samzhu.auditmate.configuration;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.gax.core.BackgroundResource;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.FixedCredentialsProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.api.gax.rpc.TransportChannelProvider;
+import com.google.api.services.serviceusage.v1.ServiceUsage;
+import com.google.auth.http.HttpCredentialsAdapter;
+import com.google.cloud.compute.v1.FirewallsClient;
+import com.google.cloud.compute.v1.FirewallsSettings;
+import com.google.cloud.kms.v1.KeyManagementServiceClient;
+import com.google.cloud.kms.v1.KeyManagementServiceSettings;
+import com.google.cloud.resourcemanager.v3.FoldersClient;
+import com.google.cloud.resourcemanager.v3.FoldersSettings;
+import com.google.cloud.resourcemanager.v3.OrganizationsClient;
+import com.google.cloud.resourcemanager.v3.OrganizationsSettings;
+import com.google.cloud.resourcemanager.v3.ProjectsClient;
+import com.google.cloud.resourcemanager.v3.ProjectsSettings;
+
+import io.grpc.ManagedChannelBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared GCP client registry.
+ *
+ * <p>
+ * Every client is created on first use and then reused by all audits, so repeat
+ * audits in one MCP session do not pay for a new gRPC channel, TLS handshake and
+ * credential refresh each time. Creation is lazy on purpose: the server must start
+ * without Application Default Credentials, and a failed creation is retried on the
+ * next call, e.g. after the user ran {@code gcloud auth application-default login}.
+ * All clients share the credentials of {@link GcpCredentialsProvider} and are closed
+ * when the application shuts down.
+ *
+ * <p>
+ * Each API endpoint can be overridden through {@code auditmate.endpoints.*}, e.g. to run
+ * against the offline stand-in backend.
+ */
+@Slf4j
+@Component
+public class GcpClientRegistry implements DisposableBean {
+
+    private static final String APPLICATION_NAME = "gcp-auditmate-mcp-server";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    private static final String IAM_ROOT_URL = "https://iam.googleapis.com/";
+    private static final String CLOUD_ASSET_ROOT_URL = "https://cloudasset.googleapis.com/";
+
+    private final LazyClient<ProjectsClient> projectsClient = new LazyClient<>(this::newProjectsClient);
+    private final LazyClient<FoldersClient> foldersClient = new LazyClient<>(this::newFoldersClient);
+    private final LazyClient<OrganizationsClient> organizationsClient = new LazyClient<>(this::newOrganizationsClient);
+    private final LazyClient<KeyManagementServiceClient> kmsClient = new LazyClient<>(this::newKmsClient);
+    private final LazyClient<FirewallsClient> firewallsClient = new LazyClient<>(this::newFirewallsClient);
+    private final LazyClient<HttpTransport> httpTransport = new LazyClient<>(GcpClientRegistry::newTrustedTransport);
+    private final LazyClient<ServiceUsage> serviceUsage = new LazyClient<>(this::newServiceUsage);
+    private final LazyClient<HttpRequestFactory> restRequestFactory = new LazyClient<>(this::newRestRequestFactory);
+
+    private final GcpCredentialsProvider credentialsProvider;
+    private final AuditmateProperties.Endpoints endpoints;
+
+    public GcpClientRegistry(GcpCredentialsProvider credentialsProvider, AuditmateProperties properties) {
+        this.credentialsProvider = credentialsProvider;
+        this.endpoints = properties.getEndpoints();
+    }
+
+    /**
+     * Get the shared Resource Manager projects client
+     */
+    public ProjectsClient projectsClient() throws IOException {
+        return projectsClient.get();
+    }
+
+    /**
+     * Get the shared Resource Manager folders client
+     */
+    public FoldersClient foldersClient() throws IOException {
+        return foldersClient.get();
+    }
+
+    /**
+     * Get the shared Resource Manager organizations client
+     */
+    public OrganizationsClient organizationsClient() throws IOException {
+        return organizationsClient.get();
+    }
+
+    /**
+     * Get the shared Cloud KMS client
+     */
+    public KeyManagementServiceClient kmsClient() throws IOException {
+        return kmsClient.get();
+    }
+
+    /**
+     * Get the shared Compute Engine firewalls client
+     */
+    public FirewallsClient firewallsClient() throws IOException {
+        return firewallsClient.get();
+    }
+
+    /**
+     * Get the shared HTTP transport used by the REST based Google API clients
+     */
+    public HttpTransport httpTransport() throws IOException {
+        return httpTransport.get();
+    }
+
+    /**
+     * Get the shared Service Usage client
+     */
+    public ServiceUsage serviceUsage() throws IOException {
+        return serviceUsage.get();
+    }
+
+    /**
+     * Get the shared request factory of the REST APIs called without a generated client (IAM, Cloud Asset),
+     * requests are authorized with the shared credentials
+     */
+    public HttpRequestFactory restRequestFactory() throws IOException {
+        return restRequestFactory.get();
+    }
+
+    /**
+     * Root URL of the IAM REST API, ending with a slash
+     */
+    public String iamRootUrl() {
+        return isOverridden(endpoints.getIam()) ? endpoints.getIam() : IAM_ROOT_URL;
+    }
+
+    /**
+     * Root URL of the Cloud Asset REST API, ending with a slash
+     */
+    public String cloudAssetRootUrl() {
+        return isOverridden(endpoints.getCloudAsset()) ? endpoints.getCloudAsset() : CLOUD_ASSET_ROOT_URL;
+    }
+
+    private ProjectsClient newProjectsClient() throws IOException {
+        ProjectsSettings.Builder settings = ProjectsSettings.newBuilder()
+                .setCredentialsProvider(sharedCredentials());
+        if (isOverridden(endpoints.getResourceManager())) {
+            settings.setTransportChannelProvider(grpcChannel(
+                    ProjectsSettings.defaultGrpcTransportProviderBuilder(), endpoints.getResourceManager()));
+        }
+        return ProjectsClient.create(settings.build());
+    }
+
+    private FoldersClient newFoldersClient() throws IOException {
+        FoldersSettings.Builder settings = FoldersSettings.newBuilder()
+                .setCredentialsProvider(sharedCredentials());
+        if (isOverridden(endpoints.getResourceManager())) {
+            settings.setTransportChannelProvider(grpcChannel(
+                    FoldersSettings.defaultGrpcTransportProviderBuilder(), endpoints.getResourceManager()));
+        }
+        return FoldersClient.create(settings.build());
+    }
+
+    private OrganizationsClient newOrganizationsClient() throws IOException {
+        OrganizationsSettings.Builder settings = OrganizationsSettings.newBuilder()
+                .setCredentialsProvider(sharedCredentials());
+        if (isOverridden(endpoints.getResourceManager())) {
+            settings.setTransportChannelProvider(grpcChannel(
+                    OrganizationsSettings.defaultGrpcTransportProviderBuilder(), endpoints.getResourceManager()));
+        }
+        return OrganizationsClient.create(settings.build());
+    }
+
+    private KeyManagementServiceClient newKmsClient() throws IOException {
+        KeyManagementServiceSettings.Builder settings = KeyManagementServiceSettings.newBuilder()
+                .setCredentialsProvider(sharedCredentials());
+        if (isOverridden(endpoints.getKms())) {
+            settings.setTransportChannelProvider(grpcChannel(
+                    KeyManagementServiceSettings.defaultGrpcTransportProviderBuilder(), endpoints.getKms()));
+        }
+        return KeyManagementServiceClient.create(settings.build());
+    }
+
+    private FirewallsClient newFirewallsClient() throws IOException {
+        FirewallsSettings.Builder settings = FirewallsSettings.newBuilder()
+                .setCredentialsProvider(sharedCredentials());
+        if (isOverridden(endpoints.getCompute())) {
+            // The REST transport keeps an explicit http:// scheme, https is only the default
+            settings.setEndpoint(endpoints.getCompute());
+        }
+        return FirewallsClient.create(settings.build());
+    }
+
+    private ServiceUsage newServiceUsage() throws IOException {
+        ServiceUsage.Builder builder = new ServiceUsage.Builder(
+                httpTransport(),
+                GsonFactory.getDefaultInstance(),
+                sharedRequestInitializer())
+                .setApplicationName(APPLICATION_NAME);
+        if (isOverridden(endpoints.getServiceUsage())) {
+            builder.setRootUrl(endpoints.getServiceUsage());
+        }
+        return builder.build();
+    }
+
+    private HttpRequestFactory newRestRequestFactory() throws IOException {
+        return httpTransport().createRequestFactory(sharedRequestInitializer());
+    }
+
+    private HttpRequestInitializer sharedRequestInitializer() throws IOException {
+        if (credentialsProvider.isAnonymous()) {
+            return request -> {
+            };
+        }
+        return new HttpCredentialsAdapter(credentialsProvider.getCredentials());
+    }
+
+    private CredentialsProvider sharedCredentials() throws IOException {
+        if (credentialsProvider.isAnonymous()) {
+            return NoCredentialsProvider.create();
+        }
+        return FixedCredentialsProvider.create(credentialsProvider.getCredentials());
+    }
+
+    /**
+     * Channel to an overridden gRPC endpoint, without TLS when configured
+     */
+    private TransportChannelProvider grpcChannel(InstantiatingGrpcChannelProvider.Builder channel, String endpoint) {
+        channel.setEndpoint(endpoint);
+        if (endpoints.isPlaintext()) {
+            channel.setChannelConfigurator(ManagedChannelBuilder::usePlaintext);
+        }
+        return channel.build();
+    }
+
+    private static boolean isOverridden(String endpoint) {
+        return endpoint != null && !endpoint.isBlank();
+    }
+
+    private static HttpTransport newTrustedTransport() throws IOException {
+        try {
+            return GoogleNetHttpTransport.newTrustedTransport();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Unable to create trusted HTTP transport: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        closeQuietly(projectsClient.getIfCreated());
+        closeQuietly(foldersClient.getIfCreated());
+        closeQuietly(organizationsClient.getIfCreated());
+        closeQuietly(kmsClient.getIfCreated());
+        closeQuietly(firewallsClient.getIfCreated());
+
+        HttpTransport transport = httpTransport.getIfCreated();
+        if (transport != null) {
+            try {
+                transport.shutdown();
+            } catch (IOException e) {
+                log.warn("Unable to shut down HTTP transport: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void closeQuietly(BackgroundResource client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.shutdown();
+            if (!client.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                client.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            client.shutdownNow();
+        } catch (Exception e) {
+            log.warn("Unable to close GCP client {}: {}", client.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Factory of a GCP client
+     */
+    @FunctionalInterface
+    private interface ClientFactory<T> {
+        T create() throws IOException;
+    }
+
+    /**
+     * Client created once on first use, failed creations are not cached.
+     * Uses a lock instead of synchronized so virtual threads do not pin their carrier
+     * while a client is being created.
+     */
+    private static final class LazyClient<T> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ClientFactory<T> factory;
+        private volatile T instance;
+
+        private LazyClient(ClientFactory<T> factory) {
+            this.factory = factory;
+        }
+
+        private T get() throws IOException {
+            T current = instance;
+            if (current != null) {
+                return current;
+            }
+            lock.lock();
+            try {
+                if (instance == null) {
+                    instance = factory.create();
+                }
+                return instance;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private T getIfCreated() {
+            return instance;
+        }
+    }
+}
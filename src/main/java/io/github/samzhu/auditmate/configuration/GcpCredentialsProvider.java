@@ -0,0 +1,185 @@
+package io.github.samzhu.auditmate.configuration;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared GCP credentials provider.
+ *
+ * <p>
+ * Application Default Credentials are resolved once, on first use, and the same
+ * instance is handed to every GCP client. The access token is refreshed in the
+ * background shortly before it expires, so audits never wait for a token exchange.
+ *
+ * <p>
+ * Metrics:
+ * <ul>
+ * <li>{@code auditmate.credentials.token.age}: seconds since the access token was obtained</li>
+ * <li>{@code auditmate.credentials.refresh}: latency of token refreshes, tagged by outcome</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class GcpCredentialsProvider implements DisposableBean {
+
+    private static final List<String> REQUIRED_SCOPES = List.of(
+            "https://www.googleapis.com/auth/cloud-platform");
+    private static final String REFRESH_TIMER_NAME = "auditmate.credentials.refresh";
+    private static final String ANONYMOUS_TOKEN = "anonymous";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService refreshScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("gcp-credentials-refresh").daemon(true).factory());
+    private final MeterRegistry meterRegistry;
+    private final Duration refreshMargin;
+    private final Duration retryDelay;
+    private final boolean anonymous;
+
+    private volatile GoogleCredentials credentials;
+    private volatile Instant tokenObtainedAt;
+
+    public GcpCredentialsProvider(MeterRegistry meterRegistry, AuditmateProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.refreshMargin = properties.getCredentials().getRefreshMargin();
+        this.retryDelay = properties.getCredentials().getRetryDelay();
+        this.anonymous = properties.getCredentials().isAnonymous();
+
+        Gauge.builder("auditmate.credentials.token.age", this, GcpCredentialsProvider::tokenAgeSeconds)
+                .description("Seconds since the GCP access token was obtained")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the shared Application Default Credentials
+     *
+     * @return scoped credentials with a valid access token
+     * @throws IOException when no Application Default Credentials are available
+     */
+    public GoogleCredentials getCredentials() throws IOException {
+        GoogleCredentials current = credentials;
+        if (current != null) {
+            return current;
+        }
+
+        lock.lock();
+        try {
+            if (credentials == null && anonymous) {
+                // Placeholder token that never expires, the clients send no credentials at all
+                credentials = GoogleCredentials.create(new AccessToken(ANONYMOUS_TOKEN, null));
+            } else if (credentials == null) {
+                GoogleCredentials loaded = loadApplicationDefault();
+                refresh(loaded);
+                credentials = loaded;
+            }
+            return credentials;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether GCP is called without credentials, for the stand-in backend or emulators
+     */
+    public boolean isAnonymous() {
+        return anonymous;
+    }
+
+    private GoogleCredentials loadApplicationDefault() throws IOException {
+        try {
+            GoogleCredentials loaded = GoogleCredentials.getApplicationDefault();
+            if (loaded.createScopedRequired()) {
+                loaded = loaded.createScoped(REQUIRED_SCOPES);
+            }
+            return loaded;
+        } catch (IOException e) {
+            throw new IOException("GCP authorization is required. Please run the 'gcloud auth application-default login' command to get credentials.", e);
+        }
+    }
+
+    /**
+     * Refresh the access token now and schedule the next refresh before it expires
+     */
+    private void refresh(GoogleCredentials target) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            target.refresh();
+            sample.stop(refreshTimer("success"));
+            tokenObtainedAt = Instant.now();
+        } catch (IOException e) {
+            sample.stop(refreshTimer("failure"));
+            throw e;
+        }
+        scheduleRefresh(target, delayUntilRefresh(target.getAccessToken()));
+    }
+
+    private void backgroundRefresh(GoogleCredentials target) {
+        try {
+            refresh(target);
+        } catch (IOException e) {
+            // The current token is still usable until it expires, clients refresh it themselves if needed
+            log.warn("Background refresh of GCP access token failed, retrying in {}: {}", retryDelay, e.getMessage());
+            scheduleRefresh(target, retryDelay);
+        }
+    }
+
+    private void scheduleRefresh(GoogleCredentials target, Duration delay) {
+        if (delay == null || refreshScheduler.isShutdown()) {
+            return;
+        }
+        refreshScheduler.schedule(() -> backgroundRefresh(target), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Time until the token should be refreshed, null when the token does not expire
+     */
+    private Duration delayUntilRefresh(AccessToken accessToken) {
+        if (accessToken == null) {
+            return null;
+        }
+        Date expirationTime = accessToken.getExpirationTime();
+        if (expirationTime == null) {
+            return null;
+        }
+        Duration delay = Duration.between(Instant.now(), expirationTime.toInstant()).minus(refreshMargin);
+        return delay.isNegative() ? Duration.ZERO : delay;
+    }
+
+    private Timer refreshTimer(String outcome) {
+        return Timer.builder(REFRESH_TIMER_NAME)
+                .description("Latency of GCP access token refreshes")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private double tokenAgeSeconds() {
+        Instant obtainedAt = tokenObtainedAt;
+        if (obtainedAt == null) {
+            return Double.NaN;
+        }
+        return Duration.between(obtainedAt, Instant.now()).toMillis() / 1000.0;
+    }
+
+    @Override
+    public void destroy() {
+        refreshScheduler.shutdownNow();
+    }
+}
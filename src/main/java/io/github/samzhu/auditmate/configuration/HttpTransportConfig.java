@@ -0,0 +1,93 @@
+package io.github.samzhu.auditmate.configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.github.samzhu.auditmate.http.BearerTokenFilter;
+import io.github.samzhu.auditmate.http.ClientConcurrencyFilter;
+
+/**
+ * HTTP/SSE transport configuration class.
+ * Only active when the server runs as a web application (http profile), the default stdio server starts no web server.
+ * The server refuses to start on a non-loopback address unless bearer tokens are configured.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HttpTransportConfig {
+
+    /**
+     * Configure the bearer token check on the MCP endpoints, it runs before the concurrency cap.
+     *
+     * @param properties      Auditmate properties
+     * @param serverAddress   Address the web server binds to, empty for all interfaces
+     * @param sseEndpoint     Endpoint MCP clients open their SSE stream on
+     * @param messageEndpoint Endpoint MCP clients post their messages to
+     * @return FilterRegistrationBean instance
+     */
+    @Bean
+    FilterRegistrationBean<BearerTokenFilter> bearerTokenFilter(AuditmateProperties properties,
+            @Value("${server.address:}") String serverAddress,
+            @Value("${spring.ai.mcp.server.sse-endpoint:/sse}") String sseEndpoint,
+            @Value("${spring.ai.mcp.server.sse-message-endpoint:/mcp/message}") String messageEndpoint) {
+        Map<String, String> tokens = properties.getHttp().getTokens();
+        validateTokens(tokens, serverAddress);
+        FilterRegistrationBean<BearerTokenFilter> registration =
+                new FilterRegistrationBean<>(new BearerTokenFilter(tokens));
+        registration.addUrlPatterns(sseEndpoint, messageEndpoint);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Configure the per-client concurrency cap on the MCP message endpoint.
+     *
+     * @param properties      Auditmate properties
+     * @param messageEndpoint Endpoint MCP clients post their messages to
+     * @return FilterRegistrationBean instance
+     */
+    @Bean
+    FilterRegistrationBean<ClientConcurrencyFilter> clientConcurrencyFilter(AuditmateProperties properties,
+            @Value("${spring.ai.mcp.server.sse-message-endpoint:/mcp/message}") String messageEndpoint) {
+        FilterRegistrationBean<ClientConcurrencyFilter> registration =
+                new FilterRegistrationBean<>(new ClientConcurrencyFilter(properties.getHttp()));
+        registration.addUrlPatterns(messageEndpoint);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Reject blank tokens, and a server reachable from other hosts without any token
+     */
+    static void validateTokens(Map<String, String> tokens, String serverAddress) {
+        tokens.forEach((client, token) -> {
+            if (token == null || token.isBlank()) {
+                throw new IllegalStateException("auditmate.http.tokens." + client + " is blank");
+            }
+        });
+        if (tokens.isEmpty() && !isLoopback(serverAddress)) {
+            throw new IllegalStateException("server.address "
+                    + (serverAddress == null || serverAddress.isBlank() ? "(all interfaces)" : serverAddress)
+                    + " is not a loopback address, configure auditmate.http.tokens to require a bearer token"
+                    + " or bind to 127.0.0.1");
+        }
+    }
+
+    private static boolean isLoopback(String serverAddress) {
+        if (serverAddress == null || serverAddress.isBlank()) {
+            return false;
+        }
+        try {
+            return InetAddress.getByName(serverAddress.trim()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Unknown server.address " + serverAddress, e);
+        }
+    }
+}
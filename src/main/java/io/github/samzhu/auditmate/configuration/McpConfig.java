@@ -1,11 +1,20 @@
 package io.github.samzhu.auditmate.configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import io.github.samzhu.auditmate.tools.AuditJobTool;
+import io.github.samzhu.auditmate.tools.AuditMetricsTool;
 import io.github.samzhu.auditmate.tools.GcpAuditTool;
+import io.github.samzhu.auditmate.tools.PrincipalAccessTool;
+import io.github.samzhu.auditmate.tools.ReportResourceTool;
+import io.modelcontextprotocol.server.McpServerFeatures;
 
 /**
  * Spring AI MCP (Model Control Protocol) tool configuration class.
@@ -16,6 +25,7 @@ import io.github.samzhu.auditmate.tools.GcpAuditTool;
  * <ul>
  * <li>Registering all tool classes as Spring Beans</li>
  * <li>Configuring tool callback providers</li>
+ * <li>Configuring the MCP resources</li>
  * <li>Integrating Spring AI with tool class interactions</li>
  * </ul>
  */
@@ -26,15 +36,37 @@ public class McpConfig {
      * Configure the tool callback provider.
      * Register all tool classes into the Spring AI system.
      *
-     * @param gcpAuditTool       GCP audit tool
+     * @param gcpAuditTool        GCP audit tool
+     * @param auditJobTool        Background audit job tool
+     * @param reportResourceTool  Report resource tool
+     * @param principalAccessTool Cross-project principal access tool
+     * @param auditMetricsTool    Audit metrics tool, only present when enabled
      * @return ToolCallbackProvider instance
      */
     @Bean
-    ToolCallbackProvider fileSystemToolProvider(GcpAuditTool gcpAuditTool) {
+    ToolCallbackProvider fileSystemToolProvider(GcpAuditTool gcpAuditTool, AuditJobTool auditJobTool,
+            ReportResourceTool reportResourceTool, PrincipalAccessTool principalAccessTool,
+            ObjectProvider<AuditMetricsTool> auditMetricsTool) {
+        List<Object> tools = new ArrayList<>(List.of(gcpAuditTool, auditJobTool, reportResourceTool,
+                principalAccessTool));
+        auditMetricsTool.ifAvailable(tools::add);
+
         // Use builder pattern to create the tool callback provider
         // Register all tool classes as tools callable by the AI model
         return MethodToolCallbackProvider.builder()
-                .toolObjects(gcpAuditTool)
+                .toolObjects(tools.toArray())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Configure the MCP resources available at startup.
+     * Reports are added as resources when they are published.
+     *
+     * @param reportResourceTool Report resource tool
+     * @return Resource specifications
+     */
+    @Bean
+    List<McpServerFeatures.SyncResourceSpecification> reportResources(ReportResourceTool reportResourceTool) {
+        return List.of(reportResourceTool.indexSpecification());
+    }
+}
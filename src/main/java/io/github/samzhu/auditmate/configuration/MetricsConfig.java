@@ -0,0 +1,27 @@
+package io.github.samzhu.auditmate.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Micrometer metrics configuration class.
+ * The server runs without actuator, so an in-memory registry is provided for the audit metrics.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Configure the meter registry.
+     *
+     * @return MeterRegistry instance
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
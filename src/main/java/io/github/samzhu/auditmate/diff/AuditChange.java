@@ -0,0 +1,19 @@
+package io.github.samzhu.auditmate.diff;
+
+import java.util.List;
+
+/**
+ * A row that differs between the previous report and the current audit
+ *
+ * @param stage    audit stage, i.e. the report sheet
+ * @param type     kind of change
+ * @param key      identity of the row
+ * @param previous previous cell values, empty when added
+ * @param current  current cell values, empty when removed
+ */
+public record AuditChange(String stage, Type type, String key, List<String> previous, List<String> current) {
+
+    public enum Type {
+        ADDED, REMOVED, CHANGED
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.samzhu.auditmate.diff;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Differences between two sets of report rows.
+ * Both sides are indexed by key in hash maps, so a diff is linear in the number of rows.
+ */
+public final class AuditDiff {
+
+    private AuditDiff() {
+    }
+
+    /**
+     * Compare the rows of one stage
+     *
+     * @return removed and changed rows in previous order, followed by added rows in current order
+     */
+    public static List<AuditChange> compare(String stage, Collection<AuditRecord> previous, Collection<AuditRecord> current) {
+        Map<String, AuditRecord> currentByKey = index(current);
+        Map<String, AuditRecord> previousByKey = new HashMap<>(previous.size() * 2);
+        List<AuditChange> changes = new ArrayList<>();
+
+        for (AuditRecord before : previous) {
+            previousByKey.put(before.key(), before);
+            AuditRecord after = currentByKey.get(before.key());
+            if (after == null) {
+                changes.add(new AuditChange(stage, AuditChange.Type.REMOVED, before.key(), before.cells(), List.of()));
+            } else if (!after.cells().equals(before.cells())) {
+                changes.add(new AuditChange(stage, AuditChange.Type.CHANGED, before.key(), before.cells(), after.cells()));
+            }
+        }
+
+        for (AuditRecord after : currentByKey.values()) {
+            if (!previousByKey.containsKey(after.key())) {
+                changes.add(new AuditChange(stage, AuditChange.Type.ADDED, after.key(), List.of(), after.cells()));
+            }
+        }
+        return changes;
+    }
+
+    private static Map<String, AuditRecord> index(Collection<AuditRecord> records) {
+        Map<String, AuditRecord> byKey = new LinkedHashMap<>(records.size() * 2);
+        for (AuditRecord record : records) {
+            byKey.put(record.key(), record);
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.samzhu.auditmate.diff;
+
+import java.util.List;
+import java.util.Objects;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+
+/**
+ * One report row, identified by its key column
+ *
+ * @param key   identity of the row, e.g. IAM member, key name or firewall rule name
+ * @param cells normalized cell values in report column order
+ */
+public record AuditRecord(String key, List<String> cells) {
+
+    /**
+     * Record of a collected row
+     */
+    public static <T> AuditRecord of(AuditCheck<T> check, T row) {
+        return fromCells(check, check.cells(row));
+    }
+
+    /**
+     * Record of report cells, e.g. a row read back from a workbook
+     */
+    public static AuditRecord fromCells(AuditCheck<?> check, List<String> cells) {
+        // Empty cells read back from a workbook are blank, never null
+        List<String> normalized = List.copyOf(check.normalize(
+                cells.stream().map(cell -> Objects.toString(cell, "")).toList()));
+        return new AuditRecord(normalized.get(check.schema().keyColumn()), normalized);
+    }
+}
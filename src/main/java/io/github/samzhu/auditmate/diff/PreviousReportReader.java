@@ -0,0 +1,83 @@
+package io.github.samzhu.auditmate.diff;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.dhatim.fastexcel.reader.Cell;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.Row;
+import org.dhatim.fastexcel.reader.Sheet;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+
+/**
+ * Reads the rows of a previous single project report back into {@link AuditRecord}s.
+ * Sheets are streamed row by row, the workbook is never loaded as a whole.
+ */
+@Component
+public class PreviousReportReader {
+
+    /**
+     * Read the sheets of a report
+     *
+     * @param report report file
+     * @param checks checks whose sheets are read
+     * @return records by check ID; checks whose sheet is missing or reports a failure are left out
+     */
+    public Map<String, List<AuditRecord>> read(Path report, List<AuditCheck<?>> checks) throws IOException {
+        Map<String, List<AuditRecord>> records = new LinkedHashMap<>();
+        try (ReadableWorkbook workbook = new ReadableWorkbook(report.toFile())) {
+            for (AuditCheck<?> check : checks) {
+                readSheet(workbook, check).ifPresent(rows -> records.put(check.id(), rows));
+            }
+        }
+        return records;
+    }
+
+    private Optional<List<AuditRecord>> readSheet(ReadableWorkbook workbook, AuditCheck<?> check) throws IOException {
+        Optional<Sheet> sheet = workbook.findSheet(check.schema().sheetName());
+        if (sheet.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int columns = check.schema().columns().size();
+        int keyColumn = check.schema().keyColumn();
+        List<AuditRecord> records = new ArrayList<>();
+        try (Stream<Row> rows = sheet.get().openStream()) {
+            for (Row row : (Iterable<Row>) rows::iterator) {
+                // Skip the header row
+                if (row.getRowNum() == 1) {
+                    continue;
+                }
+                List<String> cells = cellsOf(row, columns);
+                if (check.isFailurePlaceholder(cells)) {
+                    // The check failed in the previous audit, there is nothing to compare with
+                    return Optional.empty();
+                }
+                String key = cells.get(keyColumn);
+                if (key.isEmpty() || AuditCheck.NONE.equals(key)) {
+                    // Placeholder of an empty check
+                    continue;
+                }
+                records.add(AuditRecord.fromCells(check, cells));
+            }
+        }
+        return Optional.of(records);
+    }
+
+    private List<String> cellsOf(Row row, int columns) {
+        List<String> cells = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            Cell cell = i < row.getCellCount() ? row.getCell(i) : null;
+            cells.add(cell == null ? "" : cell.getText());
+        }
+        return cells;
+    }
+}
@@ -24,6 +24,22 @@ public class GcpAuditResult {
     @JsonProperty("reportFilePath")
     @JsonPropertyDescription("The absolute path of the generated Excel report file")
     private String reportFilePath;
+
+    /**
+     * Report resource URI
+     * MCP resource URI the report can be read from in chunks or by sheet
+     */
+    @JsonProperty("reportUri")
+    @JsonPropertyDescription("MCP resource URI of the report, readable in chunks or by sheet with readReport")
+    private String reportUri;
+
+    /**
+     * Report size
+     * Size of the report in bytes
+     */
+    @JsonProperty("reportSize")
+    @JsonPropertyDescription("Size of the report in bytes")
+    private Long reportSize;
     
     /**
      * Audit time
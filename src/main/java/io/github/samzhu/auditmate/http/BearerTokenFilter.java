@@ -0,0 +1,83 @@
+package io.github.samzhu.auditmate.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Requires a bearer token on the MCP endpoints when the server runs over HTTP/SSE.
+ *
+ * <p>
+ * Every request must send {@code Authorization: Bearer <token>} with one of the
+ * {@code auditmate.http.tokens}. The name the token is configured under is the authenticated
+ * client, stored in the {@link #CLIENT_ATTRIBUTE} request attribute. Without configured tokens
+ * every request passes, which the transport only allows on a loopback address.
+ */
+@Slf4j
+public class BearerTokenFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ATTRIBUTE = BearerTokenFilter.class.getName() + ".client";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final Map<String, byte[]> tokens = new LinkedHashMap<>();
+
+    /**
+     * @param tokens bearer tokens by client name
+     */
+    public BearerTokenFilter(Map<String, String> tokens) {
+        tokens.forEach((client, token) -> this.tokens.put(client, token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (tokens.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String client = authenticate(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (client == null) {
+            log.warn("Rejected unauthenticated MCP request from {}", request.getRemoteAddr());
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Missing or invalid bearer token");
+            return;
+        }
+        request.setAttribute(CLIENT_ATTRIBUTE, client);
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Client name of the presented token, null when it matches none.
+     * Every token is compared in constant time, so the response time does not tell how much of a token matched.
+     */
+    private String authenticate(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        byte[] presented = authorization.substring(BEARER_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8);
+        String client = null;
+        for (Map.Entry<String, byte[]> token : tokens.entrySet()) {
+            if (MessageDigest.isEqual(presented, token.getValue()) && client == null) {
+                client = token.getKey();
+            }
+        }
+        return client;
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.samzhu.auditmate.http;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caps the MCP messages each client, and all clients together, have in flight when the server
+ * runs over HTTP/SSE.
+ *
+ * <p>
+ * The WebMvc SSE transport handles a posted message on the request thread until the tool
+ * returns, so a permit held for the request is held for the whole tool call. A client is
+ * identified by what it cannot choose: the client name of its bearer token, set by
+ * {@link BearerTokenFilter}, else its remote address. A message first takes a slot of its
+ * client, then one of {@code auditmate.http.max-concurrent-requests}, so many clients cannot
+ * together exhaust the server. Messages beyond either cap wait up to
+ * {@code auditmate.http.queue-timeout}; once the queue of the cap is full, or the wait times
+ * out, the message is rejected with 429 and a Retry-After header so the agent backs off.
+ */
+@Slf4j
+public class ClientConcurrencyFilter extends OncePerRequestFilter {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final Permits serverPermits;
+    private final ConcurrentMap<String, Permits> clients = new ConcurrentHashMap<>();
+
+    public ClientConcurrencyFilter(AuditmateProperties.Http settings) {
+        this.maxConcurrent = Math.max(settings.getMaxConcurrentRequestsPerClient(), 1);
+        this.maxQueued = Math.max(settings.getMaxQueuedRequestsPerClient(), 0);
+        this.queueTimeout = settings.getQueueTimeout();
+        this.serverPermits = new Permits(Math.max(settings.getMaxConcurrentRequests(), 1),
+                Math.max(settings.getMaxQueuedRequests(), 0));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"POST".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String client = clientOf(request);
+        Permits permits = clients.compute(client, (key, existing) -> {
+            Permits entry = existing != null ? existing : new Permits(maxConcurrent, maxQueued);
+            entry.users++;
+            return entry;
+        });
+        try {
+            if (!permits.acquire()) {
+                reject(response, client, "at most " + maxConcurrent + " per client");
+                return;
+            }
+            try {
+                if (!serverPermits.acquire()) {
+                    reject(response, client, "the server is at its limit of " + serverPermits.capacity);
+                    return;
+                }
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    serverPermits.slots.release();
+                }
+            } finally {
+                permits.slots.release();
+            }
+        } finally {
+            // Forget idle clients so per-session entries do not pile up
+            clients.computeIfPresent(client, (key, entry) -> --entry.users == 0 ? null : entry);
+        }
+    }
+
+    /**
+     * Number of clients with messages in flight or waiting
+     */
+    int activeClients() {
+        return clients.size();
+    }
+
+    /**
+     * The authenticated client, else the remote address; headers and session IDs are chosen by the client
+     */
+    private String clientOf(HttpServletRequest request) {
+        Object authenticated = request.getAttribute(BearerTokenFilter.CLIENT_ATTRIBUTE);
+        if (authenticated != null) {
+            return "client:" + authenticated;
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, String client, String limit) throws IOException {
+        log.warn("Rejected MCP message of {}, {} in flight", client, limit);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(queueTimeout.toSeconds(), 1)));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many concurrent requests, " + limit + ", retry later");
+    }
+
+    /**
+     * Slots and waiting messages of one client or of the whole server
+     */
+    private final class Permits {
+
+        private final int capacity;
+        private final int maxQueued;
+        private final Semaphore slots;
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        /**
+         * Requests holding or waiting for a slot of a client, only changed inside the map's compute functions
+         */
+        private int users;
+
+        private Permits(int capacity, int maxQueued) {
+            this.capacity = capacity;
+            this.maxQueued = maxQueued;
+            this.slots = new Semaphore(capacity, true);
+        }
+
+        /**
+         * Take a slot, waiting for one when the cap is reached and the queue has room
+         */
+        private boolean acquire() {
+            if (slots.tryAcquire()) {
+                return true;
+            }
+            if (waiting.incrementAndGet() > maxQueued) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            try {
+                return slots.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+}
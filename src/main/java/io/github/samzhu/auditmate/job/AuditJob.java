@@ -0,0 +1,205 @@
+package io.github.samzhu.auditmate.job;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.AuditProgressListener;
+
+/**
+ * A background audit of one project.
+ * Records the progress of every check and forwards it to an optional notifier.
+ */
+public final class AuditJob implements AuditProgressListener {
+
+    /**
+     * Job state
+     */
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    /**
+     * Result of a finished audit
+     *
+     * @param success whether the audit succeeded
+     * @param message result message returned to the MCP client
+     */
+    public record Outcome(boolean success, String message) {
+    }
+
+    private final String id;
+    private final String projectId;
+    private final String year;
+    private final String quarter;
+    private final Instant createdAt = Instant.now();
+    private final AuditProgressListener notifier;
+    private final Map<String, String> checkProgress = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String resultMessage;
+    private volatile Future<?> future;
+
+    AuditJob(String id, String projectId, String year, String quarter, AuditProgressListener notifier) {
+        this.id = id;
+        this.projectId = projectId;
+        this.year = year;
+        this.quarter = quarter;
+        this.notifier = notifier;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getYear() {
+        return year;
+    }
+
+    public String getQuarter() {
+        return quarter;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getResultMessage() {
+        return resultMessage;
+    }
+
+    /**
+     * Time since the job started, or its total run time once finished
+     */
+    public Duration getElapsed() {
+        Instant start = startedAt;
+        if (start == null) {
+            return Duration.ZERO;
+        }
+        Instant end = finishedAt;
+        return Duration.between(start, end != null ? end : Instant.now());
+    }
+
+    /**
+     * Progress line per check, in the order the checks started
+     */
+    public Map<String, String> getCheckProgress() {
+        lock.lock();
+        try {
+            return new LinkedHashMap<>(checkProgress);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Mark the job running, false when it was cancelled while queued
+     */
+    boolean start() {
+        lock.lock();
+        try {
+            if (state != State.QUEUED) {
+                return false;
+            }
+            state = State.RUNNING;
+            startedAt = Instant.now();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void finish(boolean success, String message) {
+        lock.lock();
+        try {
+            if (state.isFinished()) {
+                return;
+            }
+            state = success ? State.SUCCEEDED : State.FAILED;
+            resultMessage = message;
+            finishedAt = Instant.now();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancel the job, interrupting the audit and its in-flight GCP calls
+     *
+     * @return false when the job had already finished
+     */
+    boolean cancel() {
+        lock.lock();
+        try {
+            if (state.isFinished()) {
+                return false;
+            }
+            state = State.CANCELLED;
+            resultMessage = "Audit cancelled";
+            finishedAt = Instant.now();
+        } finally {
+            lock.unlock();
+        }
+        Future<?> running = future;
+        if (running != null) {
+            running.cancel(true);
+        }
+        return true;
+    }
+
+    @Override
+    public void checkStarted(String projectId, AuditCheck<?> check) {
+        updateProgress(check, "running");
+        notifier.checkStarted(projectId, check);
+    }
+
+    @Override
+    public void rowsCollected(String projectId, AuditCheck<?> check, int rowCount) {
+        updateProgress(check, "running, " + rowCount + " rows");
+        notifier.rowsCollected(projectId, check, rowCount);
+    }
+
+    @Override
+    public void checkFinished(String projectId, AuditCheck<?> check, int rowCount, Exception failure) {
+        updateProgress(check, failure == null
+                ? "done, " + rowCount + " rows"
+                : "failed after " + rowCount + " rows: " + failure.getMessage());
+        notifier.checkFinished(projectId, check, rowCount, failure);
+    }
+
+    private void updateProgress(AuditCheck<?> check, String progress) {
+        lock.lock();
+        try {
+            checkProgress.put(check.schema().sheetName(), progress);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
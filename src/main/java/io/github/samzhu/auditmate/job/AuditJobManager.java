@@ -0,0 +1,132 @@
+package io.github.samzhu.auditmate.job;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.audit.AuditProgressListener;
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs audits as background jobs.
+ *
+ * <p>
+ * Every job runs on its own virtual thread, at most {@code auditmate.jobs.max-concurrent}
+ * at a time; further jobs stay queued. Finished jobs are kept for
+ * {@code auditmate.jobs.retention} so their result can still be polled.
+ */
+@Slf4j
+@Component
+public class AuditJobManager implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, AuditJob> jobs = new ConcurrentHashMap<>();
+    private final Semaphore runningJobs;
+    private final Duration retention;
+
+    public AuditJobManager(AuditmateProperties properties) {
+        this.runningJobs = new Semaphore(properties.getJobs().getMaxConcurrent(), true);
+        this.retention = properties.getJobs().getRetention();
+    }
+
+    /**
+     * Body of a job
+     */
+    @FunctionalInterface
+    public interface JobBody {
+
+        /**
+         * Run the audit, reporting progress to the job
+         *
+         * @return whether the audit succeeded and its result message
+         */
+        AuditJob.Outcome run(AuditJob job) throws Exception;
+    }
+
+    /**
+     * Start a job in the background
+     *
+     * @param notifier creates the listener receiving the progress of the job by job ID, e.g. to notify the MCP client
+     * @param body     runs the audit
+     * @return the queued job
+     */
+    public AuditJob submit(String projectId, String year, String quarter,
+            Function<String, AuditProgressListener> notifier, JobBody body) {
+        evictExpiredJobs();
+
+        String jobId = UUID.randomUUID().toString();
+        AuditJob job = new AuditJob(jobId, projectId, year, quarter, notifier.apply(jobId));
+        jobs.put(job.getId(), job);
+        job.setFuture(executor.submit(() -> run(job, body)));
+        return job;
+    }
+
+    public Optional<AuditJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * All retained jobs, newest first
+     */
+    public List<AuditJob> list() {
+        evictExpiredJobs();
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(AuditJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Cancel a job
+     *
+     * @return false when the job does not exist or has already finished
+     */
+    public boolean cancel(String jobId) {
+        AuditJob job = jobs.get(jobId);
+        return job != null && job.cancel();
+    }
+
+    private void run(AuditJob job, JobBody body) {
+        try {
+            runningJobs.acquire();
+        } catch (InterruptedException e) {
+            // Cancelled while queued
+            return;
+        }
+        try {
+            if (!job.start()) {
+                return;
+            }
+            AuditJob.Outcome outcome = body.run(job);
+            job.finish(outcome.success(), outcome.message());
+        } catch (Exception e) {
+            log.debug("Audit job {} failed", job.getId(), e);
+            job.finish(false, e.getMessage());
+        } finally {
+            runningJobs.release();
+        }
+    }
+
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @Override
+    public void destroy() {
+        jobs.values().forEach(AuditJob::cancel);
+        executor.shutdownNow();
+    }
+}
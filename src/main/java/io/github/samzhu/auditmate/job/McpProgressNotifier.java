@@ -0,0 +1,58 @@
+package io.github.samzhu.auditmate.job;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.AuditProgressListener;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends the progress of an audit job to the MCP client as logging notifications.
+ *
+ * <p>
+ * The MCP SDK in use does not expose the progress token of a tool request, and the job
+ * outlives the request anyway, so progress is sent as {@code notifications/message}
+ * with logger {@value #LOGGER}, each message starting with the job ID.
+ */
+@Slf4j
+public class McpProgressNotifier implements AuditProgressListener {
+
+    static final String LOGGER = "auditmate.progress";
+
+    private final McpSyncServerExchange exchange;
+    private final String jobId;
+
+    public McpProgressNotifier(McpSyncServerExchange exchange, String jobId) {
+        this.exchange = exchange;
+        this.jobId = jobId;
+    }
+
+    @Override
+    public void checkStarted(String projectId, AuditCheck<?> check) {
+        notify(String.format("[%s] %s: %s started", jobId, projectId, check.schema().sheetName()));
+    }
+
+    @Override
+    public void rowsCollected(String projectId, AuditCheck<?> check, int rowCount) {
+        notify(String.format("[%s] %s: %s collected %d rows", jobId, projectId, check.schema().sheetName(), rowCount));
+    }
+
+    @Override
+    public void checkFinished(String projectId, AuditCheck<?> check, int rowCount, Exception failure) {
+        notify(failure == null
+                ? String.format("[%s] %s: %s finished with %d rows", jobId, projectId, check.schema().sheetName(), rowCount)
+                : String.format("[%s] %s: %s failed: %s", jobId, projectId, check.schema().sheetName(), failure.getMessage()));
+    }
+
+    /**
+     * Send a notification, a client that went away never fails the audit
+     */
+    private void notify(String message) {
+        try {
+            exchange.loggingNotification(new McpSchema.LoggingMessageNotification(
+                    McpSchema.LoggingLevel.INFO, LOGGER, message));
+        } catch (Exception e) {
+            log.debug("Unable to send progress notification: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.samzhu.auditmate.metrics;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Audit timers, recent audit summaries and their export.
+ *
+ * <p>
+ * Timers, all tagged by {@code outcome}, with client-side 50th, 95th and 99th percentiles:
+ * <ul>
+ * <li>{@code auditmate.audit.stage}: run time of each check, tagged by stage</li>
+ * <li>{@code auditmate.audit.stage.wait}: time a check waited for its dependencies and project quota</li>
+ * <li>{@code auditmate.gcp.call}: each GCP call or list page including retries, tagged by api and method</li>
+ * <li>{@code auditmate.report.write}: workbook finish and report publish, tagged by phase</li>
+ * </ul>
+ * The timers are not tagged by project, so their number stays fixed however many projects a
+ * long-running server audits. The project is kept in an {@link AuditSummary} of each audit
+ * instead, the last {@code auditmate.metrics.recent-audits} of them. {@link #snapshot(String)}
+ * exports every {@code auditmate.*} meter and the recent audits, as stdio mode has no
+ * metrics endpoint.
+ */
+@Component
+public class AuditMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+    public static final String SKIPPED = "skipped";
+
+    private static final String METER_PREFIX = "auditmate.";
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    private final MeterRegistry meterRegistry;
+    private final int recentAuditLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<AuditSummary> recentAudits = new ArrayDeque<>();
+
+    public AuditMetrics(MeterRegistry meterRegistry, AuditmateProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.recentAuditLimit = Math.max(properties.getMetrics().getRecentAudits(), 0);
+    }
+
+    /**
+     * Timer of a check run
+     */
+    public Timer stage(String stage, String outcome) {
+        return timer("auditmate.audit.stage", "Run time of an audit check",
+                "stage", stage, "outcome", outcome);
+    }
+
+    /**
+     * Timer of the wait of a check for its dependencies and project quota
+     */
+    public Timer stageWait(String stage) {
+        return timer("auditmate.audit.stage.wait", "Time an audit check waited before it started",
+                "stage", stage, "outcome", SUCCESS);
+    }
+
+    /**
+     * Timer of a GCP call, one page for list calls
+     */
+    public Timer gcpCall(String api, String method, String outcome) {
+        return timer("auditmate.gcp.call", "GCP call time including rate limiting and retries",
+                "api", api, "method", method, "outcome", outcome);
+    }
+
+    /**
+     * Timer of a report writing phase
+     */
+    public Timer reportWrite(String phase, String outcome) {
+        return timer("auditmate.report.write", "Report writing time",
+                "phase", phase, "outcome", outcome);
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the summary of a finished project audit, the oldest summary is dropped beyond the limit
+     */
+    public void auditFinished(AuditSummary summary) {
+        lock.lock();
+        try {
+            recentAudits.addLast(summary);
+            while (recentAudits.size() > recentAuditLimit) {
+                recentAudits.removeFirst();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Snapshot of the auditmate meters, timers first and by total time, and of the recent audits
+     * by duration, so the slowest come first
+     *
+     * @param namePrefix only meters whose name starts with it, all auditmate meters when empty
+     */
+    public MetricsSnapshot snapshot(String namePrefix) {
+        String prefix = namePrefix == null || namePrefix.isBlank() ? METER_PREFIX : namePrefix;
+        List<MeterSnapshot> meters = new ArrayList<>();
+        for (Meter meter : meterRegistry.getMeters()) {
+            if (meter.getId().getName().startsWith(prefix)) {
+                meters.add(snapshotOf(meter));
+            }
+        }
+        meters.sort(Comparator.comparing((MeterSnapshot meter) -> !"timer".equals(meter.type()))
+                .thenComparing(meter -> -meter.values().getOrDefault("totalSeconds", 0d))
+                .thenComparing(MeterSnapshot::name));
+        List<AuditSummary> audits;
+        lock.lock();
+        try {
+            audits = new ArrayList<>(recentAudits);
+        } finally {
+            lock.unlock();
+        }
+        audits.sort(Comparator.comparingDouble(AuditSummary::seconds).reversed());
+        return new MetricsSnapshot(Instant.now(), meters, audits);
+    }
+
+    private static MeterSnapshot snapshotOf(Meter meter) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (Tag tag : meter.getId().getTags()) {
+            tags.put(tag.getKey(), tag.getValue());
+        }
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        String type;
+        if (meter instanceof Timer timer) {
+            type = "timer";
+            HistogramSnapshot histogram = timer.takeSnapshot();
+            values.put("count", (double) histogram.count());
+            values.put("totalSeconds", histogram.total(TimeUnit.SECONDS));
+            values.put("meanSeconds", histogram.mean(TimeUnit.SECONDS));
+            values.put("maxSeconds", histogram.max(TimeUnit.SECONDS));
+            for (ValueAtPercentile percentile : histogram.percentileValues()) {
+                values.put("p" + Math.round(percentile.percentile() * 100) + "Seconds",
+                        percentile.value(TimeUnit.SECONDS));
+            }
+        } else if (meter instanceof Counter counter) {
+            type = "counter";
+            values.put("count", counter.count());
+        } else if (meter instanceof Gauge gauge) {
+            type = "gauge";
+            values.put("value", gauge.value());
+        } else {
+            type = meter.getId().getType().name().toLowerCase();
+            meter.measure().forEach(measurement ->
+                    values.put(measurement.getStatistic().getTagValueRepresentation(), measurement.getValue()));
+        }
+        return new MeterSnapshot(meter.getId().getName(), type, tags, values);
+    }
+
+    /**
+     * Exported meters and recent audits
+     */
+    public record MetricsSnapshot(Instant timestamp, List<MeterSnapshot> meters, List<AuditSummary> audits) {
+    }
+
+    /**
+     * One finished project audit, stage times are in seconds by check ID
+     */
+    public record AuditSummary(String projectId, Instant finishedAt, double seconds, Map<String, Double> stageSeconds,
+            List<String> failedStages) {
+    }
+
+    /**
+     * One exported meter, timer values are in seconds
+     */
+    public record MeterSnapshot(String name, String type, Map<String, String> tags, Map<String, Double> values) {
+    }
+}
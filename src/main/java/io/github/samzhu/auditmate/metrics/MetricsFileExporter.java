@@ -0,0 +1,101 @@
+package io.github.samzhu.auditmate.metrics;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the audit metrics to a JSON file at a fixed interval and on shutdown.
+ *
+ * <p>
+ * The MCP server talks over stdio and has no HTTP endpoint to scrape, so the file is the
+ * side channel: it always holds the latest {@link AuditMetrics#snapshot(String)} and is
+ * replaced atomically, so readers never see a partial file. Nothing is written before the
+ * first audit has been timed.
+ */
+@Slf4j
+@Component
+@RegisterReflectionForBinding({ AuditMetrics.MetricsSnapshot.class, AuditMetrics.MeterSnapshot.class,
+        AuditMetrics.AuditSummary.class })
+public class MetricsFileExporter implements InitializingBean, DisposableBean {
+
+    private final AuditMetrics auditMetrics;
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final Duration interval;
+    private final ScheduledExecutorService exportScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("metrics-file-export").daemon(true).factory());
+
+    public MetricsFileExporter(AuditMetrics auditMetrics, ObjectMapper objectMapper, AuditmateProperties properties) {
+        this.auditMetrics = auditMetrics;
+        this.objectMapper = objectMapper;
+        String configuredFile = properties.getMetrics().getFile();
+        this.file = configuredFile == null || configuredFile.isBlank() ? null : Path.of(configuredFile);
+        this.interval = properties.getMetrics().getExportInterval();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (file == null) {
+            exportScheduler.shutdown();
+            return;
+        }
+        exportScheduler.scheduleWithFixedDelay(this::export, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the current metrics, failures are logged and retried at the next interval
+     */
+    void export() {
+        AuditMetrics.MetricsSnapshot snapshot = auditMetrics.snapshot(null);
+        if (snapshot.meters().stream().noneMatch(meter -> "timer".equals(meter.type()))) {
+            return;
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), snapshot);
+                moveIntoPlace(tempFile);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write metrics to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void moveIntoPlace(Path tempFile) throws IOException {
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        exportScheduler.shutdownNow();
+        if (file != null) {
+            export();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.samzhu.auditmate.quota;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket whose rate adapts to quota errors (AIMD).
+ *
+ * <p>
+ * Every successful call raises the rate by {@code additiveIncrease / rate}, so the rate
+ * grows by about {@code additiveIncrease} per second of successful calls. Every quota
+ * error cuts the rate by {@code decreaseFactor} and empties the bucket, so callers back
+ * off immediately. The bucket holds up to one second worth of tokens.
+ */
+final class AdaptiveRateLimiter {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double additiveIncrease,
+            double decreaseFactor) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.rate = Math.min(Math.max(initialRate, minRate), maxRate);
+        this.tokens = 1;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Take a token, waiting until one is available
+     */
+    void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            lock.lock();
+            try {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) / rate * NANOS_PER_SECOND);
+            } finally {
+                lock.unlock();
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1));
+        }
+    }
+
+    void onSuccess() {
+        lock.lock();
+        try {
+            rate = Math.min(maxRate, rate + additiveIncrease / rate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onThrottled() {
+        lock.lock();
+        try {
+            refill();
+            rate = Math.max(minRate, rate * decreaseFactor);
+            tokens = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    double rate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether no token was taken and no quota error reported since the given {@link System#nanoTime()}
+     */
+    boolean idleSince(long sinceNanos) {
+        lock.lock();
+        try {
+            return lastRefillNanos - sinceNanos < 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(Math.max(rate, 1), tokens + (now - lastRefillNanos) / NANOS_PER_SECOND * rate);
+        lastRefillNanos = now;
+    }
+}
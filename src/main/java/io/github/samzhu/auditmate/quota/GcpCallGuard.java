@@ -0,0 +1,222 @@
+package io.github.samzhu.auditmate.quota;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.gax.paging.Page;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rate limits GCP calls and retries them when they hit a quota.
+ *
+ * <p>
+ * Each API and project pair gets its own {@link AdaptiveRateLimiter}, shared by all audits
+ * running in this server, so parallel stages and batch audits of the same project stay
+ * under its quota together. A quota error (gRPC {@code RESOURCE_EXHAUSTED}, HTTP 429 or a
+ * rate limit 403) slows the pair down and is retried with full-jitter exponential backoff,
+ * as long as both the attempt limit and the {@link RetryBudget} of the current audit allow.
+ * Other errors are passed through unchanged, transient ones are already retried by the
+ * client libraries. Every call is timed in {@code auditmate.gcp.call}, list calls page by page.
+ * A pair left unused for {@code limiter-idle-timeout} drops its limiter, so auditing many
+ * projects does not keep one limiter per project forever; its next call starts over at the
+ * initial rate.
+ */
+@Slf4j
+@Component
+public class GcpCallGuard {
+
+    public static final String RESOURCE_MANAGER_API = "cloudresourcemanager";
+    public static final String KMS_API = "cloudkms";
+    public static final String COMPUTE_API = "compute";
+    public static final String SERVICE_USAGE_API = "serviceusage";
+    public static final String IAM_API = "iam";
+    public static final String CLOUD_ASSET_API = "cloudasset";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int FORBIDDEN = 403;
+    private static final Set<String> RATE_LIMIT_REASONS = Set.of("rateLimitExceeded", "userRateLimitExceeded");
+
+    private final AuditmateProperties.RateLimit settings;
+    private final MeterRegistry meterRegistry;
+    private final AuditMetrics auditMetrics;
+    private final Map<String, AdaptiveRateLimiter> limiters = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+
+    public GcpCallGuard(AuditmateProperties properties, MeterRegistry meterRegistry, AuditMetrics auditMetrics) {
+        this.settings = properties.getRateLimit();
+        this.meterRegistry = meterRegistry;
+        this.auditMetrics = auditMetrics;
+    }
+
+    /**
+     * A GCP call
+     */
+    @FunctionalInterface
+    public interface GcpCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Make a rate limited GCP call
+     *
+     * @param api    API name, one of the API constants
+     * @param method API method, for the metrics
+     * @param scope  project or resource whose quota the call counts against
+     * @param call   the call
+     * @return result of the call
+     * @throws QuotaExceededException if the call is still throttled when no retry is left
+     */
+    public <T, E extends Exception> T call(String api, String method, String scope, GcpCall<T, E> call)
+            throws E, InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = AuditMetrics.FAILURE;
+        try {
+            T result = callWithRetries(api, scope, call);
+            outcome = AuditMetrics.SUCCESS;
+            return result;
+        } finally {
+            sample.stop(auditMetrics.gcpCall(api, method, outcome));
+        }
+    }
+
+    /**
+     * List all items of a paged GCP list call, every page is a separate rate limited call
+     *
+     * @param api       API name, one of the API constants
+     * @param method    API method, for the metrics
+     * @param scope     project or resource whose quota the calls count against
+     * @param firstPage call returning the first page
+     * @return items of all pages in listing order
+     */
+    public <T> List<T> listAll(String api, String method, String scope, GcpCall<Page<T>, RuntimeException> firstPage)
+            throws InterruptedException {
+        List<T> items = new ArrayList<>();
+        Page<T> page = call(api, method, scope, firstPage);
+        while (true) {
+            page.getValues().forEach(items::add);
+            if (!page.hasNextPage()) {
+                return items;
+            }
+            Page<T> current = page;
+            page = call(api, method, scope, () -> current.getNextPage());
+        }
+    }
+
+    private <T, E extends Exception> T callWithRetries(String api, String scope, GcpCall<T, E> call)
+            throws E, InterruptedException {
+        evictIdleLimiters();
+        AdaptiveRateLimiter limiter = limiters.computeIfAbsent(api + ":" + scope, key -> newLimiter());
+        for (int attempt = 1;; attempt++) {
+            limiter.acquire();
+            try {
+                T result = call.call();
+                limiter.onSuccess();
+                return result;
+            } catch (Exception e) {
+                if (!isQuotaError(e)) {
+                    throw e;
+                }
+                limiter.onThrottled();
+                counter("auditmate.gcp.calls.throttled", api).increment();
+
+                if (attempt >= settings.getMaxAttempts()) {
+                    throw new QuotaExceededException(api, scope, attempt, e);
+                }
+                RetryBudget budget = RetryBudget.current();
+                if (budget != null && !budget.tryConsume()) {
+                    counter("auditmate.gcp.calls.retry.budget.exhausted", api).increment();
+                    throw new QuotaExceededException(api, scope, attempt, e);
+                }
+
+                long backoff = backoffMillis(attempt);
+                log.debug("{} API throttled for {}, retry {} in {} ms (rate {}/s)",
+                        api, scope, attempt, backoff, limiter.rate());
+                counter("auditmate.gcp.calls.retried", api).increment();
+                TimeUnit.MILLISECONDS.sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Random backoff between 0 and the exponential cap of the attempt (full jitter), so
+     * throttled callers do not retry in lockstep
+     */
+    private long backoffMillis(int attempt) {
+        long initial = settings.getInitialBackoff().toMillis();
+        long cap = Math.min(settings.getMaxBackoff().toMillis(), initial << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Drop the limiters of pairs idle for longer than the idle timeout, at most one caller sweeps
+     * per timeout period
+     */
+    private void evictIdleLimiters() {
+        long now = System.nanoTime();
+        long next = nextSweepNanos.get();
+        long idleTimeoutNanos = settings.getLimiterIdleTimeout().toNanos();
+        if (now - next < 0 || !nextSweepNanos.compareAndSet(next, now + idleTimeoutNanos)) {
+            return;
+        }
+        long idleSince = now - idleTimeoutNanos;
+        limiters.values().removeIf(limiter -> limiter.idleSince(idleSince));
+    }
+
+    /**
+     * Number of API and project pairs currently holding a limiter
+     */
+    int limiterCount() {
+        return limiters.size();
+    }
+
+    private AdaptiveRateLimiter newLimiter() {
+        return new AdaptiveRateLimiter(settings.getInitialRate(), settings.getMinRate(), settings.getMaxRate(),
+                settings.getAdditiveIncrease(), settings.getDecreaseFactor());
+    }
+
+    private Counter counter(String name, String api) {
+        return meterRegistry.counter(name, "api", api);
+    }
+
+    /**
+     * Whether a failure means a quota or rate limit was hit
+     */
+    static boolean isQuotaError(Throwable e) {
+        if (e instanceof ApiException apiException) {
+            return apiException.getStatusCode().getCode() == StatusCode.Code.RESOURCE_EXHAUSTED;
+        }
+        if (e instanceof GoogleJsonResponseException jsonException) {
+            if (jsonException.getStatusCode() == TOO_MANY_REQUESTS) {
+                return true;
+            }
+            GoogleJsonError details = jsonException.getDetails();
+            return jsonException.getStatusCode() == FORBIDDEN && details != null && details.getErrors() != null
+                    && details.getErrors().stream()
+                            .anyMatch(error -> RATE_LIMIT_REASONS.contains(error.getReason()));
+        }
+        if (e instanceof HttpResponseException responseException) {
+            // Plain REST requests, their error details are not parsed
+            return responseException.getStatusCode() == TOO_MANY_REQUESTS;
+        }
+        return false;
+    }
+}
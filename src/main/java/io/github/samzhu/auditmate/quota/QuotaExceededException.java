@@ -0,0 +1,28 @@
+package io.github.samzhu.auditmate.quota;
+
+/**
+ * A GCP call was still throttled after all allowed retries
+ */
+public class QuotaExceededException extends RuntimeException {
+
+    private final String api;
+    private final String scope;
+
+    public QuotaExceededException(String api, String scope, int attempts, Exception cause) {
+        super(String.format("GCP %s API quota exhausted for %s after %d attempts: %s",
+                api, scope, attempts, cause.getMessage()), cause);
+        this.api = api;
+        this.scope = scope;
+    }
+
+    public String getApi() {
+        return api;
+    }
+
+    /**
+     * Project or resource the quota applies to
+     */
+    public String getScope() {
+        return scope;
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.samzhu.auditmate.quota;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.grpc.Context;
+
+/**
+ * Number of retries one audit may still spend on throttled calls.
+ *
+ * <p>
+ * The budget travels with the gRPC {@link Context} of the audit, which every audit stage
+ * and its worker threads inherit, so all calls of one audit share it.
+ */
+public final class RetryBudget {
+
+    static final Context.Key<RetryBudget> CONTEXT_KEY = Context.key("auditmate-retry-budget");
+
+    private final AtomicInteger remaining;
+
+    public RetryBudget(int retries) {
+        this.remaining = new AtomicInteger(retries);
+    }
+
+    /**
+     * Context carrying this budget, calls made while it is attached spend it
+     */
+    public Context attachTo(Context context) {
+        return context.withValue(CONTEXT_KEY, this);
+    }
+
+    /**
+     * Budget of the current audit, null outside an audit
+     */
+    static RetryBudget current() {
+        return CONTEXT_KEY.get();
+    }
+
+    boolean tryConsume() {
+        return remaining.getAndUpdate(value -> value > 0 ? value - 1 : value) > 0;
+    }
+
+    public int remaining() {
+        return remaining.get();
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.samzhu.auditmate.report;
+
+/**
+ * A published report, readable as an MCP resource.
+ *
+ * @param uri  stable resource URI of the report
+ * @param name report file name
+ * @param path absolute path of the report file, null when no directory was writable and the report is only held by the server
+ * @param size report size in bytes
+ */
+public record PublishedReport(String uri, String name, String path, long size) {
+
+    /**
+     * Where to find the report, the file when there is one, otherwise the resource
+     */
+    public String location() {
+        return path != null ? path : uri;
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.samzhu.auditmate.report;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A report being written.
+ *
+ * <p>
+ * The report is streamed into a temp file and only becomes visible under its final
+ * name when {@link #publish()} moves it there atomically. Closing an unpublished
+ * report deletes the temp file. Every published report is registered with the
+ * {@link ReportResourceStore}, so clients can read it as a resource in bounded chunks.
+ * A report without a directory is written in memory until it outgrows the memory budget of
+ * the store, then moved to a spill file and written there.
+ *
+ * <p>
+ * A {@link FileOutputStream} is used rather than a FileChannel stream: audit stages
+ * write into the report from their own threads, and an interrupted stage must not
+ * close the shared channel underneath the other stages.
+ */
+@Slf4j
+public final class ReportFile implements AutoCloseable {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final String fileName;
+    private final ReportResourceStore resources;
+    private final Path tempFile;
+    private final Path targetFile;
+    private final OutputStream outputStream;
+    private final SpillingOutputStream memoryBuffer;
+    private boolean published;
+
+    private ReportFile(String fileName, ReportResourceStore resources, Path tempFile, Path targetFile,
+            OutputStream outputStream, SpillingOutputStream memoryBuffer) {
+        this.fileName = fileName;
+        this.resources = resources;
+        this.tempFile = tempFile;
+        this.targetFile = targetFile;
+        this.outputStream = outputStream;
+        this.memoryBuffer = memoryBuffer;
+    }
+
+    static ReportFile onDisk(Path tempFile, Path targetFile, ReportResourceStore resources) throws IOException {
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile.toFile()), WRITE_BUFFER_SIZE);
+        return new ReportFile(targetFile.getFileName().toString(), resources, tempFile, targetFile, outputStream, null);
+    }
+
+    static ReportFile inMemory(String fileName, ReportResourceStore resources) {
+        SpillingOutputStream memoryBuffer = new SpillingOutputStream(resources);
+        return new ReportFile(fileName, resources, null, null, memoryBuffer, memoryBuffer);
+    }
+
+    /**
+     * Stream to write the report content to
+     */
+    public OutputStream outputStream() {
+        return outputStream;
+    }
+
+    /**
+     * Move the complete report to its final location
+     *
+     * @return the published report, without a path when it could not be stored in a directory
+     */
+    public PublishedReport publish() throws IOException {
+        outputStream.close();
+        published = true;
+
+        if (tempFile == null) {
+            if (memoryBuffer.spillFile != null) {
+                return resources.register(fileName, memoryBuffer.spillFile, true);
+            }
+            return resources.register(fileName, memoryBuffer.memory.toByteArray());
+        }
+
+        try {
+            moveIntoPlace();
+            return resources.register(fileName, targetFile, false);
+        } catch (IOException e) {
+            // The report stays in its temp file, which the resource store now owns
+            log.warn("Unable to move report to {}: {}", targetFile, e.getMessage());
+            return resources.register(fileName, tempFile, true);
+        }
+    }
+
+    private void moveIntoPlace() throws IOException {
+        try {
+            Files.move(tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (published) {
+            return;
+        }
+        outputStream.close();
+        if (tempFile != null) {
+            Files.deleteIfExists(tempFile);
+        }
+        if (memoryBuffer != null && memoryBuffer.spillFile != null) {
+            Files.deleteIfExists(memoryBuffer.spillFile);
+        }
+    }
+
+    /**
+     * Keeps the report in memory up to the memory budget, then moves it to a spill file and
+     * streams the rest there, so a report never holds more than the budget in memory
+     */
+    private static final class SpillingOutputStream extends OutputStream {
+
+        private final ReportResourceStore resources;
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private OutputStream target = memory;
+        private Path spillFile;
+
+        private SpillingOutputStream(ReportResourceStore resources) {
+            this.resources = resources;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            reserve(1);
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            reserve(length);
+            target.write(bytes, offset, length);
+        }
+
+        private void reserve(int length) throws IOException {
+            if (spillFile != null || memory.size() + (long) length <= resources.memoryBudget()) {
+                return;
+            }
+            Path file = null;
+            OutputStream fileStream = null;
+            try {
+                file = resources.createSpillFile();
+                fileStream = new BufferedOutputStream(new FileOutputStream(file.toFile()), WRITE_BUFFER_SIZE);
+                memory.writeTo(fileStream);
+                target = fileStream;
+                spillFile = file;
+                memory = null;
+            } catch (IOException e) {
+                if (fileStream != null) {
+                    fileStream.close();
+                }
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+                throw new IOException(String.format("Report exceeds the memory budget of %d bytes and cannot be "
+                        + "spilled: %s", resources.memoryBudget(), e.getMessage()), e);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.samzhu.auditmate.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Report file store.
+ *
+ * <p>
+ * Reports are written to the home directory, or to the temp directory when the home
+ * directory is not writable. Each report is streamed to a temp file next to its final
+ * location and moved into place once complete, so only a small write buffer of the
+ * report is ever held in memory. When no directory is writable the report is kept by the
+ * {@link ReportResourceStore} only.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportFileStore {
+
+    private static final String TEMP_FILE_PREFIX = ".auditmate-";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final ReportResourceStore resources;
+
+    /**
+     * Create a report file
+     *
+     * @param fileName final report file name
+     * @return report file to write to, must be closed by the caller
+     */
+    public ReportFile create(String fileName) throws IOException {
+        for (File directory : candidateDirectories()) {
+            try {
+                ensureDirectoryExists(directory);
+                validateDirectory(directory);
+
+                Path tempFile = Files.createTempFile(directory.toPath(), TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+                return ReportFile.onDisk(tempFile, directory.toPath().resolve(fileName), resources);
+            } catch (IOException e) {
+                log.debug("Unable to write report to {}: {}", directory, e.getMessage());
+            }
+        }
+
+        // No writable directory at all, the report is only readable as a resource
+        return ReportFile.inMemory(fileName, resources);
+    }
+
+    /**
+     * Find a previously published report
+     *
+     * @param fileName report file name
+     * @return report path, searched in the same directories reports are written to
+     */
+    public Optional<Path> find(String fileName) {
+        for (File directory : candidateDirectories()) {
+            Path report = directory.toPath().resolve(fileName);
+            if (Files.isRegularFile(report)) {
+                return Optional.of(report);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private List<File> candidateDirectories() {
+        return List.of(
+                new File(System.getProperty("user.home")),
+                new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Validate if directory exists and is writable
+     */
+    private void validateDirectory(File directory) throws IOException {
+        if (!directory.exists()) {
+            throw new IOException("Directory does not exist: " + directory.getAbsolutePath());
+        }
+        
+        if (!directory.canWrite()) {
+            throw new IOException("Directory does not have write permission: " + directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Ensure directory exists, create if not
+     */
+    private void ensureDirectoryExists(File directory) {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.samzhu.auditmate.report;
+
+/**
+ * Published when a report becomes readable as a resource, or when the store forgets it.
+ *
+ * @param type   whether the report was published or removed
+ * @param report the report
+ */
+public record ReportResourceEvent(Type type, PublishedReport report) {
+
+    public enum Type {
+        PUBLISHED, REMOVED
+    }
+}
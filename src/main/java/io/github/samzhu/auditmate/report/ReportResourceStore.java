@@ -0,0 +1,328 @@
+package io.github.samzhu.auditmate.report;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reports readable as MCP resources under {@value #URI_PREFIX}{@code <file name>}.
+ *
+ * <p>
+ * Reports stored in a directory are served from their file. A report that could not be
+ * stored is kept in memory, at most {@code auditmate.reports.memory-budget} in total: the
+ * least recently read ones are spilled to {@code auditmate.reports.spill-directory}, or
+ * dropped when that is not writable either. A report written in memory is moved to a spill
+ * file as soon as it outgrows the budget, and a spill directory that is not writable is
+ * reported at startup. At most {@code auditmate.reports.max-reports}
+ * reports are kept, the least recently read are forgotten first; only files the store wrote
+ * itself are deleted then, published report files are never touched.
+ */
+@Slf4j
+@Component
+public class ReportResourceStore implements DisposableBean {
+
+    public static final String URI_PREFIX = "auditmate://reports/";
+    private static final String SPILL_FILE_PREFIX = ".auditmate-";
+    private static final String SPILL_FILE_SUFFIX = ".xlsx";
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final long memoryBudget;
+    private final Path spillDirectory;
+    private final int maxReports;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryUsed;
+
+    public ReportResourceStore(AuditmateProperties properties, ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.memoryBudget = properties.getReports().getMemoryBudget().toBytes();
+        this.spillDirectory = Path.of(properties.getReports().getSpillDirectory());
+        this.maxReports = Math.max(properties.getReports().getMaxReports(), 1);
+        if (!isWritable(spillDirectory)) {
+            log.warn("Spill directory {} is not writable, reports that no directory can store are dropped "
+                    + "beyond the memory budget of {} bytes; set auditmate.reports.spill-directory", spillDirectory,
+                    memoryBudget);
+        }
+    }
+
+    /**
+     * Whether the directory, or the nearest existing directory it would be created in, is writable
+     */
+    private static boolean isWritable(Path directory) {
+        for (Path candidate = directory.toAbsolutePath(); candidate != null; candidate = candidate.getParent()) {
+            if (Files.exists(candidate)) {
+                return Files.isDirectory(candidate) && Files.isWritable(candidate);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Memory all reports held in memory may use together
+     */
+    long memoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Create an empty file in the spill directory, which the caller owns
+     */
+    Path createSpillFile() throws IOException {
+        Files.createDirectories(spillDirectory);
+        return Files.createTempFile(spillDirectory, SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX);
+    }
+
+    /**
+     * Register a report file
+     *
+     * @param name  report file name
+     * @param file  report content
+     * @param owned whether the file is a temp file the store deletes once it forgets the report,
+     *              such a file is not reported as the report's path
+     * @return the published report
+     */
+    public PublishedReport register(String name, Path file, boolean owned) throws IOException {
+        long size = Files.size(file);
+        PublishedReport report = new PublishedReport(uriOf(name), name,
+                owned ? null : file.toAbsolutePath().toString(), size);
+        return put(new Entry(report, null, file, owned));
+    }
+
+    /**
+     * Register a report held in memory
+     *
+     * @param name    report file name
+     * @param content report content
+     * @return the published report
+     */
+    public PublishedReport register(String name, byte[] content) {
+        PublishedReport report = new PublishedReport(uriOf(name), name, null, content.length);
+        return put(new Entry(report, content, null, true));
+    }
+
+    /**
+     * Find a report
+     *
+     * @param uriOrName resource URI or file name of the report
+     * @return the report, when the store still knows it
+     */
+    public Optional<PublishedReport> find(String uriOrName) {
+        lock.lock();
+        try {
+            return Optional.ofNullable(entries.get(uriOf(uriOrName))).map(Entry::report);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * All known reports, the most recently read last
+     */
+    public List<PublishedReport> list() {
+        lock.lock();
+        try {
+            return entries.values().stream().map(Entry::report).toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read a byte range of a report
+     *
+     * @param uri    resource URI of the report
+     * @param offset first byte to read
+     * @param length maximum number of bytes to read
+     * @return the bytes read, empty at the end of the report
+     */
+    public byte[] read(String uri, long offset, int length) throws IOException {
+        Entry entry = entry(uri);
+        long end = Math.min(entry.report().size(), offset + Math.max(length, 0));
+        if (offset < 0 || offset >= end) {
+            return new byte[0];
+        }
+        byte[] content = entry.content;
+        if (content != null) {
+            return Arrays.copyOfRange(content, (int) offset, (int) end);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - offset));
+        try (FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                // Keep reading until the range is complete or the file ends
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Open a report for reading
+     *
+     * @param uri resource URI of the report
+     * @return stream of the report content, must be closed by the caller
+     */
+    public InputStream open(String uri) throws IOException {
+        Entry entry = entry(uri);
+        byte[] content = entry.content;
+        return content != null ? new ByteArrayInputStream(content) : Files.newInputStream(entry.file);
+    }
+
+    /**
+     * Resource URI of a report
+     *
+     * @param uriOrName resource URI or file name of the report
+     */
+    public static String uriOf(String uriOrName) {
+        return uriOrName.startsWith(URI_PREFIX) ? uriOrName : URI_PREFIX + uriOrName;
+    }
+
+    private Entry entry(String uri) throws FileNotFoundException {
+        lock.lock();
+        try {
+            Entry entry = entries.get(uriOf(uri));
+            if (entry == null) {
+                throw new FileNotFoundException("Unknown report: " + uri);
+            }
+            // Read the backing under the lock, a spill moves it from memory to a file
+            return new Entry(entry.report, entry.content, entry.file, entry.owned);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PublishedReport put(Entry entry) {
+        List<Entry> discarded = new ArrayList<>();
+        List<Entry> removed = new ArrayList<>();
+        boolean kept;
+        lock.lock();
+        try {
+            Entry previous = entries.put(entry.report.uri(), entry);
+            if (previous != null) {
+                forget(previous);
+                discarded.add(previous);
+            }
+            if (entry.content != null) {
+                memoryUsed += entry.content.length;
+            }
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxReports) {
+                Entry forgotten = eldest.next();
+                eldest.remove();
+                forget(forgotten);
+                removed.add(forgotten);
+            }
+            spillOverBudget(removed);
+            kept = entries.containsKey(entry.report.uri());
+        } finally {
+            lock.unlock();
+        }
+
+        discarded.forEach(this::deleteOwnedFile);
+        removed.forEach(this::deleteOwnedFile);
+        removed.forEach(forgotten -> eventPublisher.publishEvent(
+                new ReportResourceEvent(ReportResourceEvent.Type.REMOVED, forgotten.report)));
+        if (kept) {
+            eventPublisher.publishEvent(new ReportResourceEvent(ReportResourceEvent.Type.PUBLISHED, entry.report));
+        }
+        return entry.report;
+    }
+
+    /**
+     * Spill the least recently read reports held in memory until the rest fits the budget,
+     * called with the lock held. Reports that cannot be spilled are dropped.
+     */
+    private void spillOverBudget(List<Entry> removed) {
+        Iterator<Map.Entry<String, Entry>> candidates = entries.entrySet().iterator();
+        while (memoryUsed > memoryBudget && candidates.hasNext()) {
+            Entry candidate = candidates.next().getValue();
+            if (candidate.content == null) {
+                continue;
+            }
+            Path file = null;
+            try {
+                file = createSpillFile();
+                Files.write(file, candidate.content);
+                candidate.file = file;
+            } catch (IOException e) {
+                log.warn("Unable to spill report {} to {}, dropping it: {}", candidate.report.name(), spillDirectory,
+                        e.getMessage());
+                candidates.remove();
+                removed.add(candidate);
+                candidate.file = file;
+            }
+            memoryUsed -= candidate.content.length;
+            candidate.content = null;
+        }
+    }
+
+    private void forget(Entry entry) {
+        if (entry.content != null) {
+            memoryUsed -= entry.content.length;
+        }
+    }
+
+    private void deleteOwnedFile(Entry entry) {
+        if (entry.owned && entry.file != null) {
+            try {
+                Files.deleteIfExists(entry.file);
+            } catch (IOException e) {
+                log.debug("Unable to delete report file {}: {}", entry.file, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            entries.values().forEach(this::deleteOwnedFile);
+            entries.clear();
+            memoryUsed = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A report and where its content is, in memory or in a file
+     */
+    private static final class Entry {
+
+        private final PublishedReport report;
+        private final boolean owned;
+        private byte[] content;
+        private Path file;
+
+        private Entry(PublishedReport report, byte[] content, Path file, boolean owned) {
+            this.report = report;
+            this.content = content;
+            this.file = file;
+            this.owned = owned;
+        }
+
+        private PublishedReport report() {
+            return report;
+        }
+    }
+}
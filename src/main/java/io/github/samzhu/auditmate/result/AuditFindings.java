@@ -0,0 +1,80 @@
+package io.github.samzhu.auditmate.result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.ProjectAuditSinks;
+import io.github.samzhu.auditmate.audit.StageSink;
+
+/**
+ * Findings of every check of a project audit, for the structured tool responses.
+ * Collected next to the report sheets, or on their own when no report is written.
+ */
+public final class AuditFindings {
+
+    private final List<StageFindings<?>> stages = new ArrayList<>();
+
+    private AuditFindings() {
+    }
+
+    /**
+     * Findings that collect nothing, attaching them leaves the sinks unchanged
+     */
+    public static AuditFindings none() {
+        return new AuditFindings();
+    }
+
+    /**
+     * Create empty findings for the given checks
+     *
+     * @param checks      checks in sheet order
+     * @param topN        number of riskiest rows kept per check, 0 for none
+     * @param summaryOnly keep only counts and the riskiest rows, not every row
+     */
+    public static AuditFindings of(List<AuditCheck<?>> checks, int topN, boolean summaryOnly) {
+        AuditFindings findings = new AuditFindings();
+        for (AuditCheck<?> check : checks) {
+            findings.stages.add(new StageFindings<>(check, topN, summaryOnly));
+        }
+        return findings;
+    }
+
+    /**
+     * Findings per check, in sheet order
+     */
+    public List<StageFindings<?>> stages() {
+        return stages;
+    }
+
+    /**
+     * Feed the rows of every check to its findings as well as to the given sinks
+     *
+     * @return the given sinks, each now also feeding the findings
+     */
+    public ProjectAuditSinks attachTo(ProjectAuditSinks sinks) {
+        for (StageFindings<?> stage : stages) {
+            attach(sinks, stage);
+        }
+        return sinks;
+    }
+
+    private static <T> void attach(ProjectAuditSinks sinks, StageFindings<T> stage) {
+        StageSink<T> sink = sinks.sinkFor(stage.check());
+        sinks.put(stage.check(), new StageSink<>() {
+            @Override
+            public void accept(T row) throws IOException {
+                sink.accept(row);
+                stage.accept(row);
+            }
+
+            @Override
+            public void complete(Exception failure) throws IOException {
+                // The findings record the outcome even when the sheet cannot be completed
+                stage.complete(failure);
+                sink.complete(failure);
+            }
+        });
+    }
+}
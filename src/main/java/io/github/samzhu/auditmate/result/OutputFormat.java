@@ -0,0 +1,42 @@
+package io.github.samzhu.auditmate.result;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Format of the audit tool response
+ */
+public enum OutputFormat {
+
+    /**
+     * Human readable message with the report location
+     */
+    TEXT,
+
+    /**
+     * One compact JSON object with the result and the findings of every stage
+     */
+    JSON,
+
+    /**
+     * One compact JSON object per line: the result, then each stage and its findings
+     */
+    NDJSON;
+
+    /**
+     * Parse a format name, case-insensitive
+     *
+     * @param value format name, TEXT when empty
+     */
+    public static OutputFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return TEXT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown output format '" + value + "', expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT), e);
+        }
+    }
+}
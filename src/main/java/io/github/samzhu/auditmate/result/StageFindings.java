@@ -0,0 +1,110 @@
+package io.github.samzhu.auditmate.result;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.StageSink;
+
+/**
+ * Findings of one check, collected from its stage as rows arrive.
+ *
+ * <p>
+ * Keeps the number of reported rows, the riskiest rows in a bounded heap and, unless only
+ * a summary is wanted, the cells of every row. Like every sink it is only used by the
+ * thread of its stage.
+ */
+public final class StageFindings<T> implements StageSink<T> {
+
+    private static final Comparator<RiskyRow> LEAST_RISKY_FIRST = Comparator.comparingInt(RiskyRow::riskScore)
+            .thenComparing(Comparator.comparingInt(RiskyRow::sequence).reversed());
+
+    private final AuditCheck<T> check;
+    private final int topN;
+    private final boolean summaryOnly;
+    private final List<List<String>> rows = new ArrayList<>();
+    private final PriorityQueue<RiskyRow> riskiest = new PriorityQueue<>(LEAST_RISKY_FIRST);
+    private int rowCount;
+    private boolean completed;
+    private String error;
+
+    StageFindings(AuditCheck<T> check, int topN, boolean summaryOnly) {
+        this.check = check;
+        this.topN = topN;
+        this.summaryOnly = summaryOnly;
+    }
+
+    /**
+     * A row of a risky finding
+     *
+     * @param sequence position of the row in the stage, keeps equal scores in collection order
+     */
+    public record RiskyRow(int riskScore, int sequence, List<String> cells) {
+    }
+
+    @Override
+    public void accept(T row) {
+        if (!check.isReported(row)) {
+            return;
+        }
+        List<String> cells = check.cells(row);
+        int sequence = rowCount++;
+        if (!summaryOnly) {
+            rows.add(cells);
+        }
+
+        int riskScore = check.riskScore(row);
+        if (topN > 0 && riskScore > 0) {
+            riskiest.add(new RiskyRow(riskScore, sequence, cells));
+            if (riskiest.size() > topN) {
+                riskiest.poll();
+            }
+        }
+    }
+
+    @Override
+    public void complete(Exception failure) {
+        completed = true;
+        error = failure != null ? failure.getMessage() : null;
+    }
+
+    public AuditCheck<T> check() {
+        return check;
+    }
+
+    /**
+     * SUCCESS, FAILED, or NOT_RUN when the stage never completed, e.g. because the audit failed before it
+     */
+    public String status() {
+        if (!completed) {
+            return "NOT_RUN";
+        }
+        return error == null ? "SUCCESS" : "FAILED";
+    }
+
+    public String error() {
+        return error;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Cells of every reported row, empty when only a summary is kept
+     */
+    public List<List<String>> rows() {
+        return rows;
+    }
+
+    /**
+     * The riskiest rows, riskiest first
+     */
+    public List<RiskyRow> riskiest() {
+        List<RiskyRow> sorted = new ArrayList<>(riskiest);
+        sorted.sort(LEAST_RISKY_FIRST.reversed());
+        return sorted;
+    }
+}
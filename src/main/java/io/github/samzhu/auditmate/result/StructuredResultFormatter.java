@@ -0,0 +1,130 @@
+package io.github.samzhu.auditmate.result;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.github.samzhu.auditmate.audit.SheetSchema;
+import io.github.samzhu.auditmate.dto.GcpAuditResult;
+
+/**
+ * Formats an audit result and its findings as compact JSON or NDJSON for clients that
+ * parse the response instead of reading it. Stack traces are never included.
+ */
+@Component
+@RegisterReflectionForBinding(GcpAuditResult.class)
+public class StructuredResultFormatter {
+
+    private static final String STACK_TRACE_FIELD = "stackTrace";
+
+    private final ObjectMapper objectMapper;
+
+    public StructuredResultFormatter(ObjectMapper objectMapper) {
+        // Copy the Boot mapper for its date handling, but leave out empty fields of its users
+        this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    /**
+     * Format the result
+     *
+     * @param format JSON for one object, NDJSON for the result line followed by a line per stage and row
+     */
+    public String format(GcpAuditResult result, AuditFindings findings, OutputFormat format) {
+        try {
+            return switch (format) {
+                case JSON -> toJson(result, findings);
+                case NDJSON -> toNdjson(result, findings);
+                case TEXT -> throw new IllegalArgumentException("Text results are formatted by the tool");
+            };
+        } catch (JsonProcessingException e) {
+            // Never expected for a tree of strings and numbers
+            throw new IllegalStateException("Unable to format the audit result: " + e.getMessage(), e);
+        }
+    }
+
+    private String toJson(GcpAuditResult result, AuditFindings findings) throws JsonProcessingException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.set("result", resultNode(result));
+        ArrayNode stages = root.putArray("stages");
+        for (StageFindings<?> stage : findings.stages()) {
+            ObjectNode node = stageNode(stage);
+            node.set("topRisky", riskyRows(stage.riskiest()));
+            if (!stage.rows().isEmpty()) {
+                node.set("rows", objectMapper.valueToTree(stage.rows()));
+            }
+            stages.add(node);
+        }
+        return objectMapper.writeValueAsString(root);
+    }
+
+    private String toNdjson(GcpAuditResult result, AuditFindings findings) throws JsonProcessingException {
+        StringBuilder lines = new StringBuilder();
+        ObjectNode resultLine = objectMapper.createObjectNode().put("type", "result");
+        resultLine.setAll(resultNode(result));
+        appendLine(lines, resultLine);
+
+        for (StageFindings<?> stage : findings.stages()) {
+            appendLine(lines, objectMapper.createObjectNode().put("type", "stage").setAll(stageNode(stage)));
+            String stageId = stage.check().id();
+            for (StageFindings.RiskyRow row : stage.riskiest()) {
+                ObjectNode line = objectMapper.createObjectNode()
+                        .put("type", "risk")
+                        .put("stage", stageId)
+                        .put("score", row.riskScore());
+                line.set("cells", objectMapper.valueToTree(row.cells()));
+                appendLine(lines, line);
+            }
+            for (List<String> cells : stage.rows()) {
+                ObjectNode line = objectMapper.createObjectNode()
+                        .put("type", "row")
+                        .put("stage", stageId);
+                line.set("cells", objectMapper.valueToTree(cells));
+                appendLine(lines, line);
+            }
+        }
+        return lines.toString();
+    }
+
+    private void appendLine(StringBuilder lines, ObjectNode line) throws JsonProcessingException {
+        lines.append(objectMapper.writeValueAsString(line)).append('\n');
+    }
+
+    private ObjectNode resultNode(GcpAuditResult result) {
+        ObjectNode node = objectMapper.valueToTree(result);
+        node.remove(STACK_TRACE_FIELD);
+        return node;
+    }
+
+    private ObjectNode stageNode(StageFindings<?> stage) {
+        SheetSchema schema = stage.check().schema();
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("stage", stage.check().id())
+                .put("sheet", schema.sheetName())
+                .put("status", stage.status());
+        if (stage.error() != null) {
+            node.put("error", stage.error());
+        }
+        node.put("rowCount", stage.rowCount());
+        node.set("columns", objectMapper.valueToTree(schema.columns().stream()
+                .map(SheetSchema.Column::header)
+                .collect(Collectors.toList())));
+        return node;
+    }
+
+    private ArrayNode riskyRows(List<StageFindings.RiskyRow> rows) {
+        ArrayNode nodes = objectMapper.createArrayNode();
+        for (StageFindings.RiskyRow row : rows) {
+            ObjectNode node = nodes.addObject().put("score", row.riskScore());
+            node.set("cells", objectMapper.valueToTree(row.cells()));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.samzhu.auditmate.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import io.github.samzhu.auditmate.audit.StageSink;
+
+/**
+ * A stored snapshot of one audit stage of one project
+ *
+ * @param file      snapshot file
+ * @param validator validator of the data, e.g. the IAM policy etag
+ * @param storedAt  when the snapshot was stored or last revalidated
+ * @param fresh     whether the snapshot is still within its time to live
+ */
+public record Snapshot(Path file, String validator, Instant storedAt, boolean fresh) {
+
+    /**
+     * Stream all elements of the snapshot into a sink
+     *
+     * @return number of elements
+     */
+    public <E> int replay(SnapshotCodec<E> codec, StageSink<E> sink) throws IOException {
+        int count = 0;
+        try (DataInputStream in = open()) {
+            while (in.readBoolean()) {
+                sink.accept(codec.read(in));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Read the first element of a single element snapshot
+     */
+    public <E> E readFirst(SnapshotCodec<E> codec) throws IOException {
+        try (DataInputStream in = open()) {
+            if (!in.readBoolean()) {
+                throw new IOException("Snapshot is empty: " + file);
+            }
+            return codec.read(in);
+        }
+    }
+
+    private DataInputStream open() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            SnapshotCache.readHeader(in);
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+}
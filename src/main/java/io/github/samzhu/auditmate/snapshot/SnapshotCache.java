@@ -0,0 +1,226 @@
+package io.github.samzhu.auditmate.snapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-disk snapshot cache of audit inputs, keyed by project and stage.
+ *
+ * <p>
+ * Within the time to live a stage is served from its snapshot without any API call,
+ * so re-running or re-formatting a report is instant. After that the stage is fetched
+ * again and compared with the validator of the snapshot (IAM policy etag, firewall
+ * rule fingerprints); an unchanged snapshot is only marked as revalidated instead of
+ * being rewritten. When the cache grows beyond its size budget the snapshots stored
+ * or revalidated the longest time ago are evicted first.
+ *
+ * <p>
+ * File layout: magic and version, elements each preceded by a {@code true} marker,
+ * a {@code false} end marker, the validator and the offset of the validator.
+ * The modification time of the file is the time the snapshot was stored or revalidated.
+ */
+@Slf4j
+@Component
+public class SnapshotCache {
+
+    private static final int MAGIC = 0x41554453;
+    private static final int FORMAT_VERSION = 1;
+    private static final int TRAILER_OFFSET_BYTES = Long.BYTES;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration ttl;
+    private final long maxSizeBytes;
+
+    public SnapshotCache(AuditmateProperties properties) {
+        AuditmateProperties.Snapshot snapshot = properties.getSnapshot();
+        this.enabled = snapshot.isEnabled();
+        this.directory = Path.of(snapshot.getDirectory());
+        this.ttl = snapshot.getTtl();
+        this.maxSizeBytes = snapshot.getMaxSize().toBytes();
+    }
+
+    /**
+     * Find the snapshot of a stage
+     *
+     * @return the snapshot, empty when the cache is disabled or there is no readable snapshot
+     */
+    public Optional<Snapshot> find(String projectId, String stage) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Path file = snapshotFile(projectId, stage);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            Instant storedAt = Files.getLastModifiedTime(file).toInstant();
+            boolean fresh = storedAt.plus(ttl).isAfter(Instant.now());
+            return Optional.of(new Snapshot(file, readValidator(file), storedAt, fresh));
+        } catch (IOException e) {
+            log.debug("Ignoring unreadable snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Open a writer for a new snapshot of a stage
+     */
+    public <E> SnapshotWriter<E> writer(String projectId, String stage, SnapshotCodec<E> codec) {
+        if (!enabled) {
+            return SnapshotWriter.disabled(this, codec);
+        }
+        Path file = snapshotFile(projectId, stage);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tempFile = Files.createTempFile(file.getParent(), ".snapshot-", ".tmp");
+            return new SnapshotWriter<>(this, codec, tempFile, file);
+        } catch (IOException e) {
+            log.debug("Snapshot cache is not writable, skipping {}: {}", file, e.getMessage());
+            deleteQuietly(tempFile);
+            return SnapshotWriter.disabled(this, codec);
+        }
+    }
+
+    /**
+     * Mark a snapshot as revalidated, it is fresh again for another time to live
+     */
+    public void touch(Snapshot snapshot) {
+        try {
+            Files.setLastModifiedTime(snapshot.file(), FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("Unable to mark snapshot {} as revalidated: {}", snapshot.file(), e.getMessage());
+        }
+    }
+
+    /**
+     * Evict the oldest snapshots until the cache fits its size budget
+     */
+    void evictOverBudget() {
+        if (!evictionLock.tryLock()) {
+            // Another writer is already evicting
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> snapshots = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .toList());
+
+            long totalBytes = 0;
+            for (Path snapshot : snapshots) {
+                totalBytes += sizeOf(snapshot);
+            }
+            if (totalBytes <= maxSizeBytes) {
+                return;
+            }
+
+            snapshots.sort(Comparator.comparing(SnapshotCache::lastModified));
+            for (Path snapshot : snapshots) {
+                if (totalBytes <= maxSizeBytes) {
+                    break;
+                }
+                long size = sizeOf(snapshot);
+                Files.deleteIfExists(snapshot);
+                totalBytes -= size;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Unable to evict snapshots from {}: {}", directory, e.getMessage());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private Path snapshotFile(String projectId, String stage) {
+        return directory.resolve(sanitize(projectId)).resolve(sanitize(stage) + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Keep file names safe, project IDs and stage names never contain path separators on purpose
+     */
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String readValidator(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long length = raf.length();
+            if (length < TRAILER_OFFSET_BYTES) {
+                throw new IOException("Snapshot is truncated: " + file);
+            }
+            raf.seek(length - TRAILER_OFFSET_BYTES);
+            long validatorOffset = raf.readLong();
+            if (validatorOffset < 0 || validatorOffset >= length) {
+                throw new IOException("Snapshot trailer is corrupt: " + file);
+            }
+            raf.seek(validatorOffset);
+            return raf.readUTF();
+        }
+    }
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+    }
+
+    static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format");
+        }
+    }
+
+    static void writeTrailer(DataOutputStream out, String validator) throws IOException {
+        long validatorOffset = out.size();
+        out.writeUTF(validator == null ? "" : validator);
+        out.writeLong(validatorOffset);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
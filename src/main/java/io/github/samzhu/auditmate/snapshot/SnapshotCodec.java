@@ -0,0 +1,59 @@
+package io.github.samzhu.auditmate.snapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+
+import io.github.samzhu.auditmate.audit.ByokKey;
+
+/**
+ * Encodes the elements of a snapshot
+ */
+public interface SnapshotCodec<E> {
+
+    void write(E element, DataOutputStream out) throws IOException;
+
+    E read(DataInputStream in) throws IOException;
+
+    /**
+     * Codec for protobuf messages, e.g. IAM policies and firewall rules
+     */
+    static <M extends MessageLite> SnapshotCodec<M> protobuf(Parser<M> parser) {
+        return new SnapshotCodec<>() {
+            @Override
+            public void write(M element, DataOutputStream out) throws IOException {
+                byte[] bytes = element.toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public M read(DataInputStream in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return parser.parseFrom(bytes);
+            }
+        };
+    }
+
+    /**
+     * Codec for BYOK key rows
+     */
+    SnapshotCodec<ByokKey> BYOK_KEY = new SnapshotCodec<>() {
+        @Override
+        public void write(ByokKey element, DataOutputStream out) throws IOException {
+            out.writeUTF(element.name());
+            out.writeUTF(element.type());
+            out.writeUTF(element.lifecycle());
+            out.writeUTF(element.manager());
+        }
+
+        @Override
+        public ByokKey read(DataInputStream in) throws IOException {
+            return new ByokKey(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+        }
+    };
+}
@@ -0,0 +1,117 @@
+package io.github.samzhu.auditmate.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams the elements of a new snapshot to a temp file.
+ * The snapshot only replaces the previous one when it is committed; closing an
+ * uncommitted writer discards it, e.g. when the stage failed halfway.
+ * The cache is best effort, a failing write never fails the audit stage.
+ */
+@Slf4j
+public final class SnapshotWriter<E> implements AutoCloseable {
+
+    private final SnapshotCache cache;
+    private final SnapshotCodec<E> codec;
+    private final Path tempFile;
+    private final Path targetFile;
+    private DataOutputStream out;
+
+    SnapshotWriter(SnapshotCache cache, SnapshotCodec<E> codec, Path tempFile, Path targetFile) throws IOException {
+        this.cache = cache;
+        this.codec = codec;
+        this.tempFile = tempFile;
+        this.targetFile = targetFile;
+        if (tempFile != null) {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)));
+            SnapshotCache.writeHeader(out);
+        }
+    }
+
+    /**
+     * Writer that stores nothing, used when the cache is disabled or not writable
+     */
+    static <E> SnapshotWriter<E> disabled(SnapshotCache cache, SnapshotCodec<E> codec) {
+        try {
+            return new SnapshotWriter<>(cache, codec, null, null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Append one element
+     */
+    public void append(E element) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeBoolean(true);
+            codec.write(element, out);
+        } catch (IOException e) {
+            discard(e);
+        }
+    }
+
+    /**
+     * Store the snapshot under its final name
+     *
+     * @param validator validator of the data, e.g. the IAM policy etag
+     */
+    public void commit(String validator) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeBoolean(false);
+            // The validator may only be known once all elements were streamed, so it goes into the trailer
+            SnapshotCache.writeTrailer(out, validator);
+            out.close();
+            out = null;
+            try {
+                Files.move(tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            discard(e);
+            return;
+        }
+        cache.evictOverBudget();
+    }
+
+    @Override
+    public void close() {
+        discard(null);
+    }
+
+    private void discard(IOException failure) {
+        if (failure != null) {
+            log.debug("Discarding snapshot {}: {}", targetFile, failure.getMessage());
+        }
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Already discarding
+            }
+            out = null;
+        }
+        if (tempFile != null) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.debug("Unable to delete snapshot temp file {}: {}", tempFile, e.getMessage());
+            }
+        }
+    }
+}
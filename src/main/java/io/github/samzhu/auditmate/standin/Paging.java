@@ -0,0 +1,32 @@
+package io.github.samzhu.auditmate.standin;
+
+import java.util.List;
+
+/**
+ * Offset based paging of the stand-in list responses, the page token is the offset
+ * of the next page
+ */
+record Paging<T>(List<T> items, String nextPageToken) {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    static <T> Paging<T> of(List<T> all, int pageSize, String pageToken) {
+        int size = pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+        int from = parseToken(pageToken);
+        int to = Math.min(all.size(), from + size);
+        List<T> items = from >= all.size() ? List.of() : all.subList(from, to);
+        return new Paging<>(items, to < all.size() ? Integer.toString(to) : "");
+    }
+
+    private static int parseToken(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(pageToken));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + pageToken, e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.samzhu.auditmate.standin;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offline stand-in for the GCP APIs the audit calls, started with the {@code standin}
+ * profile.
+ *
+ * <p>
+ * A gRPC server serves Resource Manager and Cloud KMS, an HTTP server serves Compute
+ * Engine and Service Usage, both backed by one deterministic {@link SyntheticOrganization}
+ * whose size is set through {@code auditmate.standin.*}. The profile points the
+ * {@code auditmate.endpoints.*} of the GCP clients at these servers and turns off
+ * credentials, so whole audits, including batch audits of {@value SyntheticOrganization#ORGANIZATION},
+ * run without network or Application Default Credentials. Every request waits for the
+ * configured latency and is counted in {@code auditmate.standin.requests}, tagged by
+ * method, to load test concurrency, caching and pagination changes.
+ */
+@Slf4j
+@Component
+@Profile("standin")
+public class StandinBackend implements InitializingBean, DisposableBean {
+
+    private static final String REQUESTS_COUNTER = "auditmate.standin.requests";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final AuditmateProperties.Standin settings;
+    private final MeterRegistry meterRegistry;
+    private final SyntheticOrganization organization;
+    private final ExecutorService grpcExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Server grpcServer;
+    private StandinHttpServer httpServer;
+
+    public StandinBackend(AuditmateProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getStandin();
+        this.meterRegistry = meterRegistry;
+        this.organization = new SyntheticOrganization(settings);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        ServerBuilder<?> grpcServerBuilder = Grpc.newServerBuilderForPort(settings.getGrpcPort(),
+                InsecureServerCredentials.create())
+                .executor(grpcExecutor);
+        for (ServerServiceDefinition service : new StandinGrpcServices(organization).services()) {
+            grpcServerBuilder.addService(ServerInterceptors.intercept(service, new RequestInterceptor()));
+        }
+        grpcServer = grpcServerBuilder.build().start();
+
+        httpServer = new StandinHttpServer(organization, settings.getHttpPort(), this::onRequest);
+        httpServer.start();
+
+        log.info("Stand-in backend serving {} projects, gRPC on port {}, HTTP on port {}",
+                settings.getProjects(), grpcServer.getPort(), httpServer.port());
+    }
+
+    /**
+     * Port the HTTP server listens on, the configured one or an ephemeral port when it is 0
+     */
+    public int httpPort() {
+        return httpServer.port();
+    }
+
+    /**
+     * Count a request and hold it for the configured latency
+     */
+    private void onRequest(String method) {
+        meterRegistry.counter(REQUESTS_COUNTER, "method", method).increment();
+        Duration latency = settings.getLatency();
+        if (latency.isZero() || latency.isNegative()) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (httpServer != null) {
+            httpServer.close();
+        }
+        if (grpcServer != null) {
+            grpcServer.shutdownNow();
+            try {
+                grpcServer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        grpcExecutor.shutdownNow();
+    }
+
+    /**
+     * Applies {@link #onRequest(String)} before a gRPC call is handled, on the call's own virtual thread
+     */
+    private final class RequestInterceptor implements ServerInterceptor {
+
+        @Override
+        public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers,
+                ServerCallHandler<Q, R> next) {
+            onRequest(call.getMethodDescriptor().getFullMethodName());
+            return next.startCall(call, headers);
+        }
+    }
+}
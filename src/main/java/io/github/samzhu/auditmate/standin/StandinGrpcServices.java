@@ -0,0 +1,197 @@
+package io.github.samzhu.auditmate.standin;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.CryptoKeyVersion;
+import com.google.cloud.kms.v1.GetCryptoKeyVersionRequest;
+import com.google.cloud.kms.v1.KeyRing;
+import com.google.cloud.kms.v1.ListCryptoKeysRequest;
+import com.google.cloud.kms.v1.ListCryptoKeysResponse;
+import com.google.cloud.kms.v1.ListKeyRingsRequest;
+import com.google.cloud.kms.v1.ListKeyRingsResponse;
+import com.google.cloud.location.ListLocationsRequest;
+import com.google.cloud.location.ListLocationsResponse;
+import com.google.cloud.location.Location;
+import com.google.cloud.resourcemanager.v3.Folder;
+import com.google.cloud.resourcemanager.v3.ListFoldersRequest;
+import com.google.cloud.resourcemanager.v3.ListFoldersResponse;
+import com.google.cloud.resourcemanager.v3.ListProjectsRequest;
+import com.google.cloud.resourcemanager.v3.ListProjectsResponse;
+import com.google.cloud.resourcemanager.v3.Project;
+import com.google.iam.v1.GetIamPolicyRequest;
+import com.google.iam.v1.Policy;
+import com.google.protobuf.Message;
+
+import io.github.samzhu.auditmate.standin.SyntheticOrganization.ProjectResources;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+
+/**
+ * gRPC services of the stand-in backend: the Resource Manager and Cloud KMS methods the
+ * audit calls.
+ *
+ * <p>
+ * The services are assembled from method descriptors over the request and response
+ * messages, so they need the same proto classes as the clients and no generated server
+ * stubs. Method names follow the published service definitions.
+ */
+final class StandinGrpcServices {
+
+    private static final String PROJECTS_SERVICE = "google.cloud.resourcemanager.v3.Projects";
+    private static final String FOLDERS_SERVICE = "google.cloud.resourcemanager.v3.Folders";
+    private static final String KMS_SERVICE = "google.cloud.kms.v1.KeyManagementService";
+    private static final String LOCATIONS_SERVICE = "google.cloud.location.Locations";
+    private static final String PROJECTS_PREFIX = "projects/";
+
+    private final SyntheticOrganization organization;
+
+    StandinGrpcServices(SyntheticOrganization organization) {
+        this.organization = organization;
+    }
+
+    List<ServerServiceDefinition> services() {
+        ServerServiceDefinition.Builder projects = ServerServiceDefinition.builder(PROJECTS_SERVICE);
+        unary(projects, PROJECTS_SERVICE, "GetIamPolicy", GetIamPolicyRequest.getDefaultInstance(),
+                Policy.getDefaultInstance(), this::getIamPolicy);
+        unary(projects, PROJECTS_SERVICE, "ListProjects", ListProjectsRequest.getDefaultInstance(),
+                ListProjectsResponse.getDefaultInstance(), this::listProjects);
+
+        ServerServiceDefinition.Builder folders = ServerServiceDefinition.builder(FOLDERS_SERVICE);
+        unary(folders, FOLDERS_SERVICE, "ListFolders", ListFoldersRequest.getDefaultInstance(),
+                ListFoldersResponse.getDefaultInstance(), this::listFolders);
+
+        ServerServiceDefinition.Builder kms = ServerServiceDefinition.builder(KMS_SERVICE);
+        unary(kms, KMS_SERVICE, "ListKeyRings", ListKeyRingsRequest.getDefaultInstance(),
+                ListKeyRingsResponse.getDefaultInstance(), this::listKeyRings);
+        unary(kms, KMS_SERVICE, "ListCryptoKeys", ListCryptoKeysRequest.getDefaultInstance(),
+                ListCryptoKeysResponse.getDefaultInstance(), this::listCryptoKeys);
+        unary(kms, KMS_SERVICE, "GetCryptoKeyVersion", GetCryptoKeyVersionRequest.getDefaultInstance(),
+                CryptoKeyVersion.getDefaultInstance(), this::getCryptoKeyVersion);
+
+        ServerServiceDefinition.Builder locations = ServerServiceDefinition.builder(LOCATIONS_SERVICE);
+        unary(locations, LOCATIONS_SERVICE, "ListLocations", ListLocationsRequest.getDefaultInstance(),
+                ListLocationsResponse.getDefaultInstance(), this::listLocations);
+
+        return List.of(projects.build(), folders.build(), kms.build(), locations.build());
+    }
+
+    private Policy getIamPolicy(GetIamPolicyRequest request) {
+        return project(request.getResource()).policy();
+    }
+
+    private ListProjectsResponse listProjects(ListProjectsRequest request) {
+        Paging<Project> page = Paging.of(
+                organization.projects(request.getParent()), request.getPageSize(), request.getPageToken());
+        return ListProjectsResponse.newBuilder()
+                .addAllProjects(page.items())
+                .setNextPageToken(page.nextPageToken())
+                .build();
+    }
+
+    private ListFoldersResponse listFolders(ListFoldersRequest request) {
+        Paging<Folder> page = Paging.of(
+                organization.folders(request.getParent()), request.getPageSize(), request.getPageToken());
+        return ListFoldersResponse.newBuilder()
+                .addAllFolders(page.items())
+                .setNextPageToken(page.nextPageToken())
+                .build();
+    }
+
+    private ListLocationsResponse listLocations(ListLocationsRequest request) {
+        ProjectResources project = kmsProject(request.getName());
+        Paging<Location> page = Paging.of(
+                project.locations(), request.getPageSize(), request.getPageToken());
+        return ListLocationsResponse.newBuilder()
+                .addAllLocations(page.items())
+                .setNextPageToken(page.nextPageToken())
+                .build();
+    }
+
+    private ListKeyRingsResponse listKeyRings(ListKeyRingsRequest request) {
+        ProjectResources project = kmsProject(request.getParent());
+        Paging<KeyRing> page = Paging.of(
+                project.keyRingsByLocation().getOrDefault(request.getParent(), List.of()),
+                request.getPageSize(), request.getPageToken());
+        return ListKeyRingsResponse.newBuilder()
+                .addAllKeyRings(page.items())
+                .setNextPageToken(page.nextPageToken())
+                .setTotalSize(page.items().size())
+                .build();
+    }
+
+    private ListCryptoKeysResponse listCryptoKeys(ListCryptoKeysRequest request) {
+        ProjectResources project = kmsProject(request.getParent());
+        List<CryptoKey> cryptoKeys = project.cryptoKeysByKeyRing().get(request.getParent());
+        if (cryptoKeys == null) {
+            throw notFound(request.getParent());
+        }
+        Paging<CryptoKey> page = Paging.of(
+                cryptoKeys, request.getPageSize(), request.getPageToken());
+        return ListCryptoKeysResponse.newBuilder()
+                .addAllCryptoKeys(page.items())
+                .setNextPageToken(page.nextPageToken())
+                .setTotalSize(cryptoKeys.size())
+                .build();
+    }
+
+    private CryptoKeyVersion getCryptoKeyVersion(GetCryptoKeyVersionRequest request) {
+        CryptoKeyVersion version = kmsProject(request.getName()).versions().get(request.getName());
+        if (version == null) {
+            throw notFound(request.getName());
+        }
+        return version;
+    }
+
+    /**
+     * Project of a resource name, like the real APIs an unknown project is denied rather than not found
+     */
+    private ProjectResources project(String resourceName) {
+        String projectId = resourceName.startsWith(PROJECTS_PREFIX)
+                ? resourceName.substring(PROJECTS_PREFIX.length()).split("/", 2)[0]
+                : "";
+        return organization.project(projectId).orElseThrow(() -> Status.PERMISSION_DENIED
+                .withDescription("Permission denied on resource '" + resourceName + "' (or it may not exist)")
+                .asRuntimeException());
+    }
+
+    private ProjectResources kmsProject(String resourceName) {
+        ProjectResources project = project(resourceName);
+        if (!project.kmsEnabled()) {
+            throw Status.PERMISSION_DENIED
+                    .withDescription("Cloud Key Management Service (KMS) API has not been used in project "
+                            + project.projectId() + " before or it is disabled.")
+                    .asRuntimeException();
+        }
+        return project;
+    }
+
+    private static StatusRuntimeException notFound(String resourceName) {
+        return Status.NOT_FOUND.withDescription(resourceName + " not found.").asRuntimeException();
+    }
+
+    private static <Q extends Message, R extends Message> void unary(ServerServiceDefinition.Builder service,
+            String serviceName, String methodName, Q requestPrototype, R responsePrototype, Function<Q, R> handler) {
+        MethodDescriptor<Q, R> method = MethodDescriptor.<Q, R>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName(serviceName, methodName))
+                .setRequestMarshaller(ProtoUtils.marshaller(requestPrototype))
+                .setResponseMarshaller(ProtoUtils.marshaller(responsePrototype))
+                .build();
+        service.addMethod(method, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+            try {
+                responseObserver.onNext(handler.apply(request));
+                responseObserver.onCompleted();
+            } catch (StatusRuntimeException e) {
+                responseObserver.onError(e);
+            } catch (IllegalArgumentException e) {
+                responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            }
+        }));
+    }
+}
@@ -0,0 +1,293 @@
+package io.github.samzhu.auditmate.standin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.serviceusage.v1.model.BatchGetServicesResponse;
+import com.google.api.services.serviceusage.v1.model.GoogleApiServiceusageV1Service;
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.compute.v1.FirewallList;
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.CryptoKeyVersion;
+import com.google.cloud.resourcemanager.v3.Project;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.util.JsonFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.samzhu.auditmate.audit.ServiceEnablementProbe;
+import io.github.samzhu.auditmate.standin.SyntheticOrganization.ProjectResources;
+
+/**
+ * HTTP server of the stand-in backend, serving the REST APIs the audit calls: Compute
+ * Engine firewall listing, Service Usage batchGet and Cloud Asset assets.list. Bound to
+ * the loopback address only.
+ */
+final class StandinHttpServer implements AutoCloseable {
+
+    private static final Pattern FIREWALLS_PATH = Pattern.compile("/compute/v1/projects/([^/]+)/global/firewalls");
+    private static final Pattern BATCH_GET_PATH = Pattern.compile("/v1/projects/([^/]+)/services:batchGet");
+    private static final Pattern ASSETS_PATH = Pattern.compile("/v1/((?:projects|folders|organizations)/[^/]+)/assets");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final SyntheticOrganization organization;
+    private final Consumer<String> requestObserver;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+
+    /**
+     * @param requestObserver called with the method name before every request is handled
+     */
+    StandinHttpServer(SyntheticOrganization organization, int port, Consumer<String> requestObserver)
+            throws IOException {
+        this.organization = organization;
+        this.requestObserver = requestObserver;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/compute/v1/projects/", this::listFirewalls);
+        server.createContext("/v1/projects/", this::handleProjectRequest);
+        server.createContext("/v1/folders/", this::listAssets);
+        server.createContext("/v1/organizations/", this::listAssets);
+        server.setExecutor(executor);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void listFirewalls(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestObserver.accept("compute.firewalls.list");
+            Matcher path = FIREWALLS_PATH.matcher(exchange.getRequestURI().getPath());
+            Optional<ProjectResources> project = path.matches()
+                    ? organization.project(path.group(1))
+                    : Optional.empty();
+            if (project.isEmpty()) {
+                sendError(exchange, 403, "Required 'compute.firewalls.list' permission", "forbidden");
+                return;
+            }
+
+            String maxResults = queryParameter(exchange, "maxResults").stream().findFirst().orElse("0");
+            String pageToken = queryParameter(exchange, "pageToken").stream().findFirst().orElse("");
+            Paging<Firewall> page;
+            try {
+                page = Paging.of(project.get().firewalls(), Integer.parseInt(maxResults), pageToken);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage(), "invalid");
+                return;
+            }
+            FirewallList.Builder firewallList = FirewallList.newBuilder()
+                    .setKind("compute#firewallList")
+                    .setId("standin")
+                    .addAllItems(page.items());
+            if (!page.nextPageToken().isEmpty()) {
+                firewallList.setNextPageToken(page.nextPageToken());
+            }
+            sendJson(exchange, 200, toJson(firewallList.build()));
+        }
+    }
+
+    private void handleProjectRequest(HttpExchange exchange) throws IOException {
+        if (ASSETS_PATH.matcher(exchange.getRequestURI().getPath()).matches()) {
+            listAssets(exchange);
+        } else {
+            batchGetServices(exchange);
+        }
+    }
+
+    private void batchGetServices(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestObserver.accept("serviceusage.services.batchGet");
+            Matcher path = BATCH_GET_PATH.matcher(exchange.getRequestURI().getPath());
+            Optional<ProjectResources> project = path.matches()
+                    ? organization.project(path.group(1))
+                    : Optional.empty();
+            if (project.isEmpty()) {
+                sendError(exchange, 403, "Permission denied to get service", "forbidden");
+                return;
+            }
+
+            List<GoogleApiServiceusageV1Service> services = new ArrayList<>();
+            for (String name : queryParameter(exchange, "names")) {
+                String service = name.substring(name.lastIndexOf('/') + 1);
+                boolean enabled = !ServiceEnablementProbe.KMS_SERVICE.equals(service) || project.get().kmsEnabled();
+                services.add(new GoogleApiServiceusageV1Service()
+                        .setName(name)
+                        .setParent("projects/" + path.group(1))
+                        .setState(enabled ? "ENABLED" : "DISABLED"));
+            }
+            sendJson(exchange, 200,
+                    GsonFactory.getDefaultInstance().toString(new BatchGetServicesResponse().setServices(services)));
+        }
+    }
+
+    /**
+     * Cloud Asset listing of a project, folder or the organization, in the JSON layout of assets.list
+     */
+    private void listAssets(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestObserver.accept("cloudasset.assets.list");
+            Matcher path = ASSETS_PATH.matcher(exchange.getRequestURI().getPath());
+            List<Project> projects = path.matches() ? organization.projectsIn(path.group(1)) : List.of();
+            if (projects.isEmpty()) {
+                sendError(exchange, 403, "The caller does not have permission", "forbidden");
+                return;
+            }
+
+            boolean policies = "IAM_POLICY".equals(
+                    queryParameter(exchange, "contentType").stream().findFirst().orElse(""));
+            List<String> assetTypes = queryParameter(exchange, "assetTypes");
+            List<JsonNode> assets = new ArrayList<>();
+            for (Project project : projects) {
+                assets.addAll(assetsOf(project, policies, assetTypes));
+            }
+
+            String pageSize = queryParameter(exchange, "pageSize").stream().findFirst().orElse("0");
+            String pageToken = queryParameter(exchange, "pageToken").stream().findFirst().orElse("");
+            Paging<JsonNode> page;
+            try {
+                page = Paging.of(assets, Integer.parseInt(pageSize), pageToken);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage(), "invalid");
+                return;
+            }
+            ObjectNode response = OBJECT_MAPPER.createObjectNode();
+            response.putArray("assets").addAll(page.items());
+            if (!page.nextPageToken().isEmpty()) {
+                response.put("nextPageToken", page.nextPageToken());
+            }
+            sendJson(exchange, 200, OBJECT_MAPPER.writeValueAsString(response));
+        }
+    }
+
+    private List<JsonNode> assetsOf(Project project, boolean policies, List<String> assetTypes) throws IOException {
+        List<JsonNode> assets = new ArrayList<>();
+        ProjectResources resources = organization.project(project.getProjectId()).orElseThrow();
+        String projectAsset = "//cloudresourcemanager.googleapis.com/" + project.getName();
+        if (policies) {
+            if (assetTypes.isEmpty() || assetTypes.contains("cloudresourcemanager.googleapis.com/Project")) {
+                ObjectNode asset = asset(projectAsset, "cloudresourcemanager.googleapis.com/Project", null);
+                asset.set("iamPolicy", toJsonNode(resources.policy()));
+                assets.add(asset);
+            }
+            return assets;
+        }
+
+        if (assetTypes.isEmpty() || assetTypes.contains("cloudresourcemanager.googleapis.com/Project")) {
+            ObjectNode data = OBJECT_MAPPER.createObjectNode()
+                    .put("projectNumber", project.getName().substring("projects/".length()))
+                    .put("projectId", project.getProjectId())
+                    .put("lifecycleState", "ACTIVE");
+            assets.add(asset(projectAsset, "cloudresourcemanager.googleapis.com/Project", data));
+        }
+        // Like the real inventory, a project without Cloud KMS has no key assets
+        if (resources.kmsEnabled()) {
+            for (List<CryptoKey> cryptoKeys : resources.cryptoKeysByKeyRing().values()) {
+                for (CryptoKey cryptoKey : cryptoKeys) {
+                    if (assetTypes.isEmpty() || assetTypes.contains("cloudkms.googleapis.com/CryptoKey")) {
+                        assets.add(asset("//cloudkms.googleapis.com/" + cryptoKey.getName(),
+                                "cloudkms.googleapis.com/CryptoKey", toJsonNode(cryptoKey)));
+                    }
+                }
+            }
+            if (assetTypes.isEmpty() || assetTypes.contains("cloudkms.googleapis.com/CryptoKeyVersion")) {
+                for (CryptoKeyVersion version : resources.versions().values()) {
+                    assets.add(asset("//cloudkms.googleapis.com/" + version.getName(),
+                            "cloudkms.googleapis.com/CryptoKeyVersion", toJsonNode(version)));
+                }
+            }
+        }
+        if (assetTypes.isEmpty() || assetTypes.contains("compute.googleapis.com/Firewall")) {
+            for (Firewall firewall : resources.firewalls()) {
+                assets.add(asset("//compute.googleapis.com/projects/" + project.getProjectId() + "/global/firewalls/"
+                        + firewall.getName(), "compute.googleapis.com/Firewall", toJsonNode(firewall)));
+            }
+        }
+        return assets;
+    }
+
+    private static ObjectNode asset(String name, String assetType, JsonNode data) {
+        ObjectNode asset = OBJECT_MAPPER.createObjectNode()
+                .put("name", name)
+                .put("assetType", assetType);
+        if (data != null) {
+            asset.putObject("resource").put("version", "v1").set("data", data);
+        }
+        return asset;
+    }
+
+    private static JsonNode toJsonNode(MessageOrBuilder message) throws IOException {
+        try {
+            return OBJECT_MAPPER.readTree(JsonFormat.printer().print(message));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IOException("Unable to encode asset: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<String> queryParameter(HttpExchange exchange, String name) {
+        List<String> values = new ArrayList<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return values;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && name.equals(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8))) {
+                values.add(URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static String toJson(FirewallList firewallList) throws IOException {
+        try {
+            return JsonFormat.printer().print(firewallList);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IOException("Unable to encode firewall list: " + e.getMessage(), e);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message, String reason) throws IOException {
+        String escaped = message.replace("\\", "\\\\").replace("\"", "\\\"");
+        sendJson(exchange, status, String.format(
+                "{\"error\":{\"code\":%d,\"message\":\"%s\",\"errors\":[{\"message\":\"%s\",\"domain\":\"global\",\"reason\":\"%s\"}]}}",
+                status, escaped, escaped, reason));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.samzhu.auditmate.standin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.CryptoKeyVersion;
+import com.google.cloud.kms.v1.CryptoKeyVersion.CryptoKeyVersionState;
+import com.google.cloud.kms.v1.KeyRing;
+import com.google.cloud.location.Location;
+import com.google.cloud.resourcemanager.v3.Folder;
+import com.google.cloud.resourcemanager.v3.Project;
+import com.google.iam.v1.Binding;
+import com.google.iam.v1.Policy;
+import com.google.protobuf.ByteString;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+
+/**
+ * Synthetic GCP organization served by the stand-in backend.
+ *
+ * <p>
+ * The organization {@value #ORGANIZATION} holds a flat set of folders, and projects are
+ * spread round robin over the organization and its folders. The resources of a project
+ * are generated from the seed and the project index on first request and then kept, so
+ * every response is the same for the lifetime of the backend and across runs.
+ */
+class SyntheticOrganization {
+
+    static final String ORGANIZATION = "organizations/standin";
+
+    private static final String PROJECT_PREFIX = "standin-project-";
+    private static final int FIRST_FOLDER_NUMBER = 100;
+    private static final List<String> REGIONS = List.of("asia-east1", "us-central1", "europe-west1",
+            "asia-northeast1", "us-east1", "europe-west4", "australia-southeast1", "southamerica-east1");
+
+    private final AuditmateProperties.Standin settings;
+    private final Map<String, ProjectResources> resources = new ConcurrentHashMap<>();
+
+    SyntheticOrganization(AuditmateProperties.Standin settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Resources of one project
+     */
+    record ProjectResources(
+            String projectId,
+            boolean kmsEnabled,
+            Policy policy,
+            List<Location> locations,
+            Map<String, List<KeyRing>> keyRingsByLocation,
+            Map<String, List<CryptoKey>> cryptoKeysByKeyRing,
+            Map<String, CryptoKeyVersion> versions,
+            List<Firewall> firewalls) {
+    }
+
+    /**
+     * Active projects directly below a parent
+     */
+    List<Project> projects(String parent) {
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < settings.getProjects(); i++) {
+            if (parentOf(i).equals(parent)) {
+                projects.add(Project.newBuilder()
+                        .setName("projects/" + (1_000_000 + i))
+                        .setProjectId(projectId(i))
+                        .setParent(parent)
+                        .setState(Project.State.ACTIVE)
+                        .build());
+            }
+        }
+        return projects;
+    }
+
+    /**
+     * Active folders directly below a parent, only the organization has folders
+     */
+    List<Folder> folders(String parent) {
+        List<Folder> folders = new ArrayList<>();
+        if (!ORGANIZATION.equals(parent)) {
+            return folders;
+        }
+        for (int i = 0; i < settings.getFolders(); i++) {
+            folders.add(Folder.newBuilder()
+                    .setName(folderName(i))
+                    .setParent(ORGANIZATION)
+                    .setDisplayName("Stand-in folder " + i)
+                    .setState(Folder.State.ACTIVE)
+                    .build());
+        }
+        return folders;
+    }
+
+    /**
+     * Active projects of a Cloud Asset scope: one project, a folder or the organization
+     */
+    List<Project> projectsIn(String scope) {
+        if (scope.startsWith("projects/")) {
+            int index = projectIndex(scope.substring("projects/".length()));
+            return index < 0 ? List.of() : projects(parentOf(index)).stream()
+                    .filter(project -> project.getProjectId().equals(projectId(index)))
+                    .toList();
+        }
+        List<Project> projects = new ArrayList<>(projects(scope));
+        for (Folder folder : folders(scope)) {
+            projects.addAll(projects(folder.getName()));
+        }
+        return projects;
+    }
+
+    /**
+     * Resources of a project, empty for unknown projects
+     */
+    Optional<ProjectResources> project(String projectId) {
+        int index = projectIndex(projectId);
+        if (index < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(resources.computeIfAbsent(projectId, id -> generate(index)));
+    }
+
+    private ProjectResources generate(int index) {
+        String projectId = projectId(index);
+        Random random = new Random(settings.getSeed() * 31 + index);
+        int kmsDisabledEvery = settings.getKmsDisabledEvery();
+        boolean kmsEnabled = kmsDisabledEvery <= 0 || index % kmsDisabledEvery != 0;
+
+        List<Location> locations = new ArrayList<>();
+        Map<String, List<KeyRing>> keyRingsByLocation = new ConcurrentHashMap<>();
+        Map<String, List<CryptoKey>> cryptoKeysByKeyRing = new ConcurrentHashMap<>();
+        Map<String, CryptoKeyVersion> versions = new ConcurrentHashMap<>();
+        for (int l = 0; l < settings.getKmsLocations(); l++) {
+            String locationId = REGIONS.get(l % REGIONS.size()) + (l < REGIONS.size() ? "" : "-" + l);
+            String locationName = "projects/" + projectId + "/locations/" + locationId;
+            locations.add(Location.newBuilder().setName(locationName).setLocationId(locationId).build());
+
+            List<KeyRing> keyRings = new ArrayList<>();
+            for (int r = 0; r < settings.getKeyRingsPerLocation(); r++) {
+                KeyRing keyRing = KeyRing.newBuilder().setName(locationName + "/keyRings/ring-" + r).build();
+                keyRings.add(keyRing);
+                cryptoKeysByKeyRing.put(keyRing.getName(), cryptoKeys(keyRing, random, versions));
+            }
+            keyRingsByLocation.put(locationName, keyRings);
+        }
+
+        return new ProjectResources(projectId, kmsEnabled, policy(projectId, random), locations,
+                keyRingsByLocation, cryptoKeysByKeyRing, versions, firewalls(random));
+    }
+
+    private Policy policy(String projectId, Random random) {
+        int memberPool = Math.max(1, settings.getIamBindings() * settings.getMembersPerBinding() / 4);
+        Policy.Builder policy = Policy.newBuilder()
+                .setVersion(1)
+                .setEtag(ByteString.copyFrom(("etag-" + projectId).getBytes(StandardCharsets.UTF_8)));
+        for (int b = 0; b < settings.getIamBindings(); b++) {
+            Binding.Builder binding = Binding.newBuilder()
+                    .setRole("projects/" + projectId + "/roles/standinRole" + b);
+            for (int m = 0; m < settings.getMembersPerBinding(); m++) {
+                int member = random.nextInt(memberPool);
+                binding.addMembers(switch (member % 3) {
+                    case 0 -> "user:user" + member + "@example.com";
+                    case 1 -> "group:team" + member + "@example.com";
+                    default -> "serviceAccount:sa" + member + "@" + projectId + ".iam.gserviceaccount.com";
+                });
+            }
+            policy.addBindings(binding);
+        }
+        return policy.build();
+    }
+
+    /**
+     * Every other key is imported, every third primary version has no state in the listing
+     * so the audit has to fetch it with getCryptoKeyVersion
+     */
+    private List<CryptoKey> cryptoKeys(KeyRing keyRing, Random random, Map<String, CryptoKeyVersion> versions) {
+        List<CryptoKey> cryptoKeys = new ArrayList<>();
+        for (int k = 0; k < settings.getCryptoKeysPerKeyRing(); k++) {
+            String keyName = keyRing.getName() + "/cryptoKeys/key-" + k;
+            CryptoKeyVersion version = CryptoKeyVersion.newBuilder()
+                    .setName(keyName + "/cryptoKeyVersions/1")
+                    .setState(random.nextInt(10) == 0
+                            ? CryptoKeyVersionState.DISABLED
+                            : CryptoKeyVersionState.ENABLED)
+                    .build();
+            versions.put(version.getName(), version);
+
+            CryptoKeyVersion primary = k % 3 == 0
+                    ? CryptoKeyVersion.newBuilder().setName(version.getName()).build()
+                    : version;
+            cryptoKeys.add(CryptoKey.newBuilder()
+                    .setName(keyName)
+                    .setPurpose(CryptoKey.CryptoKeyPurpose.ENCRYPT_DECRYPT)
+                    .setImportOnly(k % 2 == 0)
+                    .setPrimary(primary)
+                    .putLabels("manager", random.nextBoolean() ? "security-team" : "platform-team")
+                    .build());
+        }
+        return cryptoKeys;
+    }
+
+    private List<Firewall> firewalls(Random random) {
+        List<Firewall> firewalls = new ArrayList<>();
+        for (int f = 0; f < settings.getFirewalls(); f++) {
+            firewalls.add(Firewall.newBuilder()
+                    .setName("standin-rule-" + f)
+                    .setDirection(f % 5 == 0 ? "EGRESS" : "INGRESS")
+                    .addSourceRanges("10." + random.nextInt(256) + "." + random.nextInt(256) + ".0/24")
+                    .addDestinationRanges("10." + random.nextInt(256) + ".0.0/16")
+                    .setDescription("Stand-in rule " + f)
+                    .setFingerprint(Long.toHexString(random.nextLong()))
+                    .setCreationTimestamp("2024-06-01T08:00:00.000-07:00")
+                    .build());
+        }
+        return firewalls;
+    }
+
+    private String parentOf(int projectIndex) {
+        int slot = projectIndex % (settings.getFolders() + 1);
+        return slot == 0 ? ORGANIZATION : folderName(slot - 1);
+    }
+
+    private static String folderName(int folderIndex) {
+        return "folders/" + (FIRST_FOLDER_NUMBER + folderIndex);
+    }
+
+    private static String projectId(int index) {
+        return String.format("%s%03d", PROJECT_PREFIX, index);
+    }
+
+    private int projectIndex(String projectId) {
+        if (projectId == null || !projectId.startsWith(PROJECT_PREFIX)) {
+            return -1;
+        }
+        try {
+            int index = Integer.parseInt(projectId.substring(PROJECT_PREFIX.length()));
+            return index >= 0 && index < settings.getProjects() && projectId.equals(projectId(index)) ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.samzhu.auditmate.tools;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Component;
+
+import io.github.samzhu.auditmate.audit.AuditProgressListener;
+import io.github.samzhu.auditmate.dto.GcpAuditResult;
+import io.github.samzhu.auditmate.job.AuditJob;
+import io.github.samzhu.auditmate.job.AuditJobManager;
+import io.github.samzhu.auditmate.job.McpProgressNotifier;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Background audit job tool class.
+ * Starts audits without blocking the MCP request, reports their status and cancels them.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditJobTool {
+
+    /**
+     * Tool context key of the MCP server exchange, set by the Spring AI MCP server
+     */
+    private static final String MCP_EXCHANGE_KEY = "exchange";
+    private static final String SUCCESS_STATUS = "SUCCESS";
+
+    private final GcpAuditTool gcpAuditTool;
+    private final AuditJobManager auditJobManager;
+
+    /**
+     * Start GCP audit in the background
+     *
+     * @param projectId   GCP project ID
+     * @param year        Year
+     * @param quarter     Quarter (H1 or H2)
+     * @param toolContext Tool context holding the MCP exchange, used for progress notifications
+     * @return Job ID message
+     */
+    @Tool(name = "startAudit", description = "Start a GCP self-audit in the background and return a job ID immediately. Progress is sent as MCP logging notifications; poll getAuditStatus with the job ID for the result.")
+    public String startAudit(
+            @ToolParam(required = true, description = "GCP project ID to audit") String projectId,
+            @ToolParam(required = true, description = "Audit year, e.g. 2025") String year,
+            @ToolParam(required = true, description = "Audit quarter, H1 for first half, H2 for second half") String quarter,
+            ToolContext toolContext) {
+
+        Optional<McpSyncServerExchange> exchange = mcpExchange(toolContext);
+        Function<String, AuditProgressListener> notifier = jobId -> exchange
+                .<AuditProgressListener>map(mcpExchange -> new McpProgressNotifier(mcpExchange, jobId))
+                .orElse(AuditProgressListener.NONE);
+
+        AuditJob job = auditJobManager.submit(projectId, year, quarter, notifier, runningJob -> {
+            GcpAuditResult result = gcpAuditTool.runAudit(projectId, year, quarter, runningJob);
+            return new AuditJob.Outcome(SUCCESS_STATUS.equals(result.getStatus()),
+                    gcpAuditTool.formatAuditResultMessage(result));
+        });
+
+        return String.format("""
+                ⏳ GCP audit started in the background
+
+                • Job ID: %s
+                • Project ID: %s
+                • Year / Quarter: %s / %s
+
+                Poll getAuditStatus with the job ID for progress and the result, or cancel it with cancelAudit.
+                """, job.getId(), projectId, year, quarter);
+    }
+
+    /**
+     * Get the status of background audits
+     *
+     * @param jobId Job ID, all retained jobs are listed when empty
+     * @return Job status message
+     */
+    @Tool(name = "getAuditStatus", description = "Get the status, per-check progress and result of a background audit started with startAudit. Lists all recent jobs when no job ID is given.")
+    public String getAuditStatus(
+            @ToolParam(required = false, description = "Job ID returned by startAudit, leave empty to list all recent jobs") String jobId) {
+
+        if (jobId == null || jobId.isBlank()) {
+            List<AuditJob> jobs = auditJobManager.list();
+            if (jobs.isEmpty()) {
+                return "No audit jobs.";
+            }
+            StringBuilder message = new StringBuilder("Audit jobs:\n");
+            for (AuditJob job : jobs) {
+                message.append(String.format("• %s: %s %s%s, %s, %ds%n", job.getId(), job.getProjectId(),
+                        job.getYear(), job.getQuarter(), job.getState(), job.getElapsed().toSeconds()));
+            }
+            return message.toString();
+        }
+
+        return auditJobManager.find(jobId)
+                .map(this::formatJobStatus)
+                .orElse("❌ Audit job not found: " + jobId + "\nFinished jobs are only kept for a limited time.");
+    }
+
+    /**
+     * Cancel a background audit
+     *
+     * @param jobId Job ID
+     * @return Cancellation result message
+     */
+    @Tool(name = "cancelAudit", description = "Cancel a background audit started with startAudit, interrupting its in-flight GCP calls.")
+    public String cancelAudit(
+            @ToolParam(required = true, description = "Job ID returned by startAudit") String jobId) {
+
+        if (auditJobManager.cancel(jobId)) {
+            return "✅ Audit job cancelled: " + jobId;
+        }
+        return auditJobManager.find(jobId)
+                .map(job -> "Audit job " + jobId + " has already finished with state " + job.getState())
+                .orElse("❌ Audit job not found: " + jobId);
+    }
+
+    private String formatJobStatus(AuditJob job) {
+        StringBuilder message = new StringBuilder(String.format("""
+                • Job ID: %s
+                • Project ID: %s
+                • Year / Quarter: %s / %s
+                • State: %s
+                • Elapsed: %ds
+                """, job.getId(), job.getProjectId(), job.getYear(), job.getQuarter(), job.getState(),
+                job.getElapsed().toSeconds()));
+
+        Map<String, String> progress = job.getCheckProgress();
+        if (!progress.isEmpty()) {
+            message.append("\nProgress:\n");
+            progress.forEach((check, status) -> message.append("• ").append(check).append(": ").append(status).append('\n'));
+        }
+        if (job.getState().isFinished() && job.getResultMessage() != null) {
+            message.append('\n').append(job.getResultMessage());
+        }
+        return message.toString();
+    }
+
+    private Optional<McpSyncServerExchange> mcpExchange(ToolContext toolContext) {
+        if (toolContext == null || toolContext.getContext() == null) {
+            return Optional.empty();
+        }
+        return toolContext.getContext().get(MCP_EXCHANGE_KEY) instanceof McpSyncServerExchange exchange
+                ? Optional.of(exchange)
+                : Optional.empty();
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.samzhu.auditmate.tools;
+
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Audit metrics tool class, only registered when {@code auditmate.metrics.tool-enabled} is set.
+ * Returns the same metrics as the metrics file, on demand.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "auditmate.metrics", name = "tool-enabled", havingValue = "true")
+public class AuditMetricsTool {
+
+    private final AuditMetrics auditMetrics;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Get audit metrics
+     *
+     * @param name Meter name prefix, all audit metrics when empty
+     * @return Metrics as JSON, the slowest timers first
+     */
+    @Tool(name = "getAuditMetrics", description = "Get the timings of audit stages, GCP calls and report writing as JSON, tagged by stage and outcome, plus the per-stage times of the recent project audits, the slowest first.")
+    public String getAuditMetrics(
+            @ToolParam(required = false, description = "Meter name prefix, e.g. auditmate.audit.stage or auditmate.gcp.call; all audit metrics when empty") String name) {
+        try {
+            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(auditMetrics.snapshot(name));
+        } catch (JsonProcessingException e) {
+            return "❌ Unable to export audit metrics: " + e.getMessage();
+        }
+    }
+}
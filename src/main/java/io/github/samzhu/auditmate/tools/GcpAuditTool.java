@@ -1,47 +1,59 @@
 package io.github.samzhu.auditmate.tools;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.dhatim.fastexcel.Workbook;
-import org.dhatim.fastexcel.Worksheet;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.services.serviceusage.v1.ServiceUsage;
-import com.google.api.services.serviceusage.v1.model.ListServicesResponse;
-import com.google.auth.http.HttpCredentialsAdapter;
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.cloud.compute.v1.Firewall;
-import com.google.cloud.compute.v1.FirewallsClient;
-import com.google.cloud.compute.v1.ListFirewallsRequest;
-import com.google.cloud.kms.v1.CryptoKey;
-import com.google.cloud.kms.v1.CryptoKeyVersion;
-import com.google.cloud.kms.v1.KeyManagementServiceClient;
-import com.google.cloud.kms.v1.KeyRing;
-import com.google.cloud.kms.v1.ListCryptoKeysRequest;
-import com.google.cloud.kms.v1.ListKeyRingsRequest;
-import com.google.cloud.location.ListLocationsRequest;
-import com.google.cloud.location.Location;
-import com.google.cloud.resourcemanager.v3.ProjectName;
-import com.google.cloud.resourcemanager.v3.ProjectsClient;
-import com.google.iam.v1.Policy;
-
+import com.google.api.gax.rpc.CancelledException;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.AuditProgressListener;
+import io.github.samzhu.auditmate.audit.AuditWorkbookWriter;
+import io.github.samzhu.auditmate.audit.AuditWorkbookWriter.ProjectSheets;
+import io.github.samzhu.auditmate.audit.ProjectAuditCollector;
+import io.github.samzhu.auditmate.audit.ProjectAuditData;
+import io.github.samzhu.auditmate.audit.ProjectAuditOutcome;
+import io.github.samzhu.auditmate.audit.ProjectAuditSinks;
+import io.github.samzhu.auditmate.audit.ProjectResolver;
+import io.github.samzhu.auditmate.audit.asset.AssetInventory;
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.configuration.GcpCredentialsProvider;
+import io.github.samzhu.auditmate.diff.AuditChange;
+import io.github.samzhu.auditmate.diff.AuditDiff;
+import io.github.samzhu.auditmate.diff.AuditRecord;
+import io.github.samzhu.auditmate.diff.PreviousReportReader;
 import io.github.samzhu.auditmate.dto.GcpAuditResult;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.github.samzhu.auditmate.quota.QuotaExceededException;
+import io.github.samzhu.auditmate.report.PublishedReport;
+import io.github.samzhu.auditmate.report.ReportFile;
+import io.github.samzhu.auditmate.report.ReportFileStore;
+import io.github.samzhu.auditmate.result.AuditFindings;
+import io.github.samzhu.auditmate.result.OutputFormat;
+import io.github.samzhu.auditmate.result.StructuredResultFormatter;
+import io.grpc.Context;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -50,45 +62,99 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class GcpAuditTool {
 
-    private static final String KMS_SERVICE_NAME = "cloudkms.googleapis.com";
-    private static final List<String> REQUIRED_SCOPES = Arrays.asList(
-            "https://www.googleapis.com/auth/cloud-platform");
     private static final String AUTH_REQUIRED_STATUS = "AUTH_REQUIRED";
+    private static final String CANCELLED_STATUS = "CANCELLED";
     private static final String FAILED_STATUS = "FAILED";
+    private static final String QUOTA_EXCEEDED_STATUS = "QUOTA_EXCEEDED";
     private static final String SUCCESS_STATUS = "SUCCESS";
+    private static final int MAX_LISTED_CHANGES = 20;
+    private static final int DEFAULT_TOP_RISKY_ROWS = 10;
+
+    private final GcpCredentialsProvider gcpCredentialsProvider;
+    private final ProjectAuditCollector projectAuditCollector;
+    private final ProjectResolver projectResolver;
+    private final AuditWorkbookWriter auditWorkbookWriter;
+    private final ReportFileStore reportFileStore;
+    private final PreviousReportReader previousReportReader;
+    private final AuditmateProperties properties;
+    private final AuditMetrics auditMetrics;
+    private final StructuredResultFormatter structuredResultFormatter;
 
     /**
      * Execute GCP audit
      *
-     * @param projectId GCP project ID
-     * @param year      Year
-     * @param quarter   Quarter (H1 or H2)
-     * @return Audit result message
+     * @param projectId    GCP project ID
+     * @param year         Year
+     * @param quarter      Quarter (H1 or H2)
+     * @param outputFormat Response format: text, json or ndjson
+     * @param summaryOnly  Only return row counts and the riskiest rows of each stage
+     * @param topN         Number of riskiest rows returned per stage
+     * @param skipReport   Do not write the Excel report
+     * @return Audit result message, or the result and findings as JSON or NDJSON
      */
-    @Tool(name = "performAudit", description = "Perform GCP self-audit and generate a report, checking IAM permissions, BYOK, and firewall rules.")
+    @Tool(name = "performAudit", description = "Perform GCP self-audit and generate a report, checking IAM permissions, BYOK, and firewall rules. Use outputFormat json or ndjson to get the result and the findings of every stage in a compact machine-readable form instead of a message.")
     public String performAudit(
             @ToolParam(required = true, description = "GCP project ID to audit") String projectId,
             @ToolParam(required = true, description = "Audit year, e.g. 2025") String year,
-            @ToolParam(required = true, description = "Audit quarter, H1 for first half, H2 for second half") String quarter) {
+            @ToolParam(required = true, description = "Audit quarter, H1 for first half, H2 for second half") String quarter,
+            @ToolParam(required = false, description = "Response format: text (default) for a message with the report location, json for one compact object, ndjson for one object per line") String outputFormat,
+            @ToolParam(required = false, description = "With json or ndjson, only return the row count and the riskiest rows of each stage instead of every row") Boolean summaryOnly,
+            @ToolParam(required = false, description = "With json or ndjson, number of riskiest rows returned per stage, default 10") Integer topN,
+            @ToolParam(required = false, description = "With json or ndjson, skip writing the Excel report and only return the findings") Boolean skipReport) {
+
+        OutputFormat format;
+        try {
+            format = OutputFormat.parse(outputFormat);
+        } catch (IllegalArgumentException e) {
+            return "❌ " + e.getMessage();
+        }
+        if (format == OutputFormat.TEXT) {
+            return formatAuditResultMessage(runAudit(projectId, year, quarter, AuditProgressListener.NONE));
+        }
+
+        AuditFindings findings = AuditFindings.of(projectAuditCollector.checks(),
+                topN != null ? Math.max(topN, 0) : DEFAULT_TOP_RISKY_ROWS, Boolean.TRUE.equals(summaryOnly));
+        GcpAuditResult result = runAudit(projectId, year, quarter, AuditProgressListener.NONE, findings,
+                !Boolean.TRUE.equals(skipReport));
+        return structuredResultFormatter.format(result, findings, format);
+    }
 
+    /**
+     * Execute GCP audit and report its progress, used by background audit jobs
+     *
+     * @param projectId GCP project ID
+     * @param year      Year
+     * @param quarter   Quarter (H1 or H2)
+     * @param listener  receives the progress of each check
+     * @return Audit result
+     */
+    GcpAuditResult runAudit(String projectId, String year, String quarter, AuditProgressListener listener) {
+        return runAudit(projectId, year, quarter, listener, AuditFindings.none(), true);
+    }
+
+    private GcpAuditResult runAudit(String projectId, String year, String quarter, AuditProgressListener listener,
+            AuditFindings findings, boolean writeReport) {
         GcpAuditResult result = initializeAuditResult(projectId, year, quarter);
-        String responseMessage = "";
 
         try {
-            GoogleCredentials credentials = getCredentials();
-            executeAudit(result, projectId, year, quarter, credentials);
+            // Missing credentials surface as an IOException of the first GCP client created
+            if (writeReport) {
+                executeAudit(result, projectId, year, quarter, listener, findings);
+            } else {
+                projectAuditCollector.collect(projectId, findings.attachTo(new ProjectAuditSinks()), listener)
+                        .throwFirstFailure();
+                result.setStatus(SUCCESS_STATUS);
+            }
         } catch (IOException e) {
             handleIoException(result, e);
         } catch (Exception e) {
             handleGenericException(result, e);
-        } finally {
-            // 確保在 finally 區塊中回傳結果
-            responseMessage = formatAuditResultMessage(result);
         }
 
-        return responseMessage;
+        return result;
     }
 
     /**
@@ -106,469 +172,525 @@ public class GcpAuditTool {
     /**
      * Execute audit and generate report
      */
-    private void executeAudit(GcpAuditResult result, String projectId, String year, String quarter, GoogleCredentials credentials) throws Exception {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (Workbook workbook = new Workbook(baos, "GcpAuditTool", "1.0")) {
-            // Perform IAM audit
-            showIAM(workbook, projectId);
-
-            // Perform BYOK audit
-            showBYOK(workbook, projectId);
+    private void executeAudit(GcpAuditResult result, String projectId, String year, String quarter,
+            AuditProgressListener listener, AuditFindings findings) throws Exception {
+        // Generate report file name, rows are spooled to disk while the stages collect them
+        String fileName = String.format("CloudSelfAudit_%s%s_GCP_%s.xlsx", year, quarter, projectId);
+        try (ReportFile reportFile = reportFileStore.create(fileName);
+                ProjectSheets sheets = auditWorkbookWriter.openProjectSheets(projectAuditCollector.checks())) {
+            // The stages spool their rows, the sheets are streamed into the workbook once all stages ended
+            ProjectAuditOutcome outcome = projectAuditCollector.collect(projectId, findings.attachTo(sheets.sinks()),
+                    listener);
+            try (Workbook workbook = new Workbook(reportFile.outputStream(), "GcpAuditTool", "1.0")) {
+                sheets.writeTo(workbook);
+
+                // Complete workbook
+                finishWorkbook(workbook);
+            }
 
-            // Perform firewall rules audit
-            inventoryFirewallRules(workbook, projectId);
+            // Report the first failed stage in sheet order, like the serial audit did
+            outcome.throwFirstFailure();
 
-            // Complete workbook
-            workbook.finish();
-            
-            // Generate report file name and save report
-            String fileName = String.format("CloudSelfAudit_%s%s_GCP_%s.xlsx", year, quarter, projectId);
-            String filePath = saveWorkbookToFile(baos, fileName);
-            
-            result.setReportFilePath(filePath);
+            applyReport(result, publishReport(reportFile));
             result.setStatus(SUCCESS_STATUS);
         }
     }
 
     /**
-     * Save Excel workbook to file system
+     * Execute GCP audit for many projects
+     *
+     * @param projectIds     GCP project IDs
+     * @param folderId       Folder ID
+     * @param organizationId Organization ID
+     * @param year           Year
+     * @param quarter        Quarter (H1 or H2)
+     * @return Batch audit result message with a status line per project
      */
-    private String saveWorkbookToFile(ByteArrayOutputStream baos, String fileName) throws IOException {
-        byte[] data = baos.toByteArray();
-        
-        // Try writing to home directory
+    @Tool(name = "performAuditBatch", description = "Perform GCP self-audit for many projects and generate one consolidated report with a per-project status summary. Provide either a project ID list, a folder ID or an organization ID.")
+    public String performAuditBatch(
+            @ToolParam(required = false, description = "GCP project IDs to audit") List<String> projectIds,
+            @ToolParam(required = false, description = "Folder ID, all projects under the folder and its sub-folders are audited") String folderId,
+            @ToolParam(required = false, description = "Organization ID, all projects of the organization are audited") String organizationId,
+            @ToolParam(required = true, description = "Audit year, e.g. 2025") String year,
+            @ToolParam(required = true, description = "Audit quarter, H1 for first half, H2 for second half") String quarter) {
+
+        String scope = describeBatchScope(projectIds, folderId, organizationId);
+        GcpAuditResult batchResult = initializeAuditResult(scope, year, quarter);
+        List<GcpAuditResult> projectResults = new ArrayList<>();
+
         try {
-            File homeDir = new File(System.getProperty("user.home"));
-            validateDirectory(homeDir);
-            
-            File outputFile = new File(homeDir, fileName);
-            try (FileOutputStream fileOut = new FileOutputStream(outputFile)) {
-                fileOut.write(data);
-                return outputFile.getAbsolutePath();
+            gcpCredentialsProvider.getCredentials();
+            List<String> resolvedProjects = projectResolver.resolve(projectIds, folderId, organizationId);
+            validateBatchSize(resolvedProjects);
+
+            List<ProjectAuditData> projects = collectBatch(resolvedProjects, batchContext(projectIds, scope));
+            for (ProjectAuditData data : projects) {
+                projectResults.add(toProjectResult(data, year, quarter));
             }
-        } catch (IOException homeException) {
-            // If writing to home directory fails, try writing to temp directory
-            try {
-                File tempDir = new File(System.getProperty("java.io.tmpdir"));
-                ensureDirectoryExists(tempDir);
-                validateDirectory(tempDir);
-                
-                File outputFile = new File(tempDir, fileName);
-                try (FileOutputStream fileOut = new FileOutputStream(outputFile)) {
-                    fileOut.write(data);
-                    return outputFile.getAbsolutePath();
+
+            String fileName = String.format("CloudSelfAudit_%s%s_GCP_%s.xlsx", year, quarter, scope.replace('/', '-'));
+            PublishedReport report;
+            try (ReportFile reportFile = reportFileStore.create(fileName)) {
+                try (Workbook workbook = new Workbook(reportFile.outputStream(), "GcpAuditTool", "1.0")) {
+                    auditWorkbookWriter.writeConsolidatedSheets(workbook, projectAuditCollector.checks(), projects, projectResults);
+                    finishWorkbook(workbook);
                 }
-            } catch (IOException tempException) {
-                // If writing to file system fails, return Base64 encoded string
-                return createBase64EncodedFile(data);
+                report = publishReport(reportFile);
             }
+            projectResults.forEach(projectResult -> applyReport(projectResult, report));
+
+            applyReport(batchResult, report);
+            batchResult.setStatus(SUCCESS_STATUS);
+        } catch (IOException e) {
+            handleIoException(batchResult, e);
+        } catch (Exception e) {
+            handleGenericException(batchResult, e);
         }
+
+        return formatBatchResultMessage(batchResult, projectResults);
     }
 
     /**
-     * Validate if directory exists and is writable
+     * Execute GCP audit and compare it with the previous half-year's report
+     *
+     * @param projectId          GCP project ID
+     * @param year               Year
+     * @param quarter            Quarter (H1 or H2)
+     * @param previousReportPath Previous report, defaults to the report of the previous half-year
+     * @return Differential audit result message with the change counts per sheet
      */
-    private void validateDirectory(File directory) throws IOException {
-        if (!directory.exists()) {
-            throw new IOException("Directory does not exist: " + directory.getAbsolutePath());
-        }
-        
-        if (!directory.canWrite()) {
-            throw new IOException("Directory does not have write permission: " + directory.getAbsolutePath());
+    @Tool(name = "performDiffAudit", description = "Perform GCP self-audit and compare it with the previous half-year's report, generating a Delta report of added, removed and changed IAM members, BYOK keys and firewall rules.")
+    public String performDiffAudit(
+            @ToolParam(required = true, description = "GCP project ID to audit") String projectId,
+            @ToolParam(required = true, description = "Audit year, e.g. 2025") String year,
+            @ToolParam(required = true, description = "Audit quarter, H1 for first half, H2 for second half") String quarter,
+            @ToolParam(required = false, description = "Path of the previous report, defaults to the previous half-year's report of the project") String previousReportPath) {
+
+        GcpAuditResult result = initializeAuditResult(projectId, year, quarter);
+        List<AuditChange> changes = new ArrayList<>();
+        List<String> uncomparedStages = new ArrayList<>();
+
+        try {
+            Path previousReport = resolvePreviousReport(projectId, year, quarter, previousReportPath);
+            // Read the baseline first, a missing or unreadable report fails before any API call
+            List<AuditCheck<?>> checks = projectAuditCollector.checks();
+            Map<String, List<AuditRecord>> previous = previousReportReader.read(previousReport, checks);
+
+            gcpCredentialsProvider.getCredentials();
+            ProjectAuditData data = projectAuditCollector.collect(projectId);
+            data.outcome().throwFirstFailure();
+
+            for (AuditCheck<?> check : checks) {
+                String sheetName = check.schema().sheetName();
+                if (previous.containsKey(check.id())) {
+                    changes.addAll(AuditDiff.compare(sheetName, previous.get(check.id()), currentRecords(check, data)));
+                } else {
+                    uncomparedStages.add(sheetName);
+                }
+            }
+
+            String fileName = String.format("CloudSelfAudit_%s%s_GCP_%s_Delta.xlsx", year, quarter, projectId);
+            try (ReportFile reportFile = reportFileStore.create(fileName)) {
+                try (Workbook workbook = new Workbook(reportFile.outputStream(), "GcpAuditTool", "1.0")) {
+                    auditWorkbookWriter.writeDeltaSheet(workbook, changes);
+                    finishWorkbook(workbook);
+                }
+                applyReport(result, publishReport(reportFile));
+            }
+            result.setStatus(SUCCESS_STATUS);
+        } catch (IOException e) {
+            handleIoException(result, e);
+        } catch (Exception e) {
+            handleGenericException(result, e);
         }
+
+        return formatDiffResultMessage(result, changes, uncomparedStages);
     }
 
-    /**
-     * Ensure directory exists, create if not
-     */
-    private void ensureDirectoryExists(File directory) {
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
+    private <T> List<AuditRecord> currentRecords(AuditCheck<T> check, ProjectAuditData data) {
+        return data.rowsOf(check).stream()
+                .filter(check::isReported)
+                .map(row -> AuditRecord.of(check, row))
+                .toList();
     }
 
     /**
-     * Create Base64 encoded file content
+     * Resolve the previous report, H1 is compared with H2 of the year before and H2 with H1 of the same year
      */
-    private String createBase64EncodedFile(byte[] data) {
-        String base64Content = Base64.getEncoder().encodeToString(data);
-        return "data:application/vnd.openxmlformats-officedocument.spreadsheetml.sheet;base64," + base64Content;
+    private Path resolvePreviousReport(String projectId, String year, String quarter, String previousReportPath)
+            throws IOException {
+        if (previousReportPath != null && !previousReportPath.isBlank()) {
+            Path report = Path.of(previousReportPath);
+            if (!Files.isRegularFile(report)) {
+                throw new FileNotFoundException("Previous report not found: " + previousReportPath);
+            }
+            return report;
+        }
+
+        String previousPeriod;
+        try {
+            previousPeriod = "H1".equalsIgnoreCase(quarter)
+                    ? (Integer.parseInt(year) - 1) + "H2"
+                    : year + "H1";
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid audit year: " + year, e);
+        }
+        String fileName = String.format("CloudSelfAudit_%s_GCP_%s.xlsx", previousPeriod, projectId);
+        return reportFileStore.find(fileName).orElseThrow(() -> new FileNotFoundException(
+                "Previous report " + fileName + " not found, please run performAudit for the previous half-year or provide its path."));
     }
 
     /**
-     * Handle IO exception
+     * Collect all projects with bounded parallelism, one failing project never aborts the batch
      */
-    private void handleIoException(GcpAuditResult result, IOException e) {
-        if (e instanceof java.io.FileNotFoundException) {
-            result.setStatus(FAILED_STATUS);
-            result.setErrorMessage("Unable to write file: " + e.getMessage() + 
-                    "\nPlease ensure the application has permission to write to the file, or try running the program again.");
-        } else {
-            result.setStatus(AUTH_REQUIRED_STATUS);
-            result.setErrorMessage("Please use the following command to get GCP authorization:\n\n" +
-                    "gcloud auth application-default login\n\n" +
-                    "Or use headless mode:\n\n" +
-                    "gcloud auth application-default login --no-browser\n\n" +
-                    "After authorization is completed, please re-run the audit.");
+    private List<ProjectAuditData> collectBatch(List<String> projectIds, Context batchContext)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(properties.getBatch().getMaxConcurrentProjects());
+        List<Future<ProjectAuditData>> audits = new ArrayList<>(projectIds.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String projectId : projectIds) {
+                audits.add(executor.submit(batchContext.wrap(() -> {
+                    permits.acquire();
+                    try {
+                        return projectAuditCollector.collect(projectId);
+                    } finally {
+                        permits.release();
+                    }
+                })));
+            }
+
+            List<ProjectAuditData> projects = new ArrayList<>(projectIds.size());
+            for (int i = 0; i < audits.size(); i++) {
+                projects.add(awaitProject(projectIds.get(i), audits.get(i)));
+            }
+            return projects;
         }
-        result.setStackTrace(getStackTraceAsString(e));
     }
 
-    /**
-     * Handle generic exception
-     */
-    private void handleGenericException(GcpAuditResult result, Exception e) {
-        result.setStatus(FAILED_STATUS);
-        result.setErrorMessage(e.getMessage());
-        result.setStackTrace(getStackTraceAsString(e));
+    private ProjectAuditData awaitProject(String projectId, Future<ProjectAuditData> audit) throws InterruptedException {
+        try {
+            return audit.get();
+        } catch (ExecutionException e) {
+            // collect() captures stage failures itself, this only guards against unexpected errors
+            Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+            return projectAuditCollector.failure(projectId, cause);
+        }
     }
 
     /**
-     * Format audit result message
+     * Convert the collected data of one batch project into its audit result
      */
-    private String formatAuditResultMessage(GcpAuditResult result) {
-        if (SUCCESS_STATUS.equals(result.getStatus())) {
-            return String.format("""
-                    ✅ GCP audit succeeded!
-
-                    • Project ID: %s
-                    • Year / Quarter: %s / %s
-                    • Audit time: %s
-                    • Report location: %s
-
-                    If you need to open the report, please manually open the above Excel file
-                    """, result.getProjectId(), result.getYear(), result.getQuarter(),
-                    result.getAuditTime(), result.getReportFilePath());
-        } else {
-            return String.format("""
-                    ❌ GCP audit failed!
+    private GcpAuditResult toProjectResult(ProjectAuditData data, String year, String quarter) {
+        GcpAuditResult result = initializeAuditResult(data.projectId(), year, quarter);
+        try {
+            data.outcome().throwFirstFailure();
+            result.setStatus(SUCCESS_STATUS);
+        } catch (IOException e) {
+            handleIoException(result, e);
+        } catch (Exception e) {
+            handleGenericException(result, e);
+        }
+        return result;
+    }
 
-                    • Project ID: %s
-                    • Year / Quarter: %s / %s
-                    • Audit time: %s
-                    • Error message: %s
-                    • Stack trace: %s
-                    """, result.getProjectId(), result.getYear(), result.getQuarter(),
-                    result.getAuditTime(), result.getErrorMessage(), result.getStackTrace());
+    private void validateBatchSize(List<String> projectIds) {
+        if (projectIds.isEmpty()) {
+            throw new IllegalArgumentException("No projects to audit. Please provide project IDs, a folder ID or an organization ID.");
+        }
+        int maxProjects = properties.getBatch().getMaxProjects();
+        if (projectIds.size() > maxProjects) {
+            throw new IllegalArgumentException(String.format(
+                    "%d projects exceed the batch limit of %d projects.", projectIds.size(), maxProjects));
         }
     }
 
     /**
-     * Get Google application default credentials
+     * Describe what a batch audits, used as result project ID and report file name suffix
      */
-    private GoogleCredentials getCredentials() throws IOException {
-        try {
-            GoogleCredentials credentials = GoogleCredentials.getApplicationDefault();
-
-            if (credentials.createScopedRequired()) {
-                credentials = credentials.createScoped(REQUIRED_SCOPES);
-            }
+    /**
+     * Context of the project audits of a batch. Projects resolved from a folder or organization
+     * are listed from the Cloud Asset inventory of that parent at once rather than one by one.
+     */
+    private Context batchContext(List<String> projectIds, String scope) {
+        boolean fromParent = (projectIds == null || projectIds.isEmpty())
+                && (scope.startsWith("folders/") || scope.startsWith("organizations/"));
+        return fromParent ? AssetInventory.withBatchScope(Context.current(), scope) : Context.current();
+    }
 
-            return credentials;
-        } catch (IOException e) {
-            throw new IOException("GCP authorization is required. Please run the 'gcloud auth application-default login' command to get credentials.", e);
+    private String describeBatchScope(List<String> projectIds, String folderId, String organizationId) {
+        if (projectIds != null && !projectIds.isEmpty()) {
+            return "batch-" + projectIds.size() + "-projects";
+        }
+        if (folderId != null && !folderId.isBlank()) {
+            return folderId.startsWith("folders/") ? folderId : "folders/" + folderId;
         }
+        if (organizationId != null && !organizationId.isBlank()) {
+            return organizationId.startsWith("organizations/") ? organizationId : "organizations/" + organizationId;
+        }
+        return "batch";
     }
 
     /**
-     * Check if KMS API is enabled
+     * Finish the workbook, timed as the finish phase of the report
      */
-    private boolean isKmsApiEnabled(String projectId) throws IOException {
+    private void finishWorkbook(Workbook workbook) throws IOException {
+        long startedAt = System.nanoTime();
+        String outcome = AuditMetrics.FAILURE;
         try {
-            ServiceUsage serviceUsage = new ServiceUsage.Builder(
-                    GoogleNetHttpTransport.newTrustedTransport(),
-                    GsonFactory.getDefaultInstance(),
-                    new HttpCredentialsAdapter(GoogleCredentials.getApplicationDefault()))
-                    .setApplicationName("service-usage-check")
-                    .build();
-
-            ListServicesResponse response = serviceUsage.services()
-                    .list("projects/" + projectId)
-                    .setFilter("state:ENABLED")
-                    .execute();
-
-            return response.getServices().stream()
-                    .anyMatch(service -> service.getName().contains(KMS_SERVICE_NAME));
-        } catch (Exception e) {
-            return false;
+            workbook.finish();
+            outcome = AuditMetrics.SUCCESS;
+        } finally {
+            auditMetrics.reportWrite("finish", outcome)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
         }
     }
 
     /**
-     * Query and record firewall rules
+     * Publish the report, timed as the publish phase of the report
      */
-    private void inventoryFirewallRules(Workbook workbook, String projectId) throws Exception {
-        Worksheet sheet = workbook.newWorksheet("Network Rules");
-        setupFirewallSheetHeader(sheet);
-
-        try (FirewallsClient firewallsClient = FirewallsClient.create()) {
-            ListFirewallsRequest listFirewallsRequest = ListFirewallsRequest.newBuilder()
-                    .setProject(projectId)
-                    .build();
-
-            int rowNum = 1;
-            boolean hasRules = false;
-
-            for (Firewall firewall : firewallsClient.list(listFirewallsRequest).iterateAll()) {
-                hasRules = true;
-                populateFirewallRow(sheet, rowNum++, firewall);
-            }
-
-            if (!hasRules) {
-                createEmptyFirewallRow(sheet);
-            }
-        } catch (Exception e) {
-            createEmptyFirewallRow(sheet);
-            throw new Exception("Unable to retrieve firewall rule information: " + e.getMessage(), e);
+    private PublishedReport publishReport(ReportFile reportFile) throws IOException {
+        long startedAt = System.nanoTime();
+        String outcome = AuditMetrics.FAILURE;
+        try {
+            PublishedReport report = reportFile.publish();
+            outcome = AuditMetrics.SUCCESS;
+            return report;
+        } finally {
+            auditMetrics.reportWrite("publish", outcome)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
         }
     }
 
     /**
-     * Set firewall sheet header
+     * Record where the published report can be found
      */
-    private void setupFirewallSheetHeader(Worksheet sheet) {
-        sheet.value(0, 0, "Direction");
-        sheet.value(0, 1, "Source Ranges");
-        sheet.value(0, 2, "Destination Ranges");
-        sheet.value(0, 3, "Name");
-        sheet.value(0, 4, "Purpose");
-
-        sheet.width(0, 15);
-        sheet.width(1, 30);
-        sheet.width(2, 30);
-        sheet.width(3, 30);
-        sheet.width(4, 40);
+    private void applyReport(GcpAuditResult result, PublishedReport report) {
+        result.setReportFilePath(report.location());
+        result.setReportUri(report.uri());
+        result.setReportSize(report.size());
     }
 
     /**
-     * Populate firewall rule row
+     * Describe the report location, the resource URI is listed too so clients can read the report in chunks
      */
-    private void populateFirewallRow(Worksheet sheet, int rowNum, Firewall firewall) {
-        sheet.value(rowNum, 0, firewall.getDirection().toString());
-        sheet.value(rowNum, 1, String.join(", ", firewall.getSourceRangesList()));
-        sheet.value(rowNum, 2, String.join(", ", firewall.getDestinationRangesList()));
-        sheet.value(rowNum, 3, firewall.getName());
-        sheet.value(rowNum, 4, firewall.getDescription());
+    private String describeReport(GcpAuditResult result) {
+        if (result.getReportUri() == null) {
+            return result.getReportFilePath();
+        }
+        if (result.getReportUri().equals(result.getReportFilePath())) {
+            return String.format("%s (%d bytes, not stored on disk, read it with readReport)",
+                    result.getReportUri(), result.getReportSize());
+        }
+        return String.format("%s (resource %s, %d bytes)",
+                result.getReportFilePath(), result.getReportUri(), result.getReportSize());
     }
 
     /**
-     * Create empty firewall rule row
+     * Handle IO exception
      */
-    private void createEmptyFirewallRow(Worksheet sheet) {
-        sheet.value(1, 0, "None");
-        sheet.value(1, 1, "None");
-        sheet.value(1, 2, "None");
-        sheet.value(1, 3, "None");
-        sheet.value(1, 4, "None");
+    private void handleIoException(GcpAuditResult result, IOException e) {
+        Optional<QuotaExceededException> quotaExceeded = findQuotaExceeded(e);
+        if (quotaExceeded.isPresent()) {
+            handleQuotaExceeded(result, quotaExceeded.get());
+        } else if (isCancellation(e)) {
+            handleCancelled(result);
+        } else if (e instanceof FileNotFoundException) {
+            result.setStatus(FAILED_STATUS);
+            result.setErrorMessage("Unable to write file: " + e.getMessage() + 
+                    "\nPlease ensure the application has permission to write to the file, or try running the program again.");
+        } else {
+            result.setStatus(AUTH_REQUIRED_STATUS);
+            result.setErrorMessage("Please use the following command to get GCP authorization:\n\n" +
+                    "gcloud auth application-default login\n\n" +
+                    "Or use headless mode:\n\n" +
+                    "gcloud auth application-default login --no-browser\n\n" +
+                    "After authorization is completed, please re-run the audit.");
+        }
+        result.setStackTrace(getStackTraceAsString(e));
     }
 
     /**
-     * Query and record self-carry keys (BYOK)
+     * Handle generic exception
      */
-    private void showBYOK(Workbook workbook, String projectId) throws IOException {
-        Worksheet sheet = workbook.newWorksheet("BYOK");
-        setupBYOKSheetHeader(sheet);
-
-        if (!isKmsApiEnabled(projectId)) {
-            createEmptyBYOKRow(sheet);
-            return;
-        }
-
-        try (KeyManagementServiceClient client = KeyManagementServiceClient.create()) {
-            int rowNum = 1;
-            boolean hasImportedKeys = false;
-
-            ListLocationsRequest listLocationsRequest = ListLocationsRequest.newBuilder()
-                    .setName(String.format("projects/%s", projectId))
-                    .build();
-
-            for (Location location : client.listLocations(listLocationsRequest).iterateAll()) {
-                String locationId = location.getLocationId();
-                hasImportedKeys = processKeysInLocation(client, projectId, locationId, sheet, rowNum, hasImportedKeys);
-                if (hasImportedKeys) {
-                    rowNum++;
-                }
-            }
-
-            if (!hasImportedKeys) {
-                createEmptyBYOKRow(sheet);
-            }
-        } catch (com.google.api.gax.rpc.PermissionDeniedException e) {
-            sheet.value(1, 0, "Insufficient permissions to access Cloud KMS service");
-            sheet.value(1, 1, "None");
-            sheet.value(1, 2, "None");
-            sheet.value(1, 3, "None");
-            throw new IOException("Unable to access Cloud KMS service: " + e.getMessage(), e);
+    private void handleGenericException(GcpAuditResult result, Exception e) {
+        Optional<QuotaExceededException> quotaExceeded = findQuotaExceeded(e);
+        if (quotaExceeded.isPresent()) {
+            handleQuotaExceeded(result, quotaExceeded.get());
+        } else if (isCancellation(e)) {
+            handleCancelled(result);
+        } else {
+            result.setStatus(FAILED_STATUS);
+            result.setErrorMessage(e.getMessage());
         }
+        result.setStackTrace(getStackTraceAsString(e));
     }
 
     /**
-     * Set BYOK sheet header
+     * Handle a GCP API quota that stayed exhausted after all retries, the credentials are fine
      */
-    private void setupBYOKSheetHeader(Worksheet sheet) {
-        sheet.value(0, 0, "Key Name");
-        sheet.value(0, 1, "Type (ex. RSA-2048)");
-        sheet.value(0, 2, "Lifecycle");
-        sheet.value(0, 3, "Manager");
-
-        sheet.width(0, 50);
-        sheet.width(1, 20);
-        sheet.width(2, 15);
-        sheet.width(3, 15);
+    private void handleQuotaExceeded(GcpAuditResult result, QuotaExceededException e) {
+        result.setStatus(QUOTA_EXCEEDED_STATUS);
+        result.setErrorMessage(e.getMessage() +
+                "\nThe GCP " + e.getApi() + " API is rate limiting this account. " +
+                "Please wait a few minutes and re-run the audit, or request a higher quota for the API.");
     }
 
     /**
-     * Process keys in a specific location
+     * Handle an audit cancelled while it ran, the credentials are fine
      */
-    private boolean processKeysInLocation(KeyManagementServiceClient client, String projectId, 
-            String locationId, Worksheet sheet, int rowNum, boolean hasImportedKeys) {
-        
-        ListKeyRingsRequest listKeyRingsRequest = ListKeyRingsRequest.newBuilder()
-                .setParent(String.format("projects/%s/locations/%s", projectId, locationId))
-                .build();
-
-        for (KeyRing keyRing : client.listKeyRings(listKeyRingsRequest).iterateAll()) {
-            hasImportedKeys = processKeysInKeyRing(client, keyRing, sheet, rowNum, hasImportedKeys);
-        }
-        
-        return hasImportedKeys;
+    private void handleCancelled(GcpAuditResult result) {
+        result.setStatus(CANCELLED_STATUS);
+        result.setErrorMessage("The audit was cancelled before it completed, no report was written.");
     }
 
     /**
-     * Process keys in a specific key ring
+     * Whether the failure comes from a cancellation: the checks wrap interrupts in IOExceptions and
+     * cancelled GCP calls in their own messages, so the thread and the whole cause chain are inspected
      */
-    private boolean processKeysInKeyRing(KeyManagementServiceClient client, 
-            KeyRing keyRing, Worksheet sheet, int rowNum, boolean hasImportedKeys) {
-        
-        ListCryptoKeysRequest listCryptoKeysRequest = ListCryptoKeysRequest.newBuilder()
-                .setParent(keyRing.getName())
-                .build();
-
-        for (CryptoKey cryptoKey : client.listCryptoKeys(listCryptoKeysRequest).iterateAll()) {
-            if (cryptoKey.getImportOnly()) {
-                hasImportedKeys = true;
-                sheet.value(rowNum, 0, cryptoKey.getName());
-                sheet.value(rowNum, 1, cryptoKey.getPurpose().toString());
-                sheet.value(rowNum, 2, getKeyLifecycle(client, cryptoKey));
-                sheet.value(rowNum, 3, getKeyManager(cryptoKey));
+    private boolean isCancellation(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException
+                    || cause instanceof InterruptedIOException
+                    || cause instanceof CancellationException
+                    || cause instanceof CancelledException) {
+                return true;
             }
         }
-        
-        return hasImportedKeys;
+        return false;
     }
 
     /**
-     * Create empty BYOK row
+     * Find a quota failure anywhere in the cause chain, the checks wrap API errors in their own messages
      */
-    private void createEmptyBYOKRow(Worksheet sheet) {
-        sheet.value(1, 0, "None");
-        sheet.value(1, 1, "None");
-        sheet.value(1, 2, "None");
-        sheet.value(1, 3, "None");
+    private Optional<QuotaExceededException> findQuotaExceeded(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QuotaExceededException quotaExceeded) {
+                return Optional.of(quotaExceeded);
+            }
+        }
+        return Optional.empty();
     }
 
     /**
-     * Query and record IAM permissions
+     * Format audit result message
      */
-    private void showIAM(Workbook workbook, String projectId) throws IOException {
-        Worksheet sheet = workbook.newWorksheet("IAM");
-        setupIAMSheetHeader(sheet);
+    String formatAuditResultMessage(GcpAuditResult result) {
+        if (SUCCESS_STATUS.equals(result.getStatus())) {
+            return String.format("""
+                    ✅ GCP audit succeeded!
 
-        try (ProjectsClient projectsClient = ProjectsClient.create()) {
-            ProjectName projectName = ProjectName.of(projectId);
-            Policy policy = projectsClient.getIamPolicy(projectName);
+                    • Project ID: %s
+                    • Year / Quarter: %s / %s
+                    • Audit time: %s
+                    • Report location: %s
 
-            Map<String, IAM> iamMap = generateIAMMap(policy);
-            populateIAMSheet(sheet, new ArrayList<>(iamMap.values()));
-        } catch (Exception e) {
-            sheet.value(1, 0, "Unable to retrieve IAM permission information");
-            sheet.value(1, 1, "None");
-            throw new IOException("Unable to retrieve IAM permission information: " + e.getMessage(), e);
+                    If you need to open the report, please manually open the above Excel file
+                    """, result.getProjectId(), result.getYear(), result.getQuarter(),
+                    result.getAuditTime(), describeReport(result));
+        } else {
+            return String.format("""
+                    ❌ GCP audit failed!
+
+                    • Project ID: %s
+                    • Year / Quarter: %s / %s
+                    • Audit time: %s
+                    • Error message: %s
+                    • Stack trace: %s
+                    """, result.getProjectId(), result.getYear(), result.getQuarter(),
+                    result.getAuditTime(), result.getErrorMessage(), result.getStackTrace());
         }
     }
 
     /**
-     * Set IAM sheet header
+     * Format batch audit result message, stack traces are left out to keep the response short
      */
-    private void setupIAMSheetHeader(Worksheet sheet) {
-        sheet.value(0, 0, "User/Group");
-        sheet.value(0, 1, "Permissions");
+    private String formatBatchResultMessage(GcpAuditResult batchResult, List<GcpAuditResult> projectResults) {
+        if (!SUCCESS_STATUS.equals(batchResult.getStatus())) {
+            return formatAuditResultMessage(batchResult);
+        }
 
-        sheet.width(0, 20);
-        sheet.width(1, 50);
-    }
+        long succeeded = projectResults.stream()
+                .filter(projectResult -> SUCCESS_STATUS.equals(projectResult.getStatus()))
+                .count();
 
-    /**
-     * Generate IAM mapping
-     */
-    private Map<String, IAM> generateIAMMap(Policy policy) {
-        Map<String, IAM> iamMap = new HashMap<>();
-
-        policy.getBindingsList().forEach(binding -> {
-            String role = binding.getRole();
-            binding.getMembersList().forEach(member -> {
-                IAM iam = iamMap.computeIfAbsent(member, IAM::new);
-                iam.addRole(role);
-            });
-        });
-
-        return iamMap;
-    }
+        StringBuilder message = new StringBuilder(String.format("""
+                ✅ GCP batch audit completed!
 
-    /**
-     * Populate IAM sheet
-     */
-    private void populateIAMSheet(Worksheet sheet, List<IAM> iamList) {
-        int rowNum = 1;
-        for (IAM iam : iamList) {
-            if (iam.getName().startsWith("user") || iam.getName().startsWith("group")) {
-                sheet.value(rowNum, 0, iam.getName());
-                sheet.value(rowNum, 1, String.join("\n", iam.getRoles()));
-                sheet.style(rowNum, 1).wrapText(true).set();
-                rowNum++;
+                • Scope: %s
+                • Year / Quarter: %s / %s
+                • Audit time: %s
+                • Projects: %d succeeded, %d failed
+                • Report location: %s
+
+                Project status:
+                """, batchResult.getProjectId(), batchResult.getYear(), batchResult.getQuarter(),
+                batchResult.getAuditTime(), succeeded, projectResults.size() - succeeded,
+                describeReport(batchResult)));
+
+        for (GcpAuditResult projectResult : projectResults) {
+            message.append("• ").append(projectResult.getProjectId()).append(": ").append(projectResult.getStatus());
+            if (projectResult.getErrorMessage() != null) {
+                message.append(" - ").append(projectResult.getErrorMessage().lines().findFirst().orElse(""));
             }
+            message.append('\n');
         }
+        return message.toString();
     }
 
     /**
-     * IAM class, used to store IAM name and role list
+     * Format differential audit result message, only the first changes are listed to keep the response short
      */
-    private static class IAM {
-        private final String name;
-        private final List<String> roles;
-
-        public IAM(String name) {
-            this.name = name;
-            this.roles = new ArrayList<>();
+    private String formatDiffResultMessage(GcpAuditResult result, List<AuditChange> changes, List<String> uncomparedStages) {
+        if (!SUCCESS_STATUS.equals(result.getStatus())) {
+            return formatAuditResultMessage(result);
         }
 
-        public void addRole(String role) {
-            roles.add(role);
-        }
+        StringBuilder message = new StringBuilder(String.format("""
+                ✅ GCP differential audit succeeded!
 
-        public String getName() {
-            return name;
-        }
+                • Project ID: %s
+                • Year / Quarter: %s / %s
+                • Audit time: %s
+                • Delta report location: %s
 
-        public List<String> getRoles() {
-            return roles;
+                Changes:
+                """, result.getProjectId(), result.getYear(), result.getQuarter(),
+                result.getAuditTime(), describeReport(result)));
+
+        for (AuditCheck<?> check : projectAuditCollector.checks()) {
+            String stage = check.schema().sheetName();
+            message.append("• ").append(stage).append(": ");
+            if (uncomparedStages.contains(stage)) {
+                message.append("not compared, the previous report has no data for this sheet\n");
+                continue;
+            }
+            message.append(String.format("%d added, %d removed, %d changed%n",
+                    countChanges(changes, stage, AuditChange.Type.ADDED),
+                    countChanges(changes, stage, AuditChange.Type.REMOVED),
+                    countChanges(changes, stage, AuditChange.Type.CHANGED)));
         }
-    }
 
-    /**
-     * Get key lifecycle status
-     */
-    private String getKeyLifecycle(KeyManagementServiceClient client, CryptoKey cryptoKey) {
-        String primaryVersionName = cryptoKey.getPrimary().getName();
-        CryptoKeyVersion primaryVersion = client.getCryptoKeyVersion(primaryVersionName);
-        return primaryVersion.getState().toString();
+        if (!changes.isEmpty()) {
+            message.append('\n');
+            changes.stream().limit(MAX_LISTED_CHANGES).forEach(change -> message.append("• ")
+                    .append(change.stage()).append(' ').append(change.type()).append(": ")
+                    .append(change.key()).append('\n'));
+            if (changes.size() > MAX_LISTED_CHANGES) {
+                message.append("… ").append(changes.size() - MAX_LISTED_CHANGES)
+                        .append(" more changes in the Delta report\n");
+            }
+        }
+        return message.toString();
     }
 
-    /**
-     * Get key manager
-     */
-    private String getKeyManager(CryptoKey cryptoKey) {
-        return cryptoKey.getLabelsMap().getOrDefault("manager", "Unknown");
+    private long countChanges(List<AuditChange> changes, String stage, AuditChange.Type type) {
+        return changes.stream()
+                .filter(change -> change.stage().equals(stage) && change.type() == type)
+                .count();
     }
 
     /**
@@ -0,0 +1,57 @@
+package io.github.samzhu.auditmate.tools;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.samzhu.auditmate.audit.iam.PrincipalAccessIndex;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Principal access tool class.
+ * Answers where a user, group or service account has roles, across every project audited so far.
+ */
+@Component
+@RequiredArgsConstructor
+@RegisterReflectionForBinding({ PrincipalAccessIndex.PrincipalAccess.class, PrincipalAccessIndex.ProjectAccess.class })
+public class PrincipalAccessTool {
+
+    private final PrincipalAccessIndex principalAccessIndex;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Find principal access
+     *
+     * @param principal IAM member or email address
+     * @param role      Only report this role, every role when empty
+     * @return Matching members with their projects and roles as JSON
+     */
+    @Tool(name = "findPrincipalAccess", description = "Find the projects and roles a user, group, service account or domain holds in the project IAM policies of every project audited so far, without running a new audit. Each project carries the time of its last audit.")
+    public String findPrincipalAccess(
+            @ToolParam(required = true, description = "IAM member, e.g. user:someone@example.com, group:team@example.com or domain:example.com; a bare email address matches the user, group and service account of that address") String principal,
+            @ToolParam(required = false, description = "Only report this role, e.g. roles/owner; every role when empty") String role) {
+        if (principal == null || principal.isBlank()) {
+            return "❌ A principal is required, e.g. user:someone@example.com";
+        }
+        List<PrincipalAccessIndex.PrincipalAccess> matches = principalAccessIndex.find(principal, role);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("principal", principal.trim());
+        result.put("role", role == null || role.isBlank() ? null : role.trim());
+        result.put("indexedProjects", principalAccessIndex.projectCount());
+        result.put("matches", matches);
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            return "❌ Unable to encode principal access: " + e.getMessage();
+        }
+    }
+}
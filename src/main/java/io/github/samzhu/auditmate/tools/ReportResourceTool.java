@@ -0,0 +1,237 @@
+package io.github.samzhu.auditmate.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.dhatim.fastexcel.reader.Cell;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.Row;
+import org.dhatim.fastexcel.reader.Sheet;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.report.PublishedReport;
+import io.github.samzhu.auditmate.report.ReportResourceEvent;
+import io.github.samzhu.auditmate.report.ReportResourceStore;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Report resource tool class.
+ * Registers every published report as an MCP resource and reads reports in bounded chunks or by sheet.
+ *
+ * <p>
+ * The resource list {@value #INDEX_URI} describes all known reports. Reading a report resource
+ * returns the whole workbook only up to {@code auditmate.reports.max-inline-size}; larger
+ * reports are read with {@code readReport}, so a response never carries more than one chunk.
+ */
+@Slf4j
+@Component
+@RegisterReflectionForBinding(PublishedReport.class)
+public class ReportResourceTool {
+
+    static final String INDEX_URI = "auditmate://reports";
+    static final String XLSX_MIME_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final int DEFAULT_SHEET_ROWS = 100;
+    private static final int MAX_SHEET_ROWS = 1000;
+
+    private final ReportResourceStore reportResourceStore;
+    private final ObjectProvider<McpSyncServer> mcpSyncServer;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final long maxInlineSize;
+    private final ReentrantLock registrationLock = new ReentrantLock();
+    private final Set<String> registeredUris = new HashSet<>();
+
+    public ReportResourceTool(ReportResourceStore reportResourceStore, ObjectProvider<McpSyncServer> mcpSyncServer,
+            ObjectMapper objectMapper, AuditmateProperties properties) {
+        this.reportResourceStore = reportResourceStore;
+        this.mcpSyncServer = mcpSyncServer;
+        this.objectMapper = objectMapper;
+        this.chunkSize = (int) Math.max(properties.getReports().getChunkSize().toBytes(), 1);
+        this.maxInlineSize = properties.getReports().getMaxInlineSize().toBytes();
+    }
+
+    /**
+     * Read a report
+     *
+     * @param uri    Report resource URI or file name
+     * @param sheet  Sheet to read rows from, the raw workbook bytes are read when empty
+     * @param offset First byte, or first row of the sheet, to read
+     * @param limit  Maximum number of bytes, or rows of the sheet, to read
+     * @return The chunk as JSON with the offset of the next chunk
+     */
+    @Tool(name = "readReport", description = "Read an audit report by its auditmate://reports/ resource URI in bounded chunks. With sheet, returns rows of that sheet as JSON arrays of cell text; without it, returns a Base64 chunk of the xlsx file. Continue with nextOffset until it is null.")
+    public String readReport(
+            @ToolParam(required = true, description = "Report resource URI, e.g. auditmate://reports/CloudSelfAudit_2025H1_GCP_my-project.xlsx, or its file name") String uri,
+            @ToolParam(required = false, description = "Sheet name, e.g. IAM; rows of the sheet are returned instead of file bytes") String sheet,
+            @ToolParam(required = false, description = "First row of the sheet (0 is the header) or first byte of the file, default 0") Long offset,
+            @ToolParam(required = false, description = "Maximum rows of the sheet (default 100, at most 1000) or bytes of the file (default and at most the configured chunk size)") Integer limit) {
+        try {
+            long start = offset != null ? Math.max(offset, 0) : 0;
+            Map<String, Object> chunk = sheet == null || sheet.isBlank()
+                    ? readBytes(uri, start, limit)
+                    : readRows(uri, sheet, start, limit);
+            return objectMapper.writeValueAsString(chunk);
+        } catch (IOException | UncheckedIOException e) {
+            return "❌ Unable to read report: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Resource listing all known reports, registered at startup so the server announces resources
+     */
+    public McpServerFeatures.SyncResourceSpecification indexSpecification() {
+        McpSchema.Resource resource = new McpSchema.Resource(INDEX_URI, "Audit reports",
+                "Audit reports readable as resources, with their URI, file path and size", "application/json", null);
+        return new McpServerFeatures.SyncResourceSpecification(resource, (exchange, request) -> {
+            try {
+                String index = objectMapper.writeValueAsString(reportResourceStore.list());
+                return new McpSchema.ReadResourceResult(
+                        List.of(new McpSchema.TextResourceContents(INDEX_URI, "application/json", index)));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Keep the MCP resources in line with the report store
+     */
+    @EventListener
+    public void onReportResourceEvent(ReportResourceEvent event) {
+        McpSyncServer server = mcpSyncServer.getIfAvailable();
+        if (server == null) {
+            return;
+        }
+        String uri = event.report().uri();
+        registrationLock.lock();
+        try {
+            // The SDK rejects a second resource with the same URI, a re-published report replaces the old one
+            if (registeredUris.remove(uri)) {
+                server.removeResource(uri);
+            }
+            if (event.type() == ReportResourceEvent.Type.PUBLISHED) {
+                server.addResource(reportSpecification(event.report()));
+                registeredUris.add(uri);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to update report resource {}: {}", uri, e.getMessage());
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    private McpServerFeatures.SyncResourceSpecification reportSpecification(PublishedReport report) {
+        McpSchema.Resource resource = new McpSchema.Resource(report.uri(), report.name(),
+                String.format("Audit report, %d bytes%s", report.size(),
+                        report.path() != null ? ", stored at " + report.path() : ""),
+                XLSX_MIME_TYPE, null);
+        return new McpServerFeatures.SyncResourceSpecification(resource, (exchange, request) -> readResource(report));
+    }
+
+    private McpSchema.ReadResourceResult readResource(PublishedReport report) {
+        McpSchema.ResourceContents contents;
+        if (report.size() > maxInlineSize) {
+            contents = new McpSchema.TextResourceContents(report.uri(), "text/plain", String.format(
+                    "The report has %d bytes, more than a resource read returns. Read it with the readReport tool, "
+                            + "in chunks of at most %d bytes or by sheet.", report.size(), chunkSize));
+        } else {
+            try {
+                byte[] content = reportResourceStore.read(report.uri(), 0, (int) report.size());
+                contents = new McpSchema.BlobResourceContents(report.uri(), XLSX_MIME_TYPE,
+                        Base64.getEncoder().encodeToString(content));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new McpSchema.ReadResourceResult(List.of(contents));
+    }
+
+    private Map<String, Object> readBytes(String uri, long offset, Integer limit) throws IOException {
+        PublishedReport report = find(uri);
+        int length = limit != null && limit > 0 ? Math.min(limit, chunkSize) : chunkSize;
+        byte[] content = reportResourceStore.read(report.uri(), offset, length);
+        long next = offset + content.length;
+
+        Map<String, Object> chunk = new LinkedHashMap<>();
+        chunk.put("uri", report.uri());
+        chunk.put("size", report.size());
+        chunk.put("offset", offset);
+        chunk.put("length", content.length);
+        chunk.put("nextOffset", next < report.size() ? next : null);
+        chunk.put("data", Base64.getEncoder().encodeToString(content));
+        return chunk;
+    }
+
+    private Map<String, Object> readRows(String uri, String sheetName, long offset, Integer limit) throws IOException {
+        PublishedReport report = find(uri);
+        int maxRows = limit != null && limit > 0 ? Math.min(limit, MAX_SHEET_ROWS) : DEFAULT_SHEET_ROWS;
+
+        try (InputStream input = reportResourceStore.open(report.uri());
+                ReadableWorkbook workbook = new ReadableWorkbook(input)) {
+            List<String> sheets = workbook.getSheets().map(Sheet::getName).toList();
+            Optional<Sheet> sheet = workbook.findSheet(sheetName);
+            if (sheet.isEmpty()) {
+                throw new IOException("No sheet " + sheetName + " in " + report.name() + ", sheets: " + sheets);
+            }
+
+            List<List<String>> rows = new ArrayList<>();
+            boolean more = false;
+            try (Stream<Row> stream = sheet.get().openStream()) {
+                // Rows are streamed, only the requested window is kept
+                for (Row row : (Iterable<Row>) stream.skip(offset)::iterator) {
+                    if (rows.size() == maxRows) {
+                        more = true;
+                        break;
+                    }
+                    rows.add(cellsOf(row));
+                }
+            }
+
+            Map<String, Object> chunk = new LinkedHashMap<>();
+            chunk.put("uri", report.uri());
+            chunk.put("sheet", sheetName);
+            chunk.put("sheets", sheets);
+            chunk.put("offset", offset);
+            chunk.put("rows", rows);
+            chunk.put("nextOffset", more ? offset + rows.size() : null);
+            return chunk;
+        }
+    }
+
+    private PublishedReport find(String uri) throws IOException {
+        return reportResourceStore.find(uri)
+                .orElseThrow(() -> new IOException("Unknown report " + uri + ", see the " + INDEX_URI + " resource"));
+    }
+
+    private List<String> cellsOf(Row row) {
+        List<String> cells = new ArrayList<>(row.getCellCount());
+        for (int i = 0; i < row.getCellCount(); i++) {
+            Cell cell = row.getCell(i);
+            cells.add(cell == null ? "" : cell.getText());
+        }
+        return cells;
+    }
+}
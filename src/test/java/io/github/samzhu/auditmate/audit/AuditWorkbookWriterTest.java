@@ -0,0 +1,107 @@
+package io.github.samzhu.auditmate.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.Row;
+import org.dhatim.fastexcel.reader.Sheet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuditWorkbookWriterTest {
+
+    private static final int ROWS = 2500;
+
+    @TempDir
+    Path directory;
+
+    private final AuditWorkbookWriter writer = new AuditWorkbookWriter();
+
+    @Test
+    void stagesFeedTheirSheetsWithoutWaitingForEachOther() throws Exception {
+        NamedCheck first = new NamedCheck("first", 1);
+        NamedCheck second = new NamedCheck("second", 2);
+        NamedCheck notRun = new NamedCheck("not-run", 3);
+        Path report = directory.resolve("report.xlsx");
+        CountDownLatch secondDone = new CountDownLatch(1);
+
+        try (AuditWorkbookWriter.ProjectSheets sheets = writer.openProjectSheets(List.of(first, second, notRun));
+                ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // The first stage stays open past several flush intervals until the second one completed
+            Future<?> firstStage = executor.submit(() -> {
+                StageSink<String> sink = sheets.sinks().sinkFor(first);
+                for (int i = 0; i < ROWS; i++) {
+                    sink.accept("first-" + i);
+                }
+                secondDone.await(5, TimeUnit.SECONDS);
+                sink.complete(null);
+                return null;
+            });
+            Future<?> secondStage = executor.submit(() -> {
+                StageSink<String> sink = sheets.sinks().sinkFor(second);
+                for (int i = 0; i < ROWS; i++) {
+                    sink.accept("second-" + i);
+                }
+                sink.complete(null);
+                secondDone.countDown();
+                return null;
+            });
+            secondStage.get(5, TimeUnit.SECONDS);
+            firstStage.get(5, TimeUnit.SECONDS);
+
+            try (OutputStream output = Files.newOutputStream(report);
+                    Workbook workbook = new Workbook(output, "GcpAuditTool", "1.0")) {
+                sheets.writeTo(workbook);
+                workbook.finish();
+            }
+        }
+
+        try (ReadableWorkbook workbook = new ReadableWorkbook(report.toFile())) {
+            List<Sheet> sheets = workbook.getSheets().toList();
+            assertEquals(List.of("first", "second", "not-run"), sheets.stream().map(Sheet::getName).toList());
+            List<Row> secondRows = sheets.get(1).read();
+            assertEquals(ROWS + 1, secondRows.size());
+            assertEquals("second-" + (ROWS - 1), secondRows.get(ROWS).getCellText(0));
+            List<Row> notRunRows = sheets.get(2).read();
+            assertEquals(AuditCheck.NONE, notRunRows.get(1).getCellText(0));
+        }
+    }
+
+    private record NamedCheck(String id, int order) implements AuditCheck<String> {
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public SheetSchema schema() {
+            return new SheetSchema(id, List.of(SheetSchema.Column.of("Name", 10)), 0);
+        }
+
+        @Override
+        public String rowLabel() {
+            return id;
+        }
+
+        @Override
+        public void collect(String projectId, StageSink<String> sink) {
+        }
+
+        @Override
+        public List<String> cells(String row) {
+            return List.of(row);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.samzhu.auditmate.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.kms.v1.CryptoKey;
+import com.google.cloud.kms.v1.CryptoKeyVersion;
+import com.google.cloud.kms.v1.CryptoKeyVersion.CryptoKeyVersionState;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class KeyLifecycleResolverTest {
+
+    private KeyLifecycleResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getRateLimit().setInitialRate(1000);
+        properties.getRateLimit().setMaxRate(1000);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        resolver = new KeyLifecycleResolver(new GcpCallGuard(properties, meterRegistry, new AuditMetrics(meterRegistry, properties)));
+    }
+
+    @Test
+    void fetchesOnlyMissingStatesOncePerVersion() throws InterruptedException {
+        Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        List<CryptoKey> keys = List.of(
+                key("listed", "listed/v1", CryptoKeyVersionState.ENABLED),
+                key("first", "shared/v1", CryptoKeyVersionState.CRYPTO_KEY_VERSION_STATE_UNSPECIFIED),
+                key("second", "shared/v1", CryptoKeyVersionState.CRYPTO_KEY_VERSION_STATE_UNSPECIFIED),
+                CryptoKey.newBuilder().setName("asymmetric").build());
+
+        Map<String, String> lifecycles = resolver.resolve("demo-project", keys, new Semaphore(4), versionName -> {
+            fetches.computeIfAbsent(versionName, name -> new AtomicInteger()).incrementAndGet();
+            return CryptoKeyVersion.newBuilder().setName(versionName).setState(CryptoKeyVersionState.DISABLED).build();
+        });
+
+        assertEquals("ENABLED", lifecycles.get("listed"));
+        assertEquals("DISABLED", lifecycles.get("first"));
+        assertEquals("DISABLED", lifecycles.get("second"));
+        assertEquals(KeyLifecycleResolver.NO_PRIMARY_VERSION, lifecycles.get("asymmetric"));
+        assertEquals(1, fetches.get("shared/v1").get());
+        assertEquals(1, fetches.size());
+    }
+
+    @Test
+    void staysWithinTheSharedConcurrencyLimit() throws InterruptedException {
+        List<CryptoKey> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keys.add(key("key-" + i, "key-" + i + "/v1", CryptoKeyVersionState.CRYPTO_KEY_VERSION_STATE_UNSPECIFIED));
+        }
+        Semaphore permits = new Semaphore(3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        Map<String, String> lifecycles = resolver.resolve("demo-project", keys, permits, versionName -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return CryptoKeyVersion.newBuilder().setName(versionName).setState(CryptoKeyVersionState.ENABLED).build();
+        });
+
+        assertEquals(20, lifecycles.size());
+        assertTrue(maxInFlight.get() <= 3, "at most 3 fetches in flight, saw " + maxInFlight.get());
+        assertEquals(3, permits.availablePermits());
+    }
+
+    private static CryptoKey key(String name, String primaryVersion, CryptoKeyVersionState state) {
+        return CryptoKey.newBuilder()
+                .setName(name)
+                .setPrimary(CryptoKeyVersion.newBuilder().setName(primaryVersion).setState(state))
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.samzhu.auditmate.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProjectAuditCollectorTest {
+
+    @Test
+    void timedOutDependencyFailsOnlyItsDependents() {
+        ProjectAuditCollector collector = collector(Duration.ofMillis(300),
+                new SleepingCheck("slow", 1, Duration.ofSeconds(10), Set.of()),
+                new SleepingCheck("dependent", 2, Duration.ZERO, Set.of("slow")),
+                new SleepingCheck("independent", 3, Duration.ZERO, Set.of()));
+
+        ProjectAuditData data = collector.collect("demo-project");
+
+        List<StageOutcome<Integer>> outcomes = data.outcome().checks();
+        assertInstanceOf(TimeoutException.class, outcomes.get(0).error());
+        assertInstanceOf(IllegalStateException.class, outcomes.get(1).error());
+        assertTrue(outcomes.get(1).error().getMessage().contains("slow"), outcomes.get(1).error().getMessage());
+        assertTrue(outcomes.get(2).isSuccess());
+        assertEquals(List.of("independent"), data.rows().get("independent"));
+    }
+
+    @Test
+    void dependentTimeoutStartsOnceItsDependenciesFinished() {
+        // Together the two checks take longer than one stage timeout, each on its own does not
+        ProjectAuditCollector collector = collector(Duration.ofMillis(600),
+                new SleepingCheck("first", 1, Duration.ofMillis(350), Set.of()),
+                new SleepingCheck("second", 2, Duration.ofMillis(350), Set.of("first")));
+
+        ProjectAuditData data = collector.collect("demo-project");
+
+        assertTrue(data.outcome().checks().stream().allMatch(StageOutcome::isSuccess), () -> data.outcome().toString());
+    }
+
+    @Test
+    void rejectsDependencyCycles() {
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> collector(Duration.ofSeconds(1),
+                new SleepingCheck("a", 1, Duration.ZERO, Set.of("b")),
+                new SleepingCheck("b", 2, Duration.ZERO, Set.of("a"))));
+
+        assertTrue(error.getMessage().contains("cycle"), error.getMessage());
+    }
+
+    @Test
+    void keepsASummaryOfTheRecentAuditsOnly() {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getMetrics().setRecentAudits(1);
+        AuditMetrics auditMetrics = new AuditMetrics(new SimpleMeterRegistry(), properties);
+        ProjectAuditCollector collector = new ProjectAuditCollector(
+                List.of(new SleepingCheck("only", 1, Duration.ZERO, Set.of())),
+                new AuditStageExecutor(Duration.ofSeconds(1)), null, auditMetrics, properties);
+
+        collector.collect("first-project");
+        collector.collect("second-project");
+
+        AuditMetrics.MetricsSnapshot snapshot = auditMetrics.snapshot("auditmate.audit.stage");
+        assertEquals(List.of("second-project"),
+                snapshot.audits().stream().map(AuditMetrics.AuditSummary::projectId).toList());
+        assertEquals(Set.of("only"), snapshot.audits().get(0).stageSeconds().keySet());
+        assertTrue(snapshot.meters().stream().noneMatch(meter -> meter.tags().containsKey("project")));
+    }
+
+    private static ProjectAuditCollector collector(Duration stageTimeout, AuditCheck<?>... checks) {
+        AuditmateProperties properties = new AuditmateProperties();
+        return new ProjectAuditCollector(List.of(checks), new AuditStageExecutor(stageTimeout), null,
+                new AuditMetrics(new SimpleMeterRegistry(), properties), properties);
+    }
+
+    /**
+     * Check that sleeps, then reports its ID as its only row
+     */
+    private record SleepingCheck(String id, int order, Duration duration, Set<String> dependsOn)
+            implements AuditCheck<String> {
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public SheetSchema schema() {
+            return new SheetSchema(id, List.of(SheetSchema.Column.of("Name", 10)), 0);
+        }
+
+        @Override
+        public String rowLabel() {
+            return id;
+        }
+
+        @Override
+        public void collect(String projectId, StageSink<String> sink) throws Exception {
+            Thread.sleep(duration.toMillis());
+            sink.accept(id);
+        }
+
+        @Override
+        public List<String> cells(String row) {
+            return List.of(row);
+        }
+    }
+}
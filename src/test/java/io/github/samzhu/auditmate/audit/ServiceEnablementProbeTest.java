@@ -0,0 +1,114 @@
+package io.github.samzhu.auditmate.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.serviceusage.v1.ServiceUsage;
+
+import io.github.samzhu.auditmate.audit.ServiceEnablementProbe.ServiceState;
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.github.samzhu.auditmate.standin.StandinBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Probes the Service Usage API of the stand-in backend, where every project index that is a
+ * multiple of {@code kms-disabled-every} (5 by default) has Cloud KMS disabled
+ */
+class ServiceEnablementProbeTest {
+
+    private static final String KMS_DISABLED_PROJECT = "standin-project-000";
+    private static final String KMS_ENABLED_PROJECT = "standin-project-001";
+
+    private SimpleMeterRegistry standinRegistry;
+    private StandinBackend standin;
+    private ServiceEnablementProbe probe;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AuditmateProperties standinProperties = new AuditmateProperties();
+        standinProperties.getStandin().setGrpcPort(0);
+        standinProperties.getStandin().setHttpPort(0);
+        standinRegistry = new SimpleMeterRegistry();
+        standin = new StandinBackend(standinProperties, standinRegistry);
+        standin.afterPropertiesSet();
+
+        probe = newProbe(Duration.ofMinutes(15));
+    }
+
+    private ServiceEnablementProbe newProbe(Duration cacheTtl) throws Exception {
+        ServiceUsage serviceUsage = new ServiceUsage.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance(),
+                null)
+                .setRootUrl("http://127.0.0.1:" + standin.httpPort() + "/")
+                .setApplicationName("service-enablement-probe-test")
+                .build();
+        GcpClientRegistry registry = mock(GcpClientRegistry.class);
+        when(registry.serviceUsage()).thenReturn(serviceUsage);
+
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getServiceUsage().setCacheTtl(cacheTtl);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GcpCallGuard callGuard = new GcpCallGuard(properties, meterRegistry, new AuditMetrics(meterRegistry, properties));
+        return new ServiceEnablementProbe(registry, callGuard, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        standin.destroy();
+    }
+
+    @Test
+    void reportsStateOfEachProbedService() {
+        assertEquals(ServiceState.DISABLED, probe.stateOf(KMS_DISABLED_PROJECT, ServiceEnablementProbe.KMS_SERVICE));
+        assertEquals(ServiceState.ENABLED, probe.stateOf(KMS_DISABLED_PROJECT, ServiceEnablementProbe.COMPUTE_SERVICE));
+        assertEquals(ServiceState.ENABLED, probe.stateOf(KMS_ENABLED_PROJECT, ServiceEnablementProbe.KMS_SERVICE));
+    }
+
+    @Test
+    void probesEachProjectOnceWithinTheCacheTtl() {
+        probe.stateOf(KMS_DISABLED_PROJECT, ServiceEnablementProbe.KMS_SERVICE);
+        probe.stateOf(KMS_DISABLED_PROJECT, ServiceEnablementProbe.COMPUTE_SERVICE);
+        probe.stateOf(KMS_ENABLED_PROJECT, ServiceEnablementProbe.KMS_SERVICE);
+
+        assertEquals(2, batchGetCount());
+    }
+
+    @Test
+    void dropsExpiredProbesOfOtherProjects() throws Exception {
+        ServiceEnablementProbe shortLived = newProbe(Duration.ofMillis(50));
+        shortLived.stateOf(KMS_DISABLED_PROJECT, ServiceEnablementProbe.KMS_SERVICE);
+        shortLived.stateOf(KMS_ENABLED_PROJECT, ServiceEnablementProbe.KMS_SERVICE);
+        assertEquals(2, shortLived.cachedProjects());
+
+        Thread.sleep(100);
+        shortLived.stateOf("standin-project-002", ServiceEnablementProbe.KMS_SERVICE);
+
+        assertEquals(1, shortLived.cachedProjects());
+    }
+
+    @Test
+    void failedProbeIsUnknownAndNotCached() {
+        // The stand-in denies the services of projects outside its organization
+        assertEquals(ServiceState.UNKNOWN, probe.stateOf("unknown-project", ServiceEnablementProbe.KMS_SERVICE));
+        assertEquals(ServiceState.UNKNOWN, probe.stateOf("unknown-project", ServiceEnablementProbe.KMS_SERVICE));
+
+        assertEquals(2, batchGetCount());
+        assertEquals(0, probe.cachedProjects());
+    }
+
+    private long batchGetCount() {
+        return (long) standinRegistry.counter("auditmate.standin.requests",
+                "method", "serviceusage.services.batchGet").count();
+    }
+}
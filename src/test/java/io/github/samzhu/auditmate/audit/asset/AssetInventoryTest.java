@@ -0,0 +1,125 @@
+package io.github.samzhu.auditmate.audit.asset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.cloud.kms.v1.CryptoKey;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.configuration.GcpClientRegistry;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+import io.github.samzhu.auditmate.standin.StandinBackend;
+import io.grpc.Context;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AssetInventoryTest {
+
+    private static final String KEY = "projects/my-project/locations/global/keyRings/ring/cryptoKeys/byok";
+
+    @TempDir
+    Path directory;
+
+    private AssetInventory inventory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Export layout: snake_case asset fields, resource data as the API returns it, in no particular order
+        Path snapshot = directory.resolve("assets.json");
+        Files.write(snapshot, List.of(
+                "{\"name\":\"//cloudkms.googleapis.com/" + KEY + "/cryptoKeyVersions/1\","
+                        + "\"asset_type\":\"cloudkms.googleapis.com/CryptoKeyVersion\","
+                        + "\"resource\":{\"data\":{\"state\":\"ENABLED\"}}}",
+                "{\"name\":\"//cloudkms.googleapis.com/" + KEY + "\",\"asset_type\":\"cloudkms.googleapis.com/CryptoKey\","
+                        + "\"resource\":{\"data\":{\"importOnly\":true,\"primary\":{\"name\":\"" + KEY
+                        + "/cryptoKeyVersions/1\"},\"unknownField\":1}}}",
+                "{\"name\":\"//cloudresourcemanager.googleapis.com/projects/123\","
+                        + "\"asset_type\":\"cloudresourcemanager.googleapis.com/Project\","
+                        + "\"iam_policy\":{\"etag\":\"not base64\",\"bindings\":[{\"role\":\"roles/owner\","
+                        + "\"members\":[\"user:owner@example.com\"]}]}}",
+                "",
+                "{\"name\":\"//cloudresourcemanager.googleapis.com/projects/123\","
+                        + "\"asset_type\":\"cloudresourcemanager.googleapis.com/Project\","
+                        + "\"resource\":{\"data\":{\"projectId\":\"my-project\",\"projectNumber\":\"123\"}}}",
+                "{\"name\":\"//compute.googleapis.com/projects/my-project/global/firewalls/allow-ssh\","
+                        + "\"asset_type\":\"compute.googleapis.com/Firewall\","
+                        + "\"resource\":{\"data\":{\"name\":\"allow-ssh\",\"sourceRanges\":[\"0.0.0.0/0\"]}}}",
+                "{\"name\":\"//storage.googleapis.com/bucket\",\"asset_type\":\"storage.googleapis.com/Bucket\"}"));
+
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getInventory().setBackend(AssetInventory.ASSET_SNAPSHOT_BACKEND);
+        properties.getInventory().setSnapshotFile(snapshot.toString());
+        inventory = new AssetInventory(null, null, new ObjectMapper(), properties);
+    }
+
+    @Test
+    void groupsSnapshotAssetsByProjectId() throws Exception {
+        ProjectAssets assets = inventory.assetsOf("my-project");
+
+        assertEquals("roles/owner", assets.policy().getBindings(0).getRole());
+        CryptoKey key = assets.cryptoKeys().get(0);
+        assertEquals(KEY, key.getName());
+        assertTrue(key.getImportOnly());
+        assertEquals("ENABLED", assets.lifecycles().get(KEY));
+        assertEquals(List.of("0.0.0.0/0"), assets.firewalls().get(0).getSourceRangesList());
+    }
+
+    @Test
+    void rejectsProjectsMissingFromTheSnapshot() {
+        assertThrows(IOException.class, () -> inventory.assetsOf("other-project"));
+    }
+
+    @Test
+    void listsTheParentOfABatchOnceForAllItsProjects() throws Exception {
+        AuditmateProperties standinProperties = new AuditmateProperties();
+        standinProperties.getStandin().setGrpcPort(0);
+        standinProperties.getStandin().setHttpPort(0);
+        SimpleMeterRegistry standinRegistry = new SimpleMeterRegistry();
+        StandinBackend standin = new StandinBackend(standinProperties, standinRegistry);
+        standin.afterPropertiesSet();
+        try {
+            GcpClientRegistry registry = mock(GcpClientRegistry.class);
+            when(registry.cloudAssetRootUrl()).thenReturn("http://127.0.0.1:" + standin.httpPort() + "/");
+            when(registry.restRequestFactory()).thenReturn(new NetHttpTransport().createRequestFactory());
+            AuditmateProperties properties = new AuditmateProperties();
+            properties.getInventory().setBackend(AssetInventory.ASSET_INVENTORY_BACKEND);
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            GcpCallGuard callGuard = new GcpCallGuard(properties, meterRegistry,
+                    new AuditMetrics(meterRegistry, properties));
+            AssetInventory listing = new AssetInventory(registry, callGuard, new ObjectMapper(), properties);
+            Counter listings = standinRegistry.counter("auditmate.standin.requests",
+                    "method", "cloudasset.assets.list");
+
+            double[] batchListings = new double[2];
+            AssetInventory.withBatchScope(Context.current(), "organizations/standin").call(() -> {
+                listing.assetsOf("standin-project-000");
+                batchListings[0] = listings.count();
+                listing.assetsOf("standin-project-001");
+                batchListings[1] = listings.count();
+                return null;
+            });
+            // Outside a batch each project is listed on its own, in one page per content type
+            listing.assetsOf("standin-project-002");
+
+            assertEquals(batchListings[0], batchListings[1]);
+            assertEquals(batchListings[1] + 2, listings.count());
+        } finally {
+            standin.destroy();
+        }
+    }
+}
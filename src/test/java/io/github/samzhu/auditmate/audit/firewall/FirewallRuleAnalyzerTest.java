@@ -0,0 +1,134 @@
+package io.github.samzhu.auditmate.audit.firewall;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.compute.v1.Allowed;
+import com.google.cloud.compute.v1.Denied;
+import com.google.cloud.compute.v1.Firewall;
+
+class FirewallRuleAnalyzerTest {
+
+    private static final String NETWORK = "projects/demo-project/global/networks/default";
+
+    @Test
+    void flagsRulesOpenToTheInternetByTheirPorts() {
+        List<FirewallFinding> findings = FirewallRuleAnalyzer.analyze(List.of(
+                allow("allow-ssh", 1000, "0.0.0.0/0", "20-30"),
+                allow("allow-web", 1000, "::/0", "443"),
+                allow("allow-internal", 1000, "10.0.0.0/8", "0-65535")));
+
+        assertEquals(2, findings.size());
+        assertEquals("allow-ssh", findings.get(0).ruleName());
+        assertEquals(80, findings.get(0).riskScore());
+        assertEquals(List.of(FirewallRuleAnalyzer.OPEN_TO_INTERNET), findings.get(0).issues());
+        assertEquals("allow-web", findings.get(1).ruleName());
+        assertEquals(50, findings.get(1).riskScore());
+    }
+
+    @Test
+    void findsShadowedAndRedundantRules() {
+        Firewall denyAll = Firewall.newBuilder()
+                .setName("deny-partner")
+                .setNetwork(NETWORK)
+                .setDirection("INGRESS")
+                .setPriority(100)
+                .addSourceRanges("192.168.0.0/16")
+                .addDenied(Denied.newBuilder().setIPProtocol("all"))
+                .build();
+
+        List<FirewallFinding> findings = FirewallRuleAnalyzer.analyze(List.of(
+                allow("allow-partner-app", 1000, "192.168.10.0/24", "8080"),
+                allow("allow-internal", 500, "10.0.0.0/8", "8000-9000"),
+                allow("allow-internal-app", 1000, "10.1.0.0/16", "8080"),
+                allow("allow-other-app", 1000, "172.16.0.0/12", "8080"),
+                denyAll));
+
+        assertEquals(2, findings.size());
+        FirewallFinding redundant = findings.get(0);
+        assertEquals("allow-internal-app", redundant.ruleName());
+        assertEquals(List.of(FirewallRuleAnalyzer.REDUNDANT), redundant.issues());
+        assertEquals("allow-internal", redundant.coveredBy());
+        FirewallFinding shadowed = findings.get(1);
+        assertEquals("allow-partner-app", shadowed.ruleName());
+        assertEquals(List.of(FirewallRuleAnalyzer.SHADOWED), shadowed.issues());
+        assertEquals("deny-partner", shadowed.coveredBy());
+    }
+
+    @Test
+    void rulesForOtherTargetsOrPortsDoNotCover() {
+        Firewall tagged = allow("allow-web-tier", 100, "10.0.0.0/8", "0-65535").toBuilder()
+                .addTargetTags("web")
+                .build();
+
+        List<FirewallFinding> findings = FirewallRuleAnalyzer.analyze(List.of(
+                tagged,
+                allow("allow-app", 1000, "10.2.0.0/16", "8080"),
+                allow("allow-narrow", 200, "10.3.0.0/16", "80"),
+                allow("allow-wider-ports", 1000, "10.3.0.0/24", "80-81")));
+
+        assertTrue(findings.isEmpty());
+    }
+
+    @Test
+    void onlyAllIpv4AddressesCoverTaggedSources() {
+        Firewall fromWebTier = Firewall.newBuilder()
+                .setName("allow-web-tier")
+                .setNetwork(NETWORK)
+                .setDirection("INGRESS")
+                .setPriority(1000)
+                .addSourceTags("web")
+                .addAllowed(Allowed.newBuilder().setIPProtocol("tcp").addPorts("8080"))
+                .build();
+
+        List<FirewallFinding> ipv6Only = FirewallRuleAnalyzer.analyze(List.of(
+                allow("allow-all-ipv6", 100, "::/0", "0-65535"),
+                fromWebTier));
+        List<FirewallFinding> allIpv4 = FirewallRuleAnalyzer.analyze(List.of(
+                allow("allow-all-ipv4", 100, "0.0.0.0/0", "0-65535"),
+                fromWebTier));
+
+        assertEquals(List.of("allow-all-ipv6"), ipv6Only.stream().map(FirewallFinding::ruleName).toList());
+        assertEquals(2, allIpv4.size());
+        assertEquals("allow-web-tier", allIpv4.get(1).ruleName());
+        assertEquals(List.of(FirewallRuleAnalyzer.REDUNDANT), allIpv4.get(1).issues());
+        assertEquals("allow-all-ipv4", allIpv4.get(1).coveredBy());
+    }
+
+    @Test
+    void manyRulesForOneBlockAreCoveredTogether() {
+        int ruleCount = 20_000;
+        List<Firewall> firewalls = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            firewalls.add(allow("allow-port-" + i, 1000 + i, "10.0.0.0/8", String.valueOf(1000 + i)));
+        }
+        firewalls.add(allow("allow-app", 30000, "10.1.0.0/16", "1000-" + (1000 + ruleCount - 1)));
+        firewalls.add(allow("allow-app-and-more", 30000, "10.1.0.0/16", "1000-" + (1000 + ruleCount)));
+
+        List<FirewallFinding> findings = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> FirewallRuleAnalyzer.analyze(firewalls));
+
+        assertEquals(1, findings.size());
+        assertEquals("allow-app", findings.get(0).ruleName());
+        assertEquals(List.of(FirewallRuleAnalyzer.REDUNDANT), findings.get(0).issues());
+        assertEquals("allow-port-0", findings.get(0).coveredBy());
+    }
+
+    private static Firewall allow(String name, int priority, String sourceRange, String ports) {
+        return Firewall.newBuilder()
+                .setName(name)
+                .setNetwork(NETWORK)
+                .setDirection("INGRESS")
+                .setPriority(priority)
+                .addSourceRanges(sourceRange)
+                .addAllowed(Allowed.newBuilder().setIPProtocol("tcp").addPorts(ports))
+                .build();
+    }
+}
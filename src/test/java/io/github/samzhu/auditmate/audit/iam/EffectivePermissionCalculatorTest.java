@@ -0,0 +1,106 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.iam.v1.Binding;
+import com.google.iam.v1.Policy;
+import com.google.type.Expr;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.quota.GcpCallGuard;
+
+class EffectivePermissionCalculatorTest {
+
+    @TempDir
+    private Path roleDirectory;
+
+    private RoleDefinitionCache roleCache;
+
+    /**
+     * Roles are served from fresh role files, the IAM API denies every other role
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        writeRole(objectMapper, "roles/viewer", List.of("compute.firewalls.list", "storage.buckets.list"));
+        writeRole(objectMapper, "roles/storage.admin", List.of("storage.buckets.list", "storage.buckets.setIamPolicy"));
+
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getIam().setRoleCacheDirectory(roleDirectory.toString());
+        GcpCallGuard callGuard = mock(GcpCallGuard.class);
+        doThrow(new IOException("Permission denied")).when(callGuard).call(anyString(), anyString(), anyString(), any());
+        roleCache = new RoleDefinitionCache(null, callGuard, objectMapper, properties);
+    }
+
+    @Test
+    void unitesProjectAndInheritedRoles() throws Exception {
+        Policy project = Policy.newBuilder()
+                .addBindings(binding("roles/viewer", "serviceAccount:app@demo-project.iam.gserviceaccount.com"))
+                .build();
+        Policy folder = Policy.newBuilder()
+                .addBindings(binding("roles/storage.admin", "serviceAccount:app@demo-project.iam.gserviceaccount.com"))
+                .addBindings(binding("roles/viewer", "allUsers"))
+                .build();
+
+        List<EffectivePermissions> rows = EffectivePermissionCalculator.calculate(List.of(
+                new SourcedPolicy("projects/demo-project", false, project, null),
+                new SourcedPolicy("folders/123", true, folder, null)), roleCache, "demo-project");
+
+        assertEquals(2, rows.size());
+        EffectivePermissions allUsers = rows.get(0);
+        assertEquals("allUsers", allUsers.type());
+        assertEquals(100, allUsers.riskScore());
+        EffectivePermissions app = rows.get(1);
+        assertEquals("serviceAccount", app.type());
+        assertEquals(List.of("roles/viewer", "roles/storage.admin (folders/123)"), app.roles());
+        assertEquals(3, app.permissionCount());
+        assertEquals(List.of("storage.buckets.setIamPolicy"), app.sensitivePermissions());
+        assertEquals(90, app.riskScore());
+    }
+
+    @Test
+    void listsConditionalUnresolvedRolesAndUnreadablePolicies() throws Exception {
+        Policy project = Policy.newBuilder()
+                .addBindings(binding("roles/storage.admin", "user:alice@example.com").toBuilder()
+                        .setCondition(Expr.newBuilder().setTitle("expires-2026").setExpression("request.time < ...")))
+                .addBindings(binding("organizations/42/roles/auditor", "user:alice@example.com"))
+                .build();
+
+        List<EffectivePermissions> rows = EffectivePermissionCalculator.calculate(List.of(
+                new SourcedPolicy("projects/demo-project", false, project, null),
+                new SourcedPolicy("organizations/42", true, null, "Permission denied")), roleCache, "demo-project");
+
+        assertEquals(2, rows.size());
+        EffectivePermissions alice = rows.get(0);
+        assertEquals(List.of("roles/storage.admin if expires-2026"), alice.conditionalRoles());
+        assertEquals(0, alice.permissionCount());
+        assertEquals(List.of("organizations/42/roles/auditor"), alice.unresolved());
+        EffectivePermissions unreadable = rows.get(1);
+        assertEquals(EffectivePermissions.UNREADABLE_POLICY, unreadable.type());
+        assertEquals(List.of("Permission denied"), unreadable.unresolved());
+    }
+
+    private void writeRole(ObjectMapper objectMapper, String role, List<String> permissions) throws Exception {
+        Files.writeString(roleDirectory.resolve(role.replace('/', '~') + ".json"), objectMapper.writeValueAsString(
+                new RoleDefinitionCache.RoleDefinition(role, "BwW", permissions, Instant.now())));
+    }
+
+    private static Binding binding(String role, String member) {
+        return Binding.newBuilder().setRole(role).addMembers(member).build();
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.samzhu.auditmate.audit.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.samzhu.auditmate.audit.IamMember;
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+
+class PrincipalAccessIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reauditReplacesOnlyTheGrantsOfItsProject() {
+        PrincipalAccessIndex index = new PrincipalAccessIndex(new AuditmateProperties());
+        index.update("project-a", List.of(member("user:alice@example.com", "roles/owner", "roles/viewer"),
+                member("group:ops@example.com", "roles/editor")));
+        index.update("project-b", List.of(member("user:alice@example.com", "roles/viewer")));
+
+        index.update("project-a", List.of(member("group:ops@example.com", "roles/editor")));
+
+        List<PrincipalAccessIndex.PrincipalAccess> alice = index.find("alice@example.com", null);
+        assertEquals(1, alice.size());
+        assertEquals("user:alice@example.com", alice.get(0).principal());
+        assertEquals(List.of("project-b"), projectIds(alice.get(0)));
+        assertEquals(List.of("roles/editor"), index.find("group:ops@example.com", null).get(0).projects().get(0).roles());
+        assertTrue(index.find("group:ops@example.com", "roles/owner").isEmpty());
+    }
+
+    @Test
+    void persistsTheIndexAcrossRestarts() {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getPrincipalIndex().setFile(directory.resolve("principal-index.bin").toString());
+        PrincipalAccessIndex index = new PrincipalAccessIndex(properties);
+        index.afterPropertiesSet();
+        index.update("project-a", List.of(member("user:alice@example.com", "roles/owner")));
+        index.update("project-b", List.of(member("user:alice@example.com", "roles/owner", "roles/viewer")));
+        index.destroy();
+
+        PrincipalAccessIndex reloaded = new PrincipalAccessIndex(properties);
+        reloaded.afterPropertiesSet();
+        try {
+            assertEquals(2, reloaded.projectCount());
+            List<PrincipalAccessIndex.PrincipalAccess> owners = reloaded.find("user:alice@example.com", "roles/owner");
+            assertEquals(List.of("project-a", "project-b"), projectIds(owners.get(0)));
+        } finally {
+            reloaded.destroy();
+        }
+    }
+
+    private static List<String> projectIds(PrincipalAccessIndex.PrincipalAccess access) {
+        return access.projects().stream().map(PrincipalAccessIndex.ProjectAccess::projectId).toList();
+    }
+
+    private static IamMember member(String name, String... roles) {
+        IamMember member = new IamMember(name);
+        for (String role : roles) {
+            member.addRole(role);
+        }
+        return member;
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.samzhu.auditmate.diff;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.samzhu.auditmate.audit.IamMember;
+import io.github.samzhu.auditmate.audit.check.IamCheck;
+
+class AuditDiffTest {
+
+    private final IamCheck iamCheck = new IamCheck(null, null, null, null, null);
+
+    @Test
+    void reportsRemovedAndChangedRowsBeforeAddedOnes() {
+        List<AuditRecord> previous = List.of(
+                record("user:alice@example.com", "roles/owner"),
+                record("user:bob@example.com", "roles/viewer"),
+                record("user:carol@example.com", "roles/editor"));
+        List<AuditRecord> current = List.of(
+                record("user:dave@example.com", "roles/viewer"),
+                record("user:bob@example.com", "roles/editor"),
+                record("user:alice@example.com", "roles/owner"));
+
+        List<AuditChange> changes = AuditDiff.compare("IAM", previous, current);
+
+        assertEquals(List.of(
+                new AuditChange("IAM", AuditChange.Type.CHANGED, "user:bob@example.com",
+                        List.of("user:bob@example.com", "roles/viewer"), List.of("user:bob@example.com", "roles/editor")),
+                new AuditChange("IAM", AuditChange.Type.REMOVED, "user:carol@example.com",
+                        List.of("user:carol@example.com", "roles/editor"), List.of()),
+                new AuditChange("IAM", AuditChange.Type.ADDED, "user:dave@example.com",
+                        List.of(), List.of("user:dave@example.com", "roles/viewer"))),
+                changes);
+    }
+
+    @Test
+    void reorderedRolesAreNotAChange() {
+        IamMember member = new IamMember("user:alice@example.com");
+        member.addRole("roles/viewer");
+        member.addRole("roles/editor");
+
+        List<AuditChange> changes = AuditDiff.compare("IAM",
+                List.of(record("user:alice@example.com", "roles/editor\nroles/viewer")),
+                List.of(AuditRecord.of(iamCheck, member)));
+
+        assertTrue(changes.isEmpty(), () -> "unexpected changes " + changes);
+    }
+
+    private AuditRecord record(String member, String roles) {
+        return AuditRecord.fromCells(iamCheck, List.of(member, roles));
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.samzhu.auditmate.diff;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.samzhu.auditmate.audit.AuditCheck;
+import io.github.samzhu.auditmate.audit.check.ByokCheck;
+import io.github.samzhu.auditmate.audit.check.FirewallCheck;
+import io.github.samzhu.auditmate.audit.check.IamCheck;
+
+class PreviousReportReaderTest {
+
+    @TempDir
+    Path directory;
+
+    private final IamCheck iamCheck = new IamCheck(null, null, null, null, null);
+    private final ByokCheck byokCheck = new ByokCheck(null, null, null, null, null, null);
+    private final FirewallCheck firewallCheck = new FirewallCheck(null, null, null, null);
+
+    @Test
+    void readsNormalizedRowsAndSkipsMissingAndFailedSheets() throws IOException {
+        Path report = directory.resolve("previous.xlsx");
+        try (OutputStream out = Files.newOutputStream(report)) {
+            Workbook workbook = new Workbook(out, "PreviousReportReaderTest", "1.0");
+            writeSheet(workbook, "IAM", List.of("User/Group", "Permissions"),
+                    List.of("user:alice@example.com", "roles/viewer\nroles/editor"),
+                    List.of("group:ops@example.com", "roles/owner"));
+            // A BYOK check that failed in the previous audit left only its placeholder row
+            writeSheet(workbook, "BYOK", List.of("Key Name", "Type (ex. RSA-2048)", "Lifecycle", "Manager"),
+                    List.of(ByokCheck.KMS_ACCESS_DENIED, AuditCheck.NONE, AuditCheck.NONE, AuditCheck.NONE));
+            // No firewall sheet at all
+            workbook.finish();
+        }
+
+        Map<String, List<AuditRecord>> records = new PreviousReportReader().read(report,
+                List.of(iamCheck, byokCheck, firewallCheck));
+
+        assertEquals(List.of(IamCheck.ID), List.copyOf(records.keySet()));
+        assertEquals(List.of(
+                new AuditRecord("user:alice@example.com", List.of("user:alice@example.com", "roles/editor\nroles/viewer")),
+                new AuditRecord("group:ops@example.com", List.of("group:ops@example.com", "roles/owner"))),
+                records.get(IamCheck.ID));
+    }
+
+    @SafeVarargs
+    private static void writeSheet(Workbook workbook, String name, List<String> header, List<String>... rows) {
+        Worksheet worksheet = workbook.newWorksheet(name);
+        for (int column = 0; column < header.size(); column++) {
+            worksheet.value(0, column, header.get(column));
+        }
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < rows[row].size(); column++) {
+                worksheet.value(row + 1, column, rows[row].get(column));
+            }
+        }
+    }
+}
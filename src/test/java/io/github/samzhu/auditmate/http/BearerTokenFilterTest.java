@@ -0,0 +1,62 @@
+package io.github.samzhu.auditmate.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class BearerTokenFilterTest {
+
+    private final BearerTokenFilter filter = new BearerTokenFilter(Map.of("ci-agent", "s3cret"));
+
+    @Test
+    void rejectsMissingAndUnknownTokens() throws Exception {
+        MockHttpServletResponse missing = post(null);
+        MockHttpServletResponse unknown = post("Bearer s3cret-guess");
+
+        assertEquals(401, missing.getStatus());
+        assertEquals("Bearer", missing.getHeader("WWW-Authenticate"));
+        assertEquals(401, unknown.getStatus());
+    }
+
+    @Test
+    void authenticatesTheClientOfAConfiguredToken() throws Exception {
+        MockHttpServletRequest request = request("Bearer s3cret");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertEquals("ci-agent", request.getAttribute(BearerTokenFilter.CLIENT_ATTRIBUTE));
+    }
+
+    @Test
+    void passesEveryRequestWithoutConfiguredTokens() throws Exception {
+        MockHttpServletRequest request = request(null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new BearerTokenFilter(Map.of()).doFilter(request, response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertNull(request.getAttribute(BearerTokenFilter.CLIENT_ATTRIBUTE));
+    }
+
+    private MockHttpServletResponse post(String authorization) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(authorization), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp/message");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+}
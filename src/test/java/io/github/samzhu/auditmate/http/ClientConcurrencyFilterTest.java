@@ -0,0 +1,166 @@
+package io.github.samzhu.auditmate.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class ClientConcurrencyFilterTest {
+
+    @Test
+    void rejectsMessagesBeyondTheCapOfTheSameClient() throws Exception {
+        ClientConcurrencyFilter filter = filter(1, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<MockHttpServletResponse> first = executor.submit(() -> post(filter, "10.0.0.1", new HttpServlet() {
+                @Override
+                protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletResponse rejected = post(filter, "10.0.0.1", null);
+            MockHttpServletResponse otherClient = post(filter, "10.0.0.2", null);
+            release.countDown();
+
+            assertEquals(429, rejected.getStatus());
+            assertEquals("1", rejected.getHeader("Retry-After"));
+            assertEquals(200, otherClient.getStatus());
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(0, filter.activeClients());
+    }
+
+    @Test
+    void queuedMessageRunsOnceASlotIsFree() throws Exception {
+        ClientConcurrencyFilter filter = filter(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<MockHttpServletResponse> first = executor.submit(() -> post(filter, "10.0.0.1", new HttpServlet() {
+                @Override
+                protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+                    started.countDown();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals(200, post(filter, "10.0.0.1", null).getStatus());
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+        }
+    }
+
+    @Test
+    void capsAllClientsTogetherAndIgnoresClientChosenIds() throws Exception {
+        AuditmateProperties.Http settings = settings(2, 0);
+        settings.setMaxConcurrentRequests(1);
+        settings.setMaxQueuedRequests(0);
+        ClientConcurrencyFilter filter = new ClientConcurrencyFilter(settings);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<MockHttpServletResponse> first = executor.submit(() -> post(filter, "10.0.0.1", new HttpServlet() {
+                @Override
+                protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletResponse otherClient = post(filter, "10.0.0.2", null);
+            release.countDown();
+
+            assertEquals(429, otherClient.getStatus());
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(0, filter.activeClients());
+    }
+
+    @Test
+    void keysClientsOnTheirAddressNotOnHeadersOrSessions() throws Exception {
+        ClientConcurrencyFilter filter = filter(1, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<MockHttpServletResponse> first = executor.submit(() -> post(filter, "10.0.0.1", new HttpServlet() {
+                @Override
+                protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp/message");
+            request.setRemoteAddr("10.0.0.1");
+            request.addHeader("X-Auditmate-Client", "someone-else");
+            request.setParameter("sessionId", "another-session");
+            MockHttpServletResponse sameAddress = new MockHttpServletResponse();
+            filter.doFilter(request, sameAddress, new MockFilterChain());
+            release.countDown();
+
+            assertEquals(429, sameAddress.getStatus());
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatus());
+        }
+    }
+
+    private static ClientConcurrencyFilter filter(int maxConcurrent, int maxQueued) {
+        return new ClientConcurrencyFilter(settings(maxConcurrent, maxQueued));
+    }
+
+    private static AuditmateProperties.Http settings(int maxConcurrent, int maxQueued) {
+        AuditmateProperties.Http settings = new AuditmateProperties.Http();
+        settings.setMaxConcurrentRequestsPerClient(maxConcurrent);
+        settings.setMaxQueuedRequestsPerClient(maxQueued);
+        settings.setQueueTimeout(Duration.ofSeconds(1));
+        return settings;
+    }
+
+    private static MockHttpServletResponse post(ClientConcurrencyFilter filter, String address, HttpServlet servlet)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp/message");
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, servlet != null ? new MockFilterChain(servlet) : new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.samzhu.auditmate.quota;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.api.gax.rpc.ResourceExhaustedException;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+import io.github.samzhu.auditmate.metrics.AuditMetrics;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GcpCallGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GcpCallGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getRateLimit().setInitialRate(1000);
+        properties.getRateLimit().setMaxRate(1000);
+        properties.getRateLimit().setMinRate(500);
+        properties.getRateLimit().setInitialBackoff(Duration.ofMillis(1));
+        properties.getRateLimit().setMaxBackoff(Duration.ofMillis(5));
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new GcpCallGuard(properties, meterRegistry, new AuditMetrics(meterRegistry, properties));
+    }
+
+    @Test
+    void retriesThrottledCallsUntilTheySucceed() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = guard.call(GcpCallGuard.KMS_API, "listKeyRings", "demo-project", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw quotaError();
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(2, meterRegistry.counter("auditmate.gcp.calls.retried", "api", GcpCallGuard.KMS_API).count());
+    }
+
+    @Test
+    void stopsRetryingWhenTheAuditBudgetIsSpent() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryBudget budget = new RetryBudget(1);
+
+        Context previous = budget.attachTo(Context.current()).attach();
+        try {
+            assertThrows(QuotaExceededException.class,
+                    () -> guard.call(GcpCallGuard.KMS_API, "listKeyRings", "demo-project", () -> {
+                        attempts.incrementAndGet();
+                        throw quotaError();
+                    }));
+        } finally {
+            Context.current().detach(previous);
+        }
+
+        assertEquals(2, attempts.get());
+        assertEquals(0, budget.remaining());
+    }
+
+    @Test
+    void passesOtherErrorsThroughWithoutRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(PermissionDeniedException.class,
+                () -> guard.call(GcpCallGuard.KMS_API, "listKeyRings", "demo-project", () -> {
+                    attempts.incrementAndGet();
+                    throw new PermissionDeniedException(null, GrpcStatusCode.of(Status.Code.PERMISSION_DENIED), false);
+                }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void dropsLimitersOfIdleProjects() throws Exception {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getRateLimit().setLimiterIdleTimeout(Duration.ofMillis(50));
+        GcpCallGuard idleGuard = new GcpCallGuard(properties, meterRegistry, new AuditMetrics(meterRegistry, properties));
+
+        idleGuard.call(GcpCallGuard.KMS_API, "listKeyRings", "project-a", () -> "done");
+        idleGuard.call(GcpCallGuard.KMS_API, "listKeyRings", "project-b", () -> "done");
+        assertEquals(2, idleGuard.limiterCount());
+
+        Thread.sleep(100);
+        idleGuard.call(GcpCallGuard.KMS_API, "listKeyRings", "project-c", () -> "done");
+
+        assertEquals(1, idleGuard.limiterCount());
+    }
+
+    private static ResourceExhaustedException quotaError() {
+        return new ResourceExhaustedException(null, GrpcStatusCode.of(Status.Code.RESOURCE_EXHAUSTED), true);
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.samzhu.auditmate.report;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+
+class ReportResourceStoreTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private final List<ReportResourceEvent> events = new ArrayList<>();
+    private ReportResourceStore store;
+
+    @BeforeEach
+    void setUp() {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getReports().setMemoryBudget(DataSize.ofBytes(20));
+        properties.getReports().setMaxReports(3);
+        properties.getReports().setSpillDirectory(spillDirectory.toString());
+        store = new ReportResourceStore(properties, event -> events.add((ReportResourceEvent) event));
+    }
+
+    @Test
+    void spillsLeastRecentlyReadReportsOverTheMemoryBudget() throws IOException {
+        PublishedReport first = store.register("first.xlsx", bytes(8, (byte) 1));
+        PublishedReport second = store.register("second.xlsx", bytes(8, (byte) 2));
+        store.read(first.uri(), 0, 1);
+        store.register("third.xlsx", bytes(8, (byte) 3));
+
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            List<Path> spilled = files.toList();
+            assertEquals(1, spilled.size());
+            assertArrayEquals(bytes(8, (byte) 2), Files.readAllBytes(spilled.get(0)));
+        }
+        assertArrayEquals(new byte[] { 2, 2, 2 }, store.read(second.uri(), 5, 100));
+        assertArrayEquals(bytes(8, (byte) 1), store.read(first.uri(), 0, 8));
+        assertEquals("auditmate://reports/second.xlsx", second.location());
+    }
+
+    @Test
+    void forgetsTheLeastRecentlyReadReportBeyondTheLimit() throws IOException {
+        store.register("first.xlsx", bytes(8, (byte) 1));
+        store.register("second.xlsx", bytes(8, (byte) 2));
+        store.register("third.xlsx", bytes(8, (byte) 3));
+        store.register("fourth.xlsx", bytes(8, (byte) 4));
+
+        assertTrue(store.find("first.xlsx").isEmpty());
+        assertEquals(List.of("second.xlsx", "third.xlsx", "fourth.xlsx"),
+                store.list().stream().map(PublishedReport::name).toList());
+        assertTrue(events.stream().anyMatch(event -> event.type() == ReportResourceEvent.Type.REMOVED
+                && event.report().name().equals("first.xlsx")));
+        // The spill file of the forgotten report is deleted, the second report is spilled now
+        assertEquals(1, spillFiles());
+    }
+
+    @Test
+    void spillsAReportWrittenInMemoryOnceItOutgrowsTheBudget() throws IOException {
+        PublishedReport report;
+        try (ReportFile reportFile = ReportFile.inMemory("large.xlsx", store)) {
+            reportFile.outputStream().write(bytes(12, (byte) 1));
+            reportFile.outputStream().write(bytes(12, (byte) 2));
+            assertEquals(1, spillFiles());
+            report = reportFile.publish();
+        }
+
+        assertEquals(24, report.size());
+        assertArrayEquals(new byte[] { 1, 2 }, store.read(report.uri(), 11, 2));
+        assertEquals(1, spillFiles());
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.count();
+        }
+    }
+
+    private static byte[] bytes(int length, byte value) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, value);
+        return content;
+    }
+}
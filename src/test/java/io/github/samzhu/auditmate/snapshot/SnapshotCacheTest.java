@@ -0,0 +1,121 @@
+package io.github.samzhu.auditmate.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import io.github.samzhu.auditmate.audit.ByokKey;
+import io.github.samzhu.auditmate.configuration.AuditmateProperties;
+
+class SnapshotCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void servesCommittedSnapshotsWithinTheirTimeToLive() throws IOException {
+        SnapshotCache cache = cache(Duration.ofMinutes(15), DataSize.ofMegabytes(1));
+        write(cache, "demo-project", "byok", "etag-1", key("first"), key("second"));
+
+        Snapshot snapshot = cache.find("demo-project", "byok").orElseThrow();
+        List<ByokKey> replayed = new ArrayList<>();
+        assertEquals(2, snapshot.replay(SnapshotCodec.BYOK_KEY, replayed::add));
+
+        assertTrue(snapshot.fresh());
+        assertEquals("etag-1", snapshot.validator());
+        assertEquals(List.of(key("first"), key("second")), replayed);
+    }
+
+    @Test
+    void uncommittedSnapshotsAreDiscarded() throws IOException {
+        SnapshotCache cache = cache(Duration.ofMinutes(15), DataSize.ofMegabytes(1));
+        try (SnapshotWriter<ByokKey> writer = cache.writer("demo-project", "byok", SnapshotCodec.BYOK_KEY)) {
+            writer.append(key("partial"));
+        }
+
+        assertTrue(cache.find("demo-project", "byok").isEmpty());
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void expiredSnapshotsAreFreshAgainOnceRevalidated() throws IOException {
+        SnapshotCache cache = cache(Duration.ofMinutes(15), DataSize.ofMegabytes(1));
+        write(cache, "demo-project", "iam", "etag-1", key("member"));
+        Snapshot stored = cache.find("demo-project", "iam").orElseThrow();
+        Files.setLastModifiedTime(stored.file(), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        Snapshot expired = cache.find("demo-project", "iam").orElseThrow();
+        assertFalse(expired.fresh());
+        assertEquals("etag-1", expired.validator());
+
+        cache.touch(expired);
+        assertTrue(cache.find("demo-project", "iam").orElseThrow().fresh());
+    }
+
+    @Test
+    void evictsTheOldestSnapshotsOverTheSizeBudget() throws IOException {
+        SnapshotCache cache = cache(Duration.ofMinutes(15), DataSize.ofBytes(150));
+        write(cache, "old-project", "byok", "", key("a".repeat(40)));
+        Path oldFile = cache.find("old-project", "byok").orElseThrow().file();
+        Files.setLastModifiedTime(oldFile, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        write(cache, "new-project", "byok", "", key("b".repeat(40)));
+
+        assertTrue(cache.find("old-project", "byok").isEmpty());
+        assertTrue(cache.find("new-project", "byok").isPresent());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() throws IOException {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getSnapshot().setEnabled(false);
+        properties.getSnapshot().setDirectory(directory.toString());
+        SnapshotCache cache = new SnapshotCache(properties);
+
+        write(cache, "demo-project", "byok", "", key("first"));
+
+        Optional<Snapshot> snapshot = cache.find("demo-project", "byok");
+        assertTrue(snapshot.isEmpty());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private SnapshotCache cache(Duration ttl, DataSize maxSize) {
+        AuditmateProperties properties = new AuditmateProperties();
+        properties.getSnapshot().setDirectory(directory.toString());
+        properties.getSnapshot().setTtl(ttl);
+        properties.getSnapshot().setMaxSize(maxSize);
+        return new SnapshotCache(properties);
+    }
+
+    private static void write(SnapshotCache cache, String projectId, String stage, String validator, ByokKey... keys) {
+        try (SnapshotWriter<ByokKey> writer = cache.writer(projectId, stage, SnapshotCodec.BYOK_KEY)) {
+            for (ByokKey key : keys) {
+                writer.append(key);
+            }
+            writer.commit(validator);
+        }
+    }
+
+    private static ByokKey key(String name) {
+        return new ByokKey(name, "ENCRYPT_DECRYPT", "ENABLED", "Unknown");
+    }
+}
@@ -0,0 +1,128 @@
+#!/bin/bash
+
+# Startup benchmark against the offline stand-in backend (standin profile), for the JVM jar and the native binary.
+#
+# Measures for each run, in milliseconds from process start:
+#   tools/list   first MCP tools/list response over stdio
+#   first audit  performAudit of one stand-in project (JSON result), measured from the tools/list response
+#
+# Usage:
+#   ./startup-benchmark.sh jvm [runs] [--trace]   needs ./gradlew bootJar
+#   ./startup-benchmark.sh native [runs]          needs ./gradlew nativeCompile -PaotProfiles=standin
+#
+# --trace runs the JVM under the native-image agent and merges the reachability metadata it records
+# into src/main/resources/META-INF/native-image, the audit then also writes its Excel report.
+# Every run gets a fresh home directory, so snapshots, role and report files never carry over between runs.
+
+set -euo pipefail
+
+MODE=${1:-jvm}
+RUNS=${2:-5}
+TRACE=${3:-}
+PROJECT_ID=standin-project-001
+METADATA_DIR=src/main/resources/META-INF/native-image/io.github.samzhu/gcp-auditmate-mcp-server
+TIMEOUT_SECONDS=120
+
+case "$MODE" in
+  jvm)
+    JAR=$(ls build/libs/gcp-auditmate-mcp-server-*.jar 2>/dev/null | grep -v -- '-plain.jar' | head -n 1 || true)
+    if [ -z "$JAR" ]; then
+      echo "No boot jar found, run ./gradlew bootJar first" >&2
+      exit 1
+    fi
+    COMMAND=(java)
+    if [ "$TRACE" = "--trace" ]; then
+      COMMAND+=("-agentlib:native-image-agent=config-merge-dir=$METADATA_DIR")
+    fi
+    APPLICATION=(-jar "$JAR")
+    ;;
+  native)
+    COMMAND=(build/native/nativeCompile/gcp-auditmate-mcp-server)
+    if [ ! -x "${COMMAND[0]}" ]; then
+      echo "No native binary found, run ./gradlew nativeCompile -PaotProfiles=standin first" >&2
+      exit 1
+    fi
+    # Native images read -D system properties from their arguments
+    APPLICATION=()
+    ;;
+  *)
+    echo "Usage: $0 jvm|native [runs] [--trace]" >&2
+    exit 1
+    ;;
+esac
+
+WRITE_REPORT=false
+if [ "$TRACE" = "--trace" ]; then
+  WRITE_REPORT=true
+fi
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Read server output until the response with the given ID arrives
+await_response() {
+  local id=$1 line
+  while IFS= read -r -t "$TIMEOUT_SECONDS" line <&"${SERVER[0]}"; do
+    if [[ "$line" == *"\"id\":$id,"* || "$line" == *"\"id\":$id}"* ]]; then
+      if [[ "$line" == *"\"error\""* ]]; then
+        echo "Request $id failed: $line" >&2
+        return 1
+      fi
+      return 0
+    fi
+  done
+  echo "No response to request $id within ${TIMEOUT_SECONDS}s" >&2
+  return 1
+}
+
+send() {
+  printf '%s\n' "$1" >&"${SERVER[1]}"
+}
+
+run_once() {
+  local home
+  home=$(mktemp -d)
+  local started
+  started=$(now_ms)
+  coproc SERVER {
+    exec "${COMMAND[@]}" -Duser.home="$home" "${APPLICATION[@]}" --spring.profiles.active=standin 2>/dev/null
+  }
+
+  send '{"jsonrpc":"2.0","id":1,"method":"initialize","params":{"protocolVersion":"2024-11-05","capabilities":{},"clientInfo":{"name":"startup-benchmark","version":"1.0"}}}'
+  await_response 1
+  send '{"jsonrpc":"2.0","method":"notifications/initialized"}'
+  send '{"jsonrpc":"2.0","id":2,"method":"tools/list"}'
+  await_response 2
+  local listed
+  listed=$(now_ms)
+
+  send "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"name\":\"performAudit\",\"arguments\":{\"projectId\":\"$PROJECT_ID\",\"year\":\"2025\",\"quarter\":\"H1\",\"outputFormat\":\"json\",\"summaryOnly\":true,\"skipReport\":$([ "$WRITE_REPORT" = true ] && echo false || echo true)}}}"
+  await_response 3
+  local audited
+  audited=$(now_ms)
+
+  # Closing stdin ends the stdio transport, SIGTERM makes sure the server shuts down (and writes PGO profiles)
+  local pid=$SERVER_PID
+  eval "exec ${SERVER[1]}>&-"
+  kill -TERM "$pid" 2>/dev/null || true
+  wait "$pid" 2>/dev/null || true
+  rm -rf "$home"
+
+  echo "$(( listed - started )) $(( audited - listed ))"
+}
+
+echo "Mode: $MODE, runs: $RUNS, command: ${COMMAND[*]} ${APPLICATION[*]:-}"
+printf '%-6s %14s %16s\n' "run" "tools/list ms" "first audit ms"
+TOTAL_LIST=0
+TOTAL_AUDIT=0
+for run in $(seq 1 "$RUNS"); do
+  if ! read -r list_ms audit_ms < <(run_once); then
+    echo "Run $run failed" >&2
+    exit 1
+  fi
+  printf '%-6s %14s %16s\n' "$run" "$list_ms" "$audit_ms"
+  TOTAL_LIST=$(( TOTAL_LIST + list_ms ))
+  TOTAL_AUDIT=$(( TOTAL_AUDIT + audit_ms ))
+done
+printf '%-6s %14s %16s\n' "mean" "$(( TOTAL_LIST / RUNS ))" "$(( TOTAL_AUDIT / RUNS ))"